@@ -9,6 +9,7 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.ObservableMap;
 import kotlin.Pair;
+import seng202.team6.managers.ReadConnectionPool;
 import seng202.team6.model.Note;
 import seng202.team6.model.ReviewFilters;
 import seng202.team6.model.User;
@@ -26,6 +27,13 @@ import seng202.team6.util.Timer;
  */
 public class AggregatedDao extends Dao {
 
+  /**
+   * Conditions applied to the joined WINE_REVIEW and WINE tables for a set of review filters.
+   */
+  private static final String REVIEW_FILTER_CONDITIONS = "WINE_REVIEW.USERNAME LIKE ? "
+      + "AND WINE.TITLE LIKE ? "
+      + "AND WINE_REVIEW.RATING BETWEEN ? AND ? ";
+
   private final WineReviewDao wineReviewDao;
   private final WineNotesDao wineNotesDao;
   private final WineDao wineDao;
@@ -33,15 +41,17 @@ public class AggregatedDao extends Dao {
   /**
    * Constructs a new DAO with the given database connection and initializes references to DAOs.
    *
-   * @param connection   The database connection to be used by this DAO.
-   * @param wineNotesDao The DAO responsible for handling operations related to wine notes.
-   * @param wineDao      The DAO responsible for handling operations related to wines.
+   * @param connection      The database connection to be used by this DAO.
+   * @param readConnections The pool of connections to be used for reads by this DAO.
+   * @param wineNotesDao    The DAO responsible for handling operations related to wine notes.
+   * @param wineDao         The DAO responsible for handling operations related to wines.
    */
   public AggregatedDao(Connection connection,
+      ReadConnectionPool readConnections,
       WineReviewDao wineReviewDao,
       WineNotesDao wineNotesDao,
       WineDao wineDao) {
-    super(connection, AggregatedDao.class);
+    super(connection, readConnections, AggregatedDao.class);
     this.wineReviewDao = wineReviewDao;
     this.wineNotesDao = wineNotesDao;
     this.wineDao = wineDao;
@@ -58,12 +68,15 @@ public class AggregatedDao extends Dao {
    */
   public ObservableMap<Wine, Note> getAllNotesMappedWithWinesByUser(User user) throws SQLException {
     Timer timer = new Timer();
-    String sql = "SELECT WINE.ID as wine_id, WINE.*, NOTES.ID as note_id, NOTES.* "
+    String sql = "SELECT WINE.ID as wine_id, WINE.*, NOTES.ID as note_id, NOTES.*, "
+        + "GEOLOCATION.LATITUDE, GEOLOCATION.LONGITUDE "
         + "FROM NOTES "
         + "INNER JOIN WINE ON NOTES.WINE_ID = WINE.ID "
+        + "LEFT JOIN GEOLOCATION on GEOLOCATION.NAME = WINE.GEOLOCATION_NAME "
         + "WHERE NOTES.USERNAME = ?";
     ObservableMap<Wine, Note> wineAndNotes = FXCollections.observableHashMap();
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+    try (Connection reader = readConnection();
+        PreparedStatement statement = reader.prepareStatement(sql)) {
       statement.setString(1, user.getUsername());
 
       try (ResultSet resultSet = statement.executeQuery()) {
@@ -93,10 +106,11 @@ public class AggregatedDao extends Dao {
         + "FROM WINE "
         + "INNER JOIN LIST_ITEMS ON WINE.ID = LIST_ITEMS.WINE_ID "
         + "INNER JOIN LIST_NAME ON LIST_ITEMS.LIST_ID = LIST_NAME.ID "
-        + "LEFT JOIN GEOLOCATION on lower(WINE.REGION) like lower(GEOLOCATION.NAME) "
+        + "LEFT JOIN GEOLOCATION on GEOLOCATION.NAME = WINE.GEOLOCATION_NAME "
         + "WHERE LIST_NAME.ID = ?";
     ObservableList<WineDatePair> winesAndDates = FXCollections.observableArrayList();
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+    try (Connection reader = readConnection();
+        PreparedStatement statement = reader.prepareStatement(sql)) {
       statement.setLong(1, wineList.id());
 
       try (ResultSet resultSet = statement.executeQuery()) {
@@ -124,10 +138,11 @@ public class AggregatedDao extends Dao {
         + "FROM WINE "
         + "INNER JOIN LIST_ITEMS ON WINE.ID = LIST_ITEMS.WINE_ID "
         + "INNER JOIN LIST_NAME ON LIST_ITEMS.LIST_ID = LIST_NAME.ID "
-        + "LEFT JOIN GEOLOCATION on lower(WINE.REGION) like lower(GEOLOCATION.NAME) "
+        + "LEFT JOIN GEOLOCATION on GEOLOCATION.NAME = WINE.GEOLOCATION_NAME "
         + "WHERE LIST_NAME.ID = ?";
     ObservableList<Wine> wines = FXCollections.observableArrayList();
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+    try (Connection reader = readConnection();
+        PreparedStatement statement = reader.prepareStatement(sql)) {
       statement.setLong(1, wineList.id());
 
       try (ResultSet resultSet = statement.executeQuery()) {
@@ -144,6 +159,10 @@ public class AggregatedDao extends Dao {
 
   /**
    * Gets a list of wine reviews and wines given [optional] filters.
+   * <p>
+   * The range is found by seeking to the review before the start of the range and then reading a
+   * page after it with {@link #getWineReviewsAndWinesAfter(long, int, ReviewFilters)}.
+   * </p>
    *
    * @param begin   begin
    * @param end     end
@@ -152,49 +171,119 @@ public class AggregatedDao extends Dao {
    */
   public ObservableList<Pair<WineReview, Wine>> getWineReviewsAndWines(int begin, int end,
       ReviewFilters filters) throws SQLException {
+    Long cursor = seekWineReviewCursor(0, begin, filters);
+    if (cursor == null) {
+      return FXCollections.observableArrayList();
+    }
+    return getWineReviewsAndWinesAfter(cursor, end - begin, filters);
+  }
+
+  /**
+   * Gets a page of wine reviews and wines given [optional] filters using keyset pagination.
+   * Reviews are ordered by ID and only reviews with an ID greater than the cursor are returned.
+   * Each review and its wine are read from the same row of a single join.
+   *
+   * @param cursor  the ID of the last review before the page, or 0 to start from the first review
+   * @param limit   the maximum number of reviews to retrieve
+   * @param filters the review filters to filter by
+   * @return at most limit pairs following the cursor
+   */
+  public ObservableList<Pair<WineReview, Wine>> getWineReviewsAndWinesAfter(long cursor,
+      int limit, ReviewFilters filters) throws SQLException {
     Timer timer = new Timer();
-    // We are out of columns to rename, else we have 2 descriptions and it flicks between the two
-    String sql = "SELECT WINE.ID as wine_id, WINE_REVIEW.ID as wine_review_id, "
-        + "WINE_REVIEW.*, GEOLOCATION.LATITUDE, GEOLOCATION.LONGITUDE "
+    // The review description is renamed as it would otherwise clash with the wine description
+    String sql = "SELECT WINE.ID as wine_id, WINE.*, WINE_REVIEW.ID as wine_review_id, "
+        + "WINE_REVIEW.USERNAME, WINE_REVIEW.WINE_ID, WINE_REVIEW.RATING, "
+        + "WINE_REVIEW.DESCRIPTION as review_description, WINE_REVIEW.DATE, WINE_REVIEW.FLAG, "
+        + "GEOLOCATION.LATITUDE, GEOLOCATION.LONGITUDE "
         + "FROM WINE_REVIEW "
         + "INNER JOIN WINE ON WINE_REVIEW.WINE_ID = WINE.ID "
-        + "LEFT JOIN GEOLOCATION on lower(WINE.REGION) like lower(GEOLOCATION.NAME) "
-        + (filters == null ? "" : "WHERE WINE_REVIEW.USERNAME LIKE ? "
-        + "AND WINE.TITLE LIKE ? "
-        + "AND WINE_REVIEW.RATING BETWEEN ? AND ? ")
-        + "LIMIT ? "
-        + "OFFSET ?";
+        + "LEFT JOIN GEOLOCATION on GEOLOCATION.NAME = WINE.GEOLOCATION_NAME "
+        + "WHERE WINE_REVIEW.ID > ? "
+        + (filters == null ? "" : "AND " + REVIEW_FILTER_CONDITIONS)
+        + "ORDER BY WINE_REVIEW.ID "
+        + "LIMIT ?";
     ObservableList<Pair<WineReview, Wine>> wineReviewPairs = FXCollections.observableArrayList();
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
-      if (filters != null) {
-        statement.setString(1,
-            filters.getUsername().isEmpty() ? "%" : "%" + filters.getUsername() + "%");
-        statement.setString(2,
-            filters.getWineName().isEmpty() ? "%" : "%" + filters.getWineName() + "%");
-        statement.setInt(3, filters.getMinRating());
-        statement.setInt(4, filters.getMaxRating());
-        statement.setInt(5, end - begin);
-        statement.setInt(6, begin);
-      } else {
-        statement.setInt(1, end - begin);
-        statement.setInt(2, begin);
-      }
+    try (Connection reader = readConnection();
+        PreparedStatement statement = reader.prepareStatement(sql)) {
+      int paramIndex = 1;
+      statement.setLong(paramIndex++, cursor);
+      paramIndex = setReviewFilterParameters(statement, filters, paramIndex);
+      statement.setInt(paramIndex, limit);
 
       try (ResultSet resultSet = statement.executeQuery()) {
         while (resultSet.next()) {
           WineReview wineReview = wineReviewDao.extractWineReviewFromResultSet(resultSet,
-              "wine_review_id");
-          long wineKey = resultSet.getLong("wine_id");
-          Wine wine = wineDao.get(wineKey);
+              "wine_review_id", "review_description");
+          Wine wine = wineDao.extractWineFromResultSet(resultSet, "wine_id");
           wineReviewPairs.add(new Pair<>(wineReview, wine));
         }
-        log.info("Successfully retrieved {} reviews with wines in range {}-{} in {}ms",
-            wineReviewPairs.size(), begin, end, timer.currentOffsetMilliseconds());
+        log.info("Successfully retrieved {} reviews with wines after ID {} in {}ms",
+            wineReviewPairs.size(), cursor, timer.currentOffsetMilliseconds());
         return wineReviewPairs;
       }
     }
   }
 
+  /**
+   * Finds the cursor which is a number of reviews after another cursor. Only review IDs are read,
+   * so this is cheaper than reading and discarding whole rows.
+   *
+   * @param cursor  the cursor to seek from, or 0 to seek from the first review
+   * @param offset  the number of reviews to skip after the cursor
+   * @param filters the review filters to filter by
+   * @return the ID of the last skipped review, the cursor itself if offset is 0, or null if there
+   *     are fewer than offset reviews after the cursor
+   */
+  public Long seekWineReviewCursor(long cursor, int offset, ReviewFilters filters)
+      throws SQLException {
+    if (offset <= 0) {
+      return cursor;
+    }
+    String sql = "SELECT WINE_REVIEW.ID "
+        + "FROM WINE_REVIEW "
+        + "INNER JOIN WINE ON WINE_REVIEW.WINE_ID = WINE.ID "
+        + "WHERE WINE_REVIEW.ID > ? "
+        + (filters == null ? "" : "AND " + REVIEW_FILTER_CONDITIONS)
+        + "ORDER BY WINE_REVIEW.ID "
+        + "LIMIT 1 OFFSET ?";
+    try (Connection reader = readConnection();
+        PreparedStatement statement = reader.prepareStatement(sql)) {
+      int paramIndex = 1;
+      statement.setLong(paramIndex++, cursor);
+      paramIndex = setReviewFilterParameters(statement, filters, paramIndex);
+      statement.setInt(paramIndex, offset - 1);
+
+      try (ResultSet resultSet = statement.executeQuery()) {
+        return resultSet.next() ? resultSet.getLong(1) : null;
+      }
+    }
+  }
+
+  /**
+   * Sets the parameters of {@link #REVIEW_FILTER_CONDITIONS} on a statement. Does nothing if there
+   * are no filters.
+   *
+   * @param statement  the statement to set the parameters of
+   * @param filters    the review filters to filter by, may be null
+   * @param paramIndex the index of the first filter parameter
+   * @return the index of the next parameter after the filter parameters
+   * @throws SQLException if a parameter could not be set
+   */
+  private int setReviewFilterParameters(PreparedStatement statement, ReviewFilters filters,
+      int paramIndex) throws SQLException {
+    if (filters == null) {
+      return paramIndex;
+    }
+    statement.setString(paramIndex++,
+        filters.getUsername().isEmpty() ? "%" : "%" + filters.getUsername() + "%");
+    statement.setString(paramIndex++,
+        filters.getWineName().isEmpty() ? "%" : "%" + filters.getWineName() + "%");
+    statement.setInt(paramIndex++, filters.getMinRating());
+    statement.setInt(paramIndex++, filters.getMaxRating());
+    return paramIndex;
+  }
+
   /**
    * Retrieves all wines which are associated with a vineyard.
    *
@@ -205,10 +294,11 @@ public class AggregatedDao extends Dao {
     Timer timer = new Timer();
     String sql = "SELECT WINE.ID as wine_id, WINE.*, GEOLOCATION.LATITUDE, GEOLOCATION.LONGITUDE "
         + "FROM WINE "
-        + "LEFT JOIN GEOLOCATION on lower(WINE.REGION) like lower(GEOLOCATION.NAME) "
+        + "LEFT JOIN GEOLOCATION on GEOLOCATION.NAME = WINE.GEOLOCATION_NAME "
         + "WHERE WINERY = ?";
     ObservableList<Wine> wines = FXCollections.observableArrayList();
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+    try (Connection reader = readConnection();
+        PreparedStatement statement = reader.prepareStatement(sql)) {
       statement.setString(1, vineyard.getName());
 
       try (ResultSet resultSet = statement.executeQuery()) {
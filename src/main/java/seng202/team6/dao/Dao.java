@@ -1,8 +1,15 @@
 package seng202.team6.dao;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import seng202.team6.managers.ReadConnectionPool;
 
 /**
  * Abstract base class for Data Access Objects (DAO). This class provides a common structure for all
@@ -21,16 +28,47 @@ public abstract class Dao {
   protected final Logger log;
 
   /**
-   * Constructs a new DAO with the given database connection and initializes logging.
+   * The pool of connections borrowed by read methods.
+   */
+  private final ReadConnectionPool readConnections;
+
+  /**
+   * Constructs a new DAO with the given database connection and initializes logging. Reads use
+   * the same connection as writes.
    *
    * @param connection          The database connection to be used by this DAO.
    * @param implementationClass The class that implements this DAO, used to configure the logger.
    */
   public Dao(Connection connection, Class<?> implementationClass) {
+    this(connection, ReadConnectionPool.sharing(connection), implementationClass);
+  }
+
+  /**
+   * Constructs a new DAO with the given database connection and a pool of connections for reads,
+   * and initializes logging.
+   *
+   * @param connection          The database connection to be used by this DAO for writes.
+   * @param readConnections     The pool of connections to be used by this DAO for reads.
+   * @param implementationClass The class that implements this DAO, used to configure the logger.
+   */
+  public Dao(Connection connection, ReadConnectionPool readConnections,
+      Class<?> implementationClass) {
     this.connection = connection;
+    this.readConnections = readConnections;
     this.log = LogManager.getLogger(implementationClass);
   }
 
+  /**
+   * Borrows a connection for a read which does not need to see uncommitted writes. The connection
+   * must be closed, preferably with try-with-resources, to return it to the pool.
+   *
+   * @return the borrowed connection
+   * @throws SQLException if a connection could not be borrowed
+   */
+  protected Connection readConnection() throws SQLException {
+    return readConnections.borrow();
+  }
+
   /**
    * Returns an array of SQL statements required to initialize the tables handled by this DAO.
    * Subclasses should override this method to provide their specific SQL initialization
@@ -43,4 +81,135 @@ public abstract class Dao {
     return null;
   }
 
+  /**
+   * Returns the schema migrations for the tables handled by this DAO. Migrations are applied once
+   * per database after the initialise statements, so they are used for changes such as indexes and
+   * new columns which must also reach existing databases. Subclasses should override this method
+   * to provide their migrations.
+   *
+   * @return an array of migrations, or null if no migrations are needed.
+   */
+  public Migration[] getMigrations() {
+    return null;
+  }
+
+  /**
+   * Drops the triggers which increment the version of a catalog table for each changed row, so a
+   * bulk change increments it once instead. This should be done inside the transaction of the
+   * change, which should end with {@link #resumeCatalogVersion(Statement, String)}.
+   *
+   * @param statement the statement to drop the triggers with
+   * @param catalog   the name of the catalog table, such as WINE or VINEYARD
+   * @throws SQLException if the triggers could not be dropped
+   */
+  protected static void suspendCatalogVersion(Statement statement, String catalog)
+      throws SQLException {
+    for (String trigger : StatSnapshotDao.getCatalogTriggerNames(catalog)) {
+      statement.execute("DROP TRIGGER IF EXISTS " + trigger);
+    }
+  }
+
+  /**
+   * Recreates the triggers dropped by {@link #suspendCatalogVersion(Statement, String)} and
+   * increments the version of the catalog table once for the whole bulk change.
+   *
+   * @param statement the statement to create the triggers with
+   * @param catalog   the name of the catalog table, such as WINE or VINEYARD
+   * @throws SQLException if the triggers could not be created or the version incremented
+   */
+  protected static void resumeCatalogVersion(Statement statement, String catalog)
+      throws SQLException {
+    for (String sql : StatSnapshotDao.getCatalogTriggers(catalog)) {
+      statement.execute(sql);
+    }
+    statement.executeUpdate("UPDATE CATALOG_VERSION SET VERSION = VERSION + 1 "
+        + "WHERE NAME = '" + catalog + "'");
+  }
+
+  /**
+   * Reads the version of a catalog table. The version is incremented by triggers whenever a row of
+   * the table is inserted, updated or deleted, or once by a bulk change, so anything derived from
+   * the table is current for as long as the version stays the same.
+   *
+   * @param reader  the connection to read the version with
+   * @param catalog the name of the catalog table, such as WINE or VINEYARD
+   * @return the version of the table
+   * @throws SQLException if the version could not be read
+   */
+  protected long getCatalogVersion(Connection reader, String catalog) throws SQLException {
+    String sql = "SELECT VERSION FROM CATALOG_VERSION WHERE NAME = ?";
+    try (PreparedStatement statement = reader.prepareStatement(sql)) {
+      statement.setString(1, catalog);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        return resultSet.next() ? resultSet.getLong(1) : 0;
+      }
+    }
+  }
+
+  /**
+   * Checks whether a table in the database has a column with the given name.
+   *
+   * @param table  the name of the table to check
+   * @param column the name of the column to look for
+   * @return true if the table has the column, false otherwise
+   * @throws SQLException if the table info could not be read
+   */
+  protected boolean hasColumn(String table, String column) throws SQLException {
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("PRAGMA table_info(" + table + ")")) {
+      while (resultSet.next()) {
+        if (column.equalsIgnoreCase(resultSet.getString("name"))) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Drops the indexes of a table which were created with CREATE INDEX, so they can be rebuilt in
+   * one pass with {@link #createIndexes(List)} after a bulk insert instead of being updated row by
+   * row. This should be done inside the transaction of the insert so that no other reader sees the
+   * table without its indexes.
+   *
+   * @param table the name of the table
+   * @return the statements which create the dropped indexes
+   * @throws SQLException if the indexes could not be dropped
+   */
+  protected List<String> dropIndexes(String table) throws SQLException {
+    String sql = "SELECT NAME, SQL FROM sqlite_master "
+        + "WHERE TYPE = 'index' AND TBL_NAME = ? AND SQL IS NOT NULL";
+    List<String> names = new ArrayList<>();
+    List<String> indexes = new ArrayList<>();
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      statement.setString(1, table);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        while (resultSet.next()) {
+          names.add(resultSet.getString("NAME"));
+          indexes.add(resultSet.getString("SQL"));
+        }
+      }
+    }
+    try (Statement statement = connection.createStatement()) {
+      for (String name : names) {
+        statement.execute("DROP INDEX \"" + name + "\"");
+      }
+    }
+    return indexes;
+  }
+
+  /**
+   * Creates indexes which were dropped with {@link #dropIndexes(String)}.
+   *
+   * @param indexes the statements which create the indexes
+   * @throws SQLException if an index could not be created
+   */
+  protected void createIndexes(List<String> indexes) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      for (String sql : indexes) {
+        statement.execute(sql);
+      }
+    }
+  }
+
 }
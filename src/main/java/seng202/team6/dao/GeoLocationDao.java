@@ -21,6 +21,14 @@ import seng202.team6.util.Timer;
  */
 public class GeoLocationDao extends Dao {
 
+  /**
+   * Resolves the geolocation of wines without one whose region matches a geolocation name.
+   */
+  static final String RESOLVE_WINE_GEOLOCATIONS_SQL = "UPDATE WINE SET GEOLOCATION_NAME = ("
+      + "SELECT NAME FROM GEOLOCATION WHERE NAME = WINE.REGION COLLATE NOCASE) "
+      + "WHERE GEOLOCATION_NAME IS NULL "
+      + "AND EXISTS (SELECT 1 FROM GEOLOCATION WHERE NAME = WINE.REGION COLLATE NOCASE)";
+
   /**
    * Constructs a new GeoLocationDAO with the given database connection.
    *
@@ -42,7 +50,10 @@ public class GeoLocationDao extends Dao {
             + "NAME           VARCHAR(64)   PRIMARY KEY,"
             + "LATITUDE       DECIMAL       NOT NULL,"
             + "LONGITUDE      DECIMAL       NOT NULL"
-            + ")"
+            + ")",
+        // lets wine regions be resolved to a geolocation without scanning the table
+        "CREATE INDEX IF NOT EXISTS GEOLOCATION_NAME_NOCASE "
+            + "ON GEOLOCATION (NAME COLLATE NOCASE)"
     };
   }
 
@@ -65,6 +76,7 @@ public class GeoLocationDao extends Dao {
     int rowsAffected = batchInsertGeoLocations(sql, rows);
     log.info("Successfully added {} out of {} default geolocations in {}ms",
         rowsAffected, rows.size(), timer.currentOffsetMilliseconds());
+    resolveWineGeoLocations();
   }
 
   /**
@@ -85,9 +97,31 @@ public class GeoLocationDao extends Dao {
 
       int rowsAffected = Arrays.stream(statement.executeBatch()).sum();
       log.info("Successfully added {} geolocations in {}ms",
-          rowsAffected, rowsAffected, timer.currentOffsetMilliseconds());
+          rowsAffected, timer.currentOffsetMilliseconds());
     } catch (SQLException error) {
       log.error("Failed to add geolocations", error);
+      return;
+    }
+    resolveWineGeoLocations();
+  }
+
+  /**
+   * Resolves the geolocation of every wine which does not have one yet but whose region matches a
+   * geolocation name, ignoring case. This is run after geolocations are added so that wines
+   * imported before their region was known pick up the new geolocation.
+   *
+   * @return the number of wines which had their geolocation resolved
+   */
+  public int resolveWineGeoLocations() {
+    Timer timer = new Timer();
+    try (Statement statement = connection.createStatement()) {
+      int rowsAffected = statement.executeUpdate(RESOLVE_WINE_GEOLOCATIONS_SQL);
+      log.info("Successfully resolved the geolocation of {} wines in {}ms",
+          rowsAffected, timer.currentOffsetMilliseconds());
+      return rowsAffected;
+    } catch (SQLException error) {
+      log.error("Failed to resolve the geolocations of wines", error);
+      return 0;
     }
   }
 
@@ -0,0 +1,275 @@
+package seng202.team6.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import seng202.team6.model.GeoLocation;
+import seng202.team6.util.Timer;
+
+/**
+ * Data Access Object (DAO) for the cache of geocoded addresses.
+ * <p>
+ * Both addresses which were resolved and addresses which a geocoding service could not find are
+ * cached, so an unresolvable address is not looked up again on every startup. Each entry expires
+ * after a time to live, which is shorter for addresses which could not be found as the geocoding
+ * service may learn them later. Expired entries are ignored when the cache is read and removed
+ * once when the database is opened. Addresses are cached by a normalised key so addresses
+ * differing only in case or spacing share an entry.
+ * </p>
+ */
+public class GeocodeCacheDao extends Dao {
+
+  /**
+   * The default time to live of an address which was resolved.
+   */
+  public static final Duration RESOLVED_TTL = Duration.ofDays(180);
+
+  /**
+   * The default time to live of an address which could not be found.
+   */
+  public static final Duration UNRESOLVED_TTL = Duration.ofDays(7);
+
+  /**
+   * The number of addresses looked up by each query, which keeps the number of parameters under
+   * the limit of SQLite.
+   */
+  private static final int KEY_BATCH_SIZE = 500;
+
+  private final Duration resolvedTtl;
+  private final Duration unresolvedTtl;
+  private final Clock clock;
+
+  /**
+   * Constructs a new GeocodeCacheDao with the default times to live.
+   *
+   * @param connection The database connection to be used for cache operations
+   */
+  public GeocodeCacheDao(Connection connection) {
+    this(connection, RESOLVED_TTL, UNRESOLVED_TTL, Clock.systemUTC());
+  }
+
+  /**
+   * Constructs a new GeocodeCacheDao.
+   *
+   * @param connection    The database connection to be used for cache operations
+   * @param resolvedTtl   The time to live of an address which was resolved
+   * @param unresolvedTtl The time to live of an address which could not be found
+   * @param clock         The clock entries are stamped with and expired by
+   */
+  public GeocodeCacheDao(Connection connection, Duration resolvedTtl, Duration unresolvedTtl,
+      Clock clock) {
+    super(connection, GeocodeCacheDao.class);
+    this.resolvedTtl = resolvedTtl;
+    this.unresolvedTtl = unresolvedTtl;
+    this.clock = clock;
+  }
+
+  /**
+   * Returns the SQL statements required to initialise the GEOCODE_CACHE table.
+   *
+   * @return Array of SQL statements for initialising the GEOCODE_CACHE table
+   */
+  @Override
+  public String[] getInitialiseStatements() {
+    return new String[]{
+        "CREATE TABLE IF NOT EXISTS GEOCODE_CACHE ("
+            + "ADDRESS_KEY    VARCHAR(256)  PRIMARY KEY,"
+            + "LATITUDE       DECIMAL,"
+            + "LONGITUDE      DECIMAL,"
+            + "CACHED_AT      INTEGER       NOT NULL"
+            + ")"
+    };
+  }
+
+  /**
+   * Returns the migrations for the GEOCODE_CACHE table.
+   *
+   * @return Array of migrations for the GEOCODE_CACHE table
+   */
+  @Override
+  public Migration[] getMigrations() {
+    return new Migration[]{
+        Migration.of(12, "Index geocoded addresses by the time they were cached",
+            "CREATE INDEX IF NOT EXISTS GEOCODE_CACHE_CACHED_AT ON GEOCODE_CACHE (CACHED_AT)")
+    };
+  }
+
+  /**
+   * Normalises an address into the key it is cached by. The key ignores case, surrounding and
+   * repeated whitespace, and whitespace around commas.
+   *
+   * @param address the address
+   * @return the key of the address
+   */
+  public static String normalizeAddress(String address) {
+    return address.strip()
+        .toLowerCase(Locale.ROOT)
+        .replaceAll("\\s+", " ")
+        .replaceAll(" ?, ?", ", ");
+  }
+
+  /**
+   * Gets the cached entries of addresses which have not expired.
+   *
+   * @param addresses the addresses to look up
+   * @return a map of each address with a current entry to its entry
+   * @throws SQLException if the cache could not be read
+   */
+  public Map<String, CachedLocation> getAll(Collection<String> addresses) throws SQLException {
+    Timer timer = new Timer();
+    Map<String, List<String>> addressesByKey = new HashMap<>();
+    for (String address : addresses) {
+      addressesByKey.computeIfAbsent(normalizeAddress(address), key -> new ArrayList<>())
+          .add(address);
+    }
+    List<String> keys = new ArrayList<>(addressesByKey.keySet());
+    long now = clock.millis();
+
+    Map<String, CachedLocation> cached = new HashMap<>();
+    try (Connection reader = readConnection()) {
+      for (int start = 0; start < keys.size(); start += KEY_BATCH_SIZE) {
+        List<String> batch = keys.subList(start, Math.min(start + KEY_BATCH_SIZE, keys.size()));
+        String sql = "SELECT ADDRESS_KEY, LATITUDE, LONGITUDE FROM GEOCODE_CACHE "
+            + "WHERE ADDRESS_KEY IN (" + String.join(",", Collections.nCopies(batch.size(), "?"))
+            + ") "
+            + "AND CACHED_AT > CASE WHEN LATITUDE IS NULL THEN ? ELSE ? END";
+        try (PreparedStatement statement = reader.prepareStatement(sql)) {
+          int paramIndex = 1;
+          for (String key : batch) {
+            statement.setString(paramIndex++, key);
+          }
+          statement.setLong(paramIndex++, now - unresolvedTtl.toMillis());
+          statement.setLong(paramIndex, now - resolvedTtl.toMillis());
+
+          try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+              double latitude = resultSet.getDouble("LATITUDE");
+              CachedLocation entry = new CachedLocation(resultSet.wasNull() ? null
+                  : new GeoLocation(latitude, resultSet.getDouble("LONGITUDE")));
+              for (String address : addressesByKey.get(resultSet.getString("ADDRESS_KEY"))) {
+                cached.put(address, entry);
+              }
+            }
+          }
+        }
+      }
+    }
+    log.info("Successfully found {} out of {} addresses in the geocode cache in {}ms",
+        cached.size(), addresses.size(), timer.currentOffsetMilliseconds());
+    return cached;
+  }
+
+  /**
+   * Caches the results of looking up addresses in one transaction, replacing any previous entries
+   * of the addresses.
+   *
+   * @param locations a map of addresses to their geolocations, or to null for addresses which
+   *                  could not be found
+   * @throws SQLException if the cache could not be written, in which case nothing is changed
+   */
+  public void putAll(Map<String, GeoLocation> locations) throws SQLException {
+    Timer timer = new Timer();
+    long now = clock.millis();
+    connection.setAutoCommit(false);
+    try {
+      insertAll(locations, now);
+      connection.commit();
+      log.info("Successfully cached {} geocoded addresses in {}ms", locations.size(),
+          timer.currentOffsetMilliseconds());
+    } catch (SQLException error) {
+      connection.rollback();
+      throw error;
+    } finally {
+      connection.setAutoCommit(true);
+    }
+  }
+
+  /**
+   * Inserts cache entries for the results of looking up addresses.
+   *
+   * @param locations a map of addresses to their geolocations, or to null for addresses which
+   *                  could not be found
+   * @param now       the time the entries are cached at in milliseconds since the epoch
+   * @throws SQLException if the entries could not be inserted
+   */
+  private void insertAll(Map<String, GeoLocation> locations, long now) throws SQLException {
+    String sql = "INSERT OR REPLACE INTO GEOCODE_CACHE (ADDRESS_KEY, LATITUDE, LONGITUDE, "
+        + "CACHED_AT) VALUES (?, ?, ?, ?)";
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      for (Entry<String, GeoLocation> entry : locations.entrySet()) {
+        statement.setString(1, normalizeAddress(entry.getKey()));
+        GeoLocation location = entry.getValue();
+        if (location == null) {
+          statement.setNull(2, Types.DECIMAL);
+          statement.setNull(3, Types.DECIMAL);
+        } else {
+          statement.setDouble(2, location.getLatitude());
+          statement.setDouble(3, location.getLongitude());
+        }
+        statement.setLong(4, now);
+        statement.addBatch();
+      }
+      statement.executeBatch();
+    }
+  }
+
+  /**
+   * Removes every expired entry from the cache.
+   *
+   * @return the number of entries removed
+   * @throws SQLException if the entries could not be removed
+   */
+  public int removeExpired() throws SQLException {
+    return removeExpired(clock.millis());
+  }
+
+  /**
+   * Removes the entries of the cache which have expired by a time.
+   *
+   * @param now the time in milliseconds since the epoch
+   * @return the number of entries removed
+   * @throws SQLException if the entries could not be removed
+   */
+  private int removeExpired(long now) throws SQLException {
+    long unresolvedExpiry = now - unresolvedTtl.toMillis();
+    long resolvedExpiry = now - resolvedTtl.toMillis();
+    // the first bound lets the range of the CACHED_AT index be searched instead of every entry
+    String sql = "DELETE FROM GEOCODE_CACHE WHERE CACHED_AT <= ? "
+        + "AND CACHED_AT <= CASE WHEN LATITUDE IS NULL THEN ? ELSE ? END";
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      statement.setLong(1, Math.max(unresolvedExpiry, resolvedExpiry));
+      statement.setLong(2, unresolvedExpiry);
+      statement.setLong(3, resolvedExpiry);
+      return statement.executeUpdate();
+    }
+  }
+
+  /**
+   * A cached result of looking up an address.
+   *
+   * @param location the geolocation of the address, or null if the address could not be found
+   */
+  public record CachedLocation(GeoLocation location) {
+
+    /**
+     * Checks whether the address was found.
+     *
+     * @return true if the address has a geolocation
+     */
+    public boolean isResolved() {
+      return location != null;
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package seng202.team6.dao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * A single versioned change to the database schema.
+ * <p>
+ * Migrations are contributed by each DAO and applied in order of their version by the
+ * {@link SchemaVersionDao}. Each migration is applied at most once per database, so its step must
+ * also be safe to run against a database created with the latest table definitions.
+ * </p>
+ *
+ * @param version     the unique version of the migration, migrations are applied in ascending order
+ * @param description a short description of what the migration changes
+ * @param step        the step which applies the migration
+ */
+public record Migration(int version, String description, Step step) {
+
+  /**
+   * Creates a migration which executes the given SQL statements in order.
+   *
+   * @param version     the unique version of the migration
+   * @param description a short description of what the migration changes
+   * @param statements  the SQL statements to execute
+   * @return the migration
+   */
+  public static Migration of(int version, String description, String... statements) {
+    return new Migration(version, description, connection -> {
+      try (Statement statement = connection.createStatement()) {
+        for (String sql : statements) {
+          statement.execute(sql);
+        }
+      }
+    });
+  }
+
+  /**
+   * Callback which applies a migration to the database.
+   */
+  public interface Step {
+
+    /**
+     * Applies the migration using the given connection. The step is run inside a transaction which
+     * is rolled back if an exception is thrown.
+     *
+     * @param connection the database connection
+     * @throws SQLException if the migration could not be applied
+     */
+    void apply(Connection connection) throws SQLException;
+  }
+}
@@ -0,0 +1,139 @@
+package seng202.team6.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import seng202.team6.util.Timer;
+
+/**
+ * Data Access Object (DAO) for tracking which schema migrations have been applied to the database.
+ */
+public class SchemaVersionDao extends Dao {
+
+  /**
+   * Constructs a new SchemaVersionDao with the given database connection.
+   *
+   * @param connection The database connection to be used for schema version operations.
+   */
+  public SchemaVersionDao(Connection connection) {
+    super(connection, SchemaVersionDao.class);
+  }
+
+  /**
+   * Returns the SQL statements required to initialise the SCHEMA_VERSION table.
+   *
+   * @return Array of SQL statements for initialising the SCHEMA_VERSION table
+   */
+  @Override
+  public String[] getInitialiseStatements() {
+    return new String[]{
+        "CREATE TABLE IF NOT EXISTS SCHEMA_VERSION ("
+            + "VERSION        INTEGER       PRIMARY KEY,"
+            + "DESCRIPTION    TEXT          NOT NULL,"
+            + "APPLIED_AT     TIMESTAMP     DEFAULT CURRENT_TIMESTAMP"
+            + ")"
+    };
+  }
+
+  /**
+   * Retrieves the versions of all migrations which have been applied to the database.
+   *
+   * @return a set of applied migration versions
+   * @throws SQLException if the versions could not be read
+   */
+  public Set<Integer> getAppliedVersions() throws SQLException {
+    String sql = "SELECT VERSION FROM SCHEMA_VERSION";
+    Set<Integer> versions = new HashSet<>();
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(sql)) {
+      while (resultSet.next()) {
+        versions.add(resultSet.getInt("VERSION"));
+      }
+    }
+    return versions;
+  }
+
+  /**
+   * Retrieves the highest migration version applied to the database.
+   *
+   * @return the current schema version, or 0 if no migrations have been applied
+   * @throws SQLException if the version could not be read
+   */
+  public int getCurrentVersion() throws SQLException {
+    String sql = "SELECT MAX(VERSION) FROM SCHEMA_VERSION";
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(sql)) {
+      return resultSet.next() ? resultSet.getInt(1) : 0;
+    }
+  }
+
+  /**
+   * Applies every migration which has not yet been applied to the database, in ascending order of
+   * version. Each migration is applied and recorded in its own transaction, so a failed migration
+   * leaves the database at the last successfully applied version.
+   *
+   * @param migrations the migrations contributed by the DAOs
+   * @return the number of migrations applied
+   * @throws SQLException          if a migration could not be applied
+   * @throws IllegalStateException if two migrations share a version
+   */
+  public int migrate(List<Migration> migrations) throws SQLException {
+    Timer timer = new Timer();
+    List<Migration> ordered = migrations.stream()
+        .sorted(Comparator.comparingInt(Migration::version))
+        .toList();
+    for (int i = 1; i < ordered.size(); i++) {
+      if (ordered.get(i).version() == ordered.get(i - 1).version()) {
+        throw new IllegalStateException("Duplicate migration version "
+            + ordered.get(i).version());
+      }
+    }
+
+    Set<Integer> appliedVersions = getAppliedVersions();
+    int applied = 0;
+    for (Migration migration : ordered) {
+      if (!appliedVersions.contains(migration.version())) {
+        apply(migration);
+        applied++;
+      }
+    }
+    log.info("Successfully applied {} out of {} migrations in {}ms",
+        applied, ordered.size(), timer.currentOffsetMilliseconds());
+    return applied;
+  }
+
+  /**
+   * Applies a single migration and records its version in one transaction.
+   *
+   * @param migration the migration to apply
+   * @throws SQLException if the migration could not be applied
+   */
+  private void apply(Migration migration) throws SQLException {
+    Timer timer = new Timer();
+    String sql = "INSERT INTO SCHEMA_VERSION (VERSION, DESCRIPTION) VALUES (?, ?)";
+    boolean autoCommit = connection.getAutoCommit();
+    connection.setAutoCommit(false);
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      migration.step().apply(connection);
+      statement.setInt(1, migration.version());
+      statement.setString(2, migration.description());
+      statement.executeUpdate();
+      connection.commit();
+      log.info("Successfully applied migration {} '{}' in {}ms", migration.version(),
+          migration.description(), timer.currentOffsetMilliseconds());
+    } catch (SQLException error) {
+      log.error("Failed to apply migration {} '{}'", migration.version(),
+          migration.description(), error);
+      connection.rollback();
+      throw error;
+    } finally {
+      connection.setAutoCommit(autoCommit);
+    }
+  }
+}
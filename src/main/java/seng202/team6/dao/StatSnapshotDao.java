@@ -0,0 +1,210 @@
+package seng202.team6.dao;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import seng202.team6.service.PersistedStats;
+import seng202.team6.util.Timer;
+
+/**
+ * Data Access Object (DAO) for the versions of the catalog tables and the snapshots of the stats
+ * derived from them.
+ * <p>
+ * Triggers increment the version of the WINE and VINEYARD tables whenever one of their rows
+ * changes, except during bulk changes, which drop the triggers and increment the version once. A
+ * snapshot is stored with the version it was built from and is only loaded while that version is
+ * still current, so stats are never loaded for a catalog which has since changed.
+ * </p>
+ */
+public class StatSnapshotDao extends Dao {
+
+  /**
+   * The name of the WINE catalog and the snapshot of its stats.
+   */
+  public static final String WINE_CATALOG = "WINE";
+
+  /**
+   * The name of the VINEYARD catalog and the snapshot of its stats.
+   */
+  public static final String VINEYARD_CATALOG = "VINEYARD";
+
+  /**
+   * The version of the snapshot format, which is written at the start of each snapshot so a
+   * snapshot written in an older format is rebuilt instead of misread.
+   */
+  private static final int FORMAT_VERSION = 1;
+
+  /**
+   * The events on a catalog table which increment its version.
+   */
+  private static final List<String> CATALOG_EVENTS = List.of("INSERT", "UPDATE", "DELETE");
+
+  /**
+   * Constructs a new StatSnapshotDao with the given database connection.
+   *
+   * @param connection The database connection to be used for snapshot operations
+   */
+  public StatSnapshotDao(Connection connection) {
+    super(connection, StatSnapshotDao.class);
+  }
+
+  /**
+   * Returns the SQL statements required to initialise the CATALOG_VERSION and STAT_SNAPSHOT
+   * tables.
+   *
+   * @return Array of SQL statements for initialising the tables
+   */
+  @Override
+  public String[] getInitialiseStatements() {
+    return new String[]{
+        "CREATE TABLE IF NOT EXISTS CATALOG_VERSION ("
+            + "NAME           VARCHAR(32)   PRIMARY KEY,"
+            + "VERSION        INTEGER       NOT NULL"
+            + ")",
+        "INSERT OR IGNORE INTO CATALOG_VERSION (NAME, VERSION) "
+            + "VALUES ('" + WINE_CATALOG + "', 0), ('" + VINEYARD_CATALOG + "', 0)",
+        "CREATE TABLE IF NOT EXISTS STAT_SNAPSHOT ("
+            + "NAME           VARCHAR(32)   PRIMARY KEY,"
+            + "VERSION        INTEGER       NOT NULL,"
+            + "DATA           BLOB          NOT NULL"
+            + ")"
+    };
+  }
+
+  /**
+   * Returns the migrations which add the triggers incrementing the catalog versions.
+   *
+   * @return the migrations of the catalog versions
+   */
+  @Override
+  public Migration[] getMigrations() {
+    List<String> triggers = new ArrayList<>();
+    for (String catalog : List.of(WINE_CATALOG, VINEYARD_CATALOG)) {
+      triggers.addAll(getCatalogTriggers(catalog));
+    }
+    return new Migration[]{
+        Migration.of(7, "Version the wine and vineyard catalogs",
+            triggers.toArray(new String[0]))
+    };
+  }
+
+  /**
+   * Returns the names of the triggers which increment the version of a catalog table.
+   *
+   * @param catalog the name of the catalog table
+   * @return the names of the triggers
+   */
+  static List<String> getCatalogTriggerNames(String catalog) {
+    return CATALOG_EVENTS.stream().map(event -> catalog + "_CATALOG_VERSION_" + event).toList();
+  }
+
+  /**
+   * Returns the statements which create the triggers incrementing the version of a catalog table
+   * whenever one of its rows is inserted, updated or deleted.
+   *
+   * @param catalog the name of the catalog table
+   * @return the statements creating the triggers
+   */
+  static List<String> getCatalogTriggers(String catalog) {
+    return CATALOG_EVENTS.stream()
+        .map(event -> "CREATE TRIGGER IF NOT EXISTS " + catalog + "_CATALOG_VERSION_" + event + " "
+            + "AFTER " + event + " ON " + catalog + " "
+            + "FOR EACH ROW "
+            + "BEGIN "
+            + "UPDATE CATALOG_VERSION SET VERSION = VERSION + 1 WHERE NAME = '" + catalog + "'; "
+            + "END")
+        .toList();
+  }
+
+  /**
+   * Gets the current version of a catalog table.
+   *
+   * @param catalog the name of the catalog table
+   * @return the version of the table
+   * @throws SQLException if the version could not be read
+   */
+  public long getCatalogVersion(String catalog) throws SQLException {
+    try (Connection reader = readConnection()) {
+      return getCatalogVersion(reader, catalog);
+    }
+  }
+
+  /**
+   * Loads the snapshot of a set of stats if it was built from the current version of its catalog
+   * table. The stats are left unchanged if there is no current snapshot.
+   *
+   * @param catalog the name of the catalog table the stats are derived from
+   * @param stats   the stats to load the snapshot into
+   * @return true if the snapshot was loaded, false if it is missing or out of date
+   * @throws SQLException if the snapshot could not be read
+   */
+  public boolean loadSnapshot(String catalog, PersistedStats stats) throws SQLException {
+    Timer timer = new Timer();
+    String sql = "SELECT STAT_SNAPSHOT.VERSION, STAT_SNAPSHOT.DATA FROM STAT_SNAPSHOT "
+        + "JOIN CATALOG_VERSION ON CATALOG_VERSION.NAME = STAT_SNAPSHOT.NAME "
+        + "AND CATALOG_VERSION.VERSION = STAT_SNAPSHOT.VERSION "
+        + "WHERE STAT_SNAPSHOT.NAME = ?";
+    try (Connection reader = readConnection();
+        PreparedStatement statement = reader.prepareStatement(sql)) {
+      statement.setString(1, catalog);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        if (!resultSet.next()) {
+          log.info("No current {} stat snapshot", catalog);
+          return false;
+        }
+        long version = resultSet.getLong("VERSION");
+        byte[] data = resultSet.getBytes("DATA");
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(data))) {
+          if (input.readInt() != FORMAT_VERSION) {
+            log.info("Ignoring {} stat snapshot written in an older format", catalog);
+            return false;
+          }
+          stats.readFrom(input);
+        } catch (IOException error) {
+          log.warn("Failed to read the {} stat snapshot", catalog, error);
+          return false;
+        }
+        stats.setCatalogVersion(version);
+        log.info("Successfully loaded the {} stat snapshot of version {} ({} bytes) in {}ms",
+            catalog, version, data.length, timer.currentOffsetMilliseconds());
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Saves a snapshot of a set of stats stamped with the catalog version they reflect, replacing
+   * any previous snapshot of the stats.
+   *
+   * @param catalog the name of the catalog table the stats are derived from
+   * @param stats   the stats to save
+   * @throws SQLException if the snapshot could not be written
+   */
+  public void saveSnapshot(String catalog, PersistedStats stats) throws SQLException {
+    Timer timer = new Timer();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(bytes)) {
+      output.writeInt(FORMAT_VERSION);
+      stats.writeTo(output);
+    } catch (IOException error) {
+      throw new SQLException("Failed to write the " + catalog + " stat snapshot", error);
+    }
+    String sql = "INSERT OR REPLACE INTO STAT_SNAPSHOT (NAME, VERSION, DATA) VALUES (?, ?, ?)";
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      statement.setString(1, catalog);
+      statement.setLong(2, stats.getCatalogVersion());
+      statement.setBytes(3, bytes.toByteArray());
+      statement.executeUpdate();
+    }
+    log.info("Successfully saved the {} stat snapshot of version {} ({} bytes) in {}ms", catalog,
+        stats.getCatalogVersion(), bytes.size(), timer.currentOffsetMilliseconds());
+  }
+}
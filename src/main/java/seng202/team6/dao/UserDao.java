@@ -5,9 +5,10 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Map;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import seng202.team6.managers.DatabaseManager;
+import seng202.team6.managers.WriteBehindBuffer;
 import seng202.team6.model.User;
 import seng202.team6.util.Timer;
 
@@ -17,13 +18,20 @@ import seng202.team6.util.Timer;
  */
 public class UserDao extends Dao {
 
+  /**
+   * Buffer which coalesces and writes the changes made to bound properties.
+   */
+  private final WriteBehindBuffer writeBehind;
+
   /**
    * Constructs a new UserDAO with the given database connection.
    *
-   * @param connection The database connection to be used for user operations.
+   * @param connection  The database connection to be used for user operations.
+   * @param writeBehind The buffer which writes changes to the properties of users.
    */
-  public UserDao(Connection connection) {
+  public UserDao(Connection connection, WriteBehindBuffer writeBehind) {
     super(connection, UserDao.class);
+    this.writeBehind = writeBehind;
   }
 
   /**
@@ -81,11 +89,13 @@ public class UserDao extends Dao {
         if (resultSet.next()) {
           log.info("Successfully found user '{}' in {}ms", username,
               timer.currentOffsetMilliseconds());
+          // a password and its salt changed just before must be read back together
+          Map<String, Object> pending = writeBehind.getPending("USER", "USERNAME", username);
           User user = new User(
               resultSet.getString("USERNAME"),
-              resultSet.getString("PASSWORD"),
-              resultSet.getString("ROLE"),
-              resultSet.getString("SALT")
+              (String) pending.getOrDefault("PASSWORD", resultSet.getString("PASSWORD")),
+              (String) pending.getOrDefault("ROLE", resultSet.getString("ROLE")),
+              (String) pending.getOrDefault("SALT", resultSet.getString("SALT"))
           );
           bindUpdater(user);
           return user;
@@ -198,6 +208,8 @@ public class UserDao extends Dao {
    * @param user The user to be removed
    */
   public void delete(User user) {
+    // write buffered changes first so they cannot reach a user registered again with the name
+    writeBehind.flush();
     Timer timer = new Timer();
     String sql = "DELETE FROM USER WHERE USERNAME = ?";
     try (PreparedStatement statement = connection.prepareStatement(sql)) {
@@ -220,6 +232,7 @@ public class UserDao extends Dao {
    * Deletes all the users in the USER table except the default admin account.
    */
   public void deleteAll() {
+    writeBehind.flush();
     Timer timer = new Timer();
     String sql = "DELETE FROM USER WHERE USERNAME != 'admin'";
     try (Statement statement = connection.createStatement()) {
@@ -239,48 +252,24 @@ public class UserDao extends Dao {
    * @param user The User object to bind listeners to
    */
   private void bindUpdater(User user) {
-    user.passwordProperty().addListener((observableValue, before, after) -> {
-      updateAttribute(user.getUsername(), "PASSWORD", update -> {
-        update.setString(1, after);
-      });
-    });
-    user.roleProperty().addListener((observableValue, before, after) -> {
-      updateAttribute(user.getUsername(), "ROLE", update -> {
-        update.setString(1, after);
-      });
-    });
-    user.saltProperty().addListener((observableValue, before, after) -> {
-      updateAttribute(user.getUsername(), "SALT", update -> {
-        update.setString(1, after);
-      });
-    });
+    user.passwordProperty().addListener((observableValue, before, after) ->
+        updateAttribute(user.getUsername(), "PASSWORD", after));
+    user.roleProperty().addListener((observableValue, before, after) ->
+        updateAttribute(user.getUsername(), "ROLE", after));
+    user.saltProperty().addListener((observableValue, before, after) ->
+        updateAttribute(user.getUsername(), "SALT", after));
   }
 
   /**
-   * Updates a specific attribute of the user in the USER table.
+   * Queues an update of a specific attribute of the user in the USER table. Updates to the same
+   * user, such as a new password and its salt, are coalesced and written together by the
+   * write-behind buffer.
    *
-   * @param attributeName   name of attribute
-   * @param attributeSetter callback to set attribute
+   * @param username      username of user
+   * @param attributeName name of attribute
+   * @param value         new value of attribute
    */
-  private void updateAttribute(String username, String attributeName,
-      DatabaseManager.AttributeSetter attributeSetter) {
-    Timer timer = new Timer();
-    String sql = "UPDATE USER set " + attributeName + " = ? where USERNAME = ?";
-    try (PreparedStatement update = connection.prepareStatement(sql)) {
-      attributeSetter.setAttribute(update);
-      update.setString(2, username);
-
-      int rowsAffected = update.executeUpdate();
-      if (rowsAffected == 1) {
-        log.info("Successfully updated attribute '{}' for user '{}' in {}ms",
-            attributeName, username, timer.currentOffsetMilliseconds());
-      } else {
-        log.info("Could not update attribute '{}' for user '{}' in {}ms",
-            attributeName, username, timer.currentOffsetMilliseconds());
-      }
-    } catch (SQLException error) {
-      log.error("Failed to update attribute '{}' for user '{}' in {}ms",
-          attributeName, username, timer.currentOffsetMilliseconds(), error);
-    }
+  private void updateAttribute(String username, String attributeName, Object value) {
+    writeBehind.update("USER", "USERNAME", username, attributeName, value);
   }
 }
@@ -9,7 +9,8 @@ import java.util.Arrays;
 import java.util.List;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import seng202.team6.managers.DatabaseManager;
+import seng202.team6.managers.ReadConnectionPool;
+import seng202.team6.managers.WriteBehindBuffer;
 import seng202.team6.model.GeoLocation;
 import seng202.team6.model.Vineyard;
 import seng202.team6.model.VineyardFilters;
@@ -25,6 +26,13 @@ import seng202.team6.util.Timer;
  */
 public class VineyardDao extends Dao {
 
+  /**
+   * Conditions applied to the VINEYARD table for a set of vineyard filters.
+   */
+  private static final String FILTER_CONDITIONS = "VINEYARD.NAME LIKE ? "
+      + "AND VINEYARD.ADDRESS LIKE ? "
+      + "AND VINEYARD.REGION LIKE ? ";
+
   /**
    * Cache to store and reuse Vineyard objects to avoid duplication.
    */
@@ -32,13 +40,22 @@ public class VineyardDao extends Dao {
 
   private final VineyardDataStatService vineyardDataStatService;
 
+  /**
+   * Buffer which coalesces and writes the changes made to bound properties.
+   */
+  private final WriteBehindBuffer writeBehind;
+
   /**
    * Constructs a new VineyardDAO with the given database connection.
    *
-   * @param connection The database connection to be used for vineyard operations
+   * @param connection      The database connection to be used for vineyard operations
+   * @param readConnections The pool of connections to be used for reading vineyards
+   * @param writeBehind     The buffer which writes changes to the properties of vineyards
    */
-  public VineyardDao(Connection connection, VineyardDataStatService vineyardDataStatService) {
-    super(connection, VineyardDao.class);
+  public VineyardDao(Connection connection, ReadConnectionPool readConnections,
+      WriteBehindBuffer writeBehind, VineyardDataStatService vineyardDataStatService) {
+    super(connection, readConnections, VineyardDao.class);
+    this.writeBehind = writeBehind;
     this.vineyardDataStatService = vineyardDataStatService;
   }
 
@@ -62,6 +79,19 @@ public class VineyardDao extends Dao {
     };
   }
 
+  /**
+   * Returns the migrations for the VINEYARD table.
+   *
+   * @return Array of migrations for the VINEYARD table
+   */
+  @Override
+  public Migration[] getMigrations() {
+    return new Migration[]{
+        Migration.of(6, "Index vineyards by name",
+            "CREATE INDEX IF NOT EXISTS VINEYARD_NAME ON VINEYARD (NAME)")
+    };
+  }
+
   /**
    * Retrieves the total number of vineyards in the database.
    *
@@ -70,7 +100,8 @@ public class VineyardDao extends Dao {
   public int getCount() {
     Timer timer = new Timer();
     String sql = "SELECT COUNT(*) FROM VINEYARD";
-    try (Statement statement = connection.createStatement()) {
+    try (Connection reader = readConnection();
+        Statement statement = reader.createStatement()) {
       try (ResultSet resultSet = statement.executeQuery(sql)) {
         if (resultSet.next()) {
           int count = resultSet.getInt(1);
@@ -86,6 +117,10 @@ public class VineyardDao extends Dao {
 
   /**
    * Retrieves a range of vineyards from the VINEYARD table.
+   * <p>
+   * The range is found by seeking to the vineyard before the start of the range and then reading a
+   * page after it with {@link #getAllAfter(long, int, VineyardFilters)}.
+   * </p>
    *
    * @param begin           The start index of the range (inclusive)
    * @param end             The end index of the range (exclusive)
@@ -94,45 +129,113 @@ public class VineyardDao extends Dao {
    */
   public ObservableList<Vineyard> getAllInRange(int begin, int end,
       VineyardFilters vineyardFilters) {
+    Long cursor = seekCursor(0, begin, vineyardFilters);
+    if (cursor == null) {
+      return FXCollections.emptyObservableList();
+    }
+    return getAllAfter(cursor, end - begin, vineyardFilters);
+  }
+
+  /**
+   * Retrieves a page of vineyards from the VINEYARD table using keyset pagination. Vineyards are
+   * ordered by ID and only vineyards with an ID greater than the cursor are returned.
+   *
+   * @param cursor          The ID of the last vineyard before the page, or 0 to start from the
+   *                        first vineyard
+   * @param limit           The maximum number of vineyards to retrieve
+   * @param vineyardFilters The vineyard filters to be applied
+   * @return An ObservableList of at most limit vineyards following the cursor
+   */
+  public ObservableList<Vineyard> getAllAfter(long cursor, int limit,
+      VineyardFilters vineyardFilters) {
     Timer timer = new Timer();
     String sql = "SELECT VINEYARD.ID as vineyard_id, VINEYARD.*, GEOLOCATION.LATITUDE, "
         + "GEOLOCATION.LONGITUDE "
         + "FROM VINEYARD "
-        + "LEFT JOIN GEOLOCATION ON LOWER(VINEYARD.ADDRESS) LIKE LOWER(GEOLOCATION.NAME)"
-        + (vineyardFilters == null ? "" :
-        "where VINEYARD.NAME like ? "
-            + "and ADDRESS like ? "
-            + "and REGION like ? ")
+        + "LEFT JOIN GEOLOCATION ON GEOLOCATION.NAME = VINEYARD.ADDRESS COLLATE NOCASE "
+        + "WHERE VINEYARD.ID > ? "
+        + (vineyardFilters == null ? "" : "AND " + FILTER_CONDITIONS)
         + "ORDER BY VINEYARD.ID "
-        + "LIMIT ? "
-        + "OFFSET ?";
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        + "LIMIT ?";
+    try (Connection reader = readConnection();
+        PreparedStatement statement = reader.prepareStatement(sql)) {
       int paramIndex = 1;
-      if (vineyardFilters != null) {
-        statement.setString(paramIndex++,
-            vineyardFilters.getName().isEmpty() ? "%" : "%" + vineyardFilters.getName() + "%");
-        statement.setString(paramIndex++,
-            vineyardFilters.getAddress().isEmpty() ? "%"
-                : "%" + vineyardFilters.getAddress() + "%");
-        statement.setString(paramIndex++,
-            vineyardFilters.getRegion().isEmpty() ? "%" : "%" + vineyardFilters.getRegion() + "%");
-      }
-      statement.setInt(paramIndex++, end - begin);
-      statement.setInt(paramIndex, begin);
+      statement.setLong(paramIndex++, cursor);
+      paramIndex = setFilterParameters(statement, vineyardFilters, paramIndex);
+      statement.setInt(paramIndex, limit);
 
       try (ResultSet resultSet = statement.executeQuery()) {
         ObservableList<Vineyard> vineyards = extractAllVineyardsFromResultSet(resultSet,
             "vineyard_id");
-        log.info("Successfully retrieved {} vineyards in range {}-{} in {}ms",
-            vineyards.size(), begin, end, timer.currentOffsetMilliseconds());
+        log.info("Successfully retrieved {} vineyards after ID {} in {}ms",
+            vineyards.size(), cursor, timer.currentOffsetMilliseconds());
         return vineyards;
       }
     } catch (SQLException error) {
-      log.info("Failed to retrieve vineyards in range {}-{}", begin, end, error);
+      log.error("Failed to retrieve vineyards after ID {}", cursor, error);
     }
     return FXCollections.emptyObservableList();
   }
 
+  /**
+   * Finds the cursor which is a number of vineyards after another cursor. Only vineyard IDs are
+   * read, so this is cheaper than reading and discarding whole rows.
+   *
+   * @param cursor          The cursor to seek from, or 0 to seek from the first vineyard
+   * @param offset          The number of vineyards to skip after the cursor
+   * @param vineyardFilters The vineyard filters to be applied
+   * @return The ID of the last skipped vineyard, the cursor itself if offset is 0, or null if
+   *     there are fewer than offset vineyards after the cursor
+   */
+  public Long seekCursor(long cursor, int offset, VineyardFilters vineyardFilters) {
+    if (offset <= 0) {
+      return cursor;
+    }
+    String sql = "SELECT VINEYARD.ID FROM VINEYARD "
+        + "WHERE VINEYARD.ID > ? "
+        + (vineyardFilters == null ? "" : "AND " + FILTER_CONDITIONS)
+        + "ORDER BY VINEYARD.ID "
+        + "LIMIT 1 OFFSET ?";
+    try (Connection reader = readConnection();
+        PreparedStatement statement = reader.prepareStatement(sql)) {
+      int paramIndex = 1;
+      statement.setLong(paramIndex++, cursor);
+      paramIndex = setFilterParameters(statement, vineyardFilters, paramIndex);
+      statement.setInt(paramIndex, offset - 1);
+
+      try (ResultSet resultSet = statement.executeQuery()) {
+        return resultSet.next() ? resultSet.getLong(1) : null;
+      }
+    } catch (SQLException error) {
+      log.error("Failed to seek {} vineyards after ID {}", offset, cursor, error);
+    }
+    return null;
+  }
+
+  /**
+   * Sets the parameters of {@link #FILTER_CONDITIONS} on a statement. Does nothing if there are no
+   * filters.
+   *
+   * @param statement       The statement to set the parameters of
+   * @param vineyardFilters The vineyard filters to be applied, may be null
+   * @param paramIndex      The index of the first filter parameter
+   * @return The index of the next parameter after the filter parameters
+   * @throws SQLException If a parameter could not be set
+   */
+  private int setFilterParameters(PreparedStatement statement, VineyardFilters vineyardFilters,
+      int paramIndex) throws SQLException {
+    if (vineyardFilters == null) {
+      return paramIndex;
+    }
+    statement.setString(paramIndex++,
+        vineyardFilters.getName().isEmpty() ? "%" : "%" + vineyardFilters.getName() + "%");
+    statement.setString(paramIndex++,
+        vineyardFilters.getAddress().isEmpty() ? "%" : "%" + vineyardFilters.getAddress() + "%");
+    statement.setString(paramIndex++,
+        vineyardFilters.getRegion().isEmpty() ? "%" : "%" + vineyardFilters.getRegion() + "%");
+    return paramIndex;
+  }
+
   /**
    * Retrieves a vineyard by its name from the VINEYARD table.
    *
@@ -144,9 +247,10 @@ public class VineyardDao extends Dao {
     String sql = "SELECT VINEYARD.ID as vineyard_id, VINEYARD.*, GEOLOCATION.LATITUDE, "
         + "GEOLOCATION.LONGITUDE "
         + "FROM VINEYARD "
-        + "LEFT JOIN GEOLOCATION ON LOWER(VINEYARD.ADDRESS) LIKE LOWER(GEOLOCATION.NAME) "
+        + "LEFT JOIN GEOLOCATION ON GEOLOCATION.NAME = VINEYARD.ADDRESS COLLATE NOCASE "
         + "WHERE VINEYARD.NAME = ?";
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+    try (Connection reader = readConnection();
+        PreparedStatement statement = reader.prepareStatement(sql)) {
       statement.setString(1, name);
       try (ResultSet resultSet = statement.executeQuery()) {
         if (resultSet.next()) {
@@ -164,27 +268,40 @@ public class VineyardDao extends Dao {
   }
 
   /**
-   * Inserts a list of vineyards into the VINEYARD table.
+   * Inserts a list of vineyards into the VINEYARD table in one transaction, which increments the
+   * catalog version once rather than once per vineyard.
    *
    * @param vineyards The list of Vineyard objects to be added.
    */
   public void addAll(List<Vineyard> vineyards) {
     Timer timer = new Timer();
     String sql = "INSERT INTO VINEYARD values (null, ?, ?, ?, ?, ?, ?);";
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
-      for (Vineyard vineyard : vineyards) {
-        statement.setString(1, vineyard.getName());
-        statement.setString(2, vineyard.getAddress());
-        statement.setString(3, vineyard.getRegion());
-        statement.setString(4, vineyard.getWebsite());
-        statement.setString(5, vineyard.getDescription());
-        statement.setString(6, vineyard.getLogoUrl());
-        statement.addBatch();
-      }
+    try {
+      connection.setAutoCommit(false);
+      try (Statement triggers = connection.createStatement();
+          PreparedStatement statement = connection.prepareStatement(sql)) {
+        suspendCatalogVersion(triggers, StatSnapshotDao.VINEYARD_CATALOG);
+        for (Vineyard vineyard : vineyards) {
+          statement.setString(1, vineyard.getName());
+          statement.setString(2, vineyard.getAddress());
+          statement.setString(3, vineyard.getRegion());
+          statement.setString(4, vineyard.getWebsite());
+          statement.setString(5, vineyard.getDescription());
+          statement.setString(6, vineyard.getLogoUrl());
+          statement.addBatch();
+        }
 
-      int rowsAffected = Arrays.stream(statement.executeBatch()).sum();
-      log.info("Successfully added {} vineyards in {}ms",
-          rowsAffected, rowsAffected, timer.currentOffsetMilliseconds());
+        int rowsAffected = Arrays.stream(statement.executeBatch()).sum();
+        resumeCatalogVersion(triggers, StatSnapshotDao.VINEYARD_CATALOG);
+        connection.commit();
+        log.info("Successfully added {} vineyards in {}ms",
+            rowsAffected, timer.currentOffsetMilliseconds());
+      } catch (SQLException error) {
+        connection.rollback();
+        throw error;
+      } finally {
+        connection.setAutoCommit(true);
+      }
     } catch (SQLException error) {
       log.error("Failed to add vineyards", error);
     }
@@ -241,6 +358,7 @@ public class VineyardDao extends Dao {
    * @param vineyard the vineyard to be deleted
    */
   public void remove(Vineyard vineyard) {
+    writeBehind.flush();
     Timer timer = new Timer();
     String sql = "DELETE FROM VINEYARD WHERE ID = ?;";
     try (PreparedStatement statement = connection.prepareStatement(sql)) {
@@ -272,9 +390,10 @@ public class VineyardDao extends Dao {
         + "GEOLOCATION.LONGITUDE "
         + "FROM VINEYARD_TOUR_ITEM "
         + "LEFT JOIN VINEYARD ON VINEYARD.ID = VINEYARD_TOUR_ITEM.VINEYARD_ID "
-        + "LEFT JOIN GEOLOCATION ON LOWER(VINEYARD.ADDRESS) LIKE LOWER(GEOLOCATION.NAME)"
+        + "LEFT JOIN GEOLOCATION ON GEOLOCATION.NAME = VINEYARD.ADDRESS COLLATE NOCASE "
         + "WHERE TOUR_ID = ?";
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+    try (Connection reader = readConnection();
+        PreparedStatement statement = reader.prepareStatement(sql)) {
       statement.setLong(1, vineyardTour.getId());
 
       try (ResultSet resultSet = statement.executeQuery()) {
@@ -307,9 +426,10 @@ public class VineyardDao extends Dao {
             + "INNER JOIN LIST_ITEMS ON WINE.ID = LIST_ITEMS.WINE_ID "
             + "INNER JOIN LIST_NAME ON LIST_ITEMS.LIST_ID = LIST_NAME.ID "
             + "INNER JOIN VINEYARD ON VINEYARD.NAME = WINE.WINERY "
-            + "LEFT JOIN GEOLOCATION on lower(WINE.REGION) like lower(GEOLOCATION.NAME) "
+            + "LEFT JOIN GEOLOCATION on GEOLOCATION.NAME = WINE.GEOLOCATION_NAME "
             + "WHERE LIST_NAME.ID = ?";
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+    try (Connection reader = readConnection();
+        PreparedStatement statement = reader.prepareStatement(sql)) {
       statement.setLong(1, wineList.id());
 
       try (ResultSet resultSet = statement.executeQuery()) {
@@ -326,17 +446,20 @@ public class VineyardDao extends Dao {
   }
 
   /**
-   * Updates a range of unique values using the vineyards data stat service.
-   *
-   * <p>
-   * When the cache is invalidated by write operations to the database this must be called.
-   * </p>
+   * Rebuilds the unique values of the vineyardDataStatService by scanning the VINEYARD table,
+   * unless they already reflect the current version of the table.
    */
-  public void updateUniques() {
+  public synchronized void updateUniques() {
     Timer timer = new Timer();
     String query = "SELECT NAME, ADDRESS, REGION FROM VINEYARD";
-    try (PreparedStatement statement = connection.prepareStatement(query)) {
-      try (ResultSet resultSet = statement.executeQuery()) {
+    try (Connection reader = readConnection()) {
+      long version = getCatalogVersion(reader, StatSnapshotDao.VINEYARD_CATALOG);
+      if (version == vineyardDataStatService.getCatalogVersion()) {
+        return;
+      }
+      vineyardDataStatService.reset();
+      try (PreparedStatement statement = reader.prepareStatement(query);
+          ResultSet resultSet = statement.executeQuery()) {
         while (resultSet.next()) {
           String name = resultSet.getString("NAME");
           String address = resultSet.getString("ADDRESS");
@@ -346,12 +469,15 @@ public class VineyardDao extends Dao {
           vineyardDataStatService.getUniqueRegions().add(region);
         }
       }
-      log.info("Successfully updated unique values vineyard cache");
+      vineyardDataStatService.setCatalogVersion(version);
+      log.info("Successfully updated unique values vineyard cache in {}ms",
+          timer.currentOffsetMilliseconds());
     } catch (SQLException e) {
       log.error("Failed to update unique values vineyard cache", e);
     }
   }
 
+
   /**
    * Extracts all vineyards from the provided ResultSet and stores them in an ObservableList.
    *
@@ -396,9 +522,7 @@ public class VineyardDao extends Dao {
         resultSet.getString("LOGO_URL"),
         geoLocation
     );
-    vineyardCache.addObject(id, vineyard);
-
-    return vineyard;
+    return vineyardCache.addObjectIfAbsent(id, vineyard);
   }
 
   /**
@@ -429,85 +553,30 @@ public class VineyardDao extends Dao {
    * @param vineyard The Vineyard object to bind listeners to
    */
   private void bindUpdater(Vineyard vineyard) {
-    vineyard.nameProperty().addListener((observableValue, before, after) -> {
-      try {
-        updateAttribute(vineyard.getId(), "NAME", update -> {
-          update.setString(1, after);
-        });
-      } catch (SQLException e) {
-        throw new RuntimeException(e);
-      }
-    });
-    vineyard.addressProperty().addListener((observableValue, before, after) -> {
-      try {
-        updateAttribute(vineyard.getId(), "ADDRESS", update -> {
-          update.setString(1, after);
-        });
-      } catch (SQLException e) {
-        throw new RuntimeException(e);
-      }
-    });
-    vineyard.regionProperty().addListener((observableValue, before, after) -> {
-      try {
-        updateAttribute(vineyard.getId(), "REGION", update -> {
-          update.setString(1, after);
-        });
-      } catch (SQLException e) {
-        throw new RuntimeException(e);
-      }
-    });
-    vineyard.websiteProperty().addListener((observableValue, before, after) -> {
-      try {
-        updateAttribute(vineyard.getId(), "WEBSITE", update -> {
-          update.setString(1, after);
-        });
-      } catch (SQLException e) {
-        throw new RuntimeException(e);
-      }
-    });
-    vineyard.descriptionProperty().addListener((observableValue, before, after) -> {
-      try {
-        updateAttribute(vineyard.getId(), "DESCRIPTION", update -> {
-          update.setString(1, after);
-        });
-      } catch (SQLException e) {
-        throw new RuntimeException(e);
-      }
-    });
-    vineyard.logoUrlProperty().addListener((observableValue, before, after) -> {
-      try {
-        updateAttribute(vineyard.getId(), "LOGO_URL", update -> {
-          update.setString(1, after);
-        });
-      } catch (SQLException e) {
-        throw new RuntimeException(e);
-      }
-    });
+    vineyard.nameProperty().addListener((observableValue, before, after) ->
+        updateAttribute(vineyard.getId(), "NAME", after));
+    vineyard.addressProperty().addListener((observableValue, before, after) ->
+        updateAttribute(vineyard.getId(), "ADDRESS", after));
+    vineyard.regionProperty().addListener((observableValue, before, after) ->
+        updateAttribute(vineyard.getId(), "REGION", after));
+    vineyard.websiteProperty().addListener((observableValue, before, after) ->
+        updateAttribute(vineyard.getId(), "WEBSITE", after));
+    vineyard.descriptionProperty().addListener((observableValue, before, after) ->
+        updateAttribute(vineyard.getId(), "DESCRIPTION", after));
+    vineyard.logoUrlProperty().addListener((observableValue, before, after) ->
+        updateAttribute(vineyard.getId(), "LOGO_URL", after));
   }
 
   /**
-   * Updates a specific attribute of the user in the WINE table.
+   * Queues an update of a specific attribute of the vineyard in the VINEYARD table. Updates to the
+   * same vineyard are coalesced and written together by the write-behind buffer.
    *
-   * @param attributeName   name of attribute
-   * @param attributeSetter callback to set attribute
+   * @param id            id of vineyard
+   * @param attributeName name of attribute
+   * @param value         new value of attribute
    */
-  private void updateAttribute(long id, String attributeName,
-      DatabaseManager.AttributeSetter attributeSetter) throws SQLException {
-    Timer timer = new Timer();
-    String sql = "UPDATE VINEYARD set " + attributeName + " = ? where ID = ?";
-    try (PreparedStatement update = connection.prepareStatement(sql)) {
-      attributeSetter.setAttribute(update);
-      update.setLong(2, id);
-
-      int rowsAffected = update.executeUpdate();
-      if (rowsAffected == 1) {
-        log.info("Successfully updated attribute '{}' for vineyard with ID {} in {}ms",
-            attributeName, id, timer.currentOffsetMilliseconds());
-      } else {
-        log.info("Could not update attribute '{}' for vineyard with ID {} in {}ms",
-            attributeName, id, timer.currentOffsetMilliseconds());
-      }
-    }
+  private void updateAttribute(long id, String attributeName, Object value) {
+    writeBehind.update("VINEYARD", "ID", id, attributeName, value);
   }
 
   /**
@@ -517,7 +586,8 @@ public class VineyardDao extends Dao {
    */
   public boolean vineyardsTableHasData() {
     String sql = "SELECT 1 FROM VINEYARD";
-    try (Statement statement = connection.createStatement();
+    try (Connection reader = readConnection();
+        Statement statement = reader.createStatement();
         ResultSet resultSet = statement.executeQuery(sql)) {
       return resultSet.next();
     } catch (SQLException error) {
@@ -526,4 +596,12 @@ public class VineyardDao extends Dao {
     }
   }
 
+  /**
+   * Gets the hits, misses and evictions of the cache of vineyards read by this DAO.
+   *
+   * @return the statistics of the vineyard cache
+   */
+  public DatabaseObjectUniquer.Statistics getCacheStatistics() {
+    return vineyardCache.getStatistics();
+  }
 }
@@ -5,24 +5,163 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CancellationException;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import org.apache.logging.log4j.LogManager;
-import seng202.team6.managers.DatabaseManager;
+import seng202.team6.enums.WineSortColumn;
+import seng202.team6.managers.ReadConnectionPool;
+import seng202.team6.managers.WriteBehindBuffer;
 import seng202.team6.model.GeoLocation;
 import seng202.team6.model.Wine;
+import seng202.team6.model.WineCursor;
 import seng202.team6.model.WineFilters;
+import seng202.team6.model.WineSort;
+import seng202.team6.model.WineSummary;
 import seng202.team6.service.WineDataStatService;
+import seng202.team6.service.WineImportProgress;
 import seng202.team6.util.DatabaseObjectUniquer;
 import seng202.team6.util.Timer;
+import seng202.team6.util.VersionedLruCache;
 
 /**
  * Data Access Object (DAO) for handling wine related database operations.
  */
 public class WineDao extends Dao {
 
+  /**
+   * The number of wines inserted per batch and transaction when adding many wines.
+   */
+  public static final int BATCH_SIZE = 2048;
+
+  /**
+   * The number of wines committed per transaction when loading the staging table of a replace.
+   * The staging table is not read by anything else, so large chunks only save commits.
+   */
+  private static final int STAGING_COMMIT_SIZE = BATCH_SIZE * 16;
+
+  /**
+   * Conditions applied to the WINE table for a set of wine filters. The title filter is a keyword
+   * search, see {@link #KEYWORD_CONDITION}.
+   */
+  private static final String FILTER_CONDITIONS = "COUNTRY LIKE ? "
+      + "AND WINERY LIKE ? "
+      + "AND COLOR LIKE ? "
+      + "AND VINTAGE BETWEEN ? AND ? "
+      + "AND SCORE_PERCENT BETWEEN ? AND ? "
+      + "AND ABV BETWEEN ? AND ? "
+      + "AND PRICE BETWEEN ? AND ? ";
+
+  /**
+   * Condition applied to the WINE table when a set of wine filters has a minimum average rating.
+   * The average is maintained by the database as reviews change, so this reads no reviews.
+   */
+  private static final String RATING_CONDITION = "AND AVERAGE_RATING >= ? ";
+
+  /**
+   * Condition applied to the WINE table when a set of wine filters has a title or keywords, which
+   * are matched against the full-text index of the wines rather than with a LIKE on the title.
+   */
+  private static final String KEYWORD_CONDITION = "AND WINE.ID IN ("
+      + "SELECT ROWID FROM WINE_SEARCH WHERE WINE_SEARCH MATCH ?) ";
+
+  /**
+   * The columns of the WINE table which are indexed for full-text search.
+   */
+  private static final String SEARCH_COLUMNS = "TITLE, VARIETY, WINERY, REGION, DESCRIPTION";
+
+  /**
+   * The weights of {@link #SEARCH_COLUMNS} when ranking search results, so a match in the title
+   * ranks above a match in the description.
+   */
+  private static final String SEARCH_RANK = "bm25(WINE_SEARCH, 10.0, 2.0, 4.0, 2.0, 1.0)";
+
+  /**
+   * Triggers which keep the WINE_SEARCH index in sync with the WINE table. WINE_SEARCH only stores
+   * the index, so the previous values of a wine are given when it is removed from the index.
+   */
+  private static final String[] SEARCH_TRIGGERS = {
+      "CREATE TRIGGER IF NOT EXISTS WINE_SEARCH_INSERT "
+          + "AFTER INSERT ON WINE "
+          + "FOR EACH ROW "
+          + "BEGIN "
+          + "INSERT INTO WINE_SEARCH (ROWID, " + SEARCH_COLUMNS + ") "
+          + "VALUES (NEW.ID, NEW.TITLE, NEW.VARIETY, NEW.WINERY, NEW.REGION, NEW.DESCRIPTION); "
+          + "END",
+      "CREATE TRIGGER IF NOT EXISTS WINE_SEARCH_DELETE "
+          + "AFTER DELETE ON WINE "
+          + "FOR EACH ROW "
+          + "BEGIN "
+          + "INSERT INTO WINE_SEARCH (WINE_SEARCH, ROWID, " + SEARCH_COLUMNS + ") "
+          + "VALUES ('delete', OLD.ID, OLD.TITLE, OLD.VARIETY, OLD.WINERY, OLD.REGION, "
+          + "OLD.DESCRIPTION); "
+          + "END",
+      "CREATE TRIGGER IF NOT EXISTS WINE_SEARCH_UPDATE "
+          + "AFTER UPDATE OF " + SEARCH_COLUMNS + " ON WINE "
+          + "FOR EACH ROW "
+          + "BEGIN "
+          + "INSERT INTO WINE_SEARCH (WINE_SEARCH, ROWID, " + SEARCH_COLUMNS + ") "
+          + "VALUES ('delete', OLD.ID, OLD.TITLE, OLD.VARIETY, OLD.WINERY, OLD.REGION, "
+          + "OLD.DESCRIPTION); "
+          + "INSERT INTO WINE_SEARCH (ROWID, " + SEARCH_COLUMNS + ") "
+          + "VALUES (NEW.ID, NEW.TITLE, NEW.VARIETY, NEW.WINERY, NEW.REGION, NEW.DESCRIPTION); "
+          + "END"
+  };
+
+  /**
+   * The columns read for a wine summary.
+   */
+  private static final String SUMMARY_COLUMNS = "WINE.ID, WINE.TITLE, WINE.VARIETY, "
+      + "WINE.WINERY, WINE.REGION, WINE.COLOR, WINE.VINTAGE, WINE.SCORE_PERCENT, WINE.ABV, "
+      + "WINE.PRICE, WINE.AVERAGE_RATING, GEOLOCATION.LATITUDE, GEOLOCATION.LONGITUDE ";
+
+  /**
+   * The columns set when inserting a wine, every column except the ID.
+   */
+  private static final String INSERTED_COLUMNS = "TITLE, VARIETY, COUNTRY, REGION, WINERY, "
+      + "COLOR, VINTAGE, DESCRIPTION, SCORE_PERCENT, ABV, PRICE, AVERAGE_RATING, GEOLOCATION_NAME";
+
+  /**
+   * The values of the inserted columns. The geolocation is resolved once here so reads can join
+   * on the GEOLOCATION primary key, the 13th parameter is the region to resolve it from.
+   */
+  private static final String INSERTED_VALUES = "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, "
+      + "(SELECT NAME FROM GEOLOCATION WHERE NAME = ? COLLATE NOCASE))";
+
+  /**
+   * Inserts a new wine.
+   */
+  private static final String INSERT_SQL = "INSERT INTO WINE (" + INSERTED_COLUMNS + ") "
+      + INSERTED_VALUES;
+
+  /**
+   * Inserts a new wine into the staging table used by replace imports.
+   */
+  private static final String INSERT_STAGING_SQL = "INSERT INTO WINE_STAGING ("
+      + INSERTED_COLUMNS + ") " + INSERTED_VALUES;
+
+  /**
+   * The number of sets of filters whose count of matching wines is cached.
+   */
+  private static final int COUNT_CACHE_SIZE = 64;
+
+  /**
+   * The number of pages of wine summaries which are cached.
+   */
+  private static final int PAGE_CACHE_SIZE = 128;
+
+  /**
+   * The maximum number of IDs bound to a single query when wines are retrieved by ID, which keeps
+   * each query well under the limit SQLite places on the number of parameters.
+   */
+  private static final int ID_BATCH_SIZE = 500;
+
   /**
    * Cache to store and reuse Wine objects to avoid duplication.
    */
@@ -30,14 +169,36 @@ public class WineDao extends Dao {
 
   private final WineDataStatService wineDataStatService;
 
+  /**
+   * Buffer which coalesces and writes the changes made to bound properties.
+   */
+  private final WriteBehindBuffer writeBehind;
+
+  /**
+   * The number of wines matching recently used sets of filters, stamped with the version of the
+   * WINE catalog they were counted at.
+   */
+  private final VersionedLruCache<WineFilters, Integer> filteredCounts =
+      new VersionedLruCache<>(COUNT_CACHE_SIZE);
+
+  /**
+   * Recently read pages of wine summaries, stamped with the version of the WINE catalog they were
+   * read at, so moving back and forth between pages does not query the database again.
+   */
+  private final VersionedLruCache<PageKey, CursorPage> summaryPages =
+      new VersionedLruCache<>(PAGE_CACHE_SIZE);
 
   /**
    * Constructs a new WineDAO with the given database connection.
    *
-   * @param connection The database connection to be used for wine operations.
+   * @param connection      The database connection to be used for wine operations.
+   * @param readConnections The pool of connections to be used for reading wines.
+   * @param writeBehind     The buffer which writes changes to the properties of wines.
    */
-  public WineDao(Connection connection, WineDataStatService wineDataStatService) {
-    super(connection, WineDao.class);
+  public WineDao(Connection connection, ReadConnectionPool readConnections,
+      WriteBehindBuffer writeBehind, WineDataStatService wineDataStatService) {
+    super(connection, readConnections, WineDao.class);
+    this.writeBehind = writeBehind;
     this.wineDataStatService = wineDataStatService;
   }
 
@@ -62,11 +223,83 @@ public class WineDao extends Dao {
             + "SCORE_PERCENT  INTEGER,"
             + "ABV            FLOAT,"
             + "PRICE          FLOAT,"
-            + "AVERAGE_RATING DOUBLE"
+            + "AVERAGE_RATING DOUBLE,"
+            + "REVIEW_COUNT   INTEGER       NOT NULL DEFAULT 0,"
+            + "RATING_SUM     DOUBLE        NOT NULL DEFAULT 0,"
+            + "GEOLOCATION_NAME VARCHAR(64) REFERENCES GEOLOCATION(NAME)"
             + ")"
     };
   }
 
+  /**
+   * Returns the migrations for the WINE table.
+   *
+   * @return Array of migrations for the WINE table
+   */
+  @Override
+  public Migration[] getMigrations() {
+    return new Migration[]{
+        new Migration(1, "Resolve wine geolocations through GEOLOCATION_NAME", connection -> {
+          // GEOLOCATION_NAME lets reads join on the GEOLOCATION primary key instead of a LIKE
+          try (Statement statement = connection.createStatement()) {
+            if (!hasColumn("WINE", "GEOLOCATION_NAME")) {
+              statement.execute("ALTER TABLE WINE ADD COLUMN "
+                  + "GEOLOCATION_NAME VARCHAR(64) REFERENCES GEOLOCATION(NAME)");
+            }
+            statement.execute("CREATE INDEX IF NOT EXISTS WINE_GEOLOCATION_NAME "
+                + "ON WINE (GEOLOCATION_NAME)");
+            statement.execute("CREATE TRIGGER IF NOT EXISTS WINE_RESOLVE_GEOLOCATION "
+                + "AFTER UPDATE OF REGION ON WINE "
+                + "FOR EACH ROW "
+                + "BEGIN "
+                + "UPDATE WINE SET GEOLOCATION_NAME = ("
+                + "SELECT NAME FROM GEOLOCATION WHERE NAME = NEW.REGION COLLATE NOCASE) "
+                + "WHERE ID = NEW.ID; "
+                + "END");
+            statement.executeUpdate(GeoLocationDao.RESOLVE_WINE_GEOLOCATIONS_SQL);
+          }
+        }),
+        Migration.of(5, "Index wines by winery and title",
+            "CREATE INDEX IF NOT EXISTS WINE_WINERY ON WINE (WINERY)",
+            "CREATE INDEX IF NOT EXISTS WINE_TITLE ON WINE (TITLE)"),
+        new Migration(8, "Index wines for full-text search", connection -> {
+          // WINE_SEARCH reads the text of the wines from WINE rather than storing a copy of it
+          try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE VIRTUAL TABLE IF NOT EXISTS WINE_SEARCH USING fts5("
+                + SEARCH_COLUMNS + ", content = 'WINE', content_rowid = 'ID', "
+                + "tokenize = 'unicode61 remove_diacritics 2')");
+            statement.execute("INSERT INTO WINE_SEARCH (WINE_SEARCH) VALUES ('rebuild')");
+            createSearchTriggers(statement);
+          }
+        }),
+        new Migration(9, "Aggregate the reviews of each wine", connection -> {
+          // the aggregates are maintained by the triggers of WineReviewDao
+          try (Statement statement = connection.createStatement()) {
+            if (!hasColumn("WINE", "REVIEW_COUNT")) {
+              statement.execute("ALTER TABLE WINE ADD COLUMN "
+                  + "REVIEW_COUNT INTEGER NOT NULL DEFAULT 0");
+            }
+            if (!hasColumn("WINE", "RATING_SUM")) {
+              statement.execute("ALTER TABLE WINE ADD COLUMN "
+                  + "RATING_SUM DOUBLE NOT NULL DEFAULT 0");
+            }
+            statement.execute("CREATE INDEX IF NOT EXISTS WINE_AVERAGE_RATING "
+                + "ON WINE (AVERAGE_RATING)");
+            statement.execute("CREATE INDEX IF NOT EXISTS WINE_REVIEW_COUNT "
+                + "ON WINE (REVIEW_COUNT)");
+          }
+        }),
+        // every index ends with the ID, so an index of a column also orders the wines with the
+        // same value by ID, which is the order sorted pages are read in
+        Migration.of(11, "Index wines for sorted browsing",
+            "UPDATE WINE SET AVERAGE_RATING = 0 WHERE AVERAGE_RATING IS NULL",
+            "CREATE INDEX IF NOT EXISTS WINE_VINTAGE ON WINE (VINTAGE)",
+            "CREATE INDEX IF NOT EXISTS WINE_SCORE_PERCENT ON WINE (SCORE_PERCENT)",
+            "CREATE INDEX IF NOT EXISTS WINE_ABV ON WINE (ABV)",
+            "CREATE INDEX IF NOT EXISTS WINE_PRICE ON WINE (PRICE)")
+    };
+  }
+
   /**
    * Retrieves the total number of wines in the database.
    *
@@ -75,7 +308,8 @@ public class WineDao extends Dao {
   public int getCount() throws SQLException {
     Timer timer = new Timer();
     String sql = "SELECT COUNT(*) FROM WINE";
-    try (Statement statement = connection.createStatement()) {
+    try (Connection reader = readConnection();
+        Statement statement = reader.createStatement()) {
       try (ResultSet resultSet = statement.executeQuery(sql)) {
         if (resultSet.next()) {
           int count = resultSet.getInt(1);
@@ -88,48 +322,60 @@ public class WineDao extends Dao {
   }
 
   /**
-   * Retrieves total number of wines after applying filters.
+   * Retrieves total number of wines after applying filters. The count is cached for the filters
+   * until the WINE table changes.
    *
    * @param filters filters to apply to wines before counting
    * @return number of wines after filtering
    */
   public int getCount(WineFilters filters) throws SQLException {
-    String sql = "SELECT count(*) from WINE "
-        + "where TITLE like ? "
-        + "and COUNTRY like ? "
-        + "and WINERY like ? "
-        + "and COLOR like ? "
-        + "and VINTAGE between ? and ? "
-        + "and SCORE_PERCENT between ? and ? "
-        + "and ABV between ? and ? "
-        + "and PRICE between ? and ? "
-        + "ORDER BY WINE.ID ;";
-
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
-      int paramIndex = 1;
-      statement.setString(paramIndex++,
-          filters.getTitle().isEmpty() ? "%" : "%" + filters.getTitle() + "%");
-      statement.setString(paramIndex++,
-          filters.getCountry().isEmpty() ? "%" : "%" + filters.getCountry() + "%");
-      statement.setString(paramIndex++,
-          filters.getWinery().isEmpty() ? "%" : "%" + filters.getWinery() + "%");
-      statement.setString(paramIndex++,
-          filters.getColor().isEmpty() ? "%" : "%" + filters.getColor() + "%");
-      statement.setInt(paramIndex++, filters.getMinVintage());
-      statement.setInt(paramIndex++, filters.getMaxVintage());
-      statement.setDouble(paramIndex++, filters.getMinScore());
-      statement.setDouble(paramIndex++, filters.getMaxScore());
-      statement.setDouble(paramIndex++, filters.getMinAbv());
-      statement.setDouble(paramIndex++, filters.getMaxAbv());
-      statement.setDouble(paramIndex++, filters.getMinPrice());
-      statement.setDouble(paramIndex, filters.getMaxPrice());
-
-      ResultSet resultSet = statement.executeQuery();
-      return resultSet.getInt(1);
+    if (filters == null) {
+      return getCount();
+    }
+    try (Connection reader = readConnection()) {
+      long catalogVersion = getCatalogVersion(reader, StatSnapshotDao.WINE_CATALOG);
+      Integer cached = filteredCounts.get(filters, catalogVersion);
+      if (cached != null) {
+        return cached;
+      }
+      int count = countMatching(reader, filters);
+      filteredCounts.put(copyOf(filters), catalogVersion, count);
+      return count;
+    }
+  }
 
+  /**
+   * Counts the wines matching a set of filters.
+   *
+   * @param reader  The connection to count with
+   * @param filters The wine filters to be applied, may be null
+   * @return The number of matching wines
+   * @throws SQLException If the wines could not be counted
+   */
+  private int countMatching(Connection reader, WineFilters filters) throws SQLException {
+    Timer timer = new Timer();
+    String sql = "SELECT COUNT(*) FROM WINE WHERE 1 " + filterConditions(filters);
+    try (PreparedStatement statement = reader.prepareStatement(sql)) {
+      setFilterParameters(statement, filters, 1);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        int count = resultSet.next() ? resultSet.getInt(1) : 0;
+        log.info("Counted {} filtered wines in {}ms", count, timer.currentOffsetMilliseconds());
+        return count;
+      }
     }
   }
 
+  /**
+   * Copies a set of filters to use as a cache key, so changing the filters afterwards does not
+   * change the key.
+   *
+   * @param filters The wine filters, may be null
+   * @return A copy of the filters, or null if there are no filters
+   */
+  private static WineFilters copyOf(WineFilters filters) {
+    return filters == null ? null : new WineFilters(filters);
+  }
+
   /**
    * Retrieves all wines from the WINE table.
    *
@@ -139,9 +385,10 @@ public class WineDao extends Dao {
     Timer timer = new Timer();
     String sql = "SELECT WINE.ID as wine_id, WINE.*, GEOLOCATION.LATITUDE, GEOLOCATION.LONGITUDE "
         + "FROM WINE "
-        + "LEFT JOIN GEOLOCATION ON LOWER(WINE.REGION) LIKE LOWER(GEOLOCATION.NAME)"
+        + "LEFT JOIN GEOLOCATION ON GEOLOCATION.NAME = WINE.GEOLOCATION_NAME "
         + "ORDER BY WINE.ID ";
-    try (Statement statement = connection.createStatement()) {
+    try (Connection reader = readConnection();
+        Statement statement = reader.createStatement()) {
       try (ResultSet resultSet = statement.executeQuery(sql)) {
         ObservableList<Wine> wines = extractAllWinesFromResultSet(resultSet, "wine_id");
         log.info("Successfully retrieved all {} wines in {}ms", wines.size(),
@@ -151,8 +398,50 @@ public class WineDao extends Dao {
     }
   }
 
+  /**
+   * Retrieves the wines with the given IDs. The IDs are read in batches with one query per batch,
+   * instead of one query per wine as with {@link #get(long)}.
+   *
+   * @param ids the IDs of the wines, duplicates are ignored
+   * @return the wines which exist, ordered by ID
+   */
+  public ObservableList<Wine> getAll(Collection<Long> ids) throws SQLException {
+    Timer timer = new Timer();
+    List<Long> sortedIds = new ArrayList<>(new TreeSet<>(ids));
+    ObservableList<Wine> wines = FXCollections.observableArrayList();
+    try (Connection reader = readConnection()) {
+      for (int start = 0; start < sortedIds.size(); start += ID_BATCH_SIZE) {
+        List<Long> batch = sortedIds.subList(start,
+            Math.min(start + ID_BATCH_SIZE, sortedIds.size()));
+        String sql = "SELECT WINE.ID as wine_id, WINE.*, GEOLOCATION.LATITUDE, "
+            + "GEOLOCATION.LONGITUDE "
+            + "FROM WINE "
+            + "LEFT JOIN GEOLOCATION ON GEOLOCATION.NAME = WINE.GEOLOCATION_NAME "
+            + "WHERE WINE.ID IN (" + String.join(", ", Collections.nCopies(batch.size(), "?"))
+            + ") "
+            + "ORDER BY WINE.ID";
+        try (PreparedStatement statement = reader.prepareStatement(sql)) {
+          for (int i = 0; i < batch.size(); i++) {
+            statement.setLong(i + 1, batch.get(i));
+          }
+          try (ResultSet resultSet = statement.executeQuery()) {
+            wines.addAll(extractAllWinesFromResultSet(resultSet, "wine_id"));
+          }
+        }
+      }
+    }
+    log.info("Successfully retrieved {} of {} wines by ID in {}ms", wines.size(),
+        sortedIds.size(), timer.currentOffsetMilliseconds());
+    return wines;
+  }
+
   /**
    * Retrieves a range of wines from the WINE table.
+   * <p>
+   * The range is found by seeking to the wine before the start of the range and then reading a
+   * page after it. Callers paging through the table should keep the returned cursors and use
+   * {@link #getAllAfter(long, int, WineFilters)} instead, which does not need to skip any rows.
+   * </p>
    *
    * @param begin   The start index of the range (inclusive)
    * @param end     The end index of the range (exclusive)
@@ -161,54 +450,483 @@ public class WineDao extends Dao {
    */
   public ObservableList<Wine> getAllInRange(int begin, int end, WineFilters filters)
       throws SQLException {
+    Long cursor = seekCursor(0, begin, filters);
+    if (cursor == null) {
+      return FXCollections.observableArrayList();
+    }
+    return getAllAfter(cursor, end - begin, filters);
+  }
+
+  /**
+   * Retrieves a page of wines from the WINE table using keyset pagination. Wines are ordered by ID
+   * and only wines with an ID greater than the cursor are returned, so the cost of reading a page
+   * does not depend on how deep into the table it is.
+   *
+   * @param cursor  The ID of the last wine before the page, or 0 to start from the first wine
+   * @param limit   The maximum number of wines to retrieve
+   * @param filters The wine filters to be applied
+   * @return An ObservableList of at most limit wines following the cursor
+   */
+  public ObservableList<Wine> getAllAfter(long cursor, int limit, WineFilters filters)
+      throws SQLException {
+    return getAllAfter(WineCursor.ofId(cursor), limit, filters, WineSort.DEFAULT);
+  }
+
+  /**
+   * Retrieves a page of wines from the WINE table in a given order using keyset pagination. Only
+   * wines after the cursor in that order are returned, and the page is read from the index of the
+   * sorted column, so the cost of reading a page does not depend on how deep into the table it is.
+   *
+   * @param cursor  The place after the last wine before the page, or {@link WineCursor#FIRST} to
+   *                start from the first wine
+   * @param limit   The maximum number of wines to retrieve
+   * @param filters The wine filters to be applied
+   * @param sort    The order of the wines
+   * @return An ObservableList of at most limit wines following the cursor
+   */
+  public ObservableList<Wine> getAllAfter(WineCursor cursor, int limit, WineFilters filters,
+      WineSort sort) throws SQLException {
     Timer timer = new Timer();
     String sql = "SELECT WINE.ID as wine_id, WINE.*, GEOLOCATION.LATITUDE, GEOLOCATION.LONGITUDE "
         + "FROM WINE "
-        + "LEFT JOIN GEOLOCATION ON LOWER(WINE.REGION) LIKE LOWER(GEOLOCATION.NAME) "
-        + "WHERE WINE.ID > ? "
-        + (filters == null ? "" : "AND TITLE LIKE ? "
-        + "AND COUNTRY LIKE ? "
-        + "AND WINERY LIKE ? "
-        + "AND COLOR LIKE ? "
-        + "AND VINTAGE BETWEEN ? AND ? "
-        + "AND SCORE_PERCENT BETWEEN ? AND ? "
-        + "AND ABV BETWEEN ? AND ? "
-        + "AND PRICE BETWEEN ? AND ? ")
-        + "ORDER BY WINE.ID "
-        + "LIMIT ?;";
-
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
-      int paramIndex = 1;
-      statement.setInt(paramIndex++, begin);
-      if (filters != null) {
-        statement.setString(paramIndex++,
-            filters.getTitle().isEmpty() ? "%" : "%" + filters.getTitle() + "%");
-        statement.setString(paramIndex++,
-            filters.getCountry().isEmpty() ? "%" : "%" + filters.getCountry() + "%");
-        statement.setString(paramIndex++,
-            filters.getWinery().isEmpty() ? "%" : "%" + filters.getWinery() + "%");
-        statement.setString(paramIndex++,
-            filters.getColor().isEmpty() ? "%" : "%" + filters.getColor() + "%");
-        statement.setInt(paramIndex++, filters.getMinVintage());
-        statement.setInt(paramIndex++, filters.getMaxVintage());
-        statement.setDouble(paramIndex++, filters.getMinScore());
-        statement.setDouble(paramIndex++, filters.getMaxScore());
-        statement.setDouble(paramIndex++, filters.getMinAbv());
-        statement.setDouble(paramIndex++, filters.getMaxAbv());
-        statement.setDouble(paramIndex++, filters.getMinPrice());
-        statement.setDouble(paramIndex++, filters.getMaxPrice());
-      }
-      statement.setInt(paramIndex, end - begin);
+        + "LEFT JOIN GEOLOCATION ON GEOLOCATION.NAME = WINE.GEOLOCATION_NAME "
+        + "WHERE " + afterCondition(sort, cursor)
+        + filterConditions(filters)
+        + orderBy(sort)
+        + "LIMIT ?";
+
+    try (Connection reader = readConnection();
+        PreparedStatement statement = reader.prepareStatement(sql)) {
+      int paramIndex = setAfterParameters(statement, sort, cursor, 1);
+      paramIndex = setFilterParameters(statement, filters, paramIndex);
+      statement.setInt(paramIndex, limit);
 
       try (ResultSet resultSet = statement.executeQuery()) {
         ObservableList<Wine> wines = extractAllWinesFromResultSet(resultSet, "wine_id");
-        log.info("Successfully retrieved {} wines in range {}-{} in {}ms", wines.size(),
-            begin, end, timer.currentOffsetMilliseconds());
+        log.info("Successfully retrieved {} wines after ID {} in {}ms", wines.size(),
+            cursor.id(), timer.currentOffsetMilliseconds());
         return wines;
       }
     }
   }
 
+  /**
+   * Retrieves a page of wine summaries from the WINE table using keyset pagination, in the same
+   * order as {@link #getAllAfter(long, int, WineFilters)}. Only the columns of a summary are read
+   * and no wines are created or cached, so this is used for pages which are only displayed. Wines
+   * which are already cached are summarised from the cached wine so that changes which have not
+   * been written yet are shown.
+   * <p>
+   * Pages are cached until the WINE table changes, so reading a page again does not query the
+   * database.
+   * </p>
+   *
+   * @param cursor  The ID of the last wine before the page, or 0 to start from the first wine
+   * @param limit   The maximum number of wines to retrieve
+   * @param filters The wine filters to be applied
+   * @return A list of at most limit wine summaries following the cursor
+   */
+  public List<WineSummary> getSummariesAfter(long cursor, int limit, WineFilters filters)
+      throws SQLException {
+    return getSummariesAfter(WineCursor.ofId(cursor), limit, filters, WineSort.DEFAULT)
+        .summaries();
+  }
+
+  /**
+   * Retrieves a page of wine summaries in a given order as
+   * {@link #getAllAfter(WineCursor, int, WineFilters, WineSort)} does, together with the cursor
+   * the next page is read after. Pages are cached for each order until the WINE table changes.
+   *
+   * @param cursor  The place after the last wine before the page, or {@link WineCursor#FIRST} to
+   *                start from the first wine
+   * @param limit   The maximum number of wines to retrieve
+   * @param filters The wine filters to be applied
+   * @param sort    The order of the wines
+   * @return The page of at most limit wine summaries following the cursor
+   */
+  public CursorPage getSummariesAfter(WineCursor cursor, int limit, WineFilters filters,
+      WineSort sort) throws SQLException {
+    try (Connection reader = readConnection()) {
+      long catalogVersion = getCatalogVersion(reader, StatSnapshotDao.WINE_CATALOG);
+      PageKey key = new PageKey(copyOf(filters), sort, cursor, limit);
+      CursorPage cached = summaryPages.get(key, catalogVersion);
+      if (cached != null) {
+        return new CursorPage(resummarise(cached.summaries()), cached.next());
+      }
+
+      Timer timer = new Timer();
+      String sql = "SELECT " + SUMMARY_COLUMNS
+          + "FROM WINE "
+          + "LEFT JOIN GEOLOCATION ON GEOLOCATION.NAME = WINE.GEOLOCATION_NAME "
+          + "WHERE " + afterCondition(sort, cursor)
+          + filterConditions(filters)
+          + orderBy(sort)
+          + "LIMIT ?";
+      try (PreparedStatement statement = reader.prepareStatement(sql)) {
+        int paramIndex = setAfterParameters(statement, sort, cursor, 1);
+        paramIndex = setFilterParameters(statement, filters, paramIndex);
+        statement.setInt(paramIndex, limit);
+
+        try (ResultSet resultSet = statement.executeQuery()) {
+          List<WineSummary> summaries = new ArrayList<>(limit);
+          WineCursor next = null;
+          while (resultSet.next()) {
+            summaries.add(extractSummaryFromResultSet(resultSet));
+            next = extractCursor(resultSet, sort);
+          }
+          summaryPages.put(key, catalogVersion, new CursorPage(List.copyOf(summaries), next));
+          log.info("Successfully retrieved {} wine summaries after ID {} in {}ms",
+              summaries.size(), cursor.id(), timer.currentOffsetMilliseconds());
+          return new CursorPage(summaries, next);
+        }
+      }
+    }
+  }
+
+  /**
+   * Copies a cached page of summaries, summarising the cached wine instead where there is one so
+   * that changes which have not been written yet are shown, as they are when the page is read.
+   *
+   * @param summaries The cached page
+   * @return The summaries of the page
+   */
+  private List<WineSummary> resummarise(List<WineSummary> summaries) {
+    List<WineSummary> current = new ArrayList<>(summaries.size());
+    for (WineSummary summary : summaries) {
+      Wine cachedWine = wineCache.tryGetObject(summary.key());
+      current.add(cachedWine == null ? summary : WineSummary.of(cachedWine));
+    }
+    return current;
+  }
+
+  /**
+   * Retrieves a page of wine summaries as {@link #getSummariesAfter(long, int, WineFilters)} does,
+   * together with the total number of wines matching the filters. If the total is not cached, the
+   * matching wines are found once and both counted and paged with a window function, rather than
+   * running the filters once for the page and again for the count.
+   *
+   * @param cursor  The ID of the last wine before the page, or 0 to start from the first wine
+   * @param limit   The maximum number of wines to retrieve
+   * @param filters The wine filters to be applied, may be null
+   * @return The page of at most limit wine summaries and the total number of matching wines
+   */
+  public SummaryPage getSummaryPageAfter(long cursor, int limit, WineFilters filters)
+      throws SQLException {
+    return getSummaryPageAfter(WineCursor.ofId(cursor), limit, filters, WineSort.DEFAULT);
+  }
+
+  /**
+   * Retrieves a page of wine summaries in a given order together with the total number of wines
+   * matching the filters, as {@link #getSummaryPageAfter(long, int, WineFilters)} does.
+   *
+   * @param cursor  The place after the last wine before the page, or {@link WineCursor#FIRST} to
+   *                start from the first wine
+   * @param limit   The maximum number of wines to retrieve
+   * @param filters The wine filters to be applied, may be null
+   * @param sort    The order of the wines
+   * @return The page of at most limit wine summaries and the total number of matching wines
+   */
+  public SummaryPage getSummaryPageAfter(WineCursor cursor, int limit, WineFilters filters,
+      WineSort sort) throws SQLException {
+    try (Connection reader = readConnection()) {
+      long catalogVersion = getCatalogVersion(reader, StatSnapshotDao.WINE_CATALOG);
+      Integer cached = filteredCounts.get(filters, catalogVersion);
+      if (cached != null) {
+        CursorPage page = getSummariesAfter(cursor, limit, filters, sort);
+        return new SummaryPage(page.summaries(), page.next(), cached);
+      }
+
+      Timer timer = new Timer();
+      String sql = "WITH MATCHED AS ("
+          + "SELECT WINE.ID AS ID, COUNT(*) OVER () AS TOTAL FROM WINE "
+          + "WHERE 1 " + filterConditions(filters)
+          + ") "
+          + "SELECT " + SUMMARY_COLUMNS + ", MATCHED.TOTAL "
+          + "FROM MATCHED "
+          + "JOIN WINE ON WINE.ID = MATCHED.ID "
+          + "LEFT JOIN GEOLOCATION ON GEOLOCATION.NAME = WINE.GEOLOCATION_NAME "
+          + "WHERE " + afterCondition(sort, cursor)
+          + orderBy(sort)
+          + "LIMIT ?";
+      try (PreparedStatement statement = reader.prepareStatement(sql)) {
+        int paramIndex = setFilterParameters(statement, filters, 1);
+        paramIndex = setAfterParameters(statement, sort, cursor, paramIndex);
+        statement.setInt(paramIndex, limit);
+
+        try (ResultSet resultSet = statement.executeQuery()) {
+          List<WineSummary> summaries = new ArrayList<>(limit);
+          WineCursor next = null;
+          int total = -1;
+          while (resultSet.next()) {
+            total = resultSet.getInt("TOTAL");
+            summaries.add(extractSummaryFromResultSet(resultSet));
+            next = extractCursor(resultSet, sort);
+          }
+          if (total < 0) {
+            // an empty page does not carry the total unless it is the first page
+            total = cursor.isFirst() ? 0 : countMatching(reader, filters);
+          }
+          filteredCounts.put(copyOf(filters), catalogVersion, total);
+          summaryPages.put(new PageKey(copyOf(filters), sort, cursor, limit), catalogVersion,
+              new CursorPage(List.copyOf(summaries), next));
+          log.info("Successfully retrieved {} of {} wine summaries after ID {} in {}ms",
+              summaries.size(), total, cursor.id(), timer.currentOffsetMilliseconds());
+          return new SummaryPage(summaries, next, total);
+        }
+      }
+    }
+  }
+
+  /**
+   * Finds the cursor which is a number of wines after another cursor. Only wine IDs are read, so
+   * this is used to jump to a page whose cursor is not known yet from the nearest known cursor.
+   *
+   * @param cursor  The cursor to seek from, or 0 to seek from the first wine
+   * @param offset  The number of wines to skip after the cursor
+   * @param filters The wine filters to be applied
+   * @return The ID of the last skipped wine, the cursor itself if offset is 0, or null if there are
+   *     fewer than offset wines after the cursor
+   */
+  public Long seekCursor(long cursor, int offset, WineFilters filters) throws SQLException {
+    WineCursor sought = seekCursor(WineCursor.ofId(cursor), offset, filters, WineSort.DEFAULT);
+    return sought == null ? null : sought.id();
+  }
+
+  /**
+   * Finds the cursor which is a number of wines after another cursor in a given order, as
+   * {@link #seekCursor(long, int, WineFilters)} does. Only the IDs and sorted values of the wines
+   * are read.
+   *
+   * @param cursor  The cursor to seek from, or {@link WineCursor#FIRST} to seek from the first wine
+   * @param offset  The number of wines to skip after the cursor
+   * @param filters The wine filters to be applied
+   * @param sort    The order of the wines
+   * @return The cursor of the last skipped wine, the cursor itself if offset is 0, or null if there
+   *     are fewer than offset wines after the cursor
+   */
+  public WineCursor seekCursor(WineCursor cursor, int offset, WineFilters filters, WineSort sort)
+      throws SQLException {
+    if (offset <= 0) {
+      return cursor;
+    }
+    Timer timer = new Timer();
+    String sortColumn = sort.column() == WineSortColumn.ID ? ""
+        : ", WINE." + sort.column().getColumnName();
+    String sql = "SELECT WINE.ID" + sortColumn + " FROM WINE "
+        + "WHERE " + afterCondition(sort, cursor)
+        + filterConditions(filters)
+        + orderBy(sort)
+        + "LIMIT 1 OFFSET ?";
+
+    try (Connection reader = readConnection();
+        PreparedStatement statement = reader.prepareStatement(sql)) {
+      int paramIndex = setAfterParameters(statement, sort, cursor, 1);
+      paramIndex = setFilterParameters(statement, filters, paramIndex);
+      statement.setInt(paramIndex, offset - 1);
+
+      try (ResultSet resultSet = statement.executeQuery()) {
+        WineCursor result = resultSet.next() ? extractCursor(resultSet, sort) : null;
+        log.info("Successfully sought {} wines after ID {} in {}ms", offset, cursor.id(),
+            timer.currentOffsetMilliseconds());
+        return result;
+      }
+    }
+  }
+
+  /**
+   * Searches the title, variety, winery, region and description of every wine for some keywords.
+   * Every keyword must match the start of a word, so "pin noir" finds "Pinot Noir", and case and
+   * accents are ignored. Results are ranked by relevance, with matches in the title ranked highest.
+   *
+   * @param keywords The keywords to search for
+   * @param limit    The maximum number of wines to retrieve
+   * @return A list of at most limit wine summaries in order of relevance, empty if there are no
+   *     keywords
+   * @throws SQLException If the wines could not be searched
+   */
+  public List<WineSummary> search(String keywords, int limit) throws SQLException {
+    String query = toMatchQuery(keywords);
+    if (query == null) {
+      return List.of();
+    }
+    Timer timer = new Timer();
+    String sql = "SELECT " + SUMMARY_COLUMNS
+        + "FROM WINE_SEARCH "
+        + "JOIN WINE ON WINE.ID = WINE_SEARCH.ROWID "
+        + "LEFT JOIN GEOLOCATION ON GEOLOCATION.NAME = WINE.GEOLOCATION_NAME "
+        + "WHERE WINE_SEARCH MATCH ? "
+        + "ORDER BY " + SEARCH_RANK + ", WINE.ID "
+        + "LIMIT ?";
+
+    try (Connection reader = readConnection();
+        PreparedStatement statement = reader.prepareStatement(sql)) {
+      statement.setString(1, query);
+      statement.setInt(2, limit);
+
+      try (ResultSet resultSet = statement.executeQuery()) {
+        List<WineSummary> summaries = new ArrayList<>();
+        while (resultSet.next()) {
+          summaries.add(extractSummaryFromResultSet(resultSet));
+        }
+        log.info("Successfully searched for '{}' and found {} wines in {}ms", keywords,
+            summaries.size(), timer.currentOffsetMilliseconds());
+        return summaries;
+      }
+    }
+  }
+
+  /**
+   * Converts keywords into an FTS5 query which matches wines containing a word starting with every
+   * keyword. Keywords are split on anything other than letters and digits, as the index is, so the
+   * query never contains FTS5 syntax typed by the user.
+   *
+   * @param keywords The keywords, may be null
+   * @return The query, or null if there are no keywords
+   */
+  private static String toMatchQuery(String keywords) {
+    if (keywords == null) {
+      return null;
+    }
+    StringBuilder query = new StringBuilder();
+    for (String keyword : keywords.split("[^\\p{L}\\p{N}]+")) {
+      if (!keyword.isEmpty()) {
+        query.append(query.isEmpty() ? "" : " ").append('"').append(keyword).append("\"*");
+      }
+    }
+    return query.isEmpty() ? null : query.toString();
+  }
+
+  /**
+   * Gets the condition which selects the wines after a cursor in a given order. Wines are compared
+   * by their value in the sorted column and then by ID against the values held by the cursor, so
+   * the comparison is a range of the index of the sorted column.
+   *
+   * @param sort   The order of the wines
+   * @param cursor The place after the last wine before the page
+   * @return The condition, which is always true if the cursor is before the first wine
+   */
+  private static String afterCondition(WineSort sort, WineCursor cursor) {
+    if (cursor.isFirst()) {
+      return "1 ";
+    }
+    String comparison = sort.ascending() ? " > " : " < ";
+    if (sort.column() == WineSortColumn.ID) {
+      return "WINE.ID" + comparison + "? ";
+    }
+    return "(WINE." + sort.column().getColumnName() + ", WINE.ID)" + comparison + "(?, ?) ";
+  }
+
+  /**
+   * Sets the parameters of {@link #afterCondition(WineSort, WineCursor)} on a statement.
+   *
+   * @param statement  The statement to set the parameters of
+   * @param sort       The order of the wines
+   * @param cursor     The place after the last wine before the page
+   * @param paramIndex The index of the first cursor parameter
+   * @return The index of the next parameter after the cursor parameters
+   * @throws SQLException If a parameter could not be set
+   */
+  private static int setAfterParameters(PreparedStatement statement, WineSort sort,
+      WineCursor cursor, int paramIndex) throws SQLException {
+    if (cursor.isFirst()) {
+      return paramIndex;
+    }
+    if (sort.column() != WineSortColumn.ID) {
+      statement.setObject(paramIndex++, cursor.sortValue());
+    }
+    statement.setLong(paramIndex++, cursor.id());
+    return paramIndex;
+  }
+
+  /**
+   * Extracts the cursor of the current wine of a result set, which must include the ID and sorted
+   * column of the wine. The sorted value is kept as it was read so it compares equal to the value
+   * in the table.
+   *
+   * @param resultSet The result set
+   * @param sort      The order the wines were read in
+   * @return The cursor just after the wine
+   * @throws SQLException If the values could not be read
+   */
+  private static WineCursor extractCursor(ResultSet resultSet, WineSort sort)
+      throws SQLException {
+    long id = resultSet.getLong("ID");
+    if (sort.column() == WineSortColumn.ID) {
+      return WineCursor.ofId(id);
+    }
+    return new WineCursor(resultSet.getObject(sort.column().getColumnName()), id);
+  }
+
+  /**
+   * Gets the ORDER BY clause of a sort, which breaks ties by ID in the same direction so it matches
+   * the order of the index of the sorted column.
+   *
+   * @param sort The order of the wines
+   * @return The ORDER BY clause
+   */
+  private static String orderBy(WineSort sort) {
+    String direction = sort.ascending() ? "" : " DESC";
+    if (sort.column() == WineSortColumn.ID) {
+      return "ORDER BY WINE.ID" + direction + " ";
+    }
+    return "ORDER BY WINE." + sort.column().getColumnName() + direction + ", WINE.ID" + direction
+        + " ";
+  }
+
+  /**
+   * Gets the conditions applied to the WINE table for a set of wine filters.
+   *
+   * @param filters The wine filters to be applied, may be null
+   * @return The conditions, each starting with AND, or nothing if there are no filters
+   */
+  private static String filterConditions(WineFilters filters) {
+    if (filters == null) {
+      return "";
+    }
+    return "AND " + FILTER_CONDITIONS
+        + (filters.getMinRating() > 0 ? RATING_CONDITION : "")
+        + (toMatchQuery(filters.getTitle()) == null ? "" : KEYWORD_CONDITION);
+  }
+
+  /**
+   * Sets the parameters of {@link #filterConditions(WineFilters)} on a statement. Does nothing if
+   * there are no filters.
+   *
+   * @param statement  The statement to set the parameters of
+   * @param filters    The wine filters to be applied, may be null
+   * @param paramIndex The index of the first filter parameter
+   * @return The index of the next parameter after the filter parameters
+   * @throws SQLException If a parameter could not be set
+   */
+  private int setFilterParameters(PreparedStatement statement, WineFilters filters,
+      int paramIndex) throws SQLException {
+    if (filters == null) {
+      return paramIndex;
+    }
+    statement.setString(paramIndex++,
+        filters.getCountry().isEmpty() ? "%" : "%" + filters.getCountry() + "%");
+    statement.setString(paramIndex++,
+        filters.getWinery().isEmpty() ? "%" : "%" + filters.getWinery() + "%");
+    statement.setString(paramIndex++,
+        filters.getColor().isEmpty() ? "%" : "%" + filters.getColor() + "%");
+    statement.setInt(paramIndex++, filters.getMinVintage());
+    statement.setInt(paramIndex++, filters.getMaxVintage());
+    statement.setDouble(paramIndex++, filters.getMinScore());
+    statement.setDouble(paramIndex++, filters.getMaxScore());
+    statement.setDouble(paramIndex++, filters.getMinAbv());
+    statement.setDouble(paramIndex++, filters.getMaxAbv());
+    statement.setDouble(paramIndex++, filters.getMinPrice());
+    statement.setDouble(paramIndex++, filters.getMaxPrice());
+    if (filters.getMinRating() > 0) {
+      statement.setDouble(paramIndex++, filters.getMinRating());
+    }
+    String query = toMatchQuery(filters.getTitle());
+    if (query != null) {
+      statement.setString(paramIndex++, query);
+    }
+    return paramIndex;
+  }
+
   /**
    * Gets a wine with a specific id.
    *
@@ -218,9 +936,10 @@ public class WineDao extends Dao {
   public Wine get(long id) throws SQLException {
     String sql = "SELECT WINE.ID as wine_id, WINE.*, GEOLOCATION.LATITUDE, GEOLOCATION.LONGITUDE "
         + "FROM WINE "
-        + "LEFT JOIN GEOLOCATION ON LOWER(WINE.REGION) LIKE LOWER(GEOLOCATION.NAME) "
+        + "LEFT JOIN GEOLOCATION ON GEOLOCATION.NAME = WINE.GEOLOCATION_NAME "
         + "WHERE ID = ?";
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+    try (Connection reader = readConnection();
+        PreparedStatement statement = reader.prepareStatement(sql)) {
       statement.setLong(1, id);
 
       try (ResultSet resultSet = statement.executeQuery()) {
@@ -247,9 +966,10 @@ public class WineDao extends Dao {
     Timer timer = new Timer();
     String sql = "SELECT WINE.ID as wine_id, WINE.*, GEOLOCATION.LATITUDE, GEOLOCATION.LONGITUDE "
         + "FROM WINE "
-        + "LEFT JOIN GEOLOCATION ON LOWER(WINE.REGION) LIKE LOWER(GEOLOCATION.NAME) "
+        + "LEFT JOIN GEOLOCATION ON GEOLOCATION.NAME = WINE.GEOLOCATION_NAME "
         + "WHERE TITLE = ?";
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+    try (Connection reader = readConnection();
+        PreparedStatement statement = reader.prepareStatement(sql)) {
       statement.setString(1, title);
 
       try (ResultSet resultSet = statement.executeQuery()) {
@@ -269,14 +989,14 @@ public class WineDao extends Dao {
   }
 
   /**
-   * Replaces all wines in the WINE table by first removing all existing wines and then adding the
-   * provided lists of wines.
+   * Replaces all wines in the WINE table with the provided list of wines. The wines are loaded into
+   * a staging table first and swapped in with a single transaction, so the existing wines stay
+   * readable while loading and are kept if the load fails.
    *
    * @param wines The list of wines to be added to the table
    */
   public void replaceAll(List<Wine> wines) throws SQLException {
-    removeAll();
-    addAll(wines);
+    importAll(wines.iterator(), true, new WineImportProgress(0));
   }
 
 
@@ -289,30 +1009,50 @@ public class WineDao extends Dao {
   private void addList(List<Wine> wines) throws SQLException {
 
     Timer timer = new Timer();
-    String sql = "INSERT INTO WINE VALUES (null, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    for (Wine wine : wines) {
+      if (wine.getKey() != -1) {
+        log.error("Adding wine that is already in the database");
+        return;
+      }
+    }
 
     connection.setAutoCommit(false);
 
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
-      for (int i = 0; i < wines.size(); i++) {
-        if (wines.get(i).getKey() != -1) {
-          log.error("Adding wine that is already in the database");
-          return;
-        }
-        setWineParameters(statement, wines.get(i), 1);
-        statement.addBatch();
-      }
-      statement.executeBatch();
-      ResultSet keys = statement.getGeneratedKeys();
+    try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+      insertBatch(statement, wines);
+      connection.commit();
+    } catch (SQLException error) {
+      // roll back so a failed chunk leaves nothing half inserted
+      connection.rollback();
+      throw error;
+    } finally {
+      connection.setAutoCommit(true);
+    }
+    log.info("Successfully added {} wines in {}ms", wines.size(),
+        timer.currentOffsetMilliseconds());
+  }
+
+  /**
+   * Inserts a batch of new wines with the insert statement and sets their keys. The caller is
+   * responsible for the transaction.
+   *
+   * @param statement the statement prepared from {@link #INSERT_SQL}
+   * @param wines     the wines to insert
+   * @throws SQLException if the wines could not be inserted
+   */
+  private void insertBatch(PreparedStatement statement, List<Wine> wines) throws SQLException {
+    for (Wine wine : wines) {
+      setWineParameters(statement, wine, 1);
+      statement.setString(13, wine.getRegion());
+      statement.addBatch();
+    }
+    statement.executeBatch();
+    try (ResultSet keys = statement.getGeneratedKeys()) {
       int i = 0;
       while (keys.next()) {
         wines.get(i++).setKey(keys.getLong(1));
       }
-      connection.commit();
-    } finally {
-      connection.setAutoCommit(true);
     }
-    log.info("Successfully {} wines in {}ms", wines.size(), timer.currentOffsetMilliseconds());
   }
 
   /**
@@ -332,27 +1072,266 @@ public class WineDao extends Dao {
    * @param wines The list of wines to be added to the table
    */
   public void addAll(List<Wine> wines) throws SQLException {
-    for (int i = 0; i < wines.size(); i += 2048) {
-      addList(wines.subList(i, Math.min(wines.size(), i + 2048)));
+    for (int i = 0; i < wines.size(); i += BATCH_SIZE) {
+      addList(wines.subList(i, Math.min(wines.size(), i + BATCH_SIZE)));
+    }
+
+    // Count the new values rather than rescanning the table
+    wines.forEach(wineDataStatService::add);
+  }
+
+  /**
+   * Imports the wines from an iterator into the WINE table, optionally replacing all existing
+   * wines. At most one batch of wines is pulled from the iterator at a time so the memory used does
+   * not grow with the number of wines.
+   * <p>
+   * An append is a single transaction. A replace loads the wines into a staging table, committing
+   * a large chunk at a time, then swaps them into the WINE table in one short transaction, so the
+   * existing catalog stays readable and unchanged for the duration of the load. The progress is
+   * checked after every batch. If the import is cancelled or fails, the WINE table is left exactly
+   * as it was, including the wines a replace would have removed.
+   * </p>
+   * <p>
+   * The unique values and ranges are updated from the imported wines as they are inserted rather
+   * than by rescanning the table, and only once the import has been committed.
+   * </p>
+   *
+   * @param wines    the wines to be added to the table
+   * @param replace  whether to remove all existing wines first
+   * @param progress the progress to report inserted wines to and check for cancellation
+   * @return the number of wines added
+   * @throws SQLException          if the wines could not be imported
+   * @throws CancellationException if the import was cancelled
+   */
+  public int importAll(Iterator<Wine> wines, boolean replace, WineImportProgress progress)
+      throws SQLException {
+    // write buffered changes first so they cannot reach the wines which replace these
+    writeBehind.flush();
+    Timer timer = new Timer();
+    WineDataStatService importedStats = new WineDataStatService();
+    int added = replace
+        ? replaceFromStaging(wines, progress, importedStats)
+        : append(wines, progress, importedStats);
+
+    if (replace) {
+      wineDataStatService.reset();
+    }
+    wineDataStatService.merge(importedStats);
+    long elapsed = timer.currentOffsetMilliseconds();
+    log.info("Successfully imported {} wines in {}ms ({} rows/s)", added, elapsed,
+        added * 1000L / Math.max(1, elapsed));
+    return added;
+  }
+
+  /**
+   * Appends wines to the WINE table in a single transaction which is rolled back if the import is
+   * cancelled or fails. The indexes are kept, as rebuilding them would mean reindexing every
+   * existing wine as well, but the catalog version is only incremented once.
+   *
+   * @param wines         the wines to be added to the table
+   * @param progress      the progress to report inserted wines to and check for cancellation
+   * @param importedStats the stats to add the inserted wines to
+   * @return the number of wines added
+   * @throws SQLException if the wines could not be inserted
+   */
+  private int append(Iterator<Wine> wines, WineImportProgress progress,
+      WineDataStatService importedStats) throws SQLException {
+    connection.setAutoCommit(false);
+    try (Statement triggers = connection.createStatement();
+        PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+      suspendCatalogVersion(triggers, StatSnapshotDao.WINE_CATALOG);
+      int added = insertBatches(statement, wines, progress, importedStats, 0);
+      resumeCatalogVersion(triggers, StatSnapshotDao.WINE_CATALOG);
+      connection.commit();
+      return added;
+    } catch (SQLException | RuntimeException error) {
+      connection.rollback();
+      log.info("Rolled back wine import");
+      throw error;
+    } finally {
+      connection.setAutoCommit(true);
+    }
+  }
+
+  /**
+   * Loads wines into a staging table with the same columns as WINE, then swaps them in for the
+   * existing wines. The staging table has no indexes, and its row IDs become the IDs of the wines,
+   * which match the IDs the wines would get inserted into an emptied WINE table. The staging table
+   * is dropped afterwards whether or not the swap happened.
+   * <p>
+   * The staging table is kept in the main database rather than as a temporary table so a large
+   * import is never held in memory when temporary tables are.
+   * </p>
+   *
+   * @param wines         the wines to replace the existing wines with
+   * @param progress      the progress to report inserted wines to and check for cancellation
+   * @param importedStats the stats to add the inserted wines to
+   * @return the number of wines added
+   * @throws SQLException if the wines could not be loaded or swapped in
+   */
+  private int replaceFromStaging(Iterator<Wine> wines, WineImportProgress progress,
+      WineDataStatService importedStats) throws SQLException {
+    Timer timer = new Timer();
+    try (Statement statement = connection.createStatement()) {
+      statement.executeUpdate("DROP TABLE IF EXISTS WINE_STAGING");
+      statement.executeUpdate("CREATE TABLE WINE_STAGING AS SELECT * FROM WINE WHERE 0");
+    }
+    try {
+      int added;
+      connection.setAutoCommit(false);
+      try (PreparedStatement statement = connection.prepareStatement(INSERT_STAGING_SQL)) {
+        added = insertBatches(statement, wines, progress, importedStats, STAGING_COMMIT_SIZE);
+        connection.commit();
+      } catch (SQLException | RuntimeException error) {
+        connection.rollback();
+        log.info("Abandoned staged wine import after {}ms", timer.currentOffsetMilliseconds());
+        throw error;
+      } finally {
+        connection.setAutoCommit(true);
+      }
+      log.info("Successfully staged {} wines in {}ms", added, timer.currentOffsetMilliseconds());
+      swapInStaging();
+      return added;
+    } finally {
+      try (Statement statement = connection.createStatement()) {
+        statement.executeUpdate("DROP TABLE IF EXISTS WINE_STAGING");
+      }
+    }
+  }
+
+  /**
+   * Replaces the wines in the WINE table with the wines in the staging table in one transaction.
+   * Removing the existing wines cascades to their reviews, notes and list items as
+   * {@link #removeAll()} does. The indexes of the WINE table, including the full-text index, are
+   * dropped for the copy and rebuilt in one pass inside the same transaction, so readers never see
+   * the table without them.
+   *
+   * @throws SQLException if the swap failed, in which case it is rolled back
+   */
+  private void swapInStaging() throws SQLException {
+    Timer timer = new Timer();
+    connection.setAutoCommit(false);
+    try (Statement statement = connection.createStatement()) {
+      List<String> indexes = dropIndexes("WINE");
+      dropSearchTriggers(statement);
+      suspendCatalogVersion(statement, StatSnapshotDao.WINE_CATALOG);
+      int removed = statement.executeUpdate("DELETE FROM WINE");
+      int added = statement.executeUpdate("INSERT INTO WINE (ID, " + INSERTED_COLUMNS + ") "
+          + "SELECT ROWID, " + INSERTED_COLUMNS + " FROM WINE_STAGING ORDER BY ROWID");
+      long copied = timer.currentOffsetMilliseconds();
+      createIndexes(indexes);
+      statement.execute("INSERT INTO WINE_SEARCH (WINE_SEARCH) VALUES ('rebuild')");
+      createSearchTriggers(statement);
+      resumeCatalogVersion(statement, StatSnapshotDao.WINE_CATALOG);
+      connection.commit();
+      wineCache.clear();
+      log.info("Successfully swapped {} staged wines in for {} wines in {}ms, {}ms of which "
+              + "rebuilding {} indexes", added, removed, timer.currentOffsetMilliseconds(),
+          timer.currentOffsetMilliseconds() - copied, indexes.size());
+    } catch (SQLException error) {
+      connection.rollback();
+      throw error;
+    } finally {
+      connection.setAutoCommit(true);
+    }
+  }
+
+  /**
+   * Drops the triggers which keep the full-text index in sync with the WINE table, so a bulk change
+   * can be indexed in one pass instead of row by row. This should be done inside the transaction of
+   * the change, which should end with {@link #createSearchTriggers(Statement)}.
+   *
+   * @param statement the statement to drop the triggers with
+   * @throws SQLException if the triggers could not be dropped
+   */
+  private static void dropSearchTriggers(Statement statement) throws SQLException {
+    for (String trigger : List.of("WINE_SEARCH_INSERT", "WINE_SEARCH_DELETE",
+        "WINE_SEARCH_UPDATE")) {
+      statement.execute("DROP TRIGGER IF EXISTS " + trigger);
+    }
+  }
+
+  /**
+   * Creates the triggers which keep the full-text index in sync with the WINE table.
+   *
+   * @param statement the statement to create the triggers with
+   * @throws SQLException if the triggers could not be created
+   */
+  private static void createSearchTriggers(Statement statement) throws SQLException {
+    for (String sql : SEARCH_TRIGGERS) {
+      statement.execute(sql);
     }
+  }
 
-    // Update uniques due to new values
-    updateUniques();
+  /**
+   * Inserts wines in batches with a prepared insert statement until the wines run out or the
+   * import is cancelled. The caller is responsible for the transaction.
+   *
+   * @param statement     the statement prepared from {@link #INSERT_SQL} or
+   *                      {@link #INSERT_STAGING_SQL}
+   * @param wines         the wines to insert
+   * @param progress      the progress to report inserted wines to and check for cancellation
+   * @param importedStats the stats to add the inserted wines to
+   * @param commitSize    the number of wines to insert per commit, or 0 to never commit
+   * @return the number of wines inserted
+   * @throws SQLException          if a batch could not be inserted
+   * @throws CancellationException if the import was cancelled
+   */
+  private int insertBatches(PreparedStatement statement, Iterator<Wine> wines,
+      WineImportProgress progress, WineDataStatService importedStats, int commitSize)
+      throws SQLException {
+    List<Wine> batch = new ArrayList<>(BATCH_SIZE);
+    int added = 0;
+    int uncommitted = 0;
+    while (wines.hasNext() && !progress.isCancelled()) {
+      Wine wine = wines.next();
+      batch.add(wine);
+      importedStats.add(wine);
+      if (batch.size() == BATCH_SIZE || !wines.hasNext()) {
+        insertBatch(statement, batch);
+        added += batch.size();
+        uncommitted += batch.size();
+        if (commitSize > 0 && uncommitted >= commitSize) {
+          connection.commit();
+          uncommitted = 0;
+        }
+        progress.addRowsInserted(batch.size());
+        batch.clear();
+      }
+    }
+    if (progress.isCancelled()) {
+      throw new CancellationException("Wine import cancelled");
+    }
+    return added;
   }
 
   /**
    * Removes all wines from the WINE table.
    */
   public void removeAll() throws SQLException {
+    writeBehind.flush();
     Timer timer = new Timer();
     wineCache.clear();
     String sql = "DELETE FROM WINE";
+    connection.setAutoCommit(false);
     try (Statement statement = connection.createStatement()) {
+      // clear the full-text index in one go rather than removing each wine from it
+      dropSearchTriggers(statement);
+      suspendCatalogVersion(statement, StatSnapshotDao.WINE_CATALOG);
       int rowsAffected = statement.executeUpdate(sql);
+      statement.execute("INSERT INTO WINE_SEARCH (WINE_SEARCH) VALUES ('delete-all')");
+      createSearchTriggers(statement);
+      resumeCatalogVersion(statement, StatSnapshotDao.WINE_CATALOG);
+      connection.commit();
       log.info("Successfully removed {} wines in {}ms", rowsAffected,
           timer.currentOffsetMilliseconds());
       wineCache.removeAll();
-      updateUniques();
+      wineDataStatService.reset();
+    } catch (SQLException error) {
+      connection.rollback();
+      throw error;
+    } finally {
+      connection.setAutoCommit(true);
     }
   }
 
@@ -404,12 +1383,46 @@ public class WineDao extends Dao {
         geoLocation,
         resultSet.getDouble("AVERAGE_RATING")
     );
-    wineCache.addObject(id, wine);
+    wine.setReviewCount(resultSet.getInt("REVIEW_COUNT"));
+    Wine storedWine = wineCache.addObjectIfAbsent(id, wine);
+    if (storedWine != wine) {
+      return storedWine; // Another thread read the same wine first
+    }
 
     bindUpdater(wine);
     return wine;
   }
 
+  /**
+   * Extracts a WineSummary from the provided ResultSet, summarising the cached wine instead if
+   * there is one.
+   *
+   * @param resultSet The ResultSet from which the summary is to be extracted
+   * @return The extracted WineSummary
+   * @throws SQLException If an error occurs while processing the ResultSet
+   */
+  private WineSummary extractSummaryFromResultSet(ResultSet resultSet) throws SQLException {
+    long id = resultSet.getLong("ID");
+    Wine cachedWine = wineCache.tryGetObject(id);
+    if (cachedWine != null) {
+      return WineSummary.of(cachedWine);
+    }
+    return new WineSummary(
+        id,
+        resultSet.getString("TITLE"),
+        resultSet.getString("VARIETY"),
+        resultSet.getString("WINERY"),
+        resultSet.getString("REGION"),
+        resultSet.getString("COLOR"),
+        resultSet.getInt("VINTAGE"),
+        resultSet.getInt("SCORE_PERCENT"),
+        resultSet.getFloat("ABV"),
+        resultSet.getFloat("PRICE"),
+        createGeoLocation(resultSet),
+        resultSet.getDouble("AVERAGE_RATING")
+    );
+  }
+
   /**
    * Extracts the latitude and longitude from the provided ResultSet and creates a new GeoLocation
    * object.
@@ -464,184 +1477,142 @@ public class WineDao extends Dao {
    */
   private void bindUpdater(Wine wine) {
     wine.titleProperty().addListener((observableValue, before, after) -> {
-      try {
-        updateAttribute(wine.getKey(), "TITLE", update -> {
-          update.setString(1, after);
-        });
-      } catch (SQLException e) {
-        throw new RuntimeException(e);
-      }
-    });
-    wine.varietyProperty().addListener((observableValue, before, after) -> {
-      try {
-        updateAttribute(wine.getKey(), "VARIETY", update -> {
-          update.setString(1, after);
-        });
-      } catch (SQLException e) {
-        throw new RuntimeException(e);
-      }
+      wineDataStatService.replaceTitle(before, after);
+      updateAttribute(wine.getKey(), "TITLE", after);
     });
+    wine.varietyProperty().addListener((observableValue, before, after) ->
+        updateAttribute(wine.getKey(), "VARIETY", after));
     wine.countryProperty().addListener((observableValue, before, after) -> {
-      try {
-        updateAttribute(wine.getKey(), "COUNTRY", update -> {
-          update.setString(1, after);
-        });
-      } catch (SQLException e) {
-        throw new RuntimeException(e);
-      }
-    });
-    wine.regionProperty().addListener((observableValue, before, after) -> {
-      try {
-        updateAttribute(wine.getKey(), "REGION", update -> {
-          update.setString(1, after);
-        });
-      } catch (SQLException e) {
-        throw new RuntimeException(e);
-      }
+      wineDataStatService.replaceCountry(before, after);
+      updateAttribute(wine.getKey(), "COUNTRY", after);
     });
+    wine.regionProperty().addListener((observableValue, before, after) ->
+        updateAttribute(wine.getKey(), "REGION", after));
     wine.wineryProperty().addListener((observableValue, before, after) -> {
-      try {
-        updateAttribute(wine.getKey(), "WINERY", update -> {
-          update.setString(1, after);
-        });
-      } catch (SQLException e) {
-        throw new RuntimeException(e);
-      }
+      wineDataStatService.replaceWinery(before, after);
+      updateAttribute(wine.getKey(), "WINERY", after);
     });
     wine.colorProperty().addListener((observableValue, before, after) -> {
-      try {
-        updateAttribute(wine.getKey(), "COLOR", update -> {
-          update.setString(1, after);
-        });
-      } catch (SQLException e) {
-        throw new RuntimeException(e);
-      }
+      wineDataStatService.replaceColor(before, after);
+      updateAttribute(wine.getKey(), "COLOR", after);
     });
     wine.vintageProperty().addListener((observableValue, before, after) -> {
-      try {
-        updateAttribute(wine.getKey(), "VINTAGE", update -> {
-          update.setInt(1, (int) after);
-        });
-      } catch (SQLException e) {
-        throw new RuntimeException(e);
-      }
-    });
-    wine.descriptionProperty().addListener((observableValue, before, after) -> {
-      try {
-        updateAttribute(wine.getKey(), "DESCRIPTION", update -> {
-          update.setString(1, after);
-        });
-      } catch (SQLException e) {
-        throw new RuntimeException(e);
-      }
+      wineDataStatService.replaceVintage(before.intValue(), after.intValue());
+      updateAttribute(wine.getKey(), "VINTAGE", (int) after);
     });
+    wine.descriptionProperty().addListener((observableValue, before, after) ->
+        updateAttribute(wine.getKey(), "DESCRIPTION", after));
     wine.scorePercentProperty().addListener((observableValue, before, after) -> {
-      try {
-        updateAttribute(wine.getKey(), "SCORE_PERCENT", update -> {
-          update.setInt(1, (int) after);
-        });
-      } catch (SQLException e) {
-        throw new RuntimeException(e);
-      }
+      wineDataStatService.replaceScore(before.intValue(), after.intValue());
+      updateAttribute(wine.getKey(), "SCORE_PERCENT", (int) after);
     });
     wine.abvProperty().addListener((observableValue, before, after) -> {
-      try {
-        updateAttribute(wine.getKey(), "ABV", update -> {
-          update.setFloat(1, (float) after);
-        });
-      } catch (SQLException e) {
-        throw new RuntimeException(e);
-      }
+      wineDataStatService.replaceAbv(before.floatValue(), after.floatValue());
+      updateAttribute(wine.getKey(), "ABV", (float) after);
     });
     wine.priceProperty().addListener((observableValue, before, after) -> {
-      try {
-        updateAttribute(wine.getKey(), "PRICE", update -> {
-          update.setFloat(1, (float) after);
-        });
-      } catch (SQLException e) {
-        throw new RuntimeException(e);
-      }
-    });
-    wine.averageRatingProperty().addListener((observableValue, before, after) -> {
-      try {
-        updateAttribute(wine.getKey(), "AVERAGE_RATING", update -> {
-          update.setDouble(1, (double) after);
-        });
-      } catch (SQLException e) {
-        throw new RuntimeException(e);
-      }
+      wineDataStatService.replacePrice(before.floatValue(), after.floatValue());
+      updateAttribute(wine.getKey(), "PRICE", (float) after);
     });
+    // the average rating and review count are maintained by the database as reviews change, see
+    // getReviewAggregates, so they are never written back
   }
 
   /**
-   * Updates a specific attribute of the user in the WINE table.
+   * Queues an update of a specific attribute of the wine in the WINE table. Updates to the same
+   * wine are coalesced and written together by the write-behind buffer.
    *
-   * @param attributeName   name of attribute
-   * @param attributeSetter callback to set attribute
+   * @param id            id of wine
+   * @param attributeName name of attribute
+   * @param value         new value of attribute
    */
-  private void updateAttribute(long id, String attributeName,
-      DatabaseManager.AttributeSetter attributeSetter) throws SQLException {
+  private void updateAttribute(long id, String attributeName, Object value) {
     if (id == -1) {
       log.warn("Skipping attribute update '{}' for wine with ID -1",
           attributeName);
       return;
     }
-    Timer timer = new Timer();
-    String sql = "UPDATE WINE set " + attributeName + " = ? where ID = ?";
-    try (PreparedStatement update = connection.prepareStatement(sql)) {
-      attributeSetter.setAttribute(update);
-      update.setLong(2, id);
-
-      int rowsAffected = update.executeUpdate();
-      if (rowsAffected == 1) {
-        log.info("Successfully updated attribute '{}' for wine with ID {} in {}ms",
-            attributeName, id, timer.currentOffsetMilliseconds());
-      } else {
-        log.info("Could not update attribute '{}' for wine with ID {} in {}ms",
-            attributeName, id, timer.currentOffsetMilliseconds());
+    writeBehind.update("WINE", "ID", id, attributeName, value);
+  }
+
+  /**
+   * Reads the average rating and review count of the given wines after their reviews changed.
+   * The aggregates are maintained by the database, so this reads one row per wine rather than
+   * every review. Only wines which are currently loaded are read, as any other wine reads its
+   * aggregates when it is next loaded. This runs on the writer thread after the reviews are
+   * changed, and the aggregates are applied to the wines on the JavaFX thread as they are bound to
+   * the UI.
+   *
+   * @param ids the IDs of the wines whose reviews changed
+   * @return the aggregates of each loaded wine
+   * @throws SQLException if the aggregates could not be read
+   */
+  public List<ReviewAggregate> getReviewAggregates(Collection<Long> ids) throws SQLException {
+    // pending edits to reviews must reach the database before the aggregates are read
+    writeBehind.flush();
+    List<Wine> wines = new ArrayList<>();
+    for (long id : new TreeSet<>(ids)) {
+      Wine cachedWine = wineCache.tryGetObject(id);
+      if (cachedWine != null) {
+        wines.add(cachedWine);
+      }
+    }
+    List<ReviewAggregate> aggregates = new ArrayList<>();
+    if (wines.isEmpty()) {
+      return aggregates;
+    }
+    String sql = "SELECT AVERAGE_RATING, REVIEW_COUNT FROM WINE WHERE ID = ?";
+    try (Connection reader = readConnection();
+        PreparedStatement statement = reader.prepareStatement(sql)) {
+      for (Wine wine : wines) {
+        statement.setLong(1, wine.getKey());
+        try (ResultSet resultSet = statement.executeQuery()) {
+          if (resultSet.next()) {
+            aggregates.add(new ReviewAggregate(wine, resultSet.getDouble("AVERAGE_RATING"),
+                resultSet.getInt("REVIEW_COUNT")));
+          }
+        }
       }
     }
+    return aggregates;
   }
 
   /**
-   * Updates a range of unique values using the wineDataStatService.
+   * Rebuilds the unique values and ranges of the wineDataStatService by scanning the WINE table,
+   * and stamps them with the version of the table they were built from.
    *
    * <p>
-   * When the cache is invalidated by write operations to the database this must be called.
+   * The stats are maintained incrementally as wines are added, imported, edited and removed, so
+   * this only needs to be called when there is no current snapshot of them to load. The table is
+   * scanned into separate stats which are swapped in together with the edits made during the
+   * scan, see {@link WineDataStatService#beginRebuild()}, so this should run on the writer thread
+   * where no other write can reach the table first.
    * </p>
    */
   public void updateUniques() throws SQLException {
-    wineDataStatService.reset();
+    Timer timer = new Timer();
+    wineDataStatService.beginRebuild();
+    WineDataStatService scannedStats = new WineDataStatService();
     String query = "SELECT title, country, winery, color, vintage, score_percent, abv, price "
         + "FROM wine";
-    try (PreparedStatement statement = connection.prepareStatement(query);
-        ResultSet set = statement.executeQuery()) {
-
-      // Go through results and add to lists
-      while (set.next()) {
-        final String title = set.getString("title");
-        final String country = set.getString("country");
-        final String winery = set.getString("winery");
-        final String color = set.getString("color");
-        final int vintage = set.getInt("vintage");
-        final int score = set.getInt("score_percent");
-        final float abv = set.getFloat("abv");
-        final float price = set.getFloat("price");
-
-        // Add to sets
-        this.wineDataStatService.getUniqueTitles().add(title);
-        this.wineDataStatService.getUniqueCountries().add(country);
-        this.wineDataStatService.getUniqueWineries().add(winery);
-        this.wineDataStatService.getUniqueColors().add(color);
-
-        // Update mins and maxes
-        updateMinMax("vintage", vintage);
-        updateMinMax("score", score);
-        updateMinMax("abv", abv);
-        updateMinMax("price", price);
+    try (Connection reader = readConnection()) {
+      // read before the scan so a change made during it makes the stats look out of date
+      long version = getCatalogVersion(reader, StatSnapshotDao.WINE_CATALOG);
+      try (PreparedStatement statement = reader.prepareStatement(query);
+          ResultSet set = statement.executeQuery()) {
+        while (set.next()) {
+          scannedStats.add(set.getString("title"), set.getString("country"),
+              set.getString("winery"), set.getString("color"), set.getInt("vintage"),
+              set.getInt("score_percent"), set.getFloat("abv"), set.getFloat("price"));
+        }
       }
-      log.info("Successfully updated unique values wine cache");
+      wineDataStatService.finishRebuild(scannedStats, version);
+    } catch (SQLException | RuntimeException error) {
+      wineDataStatService.cancelRebuild();
+      throw error;
     }
+    log.info("Successfully updated unique values wine cache in {}ms",
+        timer.currentOffsetMilliseconds());
   }
 
   /**
@@ -650,75 +1621,93 @@ public class WineDao extends Dao {
    * @param wine The new wine to check
    */
   public void updateUniques(Wine wine) {
+    wineDataStatService.add(wine);
+  }
 
-    // Add wine data to sets
-    wineDataStatService.getUniqueTitles().add(wine.getTitle());
-    wineDataStatService.getUniqueCountries().add(wine.getCountry());
-    wineDataStatService.getUniqueWineries().add(wine.getWinery());
-    wineDataStatService.getUniqueColors().add(wine.getColor());
+  /**
+   * Gets the wineDataStatService.
+   *
+   * @return wineDataStatService
+   */
+  public WineDataStatService getWineDataStatService() {
+    return wineDataStatService;
+  }
 
-    // Check mins and maxes
-    updateMinMax("vintage", wine.getVintage());
-    updateMinMax("score", wine.getScorePercent());
-    updateMinMax("abv", wine.getAbv());
-    updateMinMax("price", wine.getPrice());
+  /**
+   * Gets the hits, misses and evictions of the cache of wines read by this DAO.
+   *
+   * @return the statistics of the wine cache
+   */
+  public DatabaseObjectUniquer.Statistics getCacheStatistics() {
+    return wineCache.getStatistics();
   }
 
   /**
-   * Helper function for the update uniques, just abstracts the min and max checks.
-   * <p>
-   * Updates the specified value if the new value is smaller than current min or<br> greater than
-   * current max.
-   * </p>
+   * Gets the hits, misses and evictions of the cache of pages of wine summaries.
    *
-   * @param name  name of the variable to update
-   * @param value new value
+   * @return the statistics of the page cache
    */
-  private void updateMinMax(String name, float value) {
-    switch (name) {
-      case "vintage":
-        if (value > this.wineDataStatService.getMaxVintage()) {
-          this.wineDataStatService.setMaxVintage((int) value);
+  public VersionedLruCache.Statistics getPageCacheStatistics() {
+    return summaryPages.getStatistics();
+  }
 
-          // In decanter, some vintages are NV which defaults to 0
-          // In the 130k dataset, some values don't have vintage that defaults to -1
-        } else if (value < this.wineDataStatService.getMinVintage() && value > 0) {
-          this.wineDataStatService.setMinVintage((int) value);
-        }
-        break;
-      case "score":
-        if (value > this.wineDataStatService.getMaxScore()) {
-          this.wineDataStatService.setMaxScore((int) value);
-        } else if (value < this.wineDataStatService.getMinScore()) {
-          this.wineDataStatService.setMinScore((int) value);
-        }
-        break;
-      case "abv":
-        if (value > this.wineDataStatService.getMaxAbv()) {
-          this.wineDataStatService.setMaxAbv(value);
-        } else if (value < this.wineDataStatService.getMinAbv()) {
-          this.wineDataStatService.setMinAbv(value);
-        }
-        break;
-      case "price":
-        if (value > this.wineDataStatService.getMaxPrice()) {
-          this.wineDataStatService.setMaxPrice(value);
-        } else if (value < this.wineDataStatService.getMinPrice()) {
-          this.wineDataStatService.setMinPrice(value);
-        }
-        break;
+  /**
+   * Gets the hits, misses and evictions of the cache of filtered wine counts.
+   *
+   * @return the statistics of the count cache
+   */
+  public VersionedLruCache.Statistics getCountCacheStatistics() {
+    return filteredCounts.getStatistics();
+  }
+
+  /**
+   * A page of wine summaries and the cursor the page after it is read from.
+   *
+   * @param summaries the summaries of the wines on the page
+   * @param next      the cursor just after the last wine on the page, or null if it is empty
+   */
+  public record CursorPage(List<WineSummary> summaries, WineCursor next) {
 
-      default:
-        break;
+  }
+
+  /**
+   * A page of wine summaries and the total number of wines matching the filters it was read with.
+   *
+   * @param summaries the summaries of the wines on the page
+   * @param next      the cursor just after the last wine on the page, or null if it is empty
+   * @param total     the total number of wines matching the filters
+   */
+  public record SummaryPage(List<WineSummary> summaries, WineCursor next, int total) {
+
+  }
+
+  /**
+   * The average rating and review count of a loaded wine, read after its reviews changed.
+   *
+   * @param wine          the loaded wine
+   * @param averageRating the average rating of its reviews
+   * @param reviewCount   the number of reviews of it
+   */
+  public record ReviewAggregate(Wine wine, double averageRating, int reviewCount) {
+
+    /**
+     * Sets the aggregates on the wine. This must run on the JavaFX thread.
+     */
+    public void apply() {
+      wine.setAverageRating(averageRating);
+      wine.setReviewCount(reviewCount);
     }
   }
 
   /**
-   * Gets the wineDataStatService.
+   * The key of a cached page of wine summaries.
    *
-   * @return wineDataStatService
+   * @param filters the wine filters the page was read with, or null if it was not filtered
+   * @param sort    the order the page was read in
+   * @param cursor  the place after the last wine before the page
+   * @param limit   the maximum number of wines on the page
    */
-  public WineDataStatService getWineDataStatService() {
-    return wineDataStatService;
+  private record PageKey(WineFilters filters, WineSort sort, WineCursor cursor, int limit) {
+
   }
 }
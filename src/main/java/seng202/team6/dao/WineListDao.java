@@ -66,6 +66,20 @@ public class WineListDao extends Dao {
     };
   }
 
+  /**
+   * Returns the migrations for the LIST_NAME and LIST_ITEMS tables.
+   *
+   * @return Array of migrations for the LIST_NAME and LIST_ITEMS tables
+   */
+  @Override
+  public Migration[] getMigrations() {
+    return new Migration[]{
+        Migration.of(4, "Index list items by list and wine",
+            "CREATE INDEX IF NOT EXISTS LIST_ITEMS_LIST_ID_WINE_ID "
+                + "ON LIST_ITEMS (LIST_ID, WINE_ID)")
+    };
+  }
+
   /**
    * Retrieves all wine lists owned by the provided user from the LIST_NAME table.
    *
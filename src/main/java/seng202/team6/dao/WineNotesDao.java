@@ -7,7 +7,7 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import seng202.team6.managers.DatabaseManager;
+import seng202.team6.managers.WriteBehindBuffer;
 import seng202.team6.model.Note;
 import seng202.team6.model.User;
 import seng202.team6.model.Wine;
@@ -24,14 +24,20 @@ public class WineNotesDao extends Dao {
    */
   private final DatabaseObjectUniquer<Note> notesCache = new DatabaseObjectUniquer<>();
 
+  /**
+   * Buffer which coalesces and writes the changes made to bound properties.
+   */
+  private final WriteBehindBuffer writeBehind;
 
   /**
    * Constructs a new WineNotesDAO with the given database connection.
    *
-   * @param connection The database connection to be used for wine note operations.
+   * @param connection  The database connection to be used for wine note operations.
+   * @param writeBehind The buffer which writes changes to the text of notes.
    */
-  public WineNotesDao(Connection connection) {
+  public WineNotesDao(Connection connection, WriteBehindBuffer writeBehind) {
     super(connection, WineNotesDao.class);
+    this.writeBehind = writeBehind;
   }
 
   @Override
@@ -48,6 +54,19 @@ public class WineNotesDao extends Dao {
     };
   }
 
+  /**
+   * Returns the migrations for the NOTES table.
+   *
+   * @return Array of migrations for the NOTES table
+   */
+  @Override
+  public Migration[] getMigrations() {
+    return new Migration[]{
+        Migration.of(3, "Index notes by user and wine",
+            "CREATE INDEX IF NOT EXISTS NOTES_USERNAME_WINE_ID ON NOTES (USERNAME, WINE_ID)")
+    };
+  }
+
   /**
    * Retrieves all notes from the NOTES table.
    *
@@ -199,6 +218,7 @@ public class WineNotesDao extends Dao {
    * @param note The note to be deleted.
    */
   public void delete(Note note) {
+    writeBehind.flush();
     if (note.getId() == -1) {
       log.error(
           "Failed to add note for user '{}' "
@@ -300,38 +320,21 @@ public class WineNotesDao extends Dao {
       if (note.getId() == -1) {
         add(note);
       } else { // otherwise the note is in the database so update it
-        updateAttribute(note.getId(), "NOTE", update -> {
-          update.setString(1, note.getNote());
-        });
+        updateAttribute(note.getId(), "NOTE", note.getNote());
       }
     });
   }
 
   /**
-   * Updates a specific attribute of the note in the NOTES table.
+   * Queues an update of a specific attribute of the note in the NOTES table. Typing into a note
+   * changes it on every keystroke, so the changes are coalesced and written together by the
+   * write-behind buffer.
    *
-   * @param attributeName   name of attribute
-   * @param attributeSetter callback to set attribute
+   * @param id            id of note
+   * @param attributeName name of attribute
+   * @param value         new value of attribute
    */
-  private void updateAttribute(long id, String attributeName,
-      DatabaseManager.AttributeSetter attributeSetter) {
-    Timer timer = new Timer();
-    String sql = "UPDATE NOTES set " + attributeName + " = ? where ID = ?";
-    try (PreparedStatement update = connection.prepareStatement(sql)) {
-      attributeSetter.setAttribute(update);
-      update.setLong(2, id);
-
-      int rowsAffected = update.executeUpdate();
-      if (rowsAffected == 1) {
-        log.info("Successfully updated attribute '{}' for note with ID {} in {}ms",
-            attributeName, id, timer.currentOffsetMilliseconds());
-      } else {
-        log.info("Could not update attribute '{}' for note with ID {} in {}ms",
-            attributeName, id, timer.currentOffsetMilliseconds());
-      }
-    } catch (SQLException error) {
-      log.error("Failed to update attribute '{}' for note with ID {} in {}ms",
-          attributeName, id, timer.currentOffsetMilliseconds(), error);
-    }
+  private void updateAttribute(long id, String attributeName, Object value) {
+    writeBehind.update("NOTES", "ID", id, attributeName, value);
   }
 }
@@ -8,7 +8,8 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import seng202.team6.managers.DatabaseManager;
+import seng202.team6.managers.ReadConnectionPool;
+import seng202.team6.managers.WriteBehindBuffer;
 import seng202.team6.model.User;
 import seng202.team6.model.Wine;
 import seng202.team6.model.WineReview;
@@ -20,18 +21,64 @@ import seng202.team6.util.Timer;
  */
 public class WineReviewDao extends Dao {
 
+  /**
+   * The highest rating a review can give, which is also the last bucket of the rating histogram.
+   */
+  public static final int MAX_STARS = 5;
+
+  /**
+   * The bucket of the rating histogram a rating is counted in, which is its nearest whole star.
+   */
+  private static final String STARS = "CAST(ROUND(%s.RATING) AS INTEGER)";
+
+  /**
+   * Triggers which keep the review aggregates of each wine in sync with its reviews. The count and
+   * sum of the ratings are kept on the WINE row along with the average they give, so the average
+   * and count of a wine are read, sorted and filtered on without reading its reviews.
+   */
+  private static final String[] AGGREGATE_TRIGGERS = {
+      "CREATE TRIGGER IF NOT EXISTS WINE_REVIEW_AGGREGATE_INSERT "
+          + "AFTER INSERT ON WINE_REVIEW "
+          + "FOR EACH ROW "
+          + "BEGIN "
+          + addRating("NEW")
+          + "END",
+      "CREATE TRIGGER IF NOT EXISTS WINE_REVIEW_AGGREGATE_DELETE "
+          + "AFTER DELETE ON WINE_REVIEW "
+          + "FOR EACH ROW "
+          + "BEGIN "
+          + removeRating("OLD")
+          + "END",
+      "CREATE TRIGGER IF NOT EXISTS WINE_REVIEW_AGGREGATE_UPDATE "
+          + "AFTER UPDATE OF RATING, WINE_ID ON WINE_REVIEW "
+          + "FOR EACH ROW "
+          + "BEGIN "
+          + removeRating("OLD")
+          + addRating("NEW")
+          + "END"
+  };
+
   /**
    * Cache to store and reuse WineReview objects to avoid duplication.
    */
   private final DatabaseObjectUniquer<WineReview> wineReviewCache = new DatabaseObjectUniquer<>();
 
+  /**
+   * Buffer which coalesces and writes the changes made to bound properties.
+   */
+  private final WriteBehindBuffer writeBehind;
+
   /**
    * Constructs a new WineReviewDAO with the given database connection.
    *
-   * @param connection The database connection to be used for wine review operations.
+   * @param connection      The database connection to be used for wine review operations.
+   * @param readConnections The pool of connections to be used for reading wine reviews.
+   * @param writeBehind     The buffer which writes changes to the properties of wine reviews.
    */
-  public WineReviewDao(Connection connection) {
-    super(connection, WineReviewDao.class);
+  public WineReviewDao(Connection connection, ReadConnectionPool readConnections,
+      WriteBehindBuffer writeBehind) {
+    super(connection, readConnections, WineReviewDao.class);
+    this.writeBehind = writeBehind;
   }
 
   /**
@@ -52,10 +99,118 @@ public class WineReviewDao extends Dao {
             + "FLAG           INTEGER       NOT NULL CHECK(FLAG IN (\"0\", \"1\")),"
             + "FOREIGN KEY (USERNAME) REFERENCES USER(USERNAME) ON DELETE CASCADE,"
             + "FOREIGN KEY (WINE_ID) REFERENCES WINE(ID) ON DELETE CASCADE"
-            + ")"
+            + ")",
+        "CREATE TABLE IF NOT EXISTS WINE_RATING_HISTOGRAM ("
+            + "WINE_ID        INTEGER       NOT NULL,"
+            + "STARS          INTEGER       NOT NULL,"
+            + "REVIEWS        INTEGER       NOT NULL,"
+            + "PRIMARY KEY (WINE_ID, STARS),"
+            + "FOREIGN KEY (WINE_ID) REFERENCES WINE(ID) ON DELETE CASCADE"
+            + ") WITHOUT ROWID"
     };
   }
 
+  /**
+   * Returns the migrations for the WINE_REVIEW table.
+   *
+   * @return Array of migrations for the WINE_REVIEW table
+   */
+  @Override
+  public Migration[] getMigrations() {
+    return new Migration[]{
+        Migration.of(2, "Index wine reviews by wine and user",
+            "CREATE INDEX IF NOT EXISTS WINE_REVIEW_WINE_ID ON WINE_REVIEW (WINE_ID)",
+            "CREATE INDEX IF NOT EXISTS WINE_REVIEW_USERNAME ON WINE_REVIEW (USERNAME)"),
+        new Migration(10, "Maintain the review aggregates of each wine", connection -> {
+          try (Statement statement = connection.createStatement()) {
+            // aggregate the existing reviews once, after which the triggers keep them in sync
+            statement.executeUpdate("UPDATE WINE SET "
+                + "REVIEW_COUNT = (SELECT COUNT(*) FROM WINE_REVIEW "
+                + "WHERE WINE_REVIEW.WINE_ID = WINE.ID), "
+                + "RATING_SUM = (SELECT SUM(RATING) FROM WINE_REVIEW "
+                + "WHERE WINE_REVIEW.WINE_ID = WINE.ID), "
+                + "AVERAGE_RATING = (SELECT AVG(RATING) FROM WINE_REVIEW "
+                + "WHERE WINE_REVIEW.WINE_ID = WINE.ID) "
+                + "WHERE ID IN (SELECT WINE_ID FROM WINE_REVIEW)");
+            statement.executeUpdate("DELETE FROM WINE_RATING_HISTOGRAM");
+            statement.executeUpdate("INSERT INTO WINE_RATING_HISTOGRAM (WINE_ID, STARS, REVIEWS) "
+                + "SELECT WINE_ID, " + STARS.formatted("WINE_REVIEW") + ", COUNT(*) "
+                + "FROM WINE_REVIEW GROUP BY 1, 2");
+            for (String trigger : AGGREGATE_TRIGGERS) {
+              statement.execute(trigger);
+            }
+          }
+        })
+    };
+  }
+
+  /**
+   * Gets the trigger statements which count a rating in the aggregates of its wine.
+   *
+   * @param row the row of the review, NEW or OLD
+   * @return the statements, each ending with a semicolon
+   */
+  private static String addRating(String row) {
+    return "UPDATE WINE SET "
+        + "REVIEW_COUNT = REVIEW_COUNT + 1, "
+        + "RATING_SUM = RATING_SUM + " + row + ".RATING, "
+        + "AVERAGE_RATING = (RATING_SUM + " + row + ".RATING) / (REVIEW_COUNT + 1) "
+        + "WHERE ID = " + row + ".WINE_ID; "
+        + "INSERT INTO WINE_RATING_HISTOGRAM (WINE_ID, STARS, REVIEWS) "
+        + "VALUES (" + row + ".WINE_ID, " + STARS.formatted(row) + ", 1) "
+        + "ON CONFLICT (WINE_ID, STARS) DO UPDATE SET REVIEWS = REVIEWS + 1; ";
+  }
+
+  /**
+   * Gets the trigger statements which remove a rating from the aggregates of its wine. The sum is
+   * reset once the last review is removed so rounding errors cannot accumulate.
+   *
+   * @param row the row of the review, NEW or OLD
+   * @return the statements, each ending with a semicolon
+   */
+  private static String removeRating(String row) {
+    return "UPDATE WINE SET "
+        + "REVIEW_COUNT = REVIEW_COUNT - 1, "
+        + "RATING_SUM = CASE WHEN REVIEW_COUNT > 1 "
+        + "THEN RATING_SUM - " + row + ".RATING ELSE 0 END, "
+        + "AVERAGE_RATING = CASE WHEN REVIEW_COUNT > 1 "
+        + "THEN (RATING_SUM - " + row + ".RATING) / (REVIEW_COUNT - 1) ELSE 0 END "
+        + "WHERE ID = " + row + ".WINE_ID; "
+        + "UPDATE WINE_RATING_HISTOGRAM SET REVIEWS = REVIEWS - 1 "
+        + "WHERE WINE_ID = " + row + ".WINE_ID AND STARS = " + STARS.formatted(row) + "; "
+        + "DELETE FROM WINE_RATING_HISTOGRAM "
+        + "WHERE WINE_ID = " + row + ".WINE_ID AND REVIEWS <= 0; ";
+  }
+
+  /**
+   * Gets the number of reviews of a wine which gave each whole number of stars, with ratings
+   * rounded to the nearest star. This reads the histogram maintained by the database rather than
+   * the reviews.
+   *
+   * @param wine The wine whose ratings should be counted
+   * @return The number of reviews giving each number of stars, indexed from 0 to
+   *     {@link #MAX_STARS}
+   */
+  public int[] getRatingHistogram(Wine wine) throws SQLException {
+    Timer timer = new Timer();
+    String sql = "SELECT STARS, REVIEWS FROM WINE_RATING_HISTOGRAM WHERE WINE_ID = ?";
+    int[] histogram = new int[MAX_STARS + 1];
+    try (Connection reader = readConnection();
+        PreparedStatement statement = reader.prepareStatement(sql)) {
+      statement.setLong(1, wine.getKey());
+
+      try (ResultSet resultSet = statement.executeQuery()) {
+        while (resultSet.next()) {
+          int stars = Math.clamp(resultSet.getInt("STARS"), 0, MAX_STARS);
+          histogram[stars] += resultSet.getInt("REVIEWS");
+        }
+      }
+    }
+    log.info("Successfully retrieved the rating histogram of wine with ID {} in {}ms",
+        wine.getKey(), timer.currentOffsetMilliseconds());
+    return histogram;
+  }
+
   /**
    * Retrieves all wine reviews from the WINE_REVIEW table belonging to the specified wine.
    *
@@ -67,7 +222,8 @@ public class WineReviewDao extends Dao {
     Timer timer = new Timer();
     String sql = "SELECT WINE_REVIEW.ID as wine_review_id, WINE_REVIEW.* "
         + "FROM WINE_REVIEW WHERE WINE_ID = ?";
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+    try (Connection reader = readConnection();
+        PreparedStatement statement = reader.prepareStatement(sql)) {
       statement.setLong(1, wine.getKey());
 
       try (ResultSet resultSet = statement.executeQuery()) {
@@ -92,7 +248,8 @@ public class WineReviewDao extends Dao {
     String sql = "SELECT WINE_REVIEW.ID as wine_review_id, WINE_REVIEW.* "
         + "FROM WINE_REVIEW "
         + "WHERE USERNAME = ?";
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+    try (Connection reader = readConnection();
+        PreparedStatement statement = reader.prepareStatement(sql)) {
       statement.setString(1, user.getUsername());
 
       try (ResultSet resultSet = statement.executeQuery()) {
@@ -118,7 +275,8 @@ public class WineReviewDao extends Dao {
         + "FROM WINE_REVIEW "
         + "LIMIT ? "
         + "OFFSET ?";
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+    try (Connection reader = readConnection();
+        PreparedStatement statement = reader.prepareStatement(sql)) {
       statement.setInt(1, end - begin);
       statement.setInt(2, begin);
 
@@ -191,6 +349,7 @@ public class WineReviewDao extends Dao {
    * @param wineReview The wine review to be deleted
    */
   public void delete(WineReview wineReview) throws SQLException {
+    writeBehind.flush();
     Timer timer = new Timer();
     String sql = "DELETE FROM WINE_REVIEW WHERE ID = ?";
     try (PreparedStatement statement = connection.prepareStatement(sql)) {
@@ -214,6 +373,7 @@ public class WineReviewDao extends Dao {
    * @param user is the user whose reviews will be removed
    */
   public void deleteAllFromUser(User user) throws SQLException {
+    writeBehind.flush();
     Timer timer = new Timer();
     String sql = "DELETE FROM WINE_REVIEW WHERE USERNAME = ?";
     try (PreparedStatement statement = connection.prepareStatement(sql)) {
@@ -252,7 +412,8 @@ public class WineReviewDao extends Dao {
     Timer timer = new Timer();
 
     String sql = "SELECT * FROM WINE_REVIEW WHERE FLAG = 1";
-    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+    try (Connection reader = readConnection();
+        PreparedStatement statement = reader.prepareStatement(sql)) {
       try (ResultSet resultSet = statement.executeQuery()) {
         ObservableList<WineReview> wineReviews =
             extractAllWineReviewsFromResultSet(resultSet, "ID");
@@ -267,6 +428,7 @@ public class WineReviewDao extends Dao {
    * Deletes all flagged reviews (FLAG = '1') from the database.
    */
   public void deleteAllFlaggedReviews() throws SQLException {
+    writeBehind.flush();
     Timer timer = new Timer();
     String sql = "DELETE FROM WINE_REVIEW WHERE FLAG = 1";
     try (PreparedStatement statement = connection.prepareStatement(sql)) {
@@ -313,6 +475,22 @@ public class WineReviewDao extends Dao {
    */
   public WineReview extractWineReviewFromResultSet(ResultSet resultSet, String idColumnName)
       throws SQLException {
+    return extractWineReviewFromResultSet(resultSet, idColumnName, "DESCRIPTION");
+  }
+
+  /**
+   * Extracts a WineReview object from the provided ResultSet, reading the description from a
+   * renamed column. This is used when the review is joined with another table which also has a
+   * DESCRIPTION column.
+   *
+   * @param resultSet             The ResultSet containing wine review data
+   * @param idColumnName          The name of the column holding the review ID
+   * @param descriptionColumnName The name of the column holding the review description
+   * @return The WineReview object extracted from the ResultSet
+   * @throws SQLException if a database access error occurs
+   */
+  public WineReview extractWineReviewFromResultSet(ResultSet resultSet, String idColumnName,
+      String descriptionColumnName) throws SQLException {
     long id = resultSet.getLong(idColumnName);
     WineReview cachedWineReview = wineReviewCache.tryGetObject(id);
     if (cachedWineReview != null) {
@@ -324,11 +502,14 @@ public class WineReviewDao extends Dao {
         resultSet.getLong("WINE_ID"),
         resultSet.getString("USERNAME"),
         resultSet.getDouble("RATING"),
-        resultSet.getString("DESCRIPTION"),
+        resultSet.getString(descriptionColumnName),
         resultSet.getDate("DATE"),
         resultSet.getInt("FLAG")
     );
-    wineReviewCache.addObject(id, wineReview);
+    WineReview storedWineReview = wineReviewCache.addObjectIfAbsent(id, wineReview);
+    if (storedWineReview != wineReview) {
+      return storedWineReview; // Another thread read the same review first
+    }
     bindUpdater(wineReview);
     return wineReview;
   }
@@ -340,48 +521,30 @@ public class WineReviewDao extends Dao {
    * @param wineReview The WineReview object to bind listeners to
    */
   private void bindUpdater(WineReview wineReview) {
-    wineReview.ratingProperty().addListener(((observableValue, before, after) -> {
-      try {
-        updateAttribute(wineReview.getId(), "RATING", update -> {
-          update.setDouble(1, after.doubleValue());
-        });
-      } catch (SQLException e) {
-        throw new RuntimeException(e);
-      }
-    }));
-    wineReview.descriptionProperty().addListener(((observableValue, before, after) -> {
-      try {
-        updateAttribute(wineReview.getId(), "DESCRIPTION", update -> {
-          update.setString(1, after);
-        });
-      } catch (SQLException e) {
-        throw new RuntimeException(e);
-      }
-    }));
+    wineReview.ratingProperty().addListener((observableValue, before, after) ->
+        updateAttribute(wineReview.getId(), "RATING", after.doubleValue()));
+    wineReview.descriptionProperty().addListener((observableValue, before, after) ->
+        updateAttribute(wineReview.getId(), "DESCRIPTION", after));
   }
 
   /**
-   * Updates a specific attribute of the wine review in the WINE_REVIEW table.
+   * Queues an update of a specific attribute of the wine review in the WINE_REVIEW table. Updates
+   * to the same review are coalesced and written together by the write-behind buffer.
    *
-   * @param attributeName   name of attribute
-   * @param attributeSetter callback to set attribute
+   * @param id            id of wine review
+   * @param attributeName name of attribute
+   * @param value         new value of attribute
    */
-  private void updateAttribute(long id, String attributeName,
-      DatabaseManager.AttributeSetter attributeSetter) throws SQLException {
-    Timer timer = new Timer();
-    String sql = "UPDATE WINE_REVIEW set " + attributeName + " = ? where ID = ?";
-    try (PreparedStatement update = connection.prepareStatement(sql)) {
-      attributeSetter.setAttribute(update);
-      update.setLong(2, id);
+  private void updateAttribute(long id, String attributeName, Object value) {
+    writeBehind.update("WINE_REVIEW", "ID", id, attributeName, value);
+  }
 
-      int rowsAffected = update.executeUpdate();
-      if (rowsAffected == 1) {
-        log.info("Successfully updated attribute '{}' for wine review with ID {} in {}ms",
-            attributeName, id, timer.currentOffsetMilliseconds());
-      } else {
-        log.info("Could not update attribute '{}' for wine review with ID {} in {}ms",
-            attributeName, id, timer.currentOffsetMilliseconds());
-      }
-    }
+  /**
+   * Gets the hits, misses and evictions of the cache of wine reviews read by this DAO.
+   *
+   * @return the statistics of the wine review cache
+   */
+  public DatabaseObjectUniquer.Statistics getCacheStatistics() {
+    return wineReviewCache.getStatistics();
   }
 }
@@ -26,6 +26,12 @@ public enum ColourMatch {
   SPARKLING("white"),
   TEMPRANILLO("red");
 
+  /**
+   * The values in declaration order, cached because {@link #values()} copies the array on every
+   * call and {@link #match(String)} runs once per imported wine.
+   */
+  private static final ColourMatch[] VALUES = values();
+
   private final String variety;
   private final String colour;
 
@@ -71,7 +77,7 @@ public enum ColourMatch {
       if (variety.contains("rosé")) {
         return ROSE;
       }
-      for (ColourMatch value : values()) {
+      for (ColourMatch value : VALUES) {
         if (variety.contains(value.getVariety())) {
           return value;
         }
@@ -0,0 +1,35 @@
+package seng202.team6.enums;
+
+/**
+ * The columns wines can be sorted by. Each column is indexed so a sorted page is read from the
+ * index, and ties are broken by the ID of the wine so every wine has a single position.
+ */
+public enum WineSortColumn {
+  ID("ID"),
+  TITLE("TITLE"),
+  VINTAGE("VINTAGE"),
+  SCORE("SCORE_PERCENT"),
+  ABV("ABV"),
+  PRICE("PRICE"),
+  RATING("AVERAGE_RATING");
+
+  private final String columnName;
+
+  /**
+   * Constructor.
+   *
+   * @param columnName name of the column in the WINE table
+   */
+  WineSortColumn(String columnName) {
+    this.columnName = columnName;
+  }
+
+  /**
+   * Gets the name of the column in the WINE table.
+   *
+   * @return column name
+   */
+  public String getColumnName() {
+    return columnName;
+  }
+}
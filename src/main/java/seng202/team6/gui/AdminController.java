@@ -1,7 +1,9 @@
 package seng202.team6.gui;
 
 import java.sql.SQLException;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import javafx.beans.property.BooleanProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -26,6 +28,7 @@ import javafx.scene.layout.VBox;
 import javafx.scene.text.Text;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import seng202.team6.dao.WineDao.ReviewAggregate;
 import seng202.team6.enums.AuthenticationResponse;
 import seng202.team6.managers.DatabaseManager;
 import seng202.team6.managers.ManagerContext;
@@ -158,8 +161,12 @@ public class AdminController extends Controller {
 
   @FXML
   private void onYes() {
-    getManagerContext().getDatabaseManager().getUserDao().deleteAll();
-    getManagerContext().getGuiManager().openWineScreen();
+    CompletableFuture<Void> deleted = databaseManager.getExecutor().write(() -> {
+      databaseManager.getUserDao().deleteAll();
+      return null;
+    });
+    getManagerContext().getGuiManager().showLoadingIndicator(deleted,
+        ignored -> getManagerContext().getGuiManager().openWineScreen());
   }
 
   @FXML
@@ -183,8 +190,12 @@ public class AdminController extends Controller {
 
     Optional<ButtonType> result = confirmation.showAndWait();
     if (result.get() == ButtonType.OK) {
-      databaseManager.getUserDao().delete(workingUser);
-      resetView();
+      User user = workingUser;
+      CompletableFuture<Void> deleted = databaseManager.getExecutor().write(() -> {
+        databaseManager.getUserDao().delete(user);
+        return null;
+      });
+      getManagerContext().getGuiManager().showLoadingIndicator(deleted, ignored -> resetView());
     }
   }
 
@@ -198,11 +209,12 @@ public class AdminController extends Controller {
             + "This action cannot be undone");
     Optional<ButtonType> result = confirmation.showAndWait();
     if (result.get() == ButtonType.OK) {
-      try {
-        databaseManager.getWineReviewDao().deleteAllFromUser(workingUser);
-      } catch (SQLException e) {
-        throw new RuntimeException(e);
-      }
+      User user = workingUser;
+      CompletableFuture<Void> deleted = databaseManager.getExecutor().write(() -> {
+        databaseManager.getWineReviewDao().deleteAllFromUser(user);
+        return null;
+      });
+      getManagerContext().getGuiManager().showLoadingIndicator(deleted, ignored -> { });
     }
   }
 
@@ -388,72 +400,81 @@ public class AdminController extends Controller {
   }
 
   @FXML
-  void onDeleteSelected() throws SQLException {
-    for (int i = 0; i < selectedReviews.size(); i++) {
-      databaseManager.getWineReviewDao().delete(selectedReviews.get(i));
-      long wineId = selectedReviews.get(i).getWineId();
-      ObservableList<WineReview> theseReviews = databaseManager.getWineReviewDao()
-          .getAll(databaseManager.getWineDao().get(wineId));
-      double sum = theseReviews.stream()
-          .mapToDouble(WineReview::getRating)
-          .sum();
-      databaseManager.getWineDao().get(wineId).setAverageRating(sum / theseReviews.size());
-
-    }
-    selectedReviews.clear();
-    allFlaggedReviews.clear();
-    refreshReviewTable();
-    refreshReviewActions();
+  void onDeleteSelected() {
+    List<WineReview> reviews = List.copyOf(selectedReviews);
+    CompletableFuture<List<ReviewAggregate>> deleted = databaseManager.getExecutor().write(() -> {
+      for (WineReview review : reviews) {
+        databaseManager.getWineReviewDao().delete(review);
+      }
+      // the database updated the average ratings as the reviews were deleted
+      return databaseManager.getWineDao().getReviewAggregates(reviews.stream()
+          .map(WineReview::getWineId)
+          .toList());
+    });
+    getManagerContext().getGuiManager().showLoadingIndicator(deleted, aggregates -> {
+      aggregates.forEach(ReviewAggregate::apply);
+      selectedReviews.clear();
+      allFlaggedReviews.clear();
+      refreshReviewTable();
+      refreshReviewActions();
+    });
   }
 
   @FXML
-  void onDeleteAll() throws SQLException {
-    databaseManager.getWineReviewDao().deleteAllFlaggedReviews();
-    for (int i = 0; i < allFlaggedReviews.size(); i++) {
-      long wineId = allFlaggedReviews.get(i).getWineId();
-      ObservableList<WineReview> theseReviews = databaseManager.getWineReviewDao()
-          .getAll(databaseManager.getWineDao().get(wineId));
-      double sum = theseReviews.stream()
-          .mapToDouble(WineReview::getRating)
-          .sum();
-      databaseManager.getWineDao().get(wineId).setAverageRating(sum / theseReviews.size());
-    }
-
-    selectedReviews.clear();
-    allFlaggedReviews.clear();
-    refreshReviewTable();
+  void onDeleteAll() {
+    List<Long> wineIds = allFlaggedReviews.stream()
+        .map(WineReview::getWineId)
+        .toList();
+    CompletableFuture<List<ReviewAggregate>> deleted = databaseManager.getExecutor().write(() -> {
+      databaseManager.getWineReviewDao().deleteAllFlaggedReviews();
+      return databaseManager.getWineDao().getReviewAggregates(wineIds);
+    });
+    getManagerContext().getGuiManager().showLoadingIndicator(deleted, aggregates -> {
+      aggregates.forEach(ReviewAggregate::apply);
+      selectedReviews.clear();
+      allFlaggedReviews.clear();
+      refreshReviewTable();
+    });
   }
 
   @FXML
   void onKeepAll() {
-    for (int i = 0; i < allFlaggedReviews.size(); i++) {
-      allFlaggedReviews.get(i).setFlag(0);
-      try {
-        databaseManager.getWineReviewDao().updateWineReviewFlag(allFlaggedReviews.get(i));
-      } catch (SQLException e) {
-        throw new RuntimeException(e);
-      }
-      allFlaggedReviews.get(i).setSelected(false);
+    List<WineReview> reviews = List.copyOf(allFlaggedReviews);
+    for (WineReview review : reviews) {
+      review.setFlag(0);
+      review.setSelected(false);
     }
-    selectedReviews.clear();
-    allFlaggedReviews.clear();
-    refreshReviewTable();
-
+    getManagerContext().getGuiManager().showLoadingIndicator(updateFlags(reviews), ignored -> {
+      selectedReviews.clear();
+      allFlaggedReviews.clear();
+      refreshReviewTable();
+    });
   }
 
   @FXML
   void onKeepSelected() {
     log.info(selectedReviews.size());
-    for (int i = 0; i < selectedReviews.size(); i++) {
-      selectedReviews.get(i).setFlag(0);
-      try {
-        databaseManager.getWineReviewDao().updateWineReviewFlag(selectedReviews.get(i));
-      } catch (SQLException e) {
-        throw new RuntimeException(e);
-      }
-      //selectedReviews.get(i).setSelected(false);
+    List<WineReview> reviews = List.copyOf(selectedReviews);
+    for (WineReview review : reviews) {
+      review.setFlag(0);
     }
-    refreshReviewTable();
+    getManagerContext().getGuiManager().showLoadingIndicator(updateFlags(reviews),
+        ignored -> refreshReviewTable());
+  }
+
+  /**
+   * Writes the flags of reviews on the database writer thread.
+   *
+   * @param reviews the reviews whose flags changed
+   * @return a future which completes once the flags have been written
+   */
+  private CompletableFuture<Void> updateFlags(List<WineReview> reviews) {
+    return databaseManager.getExecutor().write(() -> {
+      for (WineReview review : reviews) {
+        databaseManager.getWineReviewDao().updateWineReviewFlag(review);
+      }
+      return null;
+    });
   }
 
 
@@ -1,6 +1,7 @@
 package seng202.team6.gui;
 
-import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import javafx.beans.binding.Bindings;
 import javafx.beans.binding.StringBinding;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
@@ -24,6 +25,7 @@ import org.apache.logging.log4j.Logger;
 import org.controlsfx.control.Rating;
 import seng202.team6.gui.controls.CircularScoreIndicator;
 import seng202.team6.gui.controls.UnmodifiableRating;
+import seng202.team6.managers.DatabaseManager;
 import seng202.team6.managers.ManagerContext;
 import seng202.team6.model.Note;
 import seng202.team6.model.User;
@@ -181,16 +183,6 @@ public class DetailedWineViewController extends Controller {
 
     // everything is ready so now the wine reviews can be loaded
     wineReviewsService.init();
-
-    // Set rating label text
-    if (wineReviewsService.hasReviews()) {
-      int numberOfRatings = wineReviewsService.getWineReviews().size();
-      ratingsLabel.setText(
-          "Average %.2f From %d ratings".formatted(viewedWine.getAverageRating(),
-              numberOfRatings));
-    } else {
-      ratingsLabel.setText("This wine has not been reviewed");
-    }
   }
 
   /**
@@ -223,16 +215,14 @@ public class DetailedWineViewController extends Controller {
           addReviewButton.setText((usersReview == null ? "Add" : "Modify") + " Review");
         });
     ratingStars.ratingProperty().bind(viewedWine.averageRatingProperty());
-    ratingStars.ratingProperty().addListener((observableValue, oldValue, newAverageRating) -> {
-      if (wineReviewsService.hasReviews()) {
-        int numberOfRatings = wineReviewsService.getWineReviews().size();
-        ratingsLabel.setText(
-            "Average %.2f From %d ratings".formatted(newAverageRating.doubleValue(),
-                numberOfRatings));
-      } else {
-        ratingsLabel.setText("This wine has not been reviewed");
+    // the average and count are maintained by the database, so no reviews are counted here
+    ratingsLabel.textProperty().bind(Bindings.createStringBinding(() -> {
+      if (viewedWine.getReviewCount() == 0) {
+        return "This wine has not been reviewed";
       }
-    });
+      return "Average %.2f From %d ratings".formatted(viewedWine.getAverageRating(),
+          viewedWine.getReviewCount());
+    }, viewedWine.averageRatingProperty(), viewedWine.reviewCountProperty()));
   }
 
   /**
@@ -336,11 +326,12 @@ public class DetailedWineViewController extends Controller {
   private void flagReview(WineReview wineReview) {
     wineReview.setFlag(1);
     wineReview.setSelected(false);
-    try {
-      getManagerContext().getDatabaseManager().getWineReviewDao().updateWineReviewFlag(wineReview);
-    } catch (SQLException e) {
-      throw new RuntimeException(e);
-    }
+    DatabaseManager databaseManager = getManagerContext().getDatabaseManager();
+    CompletableFuture<Void> flagged = databaseManager.getExecutor().write(() -> {
+      databaseManager.getWineReviewDao().updateWineReviewFlag(wineReview);
+      return null;
+    });
+    getManagerContext().getGuiManager().showLoadingIndicator(flagged, ignored -> { });
   }
 
   /**
@@ -15,7 +15,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import seng202.team6.model.GeoLocation;
 import seng202.team6.model.Vineyard;
-import seng202.team6.model.Wine;
+import seng202.team6.model.WineSummary;
 
 /**
  * Map controller which is responsible for loading the map and calling JavaScript functions which
@@ -133,9 +133,9 @@ public class LeafletOsmController {
    *
    * @param wine the wine for which the marker should represent.
    */
-  public void addWineMarker(Wine wine) {
-    GeoLocation geoLocation = wine.getGeoLocation();
-    javaScriptConnector.call("addWineMarker", wine.getTitle(), wine.getRegion(), wine.getColor(),
+  public void addWineMarker(WineSummary wine) {
+    GeoLocation geoLocation = wine.geoLocation();
+    javaScriptConnector.call("addWineMarker", wine.title(), wine.region(), wine.color(),
         geoLocation.getLatitude(), geoLocation.getLongitude());
   }
 
@@ -1,5 +1,6 @@
 package seng202.team6.gui;
 
+import java.util.concurrent.CompletableFuture;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
@@ -18,8 +19,8 @@ import seng202.team6.managers.ManagerContext;
 import seng202.team6.model.GeoLocation;
 import seng202.team6.model.Vineyard;
 import seng202.team6.service.VineyardService;
-import seng202.team6.util.GeolocationResolver;
 import seng202.team6.util.ImageReader;
+import seng202.team6.util.LocationResolver;
 
 /**
  * Controller responsible for managing vineyards in the GUI.
@@ -159,14 +160,17 @@ public class ManageVineyardsController extends Controller {
     if (!validateFields(popup, null, name, address, region, logoUrl)) {
       return;
     }
-    getManagerContext().getGuiManager().showLoadingIndicator(() -> {
-      GeoLocation geoLocation = validateLogoUrlAndGeolocation(popup, address, logoUrl);
-      if (geoLocation == null) {
+    // the popup stays open until the address is resolved so it can show why it was not
+    getManagerContext().getGuiManager().showLoadingIndicator(resolveAddress(address), lookup -> {
+      if (lookup.errorMessage() != null) {
+        popup.setErrorMessage(lookup.errorMessage());
         return;
       }
-      vineyardService.create(name, address, region, website, logoUrl, description, geoLocation);
+      getManagerContext().getGuiManager().showLoadingIndicator(
+          vineyardService.create(name, address, region, website, logoUrl, description,
+              lookup.geoLocation()), vineyardService::add);
+      popup.close();
     });
-    popup.close();
   }
 
   /**
@@ -202,7 +206,8 @@ public class ManageVineyardsController extends Controller {
    * @param vineyard the vineyard to delete
    */
   private void deleteVineyard(GeneralPopupController popup, Vineyard vineyard) {
-    vineyardService.delete(vineyard);
+    getManagerContext().getGuiManager().showLoadingIndicator(vineyardService.delete(vineyard),
+        ignored -> { });
     popup.close();
   }
 
@@ -244,27 +249,28 @@ public class ManageVineyardsController extends Controller {
   }
 
   /**
-   * Validates both the logo URL and the geolocation of the vineyard.
+   * Resolves the geolocation of a vineyard address off the JavaFX thread. The geocode cache is
+   * read on a reader thread, and an address which is not cached is then looked up without holding
+   * up any thread.
    *
-   * @param popup the popup controller
    * @param address the vineyard address
-   * @param logoUrl the vineyard logo URL
-   * @return the geolocation of the vineyard, or null if validation failed
+   * @return a future of the geolocation of the address, or of the reason it was not resolved
    */
-  private GeoLocation validateLogoUrlAndGeolocation(GeneralPopupController popup, String address,
-      String logoUrl) {
-    if (!validateLogoUrl(logoUrl)) {
-      popup.setErrorMessage("The logo URL was invalid and did not point to an image");
-      return null;
-    }
-
-    GeolocationResolver geolocationResolver = new GeolocationResolver();
-    try {
-      return geolocationResolver.resolveLocation(address).join();
-    } catch (Exception error) {
-      popup.setErrorMessage("The address was invalid and could not be resolved.");
-      return null;
-    }
+  private CompletableFuture<AddressLookup> resolveAddress(String address) {
+    LocationResolver locationResolver = getManagerContext().getDatabaseManager()
+        .getLocationResolver();
+    return getManagerContext().getDatabaseManager().getExecutor()
+        .read(() -> locationResolver.resolveLocation(address))
+        .thenCompose(lookup -> lookup)
+        .handle((geoLocation, error) -> {
+          if (error != null) {
+            return new AddressLookup(null, "The address was invalid and could not be resolved.");
+          }
+          if (geoLocation == null) {
+            return new AddressLookup(null, "The address could not be found.");
+          }
+          return new AddressLookup(geoLocation, null);
+        });
   }
 
   /**
@@ -281,4 +287,14 @@ public class ManageVineyardsController extends Controller {
       return false;
     }
   }
+
+  /**
+   * The result of resolving a vineyard address.
+   *
+   * @param geoLocation  the geolocation of the address, or null if it was not resolved
+   * @param errorMessage the reason the address was not resolved, or null if it was
+   */
+  private record AddressLookup(GeoLocation geoLocation, String errorMessage) {
+
+  }
 }
@@ -1,13 +1,13 @@
 package seng202.team6.gui;
 
-import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.TilePane;
 import kotlin.Pair;
-import org.apache.logging.log4j.LogManager;
 import org.controlsfx.control.RangeSlider;
+import seng202.team6.dao.AggregatedDao;
 import seng202.team6.gui.controls.AutoCompletionTextField;
 import seng202.team6.gui.controls.ReviewCard;
 import seng202.team6.managers.ManagerContext;
@@ -17,6 +17,7 @@ import seng202.team6.model.Wine;
 import seng202.team6.model.WineReview;
 import seng202.team6.service.WineReviewsService;
 import seng202.team6.util.FilterUtil;
+import seng202.team6.util.LatestRequest;
 
 
 /**
@@ -24,6 +25,9 @@ import seng202.team6.util.FilterUtil;
  */
 public class SocialController extends Controller {
 
+  private final LatestRequest<ObservableList<Pair<WineReview, Wine>>> reviewsRequest =
+      new LatestRequest<>();
+
   @FXML
   AnchorPane filtersPane;
   AutoCompletionTextField usernameTextField;
@@ -68,11 +72,7 @@ public class SocialController extends Controller {
     });
 
     ratingSlider.setSnapToTicks(true);
-    try {
-      openReviewsInRange(null);
-    } catch (SQLException exception) {
-      LogManager.getLogger(getClass()).error("Failed to open reviews", exception);
-    }
+    openReviewsInRange(null);
 
   }
 
@@ -112,14 +112,22 @@ public class SocialController extends Controller {
         .openPopupReviewView(wineReviewsService, reviewer, selectedReview, selectedWine);
   }
 
-  private void openReviewsInRange(ReviewFilters filters) throws SQLException {
-
-    ObservableList<Pair<WineReview, Wine>> reviews = getManagerContext().getDatabaseManager()
-        .getAggregatedDao().getWineReviewsAndWines(0, 100, filters);
-
-    reviewsViewContainer.getChildren().clear();
-    reviews.forEach(pair -> createReviewCard(pair.getFirst(), pair.getSecond()));
-
+  /**
+   * Reads the first page of reviews matching the filters on the database executor and shows them.
+   * Applying other filters before the reviews have loaded cancels this request.
+   *
+   * @param filters the review filters, or null to show all reviews
+   */
+  private void openReviewsInRange(ReviewFilters filters) {
+    AggregatedDao aggregatedDao = getManagerContext().getDatabaseManager().getAggregatedDao();
+    CompletableFuture<ObservableList<Pair<WineReview, Wine>>> request = reviewsRequest.replace(
+        getManagerContext().getDatabaseManager().getExecutor().read(
+            () -> aggregatedDao.getWineReviewsAndWines(0, 100, filters)));
+
+    getManagerContext().getGuiManager().showLoadingIndicator(request, reviews -> {
+      reviewsViewContainer.getChildren().clear();
+      reviews.forEach(pair -> createReviewCard(pair.getFirst(), pair.getSecond()));
+    });
   }
 
   @FXML
@@ -128,7 +136,7 @@ public class SocialController extends Controller {
   }
 
   @FXML
-  void onApply() throws SQLException {
+  void onApply() {
 
     currentFilters = new ReviewFilters(
         usernameTextField.getText(),
@@ -150,11 +158,7 @@ public class SocialController extends Controller {
     usernameTextField.setText("");
 
     this.currentFilters = null;
-    try {
-      openReviewsInRange(null);
-    } catch (SQLException exception) {
-      LogManager.getLogger(getClass()).error("Failed to open reviews", exception);
-    }
+    openReviewsInRange(null);
 
   }
 
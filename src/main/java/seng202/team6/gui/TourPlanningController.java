@@ -2,6 +2,8 @@ package seng202.team6.gui;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import javafx.application.Platform;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.collections.ListChangeListener;
@@ -33,6 +35,7 @@ import seng202.team6.service.TourPlanningService;
 import seng202.team6.service.VineyardService;
 import seng202.team6.service.VineyardToursService;
 import seng202.team6.util.GeolocationResolver;
+import seng202.team6.util.LatestRequest;
 
 /**
  * The controller for manging the vineyard tour planning screen.
@@ -42,6 +45,7 @@ public class TourPlanningController extends Controller {
   private final VineyardToursService vineyardToursService;
   private final VineyardService vineyardService;
   private final GeolocationResolver geolocationResolver;
+  private final LatestRequest<String> routeRequest = new LatestRequest<>();
   @FXML
   private VBox planTourTabContainer;
   @FXML
@@ -148,7 +152,7 @@ public class TourPlanningController extends Controller {
     popup.addContent(optionsWrapper);
 
     popup.addButton("Create", () -> {
-      createVineyardTour(nameTextField.getText(), popup);
+      createVineyardTour(nameTextField.getText(), popup, vineyardTour -> { });
     });
     popup.addCancelButton();
   }
@@ -168,18 +172,19 @@ public class TourPlanningController extends Controller {
     popup.addContent(optionsWrapper);
 
     popup.addButton("Create", () -> {
-      VineyardTour vineyardTour = createVineyardTour(nameTextField.getText(), popup);
-      if (vineyardTour == null) {
-        return;
-      }
       WineList wineList = wineListsComboBox.getSelectionModel().getSelectedItem();
-      if (wineList == null) {
-        return;
-      }
-      getManagerContext().getDatabaseManager().getVineyardsDao()
-          .getAllInList(wineList)
-          .forEach(vineyard -> currentTourPlanningService.addVineyard(vineyard));
-      openVineyardTour(vineyardTour);
+      createVineyardTour(nameTextField.getText(), popup, vineyardTour -> {
+        if (wineList == null) {
+          return;
+        }
+        CompletableFuture<?>[] added = getManagerContext().getDatabaseManager().getVineyardsDao()
+            .getAllInList(wineList).stream()
+            .map(vineyard -> currentTourPlanningService.addVineyard(vineyard))
+            .toArray(CompletableFuture<?>[]::new);
+        // reopen the tour once the vineyards are in it so their cards show they can be removed
+        getManagerContext().getGuiManager().showLoadingIndicator(CompletableFuture.allOf(added),
+            ignored -> openVineyardTour(vineyardTour));
+      });
     });
     popup.addCancelButton();
   }
@@ -195,7 +200,8 @@ public class TourPlanningController extends Controller {
     popup.setMessage("Are you sure you would like to delete the tour '"
         + currentVineyardTour.getName() + "'?");
     popup.addButton("Confirm", () -> {
-      vineyardToursService.removeVineyardTour(currentVineyardTour);
+      getManagerContext().getGuiManager().showLoadingIndicator(
+          vineyardToursService.removeVineyardTour(currentVineyardTour), ignored -> { });
       currentTourPlanningService = null;
       closeVineyardTour();
       popup.close();
@@ -215,12 +221,15 @@ public class TourPlanningController extends Controller {
     }
 
     mapController.clearWineMarkers();
-    getManagerContext().getGuiManager().showLoadingIndicator(() -> {
-      List<GeoLocation> vineyardLocations = currentTourPlanningService.getVineyards().stream()
-          .peek(vineyard -> mapController.addVineyardMaker(vineyard, false))
-          .map(Vineyard::getGeoLocation)
-          .toList();
-      String geometry = geolocationResolver.resolveRoute(vineyardLocations);
+    List<GeoLocation> vineyardLocations = vineyards.stream()
+        .peek(vineyard -> mapController.addVineyardMaker(vineyard, false))
+        .map(Vineyard::getGeoLocation)
+        .toList();
+
+    // The route is resolved over the network so it must not block the FX thread
+    CompletableFuture<String> request = routeRequest.replace(
+        CompletableFuture.supplyAsync(() -> geolocationResolver.resolveRoute(vineyardLocations)));
+    getManagerContext().getGuiManager().showLoadingIndicator(request, geometry -> {
       if (geometry == null) {
         showCalculatingRouteError();
         return;
@@ -375,29 +384,36 @@ public class TourPlanningController extends Controller {
   }
 
   /**
-   * Creates a new vineyard tour with the specified name and closes the popup upon creation.
-   * The method also opens the newly created vineyard tour for the user to view and manage.
+   * Creates a new vineyard tour with the specified name and closes the popup. The tour is created
+   * on the database writer thread, after which it is opened for the user to view and manage.
    *
-   * @param name  The name of the new vineyard tour.
-   * @param popup The popup used for creating the tour.
-   * @return The newly created VineyardTour object.
+   * @param name      The name of the new vineyard tour.
+   * @param popup     The popup used for creating the tour.
+   * @param onCreated Called with the newly created VineyardTour once it has been opened.
    */
-  private VineyardTour createVineyardTour(String name, GeneralPopupController popup) {
+  private void createVineyardTour(String name, GeneralPopupController popup,
+      Consumer<VineyardTour> onCreated) {
     if (name.length() < VineyardToursService.MIN_NAME_SIZE
         || name.length() > VineyardToursService.MAX_NAME_SIZE) {
       popup.setErrorMessage("The tour name must be between " + VineyardToursService.MIN_NAME_SIZE
           + " and " + VineyardToursService.MAX_NAME_SIZE + " characters.");
-      return null;
+      return;
     }
     if (vineyardToursService.getVineyardTours().stream()
         .anyMatch(vineyardTour -> vineyardTour.getName().equalsIgnoreCase(name))) {
       popup.setErrorMessage("A tour with this name already exists");
-      return null;
+      return;
     }
 
-    VineyardTour vineyardTour = vineyardToursService.createVineyardTour(name);
-    openVineyardTour(vineyardTour);
     popup.close();
-    return vineyardTour;
+    getManagerContext().getGuiManager().showLoadingIndicator(
+        vineyardToursService.createVineyardTour(name), vineyardTour -> {
+          if (vineyardTour == null) {
+            return;
+          }
+          vineyardToursService.addVineyardTour(vineyardTour);
+          openVineyardTour(vineyardTour);
+          onCreated.accept(vineyardTour);
+        });
   }
 }
@@ -1,6 +1,5 @@
 package seng202.team6.gui;
 
-import java.util.Set;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
@@ -53,16 +52,17 @@ public class VineyardsController extends Controller {
     mapController = new LeafletOsmController(webView.getEngine());
     mapController.initMap();
     mapController.runOrQueueWhenReady(() -> mapController.enableToggleButtons());
-    vineyardService.init();
+    nameTextField = createAutoCompleteTextField(9, 45);
+    addressTextField = createAutoCompleteTextField(9, 105);
+    regionTextField = createAutoCompleteTextField(9, 165);
 
     VineyardDataStatService vineyardDataStatService = getManagerContext().getDatabaseManager()
         .getVineyardDataStatService();
-    Set<String> uniqueNames = vineyardDataStatService.getUniqueNames();
-    Set<String> uniqueAddresses = vineyardDataStatService.getUniqueAddresses();
-    Set<String> uniqueRegions = vineyardDataStatService.getUniqueRegions();
-    nameTextField = createAutoCompleteTextField(9, 45, uniqueNames);
-    addressTextField = createAutoCompleteTextField(9, 105, uniqueAddresses);
-    regionTextField = createAutoCompleteTextField(9, 165, uniqueRegions);
+    getManagerContext().getGuiManager().showLoadingIndicator(vineyardService.init(), ignored -> {
+      nameTextField.setEntries(vineyardDataStatService.getUniqueNames());
+      addressTextField.setEntries(vineyardDataStatService.getUniqueAddresses());
+      regionTextField.setEntries(vineyardDataStatService.getUniqueRegions());
+    });
   }
 
   private void bindToVineyardService() {
@@ -121,15 +121,13 @@ public class VineyardsController extends Controller {
     return card;
   }
 
-  private AutoCompletionTextField createAutoCompleteTextField(double layoutX, double layoutY,
-      Set<String> values) {
+  private AutoCompletionTextField createAutoCompleteTextField(double layoutX, double layoutY) {
     AutoCompletionTextField autoCompleteTextField = new AutoCompletionTextField();
     autoCompleteTextField.setLayoutX(layoutX);
     autoCompleteTextField.setLayoutY(layoutY);
     autoCompleteTextField.prefHeight(33.0);
     autoCompleteTextField.setPrefWidth(300);
     autoCompleteTextField.setStyle("-fx-font-size: 15px;");
-    autoCompleteTextField.getEntries().addAll(values);
     filtersPane.getChildren().add(autoCompleteTextField);
     return autoCompleteTextField;
   }
@@ -106,7 +106,7 @@ public class WineCompareController extends Controller {
       AutoCompletionTextField searchTextField = new AutoCompletionTextField(
           wine == null ? "" : wine.getTitle());
       searchTextField.setPrefWidth(300);
-      searchTextField.getEntries().addAll(uniqueTitles);
+      searchTextField.setEntries(uniqueTitles);
       searchTextField.setOnSelectionAction(match -> {
         try {
           Wine wine = getManagerContext().getDatabaseManager().getWineDao().getByExactTitle(match);
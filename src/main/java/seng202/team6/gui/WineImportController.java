@@ -1,13 +1,19 @@
 package seng202.team6.gui;
 
 import java.io.File;
+import java.io.IOException;
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -18,6 +24,7 @@ import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListCell;
 import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.layout.ColumnConstraints;
 import javafx.scene.layout.GridPane;
 import javafx.scene.layout.Priority;
@@ -27,28 +34,34 @@ import javafx.scene.layout.VBox;
 import javafx.scene.text.Font;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import seng202.team6.enums.WinePropertyName;
 import seng202.team6.gui.popup.GeneralPopupController;
+import seng202.team6.managers.DatabaseManager;
 import seng202.team6.managers.ManagerContext;
-import seng202.team6.model.Wine;
+import seng202.team6.model.WineImportReport;
+import seng202.team6.service.WineImportProgress;
 import seng202.team6.service.WineImportService;
 import seng202.team6.util.ProcessCsv;
-import seng202.team6.util.WineValidator;
-import seng202.team6.util.exceptions.ValidationException;
 
 /**
  * Controller for wine import.
  */
 public class WineImportController extends Controller {
 
+  /**
+   * The number of rows shown as sample values for each column.
+   */
+  private static final int PREVIEW_ROWS = 5;
+
   private final Logger log = LogManager.getLogger(getClass());
   private final Map<Integer, WinePropertyName> selectedWineProperties = new HashMap<>();
   private final WineImportService importService;
   @FXML
   private TilePane dataColumnsContainer;
-  private List<String[]> currentFileRows;
+  private File currentFile;
 
   /**
    * Constructor.
@@ -84,11 +97,17 @@ public class WineImportController extends Controller {
       return;
     }
 
-    getManagerContext().getGuiManager().showLoadingIndicator(() -> {
-      currentFileRows = ProcessCsv.getCsvRows(selectedFile);
-      String[] columnNames = currentFileRows.removeFirst();
+    // Only the header and the preview rows are read, the rest is streamed in when importing
+    CompletableFuture<List<String[]>> request = CompletableFuture.supplyAsync(
+        () -> ProcessCsv.getCsvRows(selectedFile, PREVIEW_ROWS + 1));
+    getManagerContext().getGuiManager().showLoadingIndicator(request, rows -> {
+      if (rows.isEmpty()) {
+        return;
+      }
+      currentFile = selectedFile;
+      String[] columnNames = rows.removeFirst();
       selectedWineProperties.clear();
-      makeColumnRemapList(columnNames, currentFileRows);
+      makeColumnRemapList(columnNames, rows);
     });
   }
 
@@ -101,7 +120,7 @@ public class WineImportController extends Controller {
     if (!validate()) {
       return;
     }
-    getManagerContext().getGuiManager().showLoadingIndicator(() -> parseWines(false));
+    importWines(false);
   }
 
   /**
@@ -112,7 +131,7 @@ public class WineImportController extends Controller {
     if (!validate()) {
       return;
     }
-    getManagerContext().getGuiManager().showLoadingIndicator(() -> parseWines(true));
+    importWines(true);
   }
 
   /**
@@ -121,53 +140,117 @@ public class WineImportController extends Controller {
   private void reset() {
     dataColumnsContainer.getChildren().clear();
     selectedWineProperties.clear();
-    currentFileRows = null;
+    currentFile = null;
   }
 
   /**
-   * Parse the list of currently selected wines.
+   * Streams the wines in the currently selected file into the database on the database writer
+   * thread while showing its progress in a popup from which it can be cancelled, then resets the
+   * import screen.
    *
    * @param replace whether to replace
    */
-  private void parseWines(boolean replace) {
-    List<Wine> parsedWines = new ArrayList<>();
+  private void importWines(boolean replace) {
+    // Take what is needed from the screen on the FX thread before handing over to the writer
+    File file = currentFile;
     Map<WinePropertyName, Integer> valid = importService.validHashMapCreate(
         selectedWineProperties);
+    DatabaseManager databaseManager = getManagerContext().getDatabaseManager();
+
+    WineImportProgress progress = new WineImportProgress(file.length());
 
-    currentFileRows.forEach(row -> {
+    CompletableFuture<WineImportReport> request = databaseManager.getExecutor().write(() -> {
       try {
-        parsedWines.add(WineValidator.parseWine(
-            importService.extractPropertyFromRowOrDefault(valid, row, WinePropertyName.TITLE),
-            importService.extractPropertyFromRowOrDefault(valid, row, WinePropertyName.VARIETY),
-            importService.extractPropertyFromRowOrDefault(valid, row, WinePropertyName.COUNTRY),
-            importService.extractPropertyFromRowOrDefault(valid, row, WinePropertyName.REGION),
-            importService.extractPropertyFromRowOrDefault(valid, row, WinePropertyName.WINERY),
-            importService.extractPropertyFromRowOrDefault(valid, row, WinePropertyName.COLOUR),
-            importService.extractPropertyFromRowOrDefault(valid, row, WinePropertyName.VINTAGE),
-            importService.extractPropertyFromRowOrDefault(valid, row,
-                WinePropertyName.DESCRIPTION),
-            importService.extractPropertyFromRowOrDefault(valid, row, WinePropertyName.SCORE),
-            importService.extractPropertyFromRowOrDefault(valid, row, WinePropertyName.ABV),
-            importService.extractPropertyFromRowOrDefault(valid, row, WinePropertyName.PRICE),
-            null
-        ));
-      } catch (ValidationException e) {
-        log.error("Could not parse a wine: {}", e.getMessage());
+        return importService.importWines(file, valid, databaseManager, replace, progress);
+      } catch (CancellationException exception) {
+        log.info("Cancelled importing wines, the changes have been rolled back");
+      } catch (IOException exception) {
+        log.error("Failed to read the file: {}", file.getAbsolutePath(), exception);
+      } catch (SQLException exception) {
+        log.error("SQL error when importing wines", exception);
       }
+      return null;
     });
-    log.info("Successfully parsed {} out of {} wines", parsedWines.size(),
-        currentFileRows.size());
-    try {
-
-      if (replace) {
-        getManagerContext().getDatabaseManager().getWineDao().replaceAll(parsedWines);
-      } else {
-        getManagerContext().getDatabaseManager().getWineDao().addAll(parsedWines);
+
+    GeneralPopupController progressPopup = getManagerContext().getGuiManager().showPopup();
+    progressPopup.setTitle("Importing Wines");
+    ProgressBar progressBar = new ProgressBar(0);
+    progressBar.setPrefWidth(400);
+    progressPopup.addContent(progressBar);
+    progressPopup.setMessage(formatProgress(progress.snapshot()));
+    progressPopup.addButton("Cancel", () -> {
+      progress.cancel();
+      progressPopup.setMessage("Cancelling import...");
+    });
+
+    // the progress is polled so the import threads never have to touch the FX thread
+    Timeline progressUpdater = new Timeline(new KeyFrame(Duration.millis(250), event -> {
+      if (!progress.isCancelled()) {
+        WineImportProgress.Snapshot snapshot = progress.snapshot();
+        progressBar.setProgress(snapshot.fractionRead() < 0
+            ? ProgressBar.INDETERMINATE_PROGRESS : snapshot.fractionRead());
+        progressPopup.setMessage(formatProgress(snapshot));
       }
-    } catch (SQLException exception) {
-      log.error("SQL error when replacing wines");
+    }));
+    progressUpdater.setCycleCount(Animation.INDEFINITE);
+    progressUpdater.play();
+
+    request.whenComplete((report, error) -> Platform.runLater(() -> {
+      progressUpdater.stop();
+      progressPopup.close();
+      reset();
+      if (report != null) {
+        showImportReport(report);
+        return;
+      }
+      GeneralPopupController popup = progress.isCancelled()
+          ? getManagerContext().getGuiManager().showPopup()
+          : getManagerContext().getGuiManager().showErrorPopup();
+      popup.setTitle(progress.isCancelled() ? "Import Cancelled" : "Import Failed");
+      popup.setMessage(progress.isCancelled()
+          ? "The import was cancelled and no wines were changed."
+          : "The wines could not be imported and no wines were changed.");
+      popup.addOkButton();
+    }));
+  }
+
+  /**
+   * Formats the progress of an import for the progress popup.
+   *
+   * @param snapshot the progress of the import
+   * @return the formatted progress
+   */
+  private String formatProgress(WineImportProgress.Snapshot snapshot) {
+    String message = String.format("Read %.1f of %.1f MB%n"
+            + "Parsed %d rows, inserted %d wines, rejected %d rows%n"
+            + "%d rows per second", snapshot.bytesRead() / 1e6, snapshot.totalBytes() / 1e6,
+        snapshot.rowsParsed(), snapshot.rowsInserted(), snapshot.rowsRejected(),
+        Math.round(snapshot.rowsPerSecond()));
+    if (snapshot.etaSeconds() >= 0) {
+      message += String.format(", about %d seconds left", snapshot.etaSeconds());
+    }
+    return message;
+  }
+
+  /**
+   * Shows a popup summarising a finished import, including the first rows which could not be
+   * imported.
+   *
+   * @param report the import report
+   */
+  private void showImportReport(WineImportReport report) {
+    StringBuilder message = new StringBuilder(String.format(
+        "Imported %d of %d wines in %.1f seconds.", report.imported(), report.rowsRead(),
+        report.elapsedMilliseconds() / 1000.0));
+    if (report.failed() > 0) {
+      message.append(String.format("%n%d rows could not be imported:", report.failed()));
+      report.errors().stream().limit(5).forEach(error -> message.append(String.format(
+          "%nRow %d: %s", error.rowNumber(), error.message())));
     }
-    reset();
+    GeneralPopupController popup = getManagerContext().getGuiManager().showPopup();
+    popup.setTitle("Import Complete");
+    popup.setMessage(message.toString());
+    popup.addOkButton();
   }
 
 
@@ -234,7 +317,7 @@ public class WineImportController extends Controller {
       }
 
       ObservableList<String> sampleValues = FXCollections.observableArrayList();
-      for (int j = 0; j < 5 && j != rows.size(); j++) {
+      for (int j = 0; j < PREVIEW_ROWS && j != rows.size(); j++) {
         sampleValues.add(rows.get(j)[i]);
       }
 
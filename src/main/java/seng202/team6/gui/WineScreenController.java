@@ -1,9 +1,14 @@
 package seng202.team6.gui;
 
-import java.sql.SQLException;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import javafx.application.Platform;
-import javafx.collections.ObservableList;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
@@ -11,7 +16,6 @@ import javafx.scene.control.TabPane;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.control.cell.TextFieldTableCell;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.MouseEvent;
@@ -25,14 +29,20 @@ import javafx.util.converter.IntegerStringConverter;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import seng202.team6.dao.WineDao;
+import seng202.team6.enums.WineSortColumn;
 import seng202.team6.gui.controls.AutoCompletionTextField;
 import seng202.team6.gui.controls.CustomRangeSlider;
 import seng202.team6.gui.controls.WineCard;
+import seng202.team6.managers.DatabaseManager;
 import seng202.team6.managers.ManagerContext;
 import seng202.team6.model.Wine;
+import seng202.team6.model.WineCursor;
 import seng202.team6.model.WineFilters;
+import seng202.team6.model.WineSort;
+import seng202.team6.model.WineSummary;
 import seng202.team6.service.PageService;
 import seng202.team6.service.WineDataStatService;
+import seng202.team6.util.LatestRequest;
 import seng202.team6.util.NoDecimalCurrencyStringConverter;
 import seng202.team6.util.YearStringConverter;
 
@@ -45,9 +55,11 @@ public class WineScreenController extends Controller {
   // Utilities and services
   private final Logger log = LogManager.getLogger(WineScreenController.class);
   private final PageService pageService;
+  private final LatestRequest<WinePage> wineRequest = new LatestRequest<>();
   @FXML
   public TabPane tabPane;
   private WineFilters currentFilters;
+  private WineSort currentSort = WineSort.DEFAULT;
   // FXML elements
   @FXML
   private Button prevPageButtonSimpleView;
@@ -67,7 +79,7 @@ public class WineScreenController extends Controller {
   private AutoCompletionTextField wineryTextField;
   private AutoCompletionTextField colorTextField;
   @FXML
-  private TableView<Wine> tableView;
+  private TableView<WineSummary> tableView;
   @FXML
   private AnchorPane filtersPane;
   @FXML
@@ -104,11 +116,15 @@ public class WineScreenController extends Controller {
    * Constructor with save state.
    *
    * @param managerContext manager context
+   * @param pageService    page service of the saved state
+   * @param filters        filters of the saved state, may be null
+   * @param sort           order of the wines in the saved state
    */
   public WineScreenController(ManagerContext managerContext, PageService pageService,
-      WineFilters filters) {
+      WineFilters filters, WineSort sort) {
     super(managerContext);
     this.currentFilters = filters;
+    this.currentSort = sort;
     this.pageService = pageService;
   }
 
@@ -159,6 +175,11 @@ public class WineScreenController extends Controller {
 
   /**
    * Opens a page of wines from the database according to filters.
+   * <p>
+   * The page is read on the database executor using keyset pagination. If the cursor of the
+   * current page is not known yet, it is sought from the nearest page with a known cursor so only
+   * the wines in between are skipped. Opening another page before this one has loaded cancels it.
+   * </p>
    *
    * @param filters list of filters
    */
@@ -167,28 +188,87 @@ public class WineScreenController extends Controller {
     tableView.getItems().clear();
     winesViewContainer.getChildren().clear();
 
-    // Calculate range of data to get
-    int begin = this.pageService.getMinRange();
-    int end = this.pageService.getMaxRange();
-
-    getManagerContext().getGuiManager().showLoadingIndicator(() -> {
-      ObservableList<Wine> wines = null;
-      try {
-        wines = getManagerContext().getDatabaseManager().getWineDao()
-                .getAllInRange(begin, end, filters);
-      } catch (SQLException e) {
-        throw new RuntimeException(e);
+    // Work out where the page starts on the FX thread as the page service is not thread safe
+    WineDao wineDao = getManagerContext().getDatabaseManager().getWineDao();
+    int pageNumber = pageService.getPageNumber();
+    int pageSize = pageService.getPageSize();
+    int nearestPage = pageService.getNearestCursorPage(pageNumber);
+    WineCursor nearestCursor = pageService.getCursor(nearestPage);
+    WineSort sort = currentSort;
+
+    CompletableFuture<WinePage> request = wineRequest.replace(
+        getManagerContext().getDatabaseManager().getExecutor().read(() -> {
+          WineCursor cursor = wineDao.seekCursor(nearestCursor,
+              (pageNumber - nearestPage) * pageSize, filters, sort);
+          if (cursor == null) {
+            return new WinePage(pageNumber, null, List.of(), null, null);
+          }
+          WineDao.CursorPage page = wineDao.getSummariesAfter(cursor, pageSize, filters, sort);
+          return new WinePage(pageNumber, cursor, page.summaries(), page.next(), null);
+        }));
+    getManagerContext().getGuiManager().showLoadingIndicator(request, this::showWinePage);
+  }
+
+  /**
+   * Shows a page of wines which has been read from the database. The cursors of the page and the
+   * page following it are recorded so moving to the next page does not need to skip any wines.
+   *
+   * @param page the page of wines
+   */
+  private void showWinePage(WinePage page) {
+    List<WineSummary> wines = page.wines();
+    if (page.cursor() != null) {
+      pageService.setCursor(page.pageNumber(), page.cursor());
+    }
+    if (page.next() != null) {
+      pageService.setCursor(page.pageNumber() + 1, page.next());
+    }
+
+    mapController.runOrQueueWhenReady(() -> {
+      mapController.clearWineMarkers();
+      mapController.clearHeatmap();
+      wines.stream()
+              .filter(wine -> wine.geoLocation() != null)
+              .forEach(mapController::addWineMarker);
+    });
+    wines.forEach(this::createWineCard);
+    tableView.setItems(FXCollections.observableArrayList(wines));
+  }
+
+  /**
+   * Opens the current page of wines for new filters together with the number of wines matching
+   * them, then updates the number of pages. The page and the count are read in one query, or the
+   * count is reused if the same filters were counted since the wines last changed.
+   *
+   * @param filters list of filters, or null to count all wines
+   */
+  private void countAndOpenWineRange(WineFilters filters) {
+    tableView.getItems().clear();
+    winesViewContainer.getChildren().clear();
+
+    // The cursors of the previous filters do not apply to the new ones
+    pageService.resetCursors();
+    WineDao wineDao = getManagerContext().getDatabaseManager().getWineDao();
+    int pageNumber = pageService.getPageNumber();
+    int pageSize = pageService.getPageSize();
+    WineSort sort = currentSort;
+
+    CompletableFuture<WinePage> request = wineRequest.replace(
+        getManagerContext().getDatabaseManager().getExecutor().read(() -> {
+          WineCursor cursor = wineDao.seekCursor(WineCursor.FIRST, (pageNumber - 1) * pageSize,
+              filters, sort);
+          if (cursor == null) {
+            return new WinePage(pageNumber, null, List.of(), null, wineDao.getCount(filters));
+          }
+          WineDao.SummaryPage page = wineDao.getSummaryPageAfter(cursor, pageSize, filters, sort);
+          return new WinePage(pageNumber, cursor, page.summaries(), page.next(), page.total());
+        }));
+    getManagerContext().getGuiManager().showLoadingIndicator(request, page -> {
+      pageService.setTotalItems(page.total());
+      // A page past the new last page is replaced by the last page when the page count shrinks
+      if (pageService.getPageNumber() == page.pageNumber()) {
+        showWinePage(page);
       }
-      ObservableList<Wine> finalWines = wines;
-      mapController.runOrQueueWhenReady(() -> {
-        mapController.clearWineMarkers();
-        mapController.clearHeatmap();
-        finalWines.stream()
-                .filter(wine -> wine.getGeoLocation() != null)
-                .forEach(mapController::addWineMarker);
-      });
-      wines.forEach(this::createWineCard);
-      tableView.setItems(wines);
     });
   }
 
@@ -206,25 +286,50 @@ public class WineScreenController extends Controller {
     // Create and config cols
     tableView.setEditable(true);
 
-    final TableColumn<Wine, String> titleColumn = new TableColumn<>("Title");
-    final TableColumn<Wine, String> varietyColumn = new TableColumn<>("Variety");
-    final TableColumn<Wine, String> wineryColumn = new TableColumn<>("Winery");
-    final TableColumn<Wine, String> regionColumn = new TableColumn<>("Region");
-    final TableColumn<Wine, String> colorColumn = new TableColumn<>("Color");
-    final TableColumn<Wine, Integer> vintageColumn = new TableColumn<>("Vintage");
-    final TableColumn<Wine, Integer> scoreColumn = new TableColumn<>("Score");
-    final TableColumn<Wine, Float> abvColumn = new TableColumn<>("ABV%");
-    final TableColumn<Wine, Float> priceColumn = new TableColumn<>("Price");
-
-    titleColumn.setCellValueFactory(new PropertyValueFactory<>("title"));
-    varietyColumn.setCellValueFactory(new PropertyValueFactory<>("variety"));
-    wineryColumn.setCellValueFactory(new PropertyValueFactory<>("winery"));
-    regionColumn.setCellValueFactory(new PropertyValueFactory<>("region"));
-    colorColumn.setCellValueFactory(new PropertyValueFactory<>("color"));
-    vintageColumn.setCellValueFactory(new PropertyValueFactory<>("vintage"));
-    scoreColumn.setCellValueFactory(new PropertyValueFactory<>("scorePercent"));
-    abvColumn.setCellValueFactory(new PropertyValueFactory<>("abv"));
-    priceColumn.setCellValueFactory(new PropertyValueFactory<>("price"));
+    final TableColumn<WineSummary, String> titleColumn = new TableColumn<>("Title");
+    final TableColumn<WineSummary, String> varietyColumn = new TableColumn<>("Variety");
+    final TableColumn<WineSummary, String> wineryColumn = new TableColumn<>("Winery");
+    final TableColumn<WineSummary, String> regionColumn = new TableColumn<>("Region");
+    final TableColumn<WineSummary, String> colorColumn = new TableColumn<>("Color");
+    final TableColumn<WineSummary, Integer> vintageColumn = new TableColumn<>("Vintage");
+    final TableColumn<WineSummary, Integer> scoreColumn = new TableColumn<>("Score");
+    final TableColumn<WineSummary, Float> abvColumn = new TableColumn<>("ABV%");
+    final TableColumn<WineSummary, Float> priceColumn = new TableColumn<>("Price");
+    final TableColumn<WineSummary, String> ratingColumn = new TableColumn<>("Rating");
+
+    titleColumn.setCellValueFactory(
+        cell -> new ReadOnlyObjectWrapper<>(cell.getValue().title()));
+    varietyColumn.setCellValueFactory(
+        cell -> new ReadOnlyObjectWrapper<>(cell.getValue().variety()));
+    wineryColumn.setCellValueFactory(
+        cell -> new ReadOnlyObjectWrapper<>(cell.getValue().winery()));
+    regionColumn.setCellValueFactory(
+        cell -> new ReadOnlyObjectWrapper<>(cell.getValue().region()));
+    colorColumn.setCellValueFactory(
+        cell -> new ReadOnlyObjectWrapper<>(cell.getValue().color()));
+    vintageColumn.setCellValueFactory(
+        cell -> new ReadOnlyObjectWrapper<>(cell.getValue().vintage()));
+    scoreColumn.setCellValueFactory(
+        cell -> new ReadOnlyObjectWrapper<>(cell.getValue().scorePercent()));
+    abvColumn.setCellValueFactory(
+        cell -> new ReadOnlyObjectWrapper<>(cell.getValue().abv()));
+    priceColumn.setCellValueFactory(
+        cell -> new ReadOnlyObjectWrapper<>(cell.getValue().price()));
+    ratingColumn.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(
+        String.format("%.1f", cell.getValue().averageRating())));
+    ratingColumn.setEditable(false);
+
+    // Columns are sorted by the database, so only the indexed columns can be sorted
+    titleColumn.setUserData(WineSortColumn.TITLE);
+    vintageColumn.setUserData(WineSortColumn.VINTAGE);
+    scoreColumn.setUserData(WineSortColumn.SCORE);
+    abvColumn.setUserData(WineSortColumn.ABV);
+    priceColumn.setUserData(WineSortColumn.PRICE);
+    ratingColumn.setUserData(WineSortColumn.RATING);
+    varietyColumn.setSortable(false);
+    wineryColumn.setSortable(false);
+    regionColumn.setSortable(false);
+    colorColumn.setSortable(false);
 
     // Enable editing if admin
     if (getManagerContext().getAuthenticationManager().isAdmin()) {
@@ -242,6 +347,16 @@ public class WineScreenController extends Controller {
       scoreColumn.setCellFactory(wineStringTableColumn -> new TextFieldTableCell<>(intConverter));
       abvColumn.setCellFactory(wineStringTableColumn -> new TextFieldTableCell<>(floatConverter));
       priceColumn.setCellFactory(wineStringTableColumn -> new TextFieldTableCell<>(floatConverter));
+
+      titleColumn.setOnEditCommit(event -> editWine(event, Wine::setTitle));
+      varietyColumn.setOnEditCommit(event -> editWine(event, Wine::setVariety));
+      wineryColumn.setOnEditCommit(event -> editWine(event, Wine::setWinery));
+      regionColumn.setOnEditCommit(event -> editWine(event, Wine::setRegion));
+      colorColumn.setOnEditCommit(event -> editWine(event, Wine::setColor));
+      vintageColumn.setOnEditCommit(event -> editWine(event, Wine::setVintage));
+      scoreColumn.setOnEditCommit(event -> editWine(event, Wine::setScorePercent));
+      abvColumn.setOnEditCommit(event -> editWine(event, Wine::setAbv));
+      priceColumn.setOnEditCommit(event -> editWine(event, Wine::setPrice));
     }
 
     tableView.getColumns().add(titleColumn);
@@ -253,6 +368,98 @@ public class WineScreenController extends Controller {
     tableView.getColumns().add(scoreColumn);
     tableView.getColumns().add(abvColumn);
     tableView.getColumns().add(priceColumn);
+    tableView.getColumns().add(ratingColumn);
+    setupSorting();
+  }
+
+  /**
+   * Sorts the wines by the column whose header was clicked. The table only holds the current page,
+   * so instead of sorting it the pages are read from the database again in the new order, starting
+   * from the first page.
+   */
+  private void setupSorting() {
+    // Show the order of a saved state in the column headers
+    for (TableColumn<WineSummary, ?> column : tableView.getColumns()) {
+      if (column.getUserData() == currentSort.column()) {
+        column.setSortType(currentSort.ascending()
+            ? TableColumn.SortType.ASCENDING : TableColumn.SortType.DESCENDING);
+        tableView.getSortOrder().add(column);
+      }
+    }
+
+    tableView.setSortPolicy(table -> true);
+    tableView.getSortOrder().addListener(
+        (ListChangeListener<TableColumn<WineSummary, ?>>) change -> onSortChanged());
+    for (TableColumn<WineSummary, ?> column : tableView.getColumns()) {
+      column.sortTypeProperty().addListener((observable, oldValue, newValue) -> onSortChanged());
+    }
+  }
+
+  /**
+   * Reopens the wines from the first page when the order chosen in the column headers changes.
+   */
+  private void onSortChanged() {
+    WineSort sort = WineSort.DEFAULT;
+    if (!tableView.getSortOrder().isEmpty()) {
+      TableColumn<WineSummary, ?> column = tableView.getSortOrder().getFirst();
+      sort = new WineSort((WineSortColumn) column.getUserData(),
+          column.getSortType() == TableColumn.SortType.ASCENDING);
+    }
+    if (sort.equals(currentSort)) {
+      return;
+    }
+    currentSort = sort;
+
+    // The cursors of the previous order do not apply to the new one
+    pageService.resetCursors();
+    if (pageService.getPageNumber() == 1) {
+      openWineRange(currentFilters);
+    } else {
+      pageService.setPageNumber(1);
+    }
+  }
+
+  /**
+   * Applies an edit made in the table to the full wine, which is read from the database first, and
+   * replaces the edited row with a summary of the changed wine.
+   *
+   * @param event  the edit event of the cell
+   * @param setter the setter of the edited attribute of the wine
+   * @param <T>    the type of the edited attribute
+   */
+  private <T> void editWine(TableColumn.CellEditEvent<WineSummary, T> event,
+      BiConsumer<Wine, T> setter) {
+    WineSummary summary = event.getRowValue();
+    T value = event.getNewValue();
+    if (value == null) { // The text could not be converted so keep the old value
+      tableView.refresh();
+      return;
+    }
+    openWine(summary, wine -> {
+      setter.accept(wine, value);
+      int index = tableView.getItems().indexOf(summary);
+      if (index != -1) {
+        tableView.getItems().set(index, WineSummary.of(wine));
+      }
+    });
+  }
+
+  /**
+   * Reads the full wine of a summary on the database executor and passes it to an action on the
+   * JavaFX thread. Nothing is done if the wine no longer exists.
+   *
+   * @param summary the summary of the wine
+   * @param action  the action to run with the wine
+   */
+  private void openWine(WineSummary summary, Consumer<Wine> action) {
+    WineDao wineDao = getManagerContext().getDatabaseManager().getWineDao();
+    CompletableFuture<Wine> request = getManagerContext().getDatabaseManager().getExecutor()
+        .read(() -> wineDao.get(summary.key()));
+    getManagerContext().getGuiManager().showLoadingIndicator(request, wine -> {
+      if (wine != null) {
+        action.accept(wine);
+      }
+    });
   }
 
   /**
@@ -260,7 +467,7 @@ public class WineScreenController extends Controller {
    *
    * @param wine wine
    */
-  public void createWineCard(Wine wine) {
+  public void createWineCard(WineSummary wine) {
     WineCard card = new WineCard(winesViewContainer.widthProperty(),
         winesViewContainer.hgapProperty(), wine, true);
     card.setOnMouseClicked(event -> {
@@ -309,16 +516,8 @@ public class WineScreenController extends Controller {
         priceSlider.getHighValue()
     );
 
-    // update max pages
-    try {
-      this.pageService.setTotalItems(
-          getManagerContext().getDatabaseManager().getWineDao().getCount(currentFilters));
-    } catch (SQLException e) {
-      throw new RuntimeException(e);
-    }
-
-    // Update table with filtered wines
-    openWineRange(currentFilters);
+    // update max pages and table with filtered wines
+    countAndOpenWineRange(currentFilters);
   }
 
   /**
@@ -335,15 +534,8 @@ public class WineScreenController extends Controller {
     // Reset current filters
     this.currentFilters = null;
 
-    // Update pages
-    try {
-      pageService.setTotalItems(getManagerContext().getDatabaseManager().getWineDao().getCount());
-    } catch (SQLException e) {
-      throw new RuntimeException(e);
-    }
-
-    // Update wines
-    openWineRange(null);
+    // Update pages and wines
+    countAndOpenWineRange(null);
   }
 
   /**
@@ -354,7 +546,7 @@ public class WineScreenController extends Controller {
   @FXML
   public void openWineOnClick(MouseEvent event) {
     if (event.getClickCount() != 2) {
-      Wine wine = tableView.getSelectionModel().getSelectedItem();
+      WineSummary wine = tableView.getSelectionModel().getSelectedItem();
       if (wine != null) {
         openDetailedWineView(wine);
       }
@@ -478,8 +670,7 @@ public class WineScreenController extends Controller {
    * @param entries   Auto-complete entries
    */
   private void configureAutoComplete(AutoCompletionTextField textField, Set<String> entries) {
-    textField.getEntries().clear(); // Clear old data
-    textField.getEntries().addAll(entries); // Add new data for auto-complete
+    textField.setEntries(entries); // Replace old data for auto-complete
   }
 
   /**
@@ -492,6 +683,15 @@ public class WineScreenController extends Controller {
     abvSlider.resetThumbs();
   }
 
+  /**
+   * Reads the full wine of a summary and opens the detailed wine view for it.
+   *
+   * @param wine summary of the wine
+   */
+  private void openDetailedWineView(WineSummary wine) {
+    openWine(wine, this::openDetailedWineView);
+  }
+
   /**
    * Opens the detailed wine view for a wine.
    *
@@ -499,12 +699,14 @@ public class WineScreenController extends Controller {
    */
   private void openDetailedWineView(Wine wine) {
     Runnable backAction;
-    if (currentFilters == null && pageService.getPageNumber() == 1) { // Don't need to save state
+    if (currentFilters == null && pageService.getPageNumber() == 1
+        && currentSort.equals(WineSort.DEFAULT)) { // Don't need to save state
       backAction = () -> getManagerContext().getGuiManager()
           .openWineScreen();
     } else {
+      WineSort sort = currentSort;
       backAction = () -> getManagerContext().getGuiManager()
-          .openWineScreen(pageService, currentFilters);
+          .openWineScreen(pageService, currentFilters, sort);
     }
     getManagerContext().getGuiManager().openDetailedWineView(wine, backAction);
   }
@@ -565,12 +767,16 @@ public class WineScreenController extends Controller {
           this.pageNumberTextFieldRawViewer.setText(newValue + "");
         });
 
-    // Set up max pages
-    try {
-      pageService.setTotalItems(getManagerContext().getDatabaseManager().getWineDao().getCount());
-    } catch (SQLException e) {
-      throw new RuntimeException(e);
-    }
+    // Set up max pages, counting the wines on a reader thread
+    DatabaseManager databaseManager = getManagerContext().getDatabaseManager();
+    CompletableFuture<Integer> count = databaseManager.getExecutor()
+        .read(() -> databaseManager.getWineDao().getCount());
+    getManagerContext().getGuiManager().showLoadingIndicator(count, total -> {
+      // a filtered page which loaded first has already set the total for its filters
+      if (currentFilters == null) {
+        pageService.setTotalItems(total);
+      }
+    });
     maxPageNumberRawViewer.setText("/" + pageService.getMaxPages()); // Set initial value
     maxPageNumberSimpleView.setText("/" + pageService.getMaxPages());
     pageService.maxPagesProperty().addListener((observableValue, oldValue, newValue) -> {
@@ -628,5 +834,18 @@ public class WineScreenController extends Controller {
       return false;
     }
   }
-}
 
+  /**
+   * A page of wines read from the database.
+   *
+   * @param pageNumber the page number
+   * @param cursor     the cursor the page was read from, or null if the page is past the end
+   * @param wines      the summaries of the wines on the page
+   * @param next       the cursor the next page is read from, or null if the page is empty
+   * @param total      the number of wines matching the filters, or null if they were not counted
+   */
+  private record WinePage(int pageNumber, WineCursor cursor, List<WineSummary> wines,
+      WineCursor next, Integer total) {
+
+  }
+}
@@ -1,16 +1,17 @@
 package seng202.team6.gui.controls;
 
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
-import java.util.stream.Collectors;
+import javafx.application.Platform;
 import javafx.geometry.Side;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.CustomMenuItem;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
+import seng202.team6.util.SuggestionIndex;
 
 
 /**
@@ -19,12 +20,24 @@ import javafx.scene.control.TextField;
  * Modified from: <a
  * href="https://stackoverflow.com/questions/36861056/javafx-textfield-auto-suggestions">...</a>
  * </p>
+ * <p>
+ * Suggestions are found with a {@link SuggestionIndex}, which is refined as the user types instead
+ * of checking every entry on each keystroke. Large sets of entries are indexed off the JavaFX
+ * thread.
+ * </p>
  */
 public class AutoCompletionTextField extends TextField {
 
+  //Number of entries which are indexed on the JavaFX thread rather than in the background
+  private static final int BACKGROUND_INDEX_THRESHOLD = 1000;
+  //Maximum number of suggestions shown, for performance
+  private static final int MAX_ENTRIES = 10;
+
   //Local variables
-  //entries to autocomplete
-  private final SortedSet<String> entries;
+  //search of the index of the entries to autocomplete
+  private SuggestionIndex.Search search = SuggestionIndex.of(List.of()).newSearch();
+  //latest index being built in the background
+  private CompletableFuture<SuggestionIndex> pendingIndex;
   //popup GUI
   private final ContextMenu entriesPopup;
 
@@ -35,7 +48,6 @@ public class AutoCompletionTextField extends TextField {
    */
   public AutoCompletionTextField() {
     super();
-    this.entries = new TreeSet<>();
     this.entriesPopup = new ContextMenu();
 
     setListener();
@@ -48,7 +60,6 @@ public class AutoCompletionTextField extends TextField {
    */
   public AutoCompletionTextField(String text) {
     super();
-    this.entries = new TreeSet<>();
     this.entriesPopup = new ContextMenu();
     setText(text);
 
@@ -70,9 +81,7 @@ public class AutoCompletionTextField extends TextField {
         entriesPopup.hide();
       } else {
         //filter all possible suggestions depends on "Text", case insensitive
-        List<String> filteredEntries = entries.stream()
-            .filter(e -> e.toLowerCase().contains(enteredText.toLowerCase()))
-            .collect(Collectors.toList());
+        List<String> filteredEntries = search.search(enteredText, MAX_ENTRIES);
         //some suggestions are found
         if (!filteredEntries.isEmpty()) {
           //build popup - list of "CustomMenuItem"
@@ -93,20 +102,16 @@ public class AutoCompletionTextField extends TextField {
 
 
   /**
-   * Populate the entry set with the given search results. Display is limited to 10 entries, for
-   * performance.
+   * Populate the entry set with the given search results, which are already limited to
+   * {@link #MAX_ENTRIES} entries.
    *
    * @param searchResult The set of matching strings.
    */
   private void populatePopup(List<String> searchResult) {
     //List of "suggestions"
     List<CustomMenuItem> menuItems = new LinkedList<>();
-    //List size - 10 or founded suggestions count
-    int maxEntries = 10;
-    int count = Math.min(searchResult.size(), maxEntries);
     //Build list as set of labels
-    for (int i = 0; i < count; i++) {
-      final String result = searchResult.get(i);
+    for (final String result : searchResult) {
       //label with graphic (text flow) to highlight founded subtext in suggestions
       Label entryLabel = new Label(result);
       CustomMenuItem item = new CustomMenuItem(entryLabel, true);
@@ -138,12 +143,38 @@ public class AutoCompletionTextField extends TextField {
 
 
   /**
-   * Get the existing set of autocomplete entries.
+   * Replaces the autocomplete entries. The entries are copied, and if there are many of them they
+   * are indexed in the background, with the previous entries suggested until the index is built.
+   * Must be called on the JavaFX thread.
+   *
+   * @param entries The new autocomplete entries.
+   */
+  public void setEntries(Collection<String> entries) {
+    List<String> copy = List.copyOf(entries);
+    if (copy.size() < BACKGROUND_INDEX_THRESHOLD) {
+      pendingIndex = null;
+      setIndex(SuggestionIndex.of(copy));
+      return;
+    }
+    CompletableFuture<SuggestionIndex> request = CompletableFuture.supplyAsync(
+        () -> SuggestionIndex.of(copy));
+    pendingIndex = request;
+    request.thenAccept(built -> Platform.runLater(() -> {
+      // a newer set of entries replaces an index which is still being built
+      if (pendingIndex == request) {
+        pendingIndex = null;
+        setIndex(built);
+      }
+    }));
+  }
+
+  /**
+   * Replaces the index of the autocomplete entries, restarting the search.
    *
-   * @return The existing autocomplete entries.
+   * @param index The new index.
    */
-  public SortedSet<String> getEntries() {
-    return entries;
+  private void setIndex(SuggestionIndex index) {
+    this.search = index.newSearch();
   }
 
   public ContextMenu getEntriesPopup() {
@@ -13,6 +13,7 @@ import javafx.scene.layout.VBox;
 import org.controlsfx.control.Rating;
 import seng202.team6.gui.controls.card.Card;
 import seng202.team6.model.Wine;
+import seng202.team6.model.WineSummary;
 import seng202.team6.util.WineImages;
 
 /**
@@ -31,14 +32,50 @@ public class WineCard extends Card {
       DoubleProperty horizontalGap, Wine wine, boolean showReview) {
     super(containerWidth, horizontalGap);
 
-    Image wineImage = WineImages.getImage(wine);
+    Label wineTitle = new Label();
+    wineTitle.textProperty().bind(wine.titleProperty());
+    Rating rating = null;
+    if (showReview) {
+      rating = new UnmodifiableRating();
+      rating.ratingProperty().bind(wine.averageRatingProperty());
+    }
+    createHeader(WineImages.getImage(wine), wineTitle, rating);
+  }
+
+  /**
+   * Constructs a WineCard to display a summary of a wine. The card shows the summary as it was
+   * read and does not update if the wine changes.
+   *
+   * @param containerWidth the width of the container to which this card belongs
+   * @param horizontalGap  the horizontal gap of the container.
+   * @param wine           the summary of the wine to display
+   * @param showReview     a boolean indicating whether to show the review rating
+   */
+  public WineCard(ReadOnlyDoubleProperty containerWidth,
+      DoubleProperty horizontalGap, WineSummary wine, boolean showReview) {
+    super(containerWidth, horizontalGap);
+
+    Rating rating = null;
+    if (showReview) {
+      rating = new UnmodifiableRating();
+      rating.setRating(wine.averageRating());
+    }
+    createHeader(WineImages.getImage(wine.color()), new Label(wine.title()), rating);
+  }
+
+  /**
+   * Lays out the image, title and rating of the wine.
+   *
+   * @param wineImage the image of the wine
+   * @param wineTitle the label showing the title of the wine
+   * @param rating    the rating of the wine, or null if the rating is not shown
+   */
+  private void createHeader(Image wineImage, Label wineTitle, Rating rating) {
     ImageView imageView = new ImageView(wineImage);
     imageView.setFitHeight(100);
     imageView.setPreserveRatio(true);
     HBox.setHgrow(imageView, Priority.NEVER);
 
-    Label wineTitle = new Label();
-    wineTitle.textProperty().bind(wine.titleProperty());
     wineTitle.setStyle("-fx-font-size: 16px;");
     wineTitle.setWrapText(true);
 
@@ -47,9 +84,7 @@ public class WineCard extends Card {
     titleReview.setSpacing(10);
     titleReview.setAlignment(Pos.CENTER_LEFT);
 
-    if (showReview) {
-      Rating rating = new UnmodifiableRating();
-      rating.ratingProperty().bind(wine.averageRatingProperty());
+    if (rating != null) {
       rating.getStyleClass().add("small-rating");
       titleReview.getChildren().add(rating);
     }
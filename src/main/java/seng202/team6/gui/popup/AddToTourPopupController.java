@@ -1,10 +1,12 @@
 package seng202.team6.gui.popup;
 
+import java.util.concurrent.CompletableFuture;
 import javafx.collections.ListChangeListener;
 import javafx.fxml.FXML;
 import javafx.scene.control.ScrollPane;
 import seng202.team6.gui.Controller;
 import seng202.team6.gui.controls.container.AddRemoveCardsContainer;
+import seng202.team6.managers.DatabaseManager;
 import seng202.team6.managers.ManagerContext;
 import seng202.team6.model.Vineyard;
 import seng202.team6.model.VineyardTour;
@@ -65,13 +67,39 @@ public class AddToTourPopupController extends Controller {
               change.getAddedSubList().forEach(vineyardTour -> {
                 addRemoveCardsContainer.add(vineyardTour, vineyardTour.nameProperty(),
                     !vineyardToursService.isVineyardInTour(vineyardTour, vineyard),
-                    () -> getManagerContext().getDatabaseManager().getVineyardTourDao()
-                        .addVineyard(vineyardTour, vineyard),
-                    () -> getManagerContext().getDatabaseManager().getVineyardTourDao()
-                        .removeVineyard(vineyardTour, vineyard));
+                    () -> addToTour(vineyardTour),
+                    () -> removeFromTour(vineyardTour));
               });
             }
           }
         });
   }
+
+  /**
+   * Adds the vineyard to a tour on the database writer thread.
+   *
+   * @param vineyardTour the tour to add the vineyard to
+   */
+  private void addToTour(VineyardTour vineyardTour) {
+    DatabaseManager databaseManager = getManagerContext().getDatabaseManager();
+    CompletableFuture<Void> added = databaseManager.getExecutor().write(() -> {
+      databaseManager.getVineyardTourDao().addVineyard(vineyardTour, vineyard);
+      return null;
+    });
+    getManagerContext().getGuiManager().showLoadingIndicator(added, ignored -> { });
+  }
+
+  /**
+   * Removes the vineyard from a tour on the database writer thread.
+   *
+   * @param vineyardTour the tour to remove the vineyard from
+   */
+  private void removeFromTour(VineyardTour vineyardTour) {
+    DatabaseManager databaseManager = getManagerContext().getDatabaseManager();
+    CompletableFuture<Void> removed = databaseManager.getExecutor().write(() -> {
+      databaseManager.getVineyardTourDao().removeVineyard(vineyardTour, vineyard);
+      return null;
+    });
+    getManagerContext().getGuiManager().showLoadingIndicator(removed, ignored -> { });
+  }
 }
@@ -1,6 +1,5 @@
 package seng202.team6.gui.popup;
 
-import java.sql.SQLException;
 import java.util.List;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -74,11 +73,8 @@ public class CreateListPopupController extends Controller {
         errorMessageLabel.setVisible(false);
 
         User user = getManagerContext().getAuthenticationManager().getAuthenticatedUser();
-        try {
-          wineListService.createWineList(user, name);
-        } catch (SQLException e) {
-          throw new RuntimeException(e);
-        }
+        getManagerContext().getGuiManager().showLoadingIndicator(
+            wineListService.createWineList(user, name), wineListService::addWineList);
 
         listNameTextField.setText("");
         onBackButtonClick();
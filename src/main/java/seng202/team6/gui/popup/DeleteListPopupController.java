@@ -1,6 +1,5 @@
 package seng202.team6.gui.popup;
 
-import java.sql.SQLException;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
 import seng202.team6.gui.Controller;
@@ -56,11 +55,8 @@ public class DeleteListPopupController extends Controller {
    */
   @FXML
   public void onDeleteListConfirmClick() {
-    try {
-      wineListService.deleteWineList(wineListToDelete);
-    } catch (SQLException e) {
-      throw new RuntimeException(e);
-    }
+    getManagerContext().getGuiManager().showLoadingIndicator(
+        wineListService.deleteWineList(wineListToDelete), ignored -> { });
     getManagerContext().getGuiManager().closePopup();
   }
 }
\ No newline at end of file
@@ -1,6 +1,10 @@
 package seng202.team6.gui.popup;
 
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import javafx.collections.FXCollections;
 import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
@@ -85,8 +89,10 @@ public class UserViewPopupController extends Controller {
     wineReviews.addListener((ListChangeListener<WineReview>) change -> {
       while (change.next()) {
         if (change.wasAdded()) {
+          Map<Long, Wine> wines = getReviewedWines(change.getAddedSubList());
           change.getAddedSubList().forEach(wineReview -> {
-            VBox reviewWrapper = createWineReviewElement(wineReview);
+            VBox reviewWrapper = createWineReviewElement(wineReview,
+                wines.get(wineReview.getWineId()));
             wineReviewCards.put(wineReview, reviewWrapper);
             reviewsBox.getChildren().add(reviewWrapper);
           });
@@ -102,14 +108,33 @@ public class UserViewPopupController extends Controller {
     });
   }
 
+  /**
+   * Retrieves the wines of some reviews with a single batched lookup rather than one per review.
+   *
+   * @param wineReviews the reviews
+   * @return the reviewed wines mapped by their IDs
+   */
+  private Map<Long, Wine> getReviewedWines(List<? extends WineReview> wineReviews) {
+    List<Long> wineIds = wineReviews.stream()
+        .map(WineReview::getWineId)
+        .toList();
+    try {
+      return getManagerContext().getDatabaseManager().getWineDao().getAll(wineIds).stream()
+          .collect(Collectors.toMap(Wine::getKey, Function.identity()));
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   /**
    * Creates a new VBox layout element which represents a single wine. Attributes in the wine review
    * are bind to the UI elements to ensure any changes are reflected in the UI.
    *
    * @param wineReview The wine review object representing the review
+   * @param wine       The reviewed wine, or null if it no longer exists
    * @return A VBox containing the wine review UI
    */
-  private VBox createWineReviewElement(WineReview wineReview) {
+  private VBox createWineReviewElement(WineReview wineReview, Wine wine) {
     VBox wrapper = new VBox();
     wrapper.setMaxWidth(320);
     wrapper.setMinWidth(320);
@@ -119,12 +144,6 @@ public class UserViewPopupController extends Controller {
         + "-fx-border-color: black; "
         + "-fx-border-insets: 10;");
 
-    Wine wine;
-    try {
-      wine = getManagerContext().getDatabaseManager().getWineDao().get(wineReview.getWineId());
-    } catch (SQLException e) {
-      throw new RuntimeException(e);
-    }
     if (wine != null) {
       Label titleLabel = new Label(wine.getTitle());
       titleLabel.textProperty().bind(wine.titleProperty());
@@ -1,6 +1,5 @@
 package seng202.team6.gui.popup;
 
-import java.sql.SQLException;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
@@ -89,11 +88,8 @@ public class WineReviewPopupController extends Controller {
 
   @FXML
   void onDeleteButtonClick() {
-    try {
-      wineReviewsService.deleteUsersReview();
-    } catch (SQLException e) {
-      throw new RuntimeException(e);
-    }
+    getManagerContext().getGuiManager().showLoadingIndicator(
+        wineReviewsService.deleteUsersReview(), wineReviewsService::applyUpdate);
     getManagerContext().getGuiManager().closePopup();
   }
 
@@ -101,11 +97,9 @@ public class WineReviewPopupController extends Controller {
   void onSubmitButtonClick() {
     double rating = ratingStars.getRating();
     String description = descriptionTextArea.getText();
-    try {
-      wineReviewsService.addOrUpdateUserReview(rating, description);
-    } catch (SQLException e) {
-      throw new RuntimeException(e);
-    }
+    getManagerContext().getGuiManager().showLoadingIndicator(
+        wineReviewsService.addOrUpdateUserReview(rating, description),
+        wineReviewsService::applyUpdate);
     getManagerContext().getGuiManager().closePopup();
   }
 }
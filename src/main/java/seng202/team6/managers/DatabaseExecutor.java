@@ -0,0 +1,175 @@
+package seng202.team6.managers;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Runs data access work off the JavaFX application thread.
+ * <p>
+ * Writes are run one at a time, in submission order, on a dedicated writer thread so that they can
+ * never interleave with each other. Reads are run on a separate read executor so that a long write
+ * such as an import does not hold up paging. Results are returned as {@link CompletableFuture}s
+ * which the GUI completes on the JavaFX thread through
+ * {@link GuiManager#showLoadingIndicator(CompletableFuture, java.util.function.Consumer)}.
+ * </p>
+ * <p>
+ * A task which is cancelled before it starts is never run, so stale requests cancelled with a
+ * {@link seng202.team6.util.LatestRequest} do not reach the database.
+ * </p>
+ */
+public class DatabaseExecutor {
+
+  private static final Logger log = LogManager.getLogger(DatabaseExecutor.class);
+
+  private final ExecutorService writeExecutor;
+  private final ExecutorService readExecutor;
+  private volatile Thread writerThread;
+
+  /**
+   * Constructs a new DatabaseExecutor with its own writer thread and a single reader thread.
+   */
+  public DatabaseExecutor() {
+    this(1);
+  }
+
+  /**
+   * Constructs a new DatabaseExecutor with its own writer and reader threads. There should be no
+   * more read threads than read connections, as extra threads would only queue on the connections.
+   *
+   * @param readThreads the number of threads used for reads
+   */
+  public DatabaseExecutor(int readThreads) {
+    ThreadFactory writerFactory = createThreadFactory("database-writer");
+    this.writeExecutor = Executors.newSingleThreadExecutor(runnable -> {
+      writerThread = writerFactory.newThread(runnable);
+      return writerThread;
+    });
+    this.readExecutor = Executors.newFixedThreadPool(readThreads,
+        createThreadFactory("database-reader"));
+  }
+
+  /**
+   * Creates a thread factory for daemon threads so that pending database work never keeps the
+   * application alive after the window is closed.
+   *
+   * @param name the prefix of the thread names
+   * @return the thread factory
+   */
+  private static ThreadFactory createThreadFactory(String name) {
+    AtomicInteger count = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /**
+   * Checks whether the calling thread is the writer thread, which is the only thread that should
+   * write through the writer connection while the executor is running.
+   *
+   * @return true if the calling thread is the writer thread, false otherwise
+   */
+  public boolean isWriterThread() {
+    return Thread.currentThread() == writerThread;
+  }
+
+  /**
+   * Submits a task which only reads from the database.
+   *
+   * @param task the task to run
+   * @param <T>  the type of the result
+   * @return a future which completes with the result of the task
+   */
+  public <T> CompletableFuture<T> read(DatabaseTask<T> task) {
+    return submit(task, readExecutor);
+  }
+
+  /**
+   * Submits a task which writes to the database. Write tasks are run one at a time in the order
+   * they are submitted.
+   *
+   * @param task the task to run
+   * @param <T>  the type of the result
+   * @return a future which completes with the result of the task
+   */
+  public <T> CompletableFuture<T> write(DatabaseTask<T> task) {
+    return submit(task, writeExecutor);
+  }
+
+  /**
+   * Submits a task which writes to the database after a delay. The task is queued behind the
+   * writes submitted before the delay elapses.
+   *
+   * @param delayMilliseconds how long to wait before queueing the task
+   * @param task              the task to run
+   * @param <T>               the type of the result
+   * @return a future which completes with the result of the task
+   */
+  public <T> CompletableFuture<T> writeAfter(long delayMilliseconds, DatabaseTask<T> task) {
+    return submit(task, CompletableFuture.delayedExecutor(delayMilliseconds,
+        TimeUnit.MILLISECONDS, writeExecutor));
+  }
+
+  /**
+   * Submits a task to an executor.
+   *
+   * @param task     the task to run
+   * @param executor the executor to run the task on
+   * @param <T>      the type of the result
+   * @return a future which completes with the result of the task
+   */
+  private <T> CompletableFuture<T> submit(DatabaseTask<T> task, Executor executor) {
+    // supplyAsync skips the task if the future has already been cancelled when it is dequeued
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return task.run();
+      } catch (Exception error) {
+        throw new CompletionException(error);
+      }
+    }, executor);
+  }
+
+  /**
+   * Stops accepting new tasks and waits briefly for submitted writes to finish so they are not
+   * lost when the connection is closed.
+   */
+  public void shutdown() {
+    readExecutor.shutdownNow();
+    writeExecutor.shutdown();
+    try {
+      if (!writeExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+        log.warn("Timed out waiting for database writes to finish");
+        writeExecutor.shutdownNow();
+      }
+    } catch (InterruptedException error) {
+      writeExecutor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * A unit of data access work which may throw a checked exception such as an SQLException.
+   *
+   * @param <T> the type of the result
+   */
+  @FunctionalInterface
+  public interface DatabaseTask<T> {
+
+    /**
+     * Runs the task.
+     *
+     * @return the result of the task
+     * @throws Exception if the task fails
+     */
+    T run() throws Exception;
+  }
+}
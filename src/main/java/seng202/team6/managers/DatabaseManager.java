@@ -1,5 +1,6 @@
 package seng202.team6.managers;
 
+import io.github.cdimascio.dotenv.Dotenv;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -7,19 +8,29 @@ import java.nio.file.Path;
 import java.security.InvalidParameterException;
 import java.sql.Connection;
 import java.sql.DriverManager;
-import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.sqlite.SQLiteConfig;
 import seng202.team6.dao.AggregatedDao;
 import seng202.team6.dao.Dao;
 import seng202.team6.dao.GeoLocationDao;
+import seng202.team6.dao.GeocodeCacheDao;
+import seng202.team6.dao.Migration;
+import seng202.team6.dao.SchemaVersionDao;
+import seng202.team6.dao.StatSnapshotDao;
 import seng202.team6.dao.UserDao;
 import seng202.team6.dao.VineyardDao;
 import seng202.team6.dao.VineyardTourDao;
@@ -30,17 +41,81 @@ import seng202.team6.dao.WineReviewDao;
 import seng202.team6.service.VineyardDataStatService;
 import seng202.team6.service.VineyardDefaultsService;
 import seng202.team6.service.WineDataStatService;
+import seng202.team6.util.CachingLocationResolver;
+import seng202.team6.util.CsvLocationResolver;
+import seng202.team6.util.DatabaseObjectUniquer;
+import seng202.team6.util.GeolocationResolver;
+import seng202.team6.util.LocationResolver;
 import seng202.team6.util.PasswordUtil;
+import seng202.team6.util.Timer;
+import seng202.team6.util.VersionedLruCache;
 
 /**
  * Manages the creation, initialization, and teardown of a database. Provides methods for setting up
  * an in-memory or persistent SQLite database connection and initializes Daos (Data Access Objects)
  * for interacting with different database tables.
+ * <p>
+ * A persistent database is opened in write-ahead log mode with one writer connection and a small
+ * pool of read-only connections, so DAO reads see the last committed data without waiting for a
+ * write such as an import to finish. An in-memory database cannot be shared between connections,
+ * so its reads use the writer connection.
+ * </p>
+ * <p>
+ * Every connection prepares its statements through a {@link StatementCache}, so DAOs reuse the
+ * parsed statement for SQL they have run before.
+ * </p>
  */
 public class DatabaseManager {
 
   private static final Logger log = LogManager.getLogger(DatabaseManager.class);
+
+  /**
+   * The pragmas applied while in bulk load mode. Syncing to disk is skipped and a larger page
+   * cache and in-memory temporary storage are used. The rollback journal is truncated rather than
+   * deleted after each commit, but kept on disk so a crash during a load cannot corrupt the
+   * database.
+   */
+  private static final Map<String, String> BULK_LOAD_PRAGMAS = Map.of(
+      "synchronous", "OFF",
+      "cache_size", "-65536",
+      "temp_store", "MEMORY",
+      "journal_mode", "TRUNCATE");
+
+  /**
+   * The number of read-only connections opened to a persistent database.
+   */
+  private static final int READ_CONNECTIONS = 3;
+
+  /**
+   * How long a read waits for a lock, such as while the log is being checkpointed, before failing.
+   */
+  private static final int READ_BUSY_TIMEOUT_MILLISECONDS = 5000;
+
+  /**
+   * The maximum number of idle prepared statements kept for each connection.
+   */
+  private static final int MAX_CACHED_STATEMENTS = 64;
+
+  /**
+   * How long changes to bound properties are coalesced before they are written.
+   */
+  private static final long WRITE_BEHIND_DELAY_MILLISECONDS = 500;
+
+  /**
+   * The environment variable, which may also be set in the .env file, selecting the geocoder
+   * behind the geocode cache.
+   */
+  private static final String GEOCODER_VARIABLE = "GEOCODER";
+
+  /**
+   * The geocoder which resolves addresses from the bundled CSV of New Zealand places instead of
+   * calling ORS, for offline or air-gapped setups.
+   */
+  private static final String CSV_GEOCODER = "csv";
+
+  private final List<StatementCache> statementCaches = new ArrayList<>();
   private final Connection connection;
+  private final ReadConnectionPool readConnections;
   private final UserDao userDao;
   private final WineDao wineDao;
   private final WineListDao wineListDao;
@@ -48,8 +123,13 @@ public class DatabaseManager {
   private final WineNotesDao wineNotesDao;
   private final WineReviewDao wineReviewDao;
   private final GeoLocationDao geoLocationDao;
+  private final GeocodeCacheDao geocodeCacheDao;
   private final VineyardTourDao vineyardTourDao;
   private final AggregatedDao aggregatedDao;
+  private final SchemaVersionDao schemaVersionDao;
+  private final StatSnapshotDao statSnapshotDao;
+  private final DatabaseExecutor executor;
+  private final WriteBehindBuffer writeBehind;
   private final WineDataStatService wineDataStatService;
   private final VineyardDataStatService vineyardDataStatService;
 
@@ -57,7 +137,7 @@ public class DatabaseManager {
    * Constructs a NewDatabaseManager with an in-memory SQLite database connection.
    */
   public DatabaseManager() throws SQLException {
-    this(setupInMemoryConnection(), true, false);
+    this(setupInMemoryConnection(), null, true, false);
   }
 
   /**
@@ -67,42 +147,65 @@ public class DatabaseManager {
    * @param fileName      the name of the database file
    */
   public DatabaseManager(String directoryName, String fileName) throws SQLException {
-    this(setupPersistentConnection(directoryName, fileName), false, true);
+    this(setupPersistentConnection(directoryName, fileName),
+        getPersistentUrl(directoryName, fileName), false, true);
   }
 
   /**
    * Private constructor for NewDatabaseManager that initializes Daos using the provided database
    * connection.
    *
-   * @param connection the database connection to use
+   * @param rawConnection the database connection to use, which is only used through the statement
+   *                      cache wrapping it
+   * @param readUrl       the JDBC URL to open read-only connections to, or null to read through
+   *                      the provided connection
    */
-  private DatabaseManager(Connection connection, boolean inMemory, boolean loadDefaultVineyards)
-      throws SQLException {
-    if (connection == null) {
+  private DatabaseManager(Connection rawConnection, String readUrl, boolean inMemory,
+      boolean loadDefaultVineyards) throws SQLException {
+    if (rawConnection == null) {
       throw new InvalidParameterException("The provided connection was invalid");
     }
-    this.connection = connection;
-    log.info("Successfully opened a connection to the database");
+    // every DAO must use the caching connection, so the raw one is never in scope under its name
+    this.connection = cacheStatements(rawConnection);
+    this.readConnections = readUrl == null ? ReadConnectionPool.sharing(this.connection)
+        : setupReadConnections(readUrl, this.connection);
+    this.executor = new DatabaseExecutor(Math.max(1, readConnections.size()));
+    log.info("Successfully opened a connection to the database with {} read connections",
+        readConnections.size());
+    this.writeBehind = new WriteBehindBuffer(this.connection, executor,
+        WRITE_BEHIND_DELAY_MILLISECONDS);
     this.wineDataStatService = new WineDataStatService();
     this.vineyardDataStatService = new VineyardDataStatService();
-    this.userDao = new UserDao(connection);
-    this.wineDao = new WineDao(connection, wineDataStatService);
-    this.wineListDao = new WineListDao(connection);
-    this.vineyardsDao = new VineyardDao(connection, vineyardDataStatService);
-    this.wineNotesDao = new WineNotesDao(connection);
-    this.wineReviewDao = new WineReviewDao(connection);
-    this.geoLocationDao = new GeoLocationDao(connection);
-    this.vineyardTourDao = new VineyardTourDao(connection);
-    this.aggregatedDao = new AggregatedDao(connection, wineReviewDao, wineNotesDao, wineDao);
+    this.userDao = new UserDao(this.connection, writeBehind);
+    this.wineDao = new WineDao(this.connection, readConnections, writeBehind, wineDataStatService);
+    this.wineListDao = new WineListDao(this.connection);
+    this.vineyardsDao = new VineyardDao(this.connection, readConnections, writeBehind,
+        vineyardDataStatService);
+    this.wineNotesDao = new WineNotesDao(this.connection, writeBehind);
+    this.wineReviewDao = new WineReviewDao(this.connection, readConnections, writeBehind);
+    this.geoLocationDao = new GeoLocationDao(this.connection);
+    this.geocodeCacheDao = new GeocodeCacheDao(this.connection);
+    this.vineyardTourDao = new VineyardTourDao(this.connection);
+    this.aggregatedDao = new AggregatedDao(this.connection, readConnections, wineReviewDao,
+        wineNotesDao, wineDao);
+    this.schemaVersionDao = new SchemaVersionDao(this.connection);
+    this.statSnapshotDao = new StatSnapshotDao(this.connection);
     init();
 
     VineyardDefaultsService vineyardDefaultsService = new VineyardDefaultsService(geoLocationDao,
-        vineyardsDao, !inMemory);
+        vineyardsDao, inMemory ? null : getLocationResolver(), executor);
     if (loadDefaultVineyards) {
       vineyardDefaultsService.init();
     }
 
-    wineDao.updateUniques();
+    if (!inMemory) {
+      // expired geocodes are only purged here so caching lookups never scans the whole cache
+      executor.write(geocodeCacheDao::removeExpired).exceptionally(error -> {
+        log.warn("Failed to remove the expired entries of the geocode cache", error);
+        return 0;
+      });
+    }
+    loadStats(inMemory);
   }
 
   /**
@@ -127,8 +230,19 @@ public class DatabaseManager {
   }
 
   /**
-   * Sets up a persistent SQLite database connection. If the directory does not exist, it is
-   * created.
+   * Gets the JDBC URL of a persistent SQLite database.
+   *
+   * @param directoryName the directory the database file is stored in
+   * @param fileName      the name of the database file
+   * @return the JDBC URL of the database
+   */
+  private static String getPersistentUrl(String directoryName, String fileName) {
+    return "jdbc:sqlite:" + directoryName + File.separator + fileName;
+  }
+
+  /**
+   * Sets up a persistent SQLite database connection in write-ahead log mode. If the directory does
+   * not exist, it is created.
    *
    * @param directoryName the directory to store the database file
    * @param fileName      the name of the database file
@@ -147,23 +261,72 @@ public class DatabaseManager {
         throw new RuntimeException(error);
       }
     }
-    return setupConnection("jdbc:sqlite:" + directoryName + File.separator + fileName);
+    Connection connection = setupConnection(getPersistentUrl(directoryName, fileName));
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("PRAGMA journal_mode = WAL");
+      // in WAL mode a normal sync can only lose the last commits on power loss, never corrupt
+      statement.execute("PRAGMA synchronous = NORMAL");
+    }
+    return connection;
   }
 
   /**
-   * Initializes the database by executing SQL statements required to set up the tables. The SQL
-   * statements are fetched from each Dao.
+   * Opens the read-only connections to a persistent database. The database must already be in
+   * write-ahead log mode so that the readers do not block the writer.
+   *
+   * @param jdbcUrl            the JDBC URL of the database
+   * @param fallbackConnection the writer connection, lent by the pool if it has no connections
+   * @return the pool of read-only connections
+   * @throws SQLException if a connection could not be opened
+   */
+  private ReadConnectionPool setupReadConnections(String jdbcUrl,
+      Connection fallbackConnection) throws SQLException {
+    SQLiteConfig config = new SQLiteConfig();
+    config.setReadOnly(true);
+    config.setBusyTimeout(READ_BUSY_TIMEOUT_MILLISECONDS);
+    List<Connection> connections = new ArrayList<>();
+    for (int i = 0; i < READ_CONNECTIONS; i++) {
+      connections.add(cacheStatements(
+          DriverManager.getConnection(jdbcUrl, config.toProperties())));
+    }
+    return new ReadConnectionPool(connections, fallbackConnection);
+  }
+
+  /**
+   * Creates a statement cache for a connection.
+   *
+   * @param connection the connection to cache the statements of
+   * @return the connection which prepares statements through the cache
+   */
+  private Connection cacheStatements(Connection connection) {
+    StatementCache statementCache = new StatementCache(connection, MAX_CACHED_STATEMENTS);
+    statementCaches.add(statementCache);
+    return statementCache.getConnection();
+  }
+
+  /**
+   * Initializes the database by executing SQL statements required to set up the tables and then
+   * applying any schema migrations which have not been applied yet. The SQL statements and
+   * migrations are fetched from each Dao.
    *
    * @throws RuntimeException if any SQL execution fails
    */
   public void init() {
-    List<String> sqlStatements = Stream.of(userDao, wineDao, wineListDao, wineNotesDao,
-            wineReviewDao, geoLocationDao, vineyardsDao, vineyardTourDao)
+    List<Dao> daos = Stream.of(schemaVersionDao, userDao, wineDao, wineListDao, wineNotesDao,
+            wineReviewDao, geoLocationDao, geocodeCacheDao, vineyardsDao, vineyardTourDao,
+            statSnapshotDao)
         .filter(Objects::nonNull)  // Filter out null Daos
+        .toList();
+    List<String> sqlStatements = daos.stream()
         .map(Dao::getInitialiseStatements)
         .filter(Objects::nonNull)  // Filter out null statements
         .flatMap(Arrays::stream)
         .toList();
+    List<Migration> migrations = daos.stream()
+        .map(Dao::getMigrations)
+        .filter(Objects::nonNull)  // Filter out null migrations
+        .flatMap(Arrays::stream)
+        .toList();
 
     String salt = PasswordUtil.generateSalt();
     String hashedAdminPassword = PasswordUtil.hashPassword("admin", salt);
@@ -193,14 +356,37 @@ public class DatabaseManager {
       throw new RuntimeException(e);
     }
     log.info("Successfully executed {} initialise statements", sqlStatements.size());
+
+    try {
+      schemaVersionDao.migrate(migrations);
+    } catch (SQLException e) {
+      log.error("Failed to migrate the database schema", e);
+      throw new RuntimeException(e);
+    }
     geoLocationDao.addDefaultGeoLocations();
   }
 
   /**
-   * Tears down the database by closing the connection. Logs an error if the connection fails to
-   * close.
+   * Tears down the database by waiting for pending writes, flushing buffered changes and closing
+   * the connections. Logs an error if the connection fails to close.
    */
   public void teardown() {
+    executor.shutdown();
+    writeBehind.flush();
+    saveStats();
+    long hits = 0;
+    long total = 0;
+    for (StatementCache.Statistics statistics : getStatementStatistics()) {
+      hits += statistics.hits();
+      total += statistics.hits() + statistics.misses();
+    }
+    log.info("Reused cached statements for {} of {} statements prepared", hits, total);
+    logCacheStatistics("wine", wineDao.getCacheStatistics());
+    logCacheStatistics("vineyard", vineyardsDao.getCacheStatistics());
+    logCacheStatistics("wine review", wineReviewDao.getCacheStatistics());
+    logQueryCacheStatistics("wine page", wineDao.getPageCacheStatistics());
+    logQueryCacheStatistics("filtered wine count", wineDao.getCountCacheStatistics());
+    readConnections.close();
     try {
       connection.close();
       log.info("Successfully closed the database connection");
@@ -209,6 +395,166 @@ public class DatabaseManager {
     }
   }
 
+  /**
+   * Loads the wine and vineyard stats from their snapshots. Stats without a snapshot built from the
+   * current version of their table are rebuilt on the database writer thread, so the first screen
+   * is not held up by a scan of the catalog and the rebuild cannot interleave with an import. An
+   * in-memory database is always new, so its stats are built straight away.
+   *
+   * @param inMemory whether the database is in memory
+   * @throws SQLException if the snapshots could not be read
+   */
+  private void loadStats(boolean inMemory) throws SQLException {
+    if (inMemory) {
+      wineDao.updateUniques();
+      vineyardsDao.updateUniques();
+      return;
+    }
+    if (!statSnapshotDao.loadSnapshot(StatSnapshotDao.WINE_CATALOG, wineDataStatService)) {
+      // queue edits from now on, as the rebuild reads the table as it is when it was submitted
+      wineDataStatService.beginRebuild();
+      executor.write(() -> {
+        wineDao.updateUniques();
+        statSnapshotDao.saveSnapshot(StatSnapshotDao.WINE_CATALOG, wineDataStatService);
+        return null;
+      });
+    }
+    if (!statSnapshotDao.loadSnapshot(StatSnapshotDao.VINEYARD_CATALOG,
+        vineyardDataStatService)) {
+      executor.write(() -> {
+        vineyardsDao.updateUniques();
+        statSnapshotDao.saveSnapshot(StatSnapshotDao.VINEYARD_CATALOG, vineyardDataStatService);
+        return null;
+      });
+    }
+  }
+
+  /**
+   * Saves snapshots of the wine and vineyard stats so the next launch can load them. The wine stats
+   * are maintained as wines change, so once they have been built or loaded they reflect the
+   * current version of the WINE table. The vineyard stats are only saved if they were built from
+   * the current version of the VINEYARD table.
+   */
+  private void saveStats() {
+    try {
+      if (wineDataStatService.getCatalogVersion() != -1) {
+        wineDataStatService.setCatalogVersion(
+            statSnapshotDao.getCatalogVersion(StatSnapshotDao.WINE_CATALOG));
+        statSnapshotDao.saveSnapshot(StatSnapshotDao.WINE_CATALOG, wineDataStatService);
+      }
+      if (vineyardDataStatService.getCatalogVersion()
+          == statSnapshotDao.getCatalogVersion(StatSnapshotDao.VINEYARD_CATALOG)) {
+        statSnapshotDao.saveSnapshot(StatSnapshotDao.VINEYARD_CATALOG, vineyardDataStatService);
+      }
+    } catch (SQLException error) {
+      log.error("Failed to save the stat snapshots", error);
+    }
+  }
+
+  /**
+   * Logs how often a DAO found the objects it read in its cache.
+   *
+   * @param name       the name of the cached objects
+   * @param statistics the statistics of the cache
+   */
+  private void logCacheStatistics(String name, DatabaseObjectUniquer.Statistics statistics) {
+    log.info("Found {} of {} {} lookups in the cache, {} entries evicted after collection",
+        statistics.hits(), statistics.hits() + statistics.misses(), name,
+        statistics.evictions());
+  }
+
+  /**
+   * Logs how often a cache of query results was hit.
+   *
+   * @param name       the name of the cached results
+   * @param statistics the statistics of the cache
+   */
+  private void logQueryCacheStatistics(String name, VersionedLruCache.Statistics statistics) {
+    log.info("Found {} of {} {} lookups in the cache ({}% hit rate), {} entries evicted",
+        statistics.hits(), statistics.hits() + statistics.misses(), name,
+        Math.round(statistics.hitRate() * 100), statistics.evictions());
+  }
+
+  /**
+   * Enters bulk load mode, applying pragmas which speed up large imports until the returned bulk
+   * load is closed. Bulk load mode should only be entered on the database writer thread.
+   *
+   * @return the bulk load, which restores the previous pragmas when closed
+   * @throws SQLException if the pragmas could not be applied
+   */
+  public BulkLoad beginBulkLoad() throws SQLException {
+    return new BulkLoad();
+  }
+
+  /**
+   * Gets the value of a pragma on the connection.
+   *
+   * @param name the name of the pragma
+   * @return the value of the pragma, or null if it has none
+   * @throws SQLException if the pragma could not be read
+   */
+  private String getPragma(String name) throws SQLException {
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("PRAGMA " + name)) {
+      return resultSet.next() ? resultSet.getString(1) : null;
+    }
+  }
+
+  /**
+   * Sets a pragma on the connection.
+   *
+   * @param name  the name of the pragma
+   * @param value the value to set
+   * @throws SQLException if the pragma could not be set
+   */
+  private void setPragma(String name, String value) throws SQLException {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("PRAGMA " + name + " = " + value);
+    }
+  }
+
+  /**
+   * Gets how often the statements prepared for each SQL were reused from the statement caches of
+   * all connections.
+   *
+   * @return the statistics of each statement, the most often prepared first
+   */
+  public List<StatementCache.Statistics> getStatementStatistics() {
+    Map<String, StatementCache.Statistics> merged = new LinkedHashMap<>();
+    for (StatementCache statementCache : statementCaches) {
+      for (StatementCache.Statistics statistics : statementCache.getStatistics()) {
+        merged.merge(statistics.sql(), statistics, (first, second) -> new StatementCache.Statistics(
+            first.sql(), first.hits() + second.hits(), first.misses() + second.misses()));
+      }
+    }
+    return merged.values().stream()
+        .sorted(Comparator.comparingLong(
+            (StatementCache.Statistics statistics) -> statistics.hits() + statistics.misses())
+            .reversed())
+        .toList();
+  }
+
+  /**
+   * Flushes the changes to bound properties which are waiting in the write-behind buffer on the
+   * database writer thread, such as when the user leaves a screen.
+   *
+   * @return a future which completes once the changes have been written
+   */
+  public CompletableFuture<Void> flushPendingUpdates() {
+    return executor.write(() -> {
+      writeBehind.flush();
+      return null;
+    });
+  }
+
+  public WriteBehindBuffer getWriteBehindBuffer() {
+    return writeBehind;
+  }
+
+  public DatabaseExecutor getExecutor() {
+    return executor;
+  }
+
   public UserDao getUserDao() {
     return userDao;
   }
@@ -233,6 +579,24 @@ public class DatabaseManager {
     return geoLocationDao;
   }
 
+  public GeocodeCacheDao getGeocodeCacheDao() {
+    return geocodeCacheDao;
+  }
+
+  /**
+   * Creates a resolver of addresses which looks up the addresses which are not in the geocode
+   * cache of this database with the ORS API, or with the bundled CSV of places if the GEOCODER
+   * environment variable is set to <code>csv</code>.
+   *
+   * @return the location resolver
+   */
+  public LocationResolver getLocationResolver() {
+    String geocoder = Dotenv.configure().ignoreIfMissing().load().get(GEOCODER_VARIABLE, "ors");
+    LocationResolver delegate = CSV_GEOCODER.equalsIgnoreCase(geocoder)
+        ? new CsvLocationResolver() : new GeolocationResolver();
+    return new CachingLocationResolver(delegate, geocodeCacheDao, executor);
+  }
+
   public VineyardDao getVineyardsDao() {
     return vineyardsDao;
   }
@@ -245,6 +609,14 @@ public class DatabaseManager {
     return aggregatedDao;
   }
 
+  public SchemaVersionDao getSchemaVersionDao() {
+    return schemaVersionDao;
+  }
+
+  public StatSnapshotDao getStatSnapshotDao() {
+    return statSnapshotDao;
+  }
+
   public WineDataStatService getWineDataStatService() {
     return wineDataStatService;
   }
@@ -254,15 +626,45 @@ public class DatabaseManager {
   }
 
   /**
-   * Callback to set the attribute to update.
+   * A period in bulk load mode, see {@link #beginBulkLoad()}.
    */
-  public interface AttributeSetter {
+  public class BulkLoad implements AutoCloseable {
+
+    private final Map<String, String> previousPragmas = new LinkedHashMap<>();
+    private final Timer timer = new Timer();
+
+    /**
+     * Applies the bulk load pragmas, remembering their previous values.
+     *
+     * @throws SQLException if a pragma could not be applied
+     */
+    private BulkLoad() throws SQLException {
+      for (Map.Entry<String, String> pragma : BULK_LOAD_PRAGMAS.entrySet()) {
+        String previous = getPragma(pragma.getKey());
+        // only a rollback journal which is deleted after every commit is worth switching, other
+        // journal modes such as WAL and in-memory journals are already cheap to commit to
+        if (previous == null || (pragma.getKey().equals("journal_mode")
+            && !previous.equalsIgnoreCase("delete"))) {
+          continue;
+        }
+        setPragma(pragma.getKey(), pragma.getValue());
+        previousPragmas.put(pragma.getKey(), previous);
+      }
+      log.info("Entered bulk load mode, replacing pragmas {}", previousPragmas);
+    }
 
     /**
-     * Updates the prepared statement with the value to set. Attribute must be index 1 in prepared
-     * statement.
+     * Restores the pragmas from before bulk load mode was entered.
+     *
+     * @throws SQLException if a pragma could not be restored
      */
-    void setAttribute(PreparedStatement statement) throws SQLException;
+    @Override
+    public void close() throws SQLException {
+      for (Map.Entry<String, String> pragma : previousPragmas.entrySet()) {
+        setPragma(pragma.getKey(), pragma.getValue());
+      }
+      log.info("Left bulk load mode after {}ms", timer.currentOffsetMilliseconds());
+    }
   }
 
 }
@@ -1,7 +1,10 @@
 package seng202.team6.managers;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.layout.AnchorPane;
@@ -45,6 +48,7 @@ import seng202.team6.model.Vineyard;
 import seng202.team6.model.Wine;
 import seng202.team6.model.WineFilters;
 import seng202.team6.model.WineList;
+import seng202.team6.model.WineSort;
 import seng202.team6.model.WineReview;
 import seng202.team6.service.PageService;
 import seng202.team6.service.WineListService;
@@ -60,6 +64,10 @@ public class GuiManager {
   private MainController mainController;
   private String currentScreenFxml;
   private ManagerContext managerContext;
+  /**
+   * Number of tasks currently showing the loading indicator. Only used on the FX thread.
+   */
+  private int loadingTasks = 0;
 
   /**
    * Constructs a GUIManager.
@@ -113,7 +121,8 @@ public class GuiManager {
    * Switches the current scene.
    *
    * <p>
-   * Scenes with fxml paths equal to the currently loaded one are skipped
+   * Scenes with fxml paths equal to the currently loaded one are skipped. Changes made on the
+   * previous screen which are still buffered are flushed to the database.
    * </p>
    *
    * @param fxml    fxml resource path
@@ -125,6 +134,9 @@ public class GuiManager {
       log.info("Skipped loading {} as it is already open", fxml);
       return;
     }
+    if (managerContext != null) {
+      managerContext.getDatabaseManager().flushPendingUpdates();
+    }
 
     Parent parent = loadFxml(fxml, builder, mainController.getPageContent());
     if (parent != null) {
@@ -201,10 +213,12 @@ public class GuiManager {
    *
    * @param pageService the page service from the previous state.
    * @param wineFilters the wine filters from the previous state.
+   * @param wineSort    the order of the wines from the previous state.
    */
-  public void openWineScreen(PageService pageService, WineFilters wineFilters) {
+  public void openWineScreen(PageService pageService, WineFilters wineFilters,
+      WineSort wineSort) {
     switchScene("/fxml/wine_screen.fxml", "Wine Information",
-        () -> new WineScreenController(managerContext, pageService, wineFilters));
+        () -> new WineScreenController(managerContext, pageService, wineFilters, wineSort));
   }
 
   /**
@@ -491,17 +505,59 @@ public class GuiManager {
    * @param runnable the task to be executed while the loading indicator is visible
    */
   public void showLoadingIndicator(Runnable runnable) {
-    mainController.showLoadingIndicator(true);
+    startLoading();
 
     PauseTransition delay = new PauseTransition(Duration.millis(50));
     delay.setOnFinished(event -> {
       try {
         runnable.run();
       } finally {
-        mainController.showLoadingIndicator(false);
+        finishLoading();
       }
     });
     delay.play();
   }
 
+  /**
+   * Displays a loading indicator until the given asynchronous task completes, then passes its
+   * result to the callback on the JavaFX thread. Nothing is called back if the task was cancelled
+   * because it was replaced by a newer request, and failures are logged.
+   *
+   * @param future    the task, usually submitted to the {@link DatabaseExecutor}
+   * @param onSuccess the callback to run on the JavaFX thread with the result of the task
+   * @param <T>       the type of the result
+   */
+  public <T> void showLoadingIndicator(CompletableFuture<T> future, Consumer<T> onSuccess) {
+    startLoading();
+    future.whenComplete((result, error) -> Platform.runLater(() -> {
+      finishLoading();
+      if (future.isCancelled()) {
+        return;
+      }
+      if (error != null) {
+        log.error("Failed to complete a background task", error);
+        return;
+      }
+      onSuccess.accept(result);
+    }));
+  }
+
+  /**
+   * Shows the loading indicator for a new task.
+   */
+  private void startLoading() {
+    if (loadingTasks++ == 0) {
+      mainController.showLoadingIndicator(true);
+    }
+  }
+
+  /**
+   * Hides the loading indicator once every task showing it has finished.
+   */
+  private void finishLoading() {
+    if (--loadingTasks == 0) {
+      mainController.showLoadingIndicator(false);
+    }
+  }
+
 }
@@ -0,0 +1,163 @@
+package seng202.team6.managers;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A small pool of read-only connections which DAO read methods borrow so that reads are not
+ * queued behind the single writer connection.
+ * <p>
+ * A borrowed connection must be closed, which returns it to the pool rather than closing it, so
+ * it is used in a try-with-resources statement like any other connection. If the pool has no
+ * connections of its own, such as for an in-memory database which cannot be shared between
+ * connections, borrowing hands out the writer connection instead and closing it does nothing.
+ * </p>
+ * <p>
+ * A thread which borrows a connection while it already holds one, such as a DAO read which calls
+ * another DAO read for each row, is lent the connection it holds again. This keeps the nested read
+ * on the same snapshot and stops threads waiting on each other for the last idle connection.
+ * </p>
+ */
+public class ReadConnectionPool implements AutoCloseable {
+
+  private static final Logger log = LogManager.getLogger(ReadConnectionPool.class);
+
+  private final List<Connection> connections;
+  private final BlockingQueue<Connection> idleConnections;
+  private final Connection fallbackConnection;
+  private final ThreadLocal<Lease> leases = new ThreadLocal<>();
+
+  /**
+   * Constructs a new ReadConnectionPool.
+   *
+   * @param connections        the read-only connections in the pool, which may be empty
+   * @param fallbackConnection the connection to lend when the pool has no connections
+   */
+  public ReadConnectionPool(List<Connection> connections, Connection fallbackConnection) {
+    this.connections = List.copyOf(connections);
+    this.idleConnections = new ArrayBlockingQueue<>(Math.max(1, connections.size()));
+    this.idleConnections.addAll(connections);
+    this.fallbackConnection = fallbackConnection;
+  }
+
+  /**
+   * Creates a pool without connections of its own which always lends the given connection.
+   *
+   * @param connection the connection to lend
+   * @return the pool
+   */
+  public static ReadConnectionPool sharing(Connection connection) {
+    return new ReadConnectionPool(List.of(), connection);
+  }
+
+  /**
+   * Borrows a connection, waiting for one to become idle if they are all in use. The connection
+   * must be closed to return it to the pool.
+   *
+   * @return the borrowed connection
+   * @throws SQLException if the thread is interrupted while waiting for a connection
+   */
+  public Connection borrow() throws SQLException {
+    if (connections.isEmpty()) {
+      return wrap(fallbackConnection, () -> {
+      });
+    }
+    Lease lease = leases.get();
+    if (lease == null) {
+      try {
+        lease = new Lease(idleConnections.take(), new AtomicInteger());
+      } catch (InterruptedException error) {
+        Thread.currentThread().interrupt();
+        throw new SQLException("Interrupted while waiting for a read connection", error);
+      }
+      leases.set(lease);
+    }
+    lease.holds().incrementAndGet();
+    Lease borrowed = lease;
+    return wrap(borrowed.connection(), () -> release(borrowed));
+  }
+
+  /**
+   * Releases one hold on a lease, returning its connection to the pool once nothing holds it.
+   * Borrowed connections are closed on the thread which borrowed them.
+   *
+   * @param lease the lease to release
+   */
+  private void release(Lease lease) {
+    if (lease.holds().decrementAndGet() == 0) {
+      leases.remove();
+      idleConnections.add(lease.connection());
+    }
+  }
+
+  /**
+   * Wraps a connection so that closing it runs the given action instead, at most once.
+   *
+   * @param connection the connection to wrap
+   * @param onClose    the action to run when the wrapper is closed
+   * @return the wrapped connection
+   */
+  private static Connection wrap(Connection connection, Runnable onClose) {
+    AtomicBoolean closed = new AtomicBoolean();
+    return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+        new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "close":
+              if (closed.compareAndSet(false, true)) {
+                onClose.run();
+              }
+              return null;
+            case "isClosed":
+              return closed.get() || connection.isClosed();
+            default:
+              try {
+                return method.invoke(connection, args);
+              } catch (InvocationTargetException error) {
+                throw error.getCause();
+              }
+          }
+        });
+  }
+
+  /**
+   * Gets the number of read-only connections in the pool.
+   *
+   * @return the number of connections, 0 if the pool lends the writer connection
+   */
+  public int size() {
+    return connections.size();
+  }
+
+  /**
+   * Closes every connection in the pool. The fallback connection is not closed.
+   */
+  @Override
+  public void close() {
+    for (Connection connection : connections) {
+      try {
+        connection.close();
+      } catch (SQLException error) {
+        log.error("Failed to close a read connection", error);
+      }
+    }
+  }
+
+  /**
+   * A connection lent to a thread and the number of times the thread holds it.
+   *
+   * @param connection the lent connection
+   * @param holds      the number of borrowed wrappers which have not been closed
+   */
+  private record Lease(Connection connection, AtomicInteger holds) {
+
+  }
+}
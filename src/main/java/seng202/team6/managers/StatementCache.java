@@ -0,0 +1,255 @@
+package seng202.team6.managers;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Caches the prepared statements of a connection by their SQL so that SQLite does not have to parse
+ * and plan the same query every time a DAO method is called.
+ * <p>
+ * DAOs use the connection returned by {@link #getConnection()} like any other connection. Preparing
+ * a statement with only its SQL checks out an idle statement with the same SQL if there is one, and
+ * closing the statement resets it and returns it to the cache instead of closing it. A statement
+ * is only ever checked out once at a time, so a connection shared between threads may hold more
+ * than one statement for the same SQL. The least recently used statements are closed once more
+ * than the maximum number are idle, and every statement is closed when the connection is.
+ * </p>
+ */
+public class StatementCache {
+
+  private static final Logger log = LogManager.getLogger(StatementCache.class);
+
+  private final Connection connection;
+  private final Connection cachingConnection;
+  private final int maxStatements;
+  private final LinkedHashMap<String, Deque<PreparedStatement>> idleStatements =
+      new LinkedHashMap<>(16, 0.75f, true);
+  private final Map<String, long[]> counters = new HashMap<>();
+  private int idleCount;
+  private boolean closed;
+
+  /**
+   * Constructs a new StatementCache for a connection.
+   *
+   * @param connection    the connection to prepare statements on
+   * @param maxStatements the maximum number of idle statements to keep
+   */
+  public StatementCache(Connection connection, int maxStatements) {
+    this.connection = connection;
+    this.maxStatements = maxStatements;
+    this.cachingConnection = (Connection) Proxy.newProxyInstance(
+        Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+        (proxy, method, args) -> {
+          if (method.getName().equals("prepareStatement") && args.length == 1) {
+            return prepareStatement((String) args[0]);
+          }
+          if (method.getName().equals("close")) {
+            close();
+          }
+          return invoke(connection, method, args);
+        });
+  }
+
+  /**
+   * Gets the connection which prepares statements through this cache. Closing it closes every
+   * cached statement and then the underlying connection.
+   *
+   * @return the caching connection
+   */
+  public Connection getConnection() {
+    return cachingConnection;
+  }
+
+  /**
+   * Checks out a cached statement for the given SQL, preparing a new one if none are idle.
+   *
+   * @param sql the SQL of the statement
+   * @return the statement, which is returned to the cache when closed
+   * @throws SQLException if the statement could not be prepared
+   */
+  private PreparedStatement prepareStatement(String sql) throws SQLException {
+    PreparedStatement statement;
+    synchronized (this) {
+      long[] counter = counters.computeIfAbsent(sql, key -> new long[2]);
+      Deque<PreparedStatement> idle = idleStatements.get(sql);
+      statement = idle == null ? null : idle.poll();
+      if (statement != null) {
+        idleCount--;
+        counter[0]++;
+      } else {
+        counter[1]++;
+      }
+    }
+    if (statement == null) {
+      statement = connection.prepareStatement(sql);
+    }
+    return checkOut(sql, statement);
+  }
+
+  /**
+   * Wraps a statement so that closing it resets it and returns it to the cache, at most once.
+   *
+   * @param sql       the SQL of the statement
+   * @param statement the statement to wrap
+   * @return the wrapped statement
+   */
+  private PreparedStatement checkOut(String sql, PreparedStatement statement) {
+    List<ResultSet> resultSets = new ArrayList<>(1);
+    boolean[] returned = new boolean[1];
+    return (PreparedStatement) Proxy.newProxyInstance(
+        PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "close":
+              if (!returned[0]) {
+                returned[0] = true;
+                giveBack(sql, statement, resultSets);
+              }
+              return null;
+            case "isClosed":
+              return returned[0] || statement.isClosed();
+            case "executeQuery", "getResultSet":
+              ResultSet resultSet = (ResultSet) invoke(statement, method, args);
+              if (resultSet != null) {
+                resultSets.add(resultSet);
+              }
+              return resultSet;
+            default:
+              return invoke(statement, method, args);
+          }
+        });
+  }
+
+  /**
+   * Resets a statement and returns it to the cache. Result sets which were left open are closed so
+   * that the statement does not keep a read transaction open while it is idle. Statements which
+   * cannot be reset, or which do not fit in the cache, are closed.
+   *
+   * @param sql        the SQL of the statement
+   * @param statement  the statement to return
+   * @param resultSets the result sets opened through the statement
+   */
+  private void giveBack(String sql, PreparedStatement statement, List<ResultSet> resultSets) {
+    try {
+      for (ResultSet resultSet : resultSets) {
+        resultSet.close();
+      }
+      statement.clearParameters();
+      statement.clearBatch();
+    } catch (SQLException error) {
+      log.warn("Failed to reset a cached statement, closing it", error);
+      closeQuietly(statement);
+      return;
+    }
+    List<PreparedStatement> evicted = new ArrayList<>();
+    synchronized (this) {
+      if (closed) {
+        evicted.add(statement);
+      } else {
+        idleStatements.computeIfAbsent(sql, key -> new ArrayDeque<>()).push(statement);
+        idleCount++;
+        Iterator<Deque<PreparedStatement>> leastRecentlyUsed =
+            idleStatements.values().iterator();
+        while (idleCount > maxStatements) {
+          Deque<PreparedStatement> idle = leastRecentlyUsed.next();
+          evicted.addAll(idle);
+          idleCount -= idle.size();
+          leastRecentlyUsed.remove();
+        }
+      }
+    }
+    evicted.forEach(StatementCache::closeQuietly);
+  }
+
+  /**
+   * Gets the number of times each statement was found in the cache or had to be prepared.
+   *
+   * @return the statistics of every statement prepared through this cache
+   */
+  public synchronized List<Statistics> getStatistics() {
+    List<Statistics> statistics = new ArrayList<>(counters.size());
+    counters.forEach((sql, counter) -> statistics.add(
+        new Statistics(sql, counter[0], counter[1])));
+    return statistics;
+  }
+
+  /**
+   * Closes every idle statement. Statements which are checked out are closed when they are
+   * returned.
+   */
+  public void close() {
+    List<PreparedStatement> statements = new ArrayList<>();
+    synchronized (this) {
+      closed = true;
+      idleStatements.values().forEach(statements::addAll);
+      idleStatements.clear();
+      idleCount = 0;
+    }
+    statements.forEach(StatementCache::closeQuietly);
+  }
+
+  /**
+   * Calls a method on the object a proxy wraps, rethrowing the exception the method threw.
+   *
+   * @param target the wrapped object
+   * @param method the method to call
+   * @param args   the arguments of the call
+   * @return the result of the call
+   * @throws Throwable the exception thrown by the method
+   */
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException error) {
+      throw error.getCause();
+    }
+  }
+
+  /**
+   * Closes a statement, logging rather than throwing if it fails.
+   *
+   * @param statement the statement to close
+   */
+  private static void closeQuietly(PreparedStatement statement) {
+    try {
+      statement.close();
+    } catch (SQLException error) {
+      log.warn("Failed to close a cached statement", error);
+    }
+  }
+
+  /**
+   * How often a statement was reused from the cache.
+   *
+   * @param sql    the SQL of the statement
+   * @param hits   the number of times an idle statement was reused
+   * @param misses the number of times the statement had to be prepared
+   */
+  public record Statistics(String sql, long hits, long misses) {
+
+    /**
+     * Gets the share of checkouts which reused an idle statement.
+     *
+     * @return the hit rate between 0 and 1, or 0 if the statement was never checked out
+     */
+    public double hitRate() {
+      long total = hits + misses;
+      return total == 0 ? 0 : (double) hits / total;
+    }
+  }
+}
@@ -0,0 +1,200 @@
+package seng202.team6.managers;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import seng202.team6.util.Timer;
+
+/**
+ * Buffers changes to the attributes of rows, such as those made through property-bound models, and
+ * writes them to the database shortly afterwards.
+ * <p>
+ * Changes to the same row are coalesced while they wait, so editing several attributes of a wine
+ * or typing into a note results in one UPDATE of the changed columns per row rather than one per
+ * change. A flush is scheduled on the database writer thread after the first change, and all the
+ * rows pending at that point are written in a single transaction. Pending changes can also be
+ * flushed explicitly, which callers do on the writer thread before deleting rows so a late update
+ * can never reach a row which reused the key.
+ * </p>
+ */
+public class WriteBehindBuffer {
+
+  private static final Logger log = LogManager.getLogger(WriteBehindBuffer.class);
+
+  private final Connection connection;
+  private final DatabaseExecutor executor;
+  private final long delayMilliseconds;
+  private final Object flushLock = new Object();
+  private Map<Row, Map<String, Object>> pendingRows = new LinkedHashMap<>();
+  private Map<Row, Map<String, Object>> writingRows = Map.of();
+  private boolean flushScheduled;
+
+  /**
+   * Constructs a new WriteBehindBuffer.
+   *
+   * @param connection        the connection to write the changes with
+   * @param executor          the executor whose writer thread runs every flush
+   * @param delayMilliseconds how long changes wait to be coalesced before they are flushed
+   */
+  public WriteBehindBuffer(Connection connection, DatabaseExecutor executor,
+      long delayMilliseconds) {
+    this.connection = connection;
+    this.executor = executor;
+    this.delayMilliseconds = delayMilliseconds;
+  }
+
+  /**
+   * Queues a change to an attribute of a row, replacing any pending change to the same attribute.
+   *
+   * @param table     the table of the row
+   * @param keyColumn the column which identifies the row
+   * @param key       the value of the key column of the row
+   * @param column    the column of the attribute
+   * @param value     the new value of the attribute
+   */
+  public synchronized void update(String table, String keyColumn, Object key, String column,
+      Object value) {
+    pendingRows.computeIfAbsent(new Row(table, keyColumn, key), row -> new LinkedHashMap<>())
+        .put(column, value);
+    if (!flushScheduled) {
+      flushScheduled = true;
+      executor.writeAfter(delayMilliseconds, () -> {
+        flush();
+        return null;
+      });
+    }
+  }
+
+  /**
+   * Gets the number of rows with pending changes.
+   *
+   * @return the number of pending rows
+   */
+  public synchronized int getPendingCount() {
+    return pendingRows.size();
+  }
+
+  /**
+   * Gets the changes to a row which have not been written to the database yet, including those
+   * being written by a flush in progress. Readers can apply these over a row they read instead of
+   * flushing, which would have to write on their thread or wait for the writer thread.
+   *
+   * @param table     the table of the row
+   * @param keyColumn the column which identifies the row
+   * @param key       the value of the key column of the row
+   * @return the new value of each changed column, empty if the row has no unwritten changes
+   */
+  public synchronized Map<String, Object> getPending(String table, String keyColumn,
+      Object key) {
+    Row row = new Row(table, keyColumn, key);
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.putAll(writingRows.getOrDefault(row, Map.of()));
+    attributes.putAll(pendingRows.getOrDefault(row, Map.of()));
+    return attributes;
+  }
+
+  /**
+   * Writes every pending change to the database on the calling thread. Each row is updated with a
+   * single statement and all the rows are updated in one transaction, or in the enclosing
+   * transaction if the connection is already in one. Changes which fail to be written are logged
+   * and dropped.
+   * <p>
+   * A flush, and whatever the caller writes after it such as deleting the rows, should run as one
+   * task on the writer thread of the {@link DatabaseExecutor}, so neither can join a transaction
+   * another task has open on the connection. Flushing on any other thread is only safe when
+   * nothing else can be writing, such as in tests or once the executor has shut down.
+   * </p>
+   */
+  public void flush() {
+    // holding the flush lock while draining keeps concurrent flushes in the order of the changes
+    synchronized (flushLock) {
+      Map<Row, Map<String, Object>> rows;
+      synchronized (this) {
+        flushScheduled = false;
+        if (pendingRows.isEmpty()) {
+          return;
+        }
+        rows = pendingRows;
+        writingRows = rows;
+        pendingRows = new LinkedHashMap<>();
+      }
+      try {
+        write(rows);
+      } finally {
+        synchronized (this) {
+          writingRows = Map.of();
+        }
+      }
+    }
+  }
+
+  /**
+   * Writes pending rows to the database.
+   *
+   * @param rows the changed attributes of each row
+   */
+  private void write(Map<Row, Map<String, Object>> rows) {
+    Timer timer = new Timer();
+    try {
+      boolean autoCommit = connection.getAutoCommit();
+      connection.setAutoCommit(false);
+      try {
+        int updated = 0;
+        for (Map.Entry<Row, Map<String, Object>> row : rows.entrySet()) {
+          updated += update(row.getKey(), row.getValue());
+        }
+        if (autoCommit) {
+          connection.commit();
+        }
+        log.info("Successfully flushed changes to {} of {} rows in {}ms", updated, rows.size(),
+            timer.currentOffsetMilliseconds());
+      } catch (SQLException error) {
+        if (autoCommit) {
+          connection.rollback();
+        }
+        throw error;
+      } finally {
+        connection.setAutoCommit(autoCommit);
+      }
+    } catch (SQLException error) {
+      log.error("Failed to flush changes to {} rows", rows.size(), error);
+    }
+  }
+
+  /**
+   * Updates the changed attributes of a row.
+   *
+   * @param row        the row to update
+   * @param attributes the new value of each changed attribute
+   * @return the number of rows updated, 0 if the row no longer exists
+   * @throws SQLException if the row could not be updated
+   */
+  private int update(Row row, Map<String, Object> attributes) throws SQLException {
+    String sql = "UPDATE " + row.table() + " SET "
+        + String.join(" = ?, ", attributes.keySet()) + " = ? "
+        + "WHERE " + row.keyColumn() + " = ?";
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      int paramIndex = 1;
+      for (Object value : attributes.values()) {
+        statement.setObject(paramIndex++, value);
+      }
+      statement.setObject(paramIndex, row.key());
+      return statement.executeUpdate();
+    }
+  }
+
+  /**
+   * Identifies a row with pending changes.
+   *
+   * @param table     the table of the row
+   * @param keyColumn the column which identifies the row
+   * @param key       the value of the key column of the row
+   */
+  private record Row(String table, String keyColumn, Object key) {
+
+  }
+}
@@ -68,6 +68,10 @@ public class Wine {
    * Average rating of the wine.
    */
   private final DoubleProperty averageRating;
+  /**
+   * Number of reviews of the wine.
+   */
+  private final IntegerProperty reviewCount;
   /**
    * ID of wine record.
    * <p>
@@ -130,6 +134,7 @@ public class Wine {
     this.price = new SimpleFloatProperty(this, "price", price);
     this.geoLocation = geoLocation;
     this.averageRating = new SimpleDoubleProperty(averageRating);
+    this.reviewCount = new SimpleIntegerProperty(this, "reviewCount", 0);
   }
 
   /**
@@ -149,6 +154,7 @@ public class Wine {
     this.abv = new SimpleFloatProperty(this, "abv");
     this.price = new SimpleFloatProperty(this, "price");
     this.averageRating = new SimpleDoubleProperty(this, "rating", 0.0);
+    this.reviewCount = new SimpleIntegerProperty(this, "reviewCount", 0);
   }
 
   /**
@@ -529,4 +535,31 @@ public class Wine {
   public DoubleProperty averageRatingProperty() {
     return averageRating;
   }
+
+  /**
+   * Gets the number of reviews.
+   *
+   * @return the number of reviews
+   */
+  public int getReviewCount() {
+    return reviewCount.get();
+  }
+
+  /**
+   * Sets the number of reviews.
+   *
+   * @param reviewCount number of reviews
+   */
+  public void setReviewCount(int reviewCount) {
+    this.reviewCount.set(reviewCount);
+  }
+
+  /**
+   * Gets the review count property.
+   *
+   * @return the review count property
+   */
+  public IntegerProperty reviewCountProperty() {
+    return reviewCount;
+  }
 }
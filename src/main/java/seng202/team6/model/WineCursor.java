@@ -0,0 +1,36 @@
+package seng202.team6.model;
+
+/**
+ * A place in an order of wines, just after a wine with a given value in the sorted column and a
+ * given ID. Pages are read after the cursor of the last wine on the previous page, and as the
+ * cursor holds the values it was read with, it keeps its place when that wine is edited or deleted.
+ *
+ * @param sortValue the value of the wine in the sorted column, unused when sorting by ID
+ * @param id        the ID of the wine, or 0 for the place before the first wine
+ */
+public record WineCursor(Object sortValue, long id) {
+
+  /**
+   * The place before the first wine in any order.
+   */
+  public static final WineCursor FIRST = new WineCursor(null, 0);
+
+  /**
+   * Creates a cursor in the order by ID, which only needs the ID of the wine.
+   *
+   * @param id the ID of the wine, or 0 for the place before the first wine
+   * @return the cursor
+   */
+  public static WineCursor ofId(long id) {
+    return new WineCursor(null, id);
+  }
+
+  /**
+   * Checks whether this is the place before the first wine.
+   *
+   * @return true if the cursor is before the first wine
+   */
+  public boolean isFirst() {
+    return id == 0;
+  }
+}
@@ -1,5 +1,7 @@
 package seng202.team6.model;
 
+import java.util.Objects;
+
 /**
  * Represents a set of filters for querying or filtering wine data. This class encapsulates various
  * criteria that can be used to filter wines
@@ -66,6 +68,11 @@ public class WineFilters {
    */
   private double maxPrice;
 
+  /**
+   * The minimum average rating to filter by, where 0 includes wines which have not been reviewed.
+   */
+  private double minRating;
+
   /**
    * Constructs a Filters object with specified criteria.
    *
@@ -130,6 +137,18 @@ public class WineFilters {
         Double.MAX_VALUE);
   }
 
+  /**
+   * Constructs a copy of another set of filters, such as to keep filters which are used as a key.
+   *
+   * @param other The filters to copy.
+   */
+  public WineFilters(WineFilters other) {
+    this(other.title, other.country, other.winery, other.color, other.minVintage,
+        other.maxVintage, other.minScore, other.maxScore, other.minAbv, other.maxAbv,
+        other.minPrice, other.maxPrice);
+    this.minRating = other.minRating;
+  }
+
   /**
    * Gets the title filter.
    *
@@ -345,4 +364,63 @@ public class WineFilters {
   public void setMaxPrice(double maxPrice) {
     this.maxPrice = maxPrice;
   }
-}
\ No newline at end of file
+
+  /**
+   * Gets the minimum average rating filter.
+   *
+   * @return The minimum average rating.
+   */
+  public double getMinRating() {
+    return minRating;
+  }
+
+  /**
+   * Sets the minimum average rating filter.
+   *
+   * @param minRating The minimum average rating to set, or 0 to include unreviewed wines.
+   */
+  public void setMinRating(double minRating) {
+    this.minRating = minRating;
+  }
+
+  /**
+   * Checks equality. Filters are equal if every criterion is equal, so they filter the same wines.
+   *
+   * @param o object
+   * @return true if equal
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    WineFilters filters = (WineFilters) o;
+    return minVintage == filters.minVintage
+        && maxVintage == filters.maxVintage
+        && Double.compare(minScore, filters.minScore) == 0
+        && Double.compare(maxScore, filters.maxScore) == 0
+        && Double.compare(minAbv, filters.minAbv) == 0
+        && Double.compare(maxAbv, filters.maxAbv) == 0
+        && Double.compare(minPrice, filters.minPrice) == 0
+        && Double.compare(maxPrice, filters.maxPrice) == 0
+        && Double.compare(minRating, filters.minRating) == 0
+        && Objects.equals(title, filters.title)
+        && Objects.equals(country, filters.country)
+        && Objects.equals(winery, filters.winery)
+        && Objects.equals(color, filters.color);
+  }
+
+  /**
+   * Gets the hash code of every criterion.
+   *
+   * @return hash code
+   */
+  @Override
+  public int hashCode() {
+    return Objects.hash(title, country, winery, color, minVintage, maxVintage, minScore, maxScore,
+        minAbv, maxAbv, minPrice, maxPrice, minRating);
+  }
+}
@@ -0,0 +1,35 @@
+package seng202.team6.model;
+
+import java.util.List;
+
+/**
+ * Summary of a finished wine import.
+ *
+ * @param rowsRead            the number of wine rows read from the file, excluding the header
+ * @param imported            the number of wines added to the database
+ * @param failed              the number of rows which could not be parsed into a wine
+ * @param errors              the errors of the first rows which could not be parsed
+ * @param elapsedMilliseconds the time the import took in milliseconds
+ */
+public record WineImportReport(int rowsRead, int imported, int failed, List<RowError> errors,
+                               long elapsedMilliseconds) {
+
+  /**
+   * Gets the number of rows read per second over the whole import.
+   *
+   * @return the throughput in rows per second
+   */
+  public double rowsPerSecond() {
+    return elapsedMilliseconds == 0 ? rowsRead : rowsRead * 1000.0 / elapsedMilliseconds;
+  }
+
+  /**
+   * An error for a row of the file which could not be parsed into a wine.
+   *
+   * @param rowNumber the number of the row in the file, where the header is row 1
+   * @param message   the reason the row could not be parsed
+   */
+  public record RowError(int rowNumber, String message) {
+
+  }
+}
@@ -0,0 +1,18 @@
+package seng202.team6.model;
+
+import seng202.team6.enums.WineSortColumn;
+
+/**
+ * The order to read wines in. Wines with the same value in the sorted column are ordered by ID in
+ * the same direction, so pages can be read after the last wine of the previous page.
+ *
+ * @param column    the column to sort by
+ * @param ascending true to sort from lowest to highest, false for highest to lowest
+ */
+public record WineSort(WineSortColumn column, boolean ascending) {
+
+  /**
+   * The order wines are read in when no sort is chosen, which is ascending by ID.
+   */
+  public static final WineSort DEFAULT = new WineSort(WineSortColumn.ID, true);
+}
@@ -0,0 +1,39 @@
+package seng202.team6.model;
+
+/**
+ * Read-only summary of a wine which holds the attributes shown in lists, tables and on the map.
+ * <p>
+ * Summaries are plain values without JavaFX properties or database listeners, so a page of them
+ * costs a fraction of the memory of the same page of {@link Wine} objects and they are never kept
+ * in the wine cache. The full wine is read when one is opened or edited.
+ * </p>
+ *
+ * @param key           the ID of the wine
+ * @param title         the title of the wine
+ * @param variety       the variety of the wine
+ * @param winery        the winery of the wine
+ * @param region        the region of the wine
+ * @param color         the color of the wine
+ * @param vintage       the vintage of the wine
+ * @param scorePercent  the score of the wine
+ * @param abv           the alcohol by volume of the wine
+ * @param price         the price of the wine
+ * @param geoLocation   the geolocation of the wine, or null if it does not have one
+ * @param averageRating the average rating of the wine
+ */
+public record WineSummary(long key, String title, String variety, String winery, String region,
+                          String color, int vintage, int scorePercent, float abv, float price,
+                          GeoLocation geoLocation, double averageRating) {
+
+  /**
+   * Creates a summary of the current state of a wine.
+   *
+   * @param wine the wine to summarise
+   * @return the summary of the wine
+   */
+  public static WineSummary of(Wine wine) {
+    return new WineSummary(wine.getKey(), wine.getTitle(), wine.getVariety(), wine.getWinery(),
+        wine.getRegion(), wine.getColor(), wine.getVintage(), wine.getScorePercent(),
+        wine.getAbv(), wine.getPrice(), wine.getGeoLocation(), wine.getAverageRating());
+  }
+}
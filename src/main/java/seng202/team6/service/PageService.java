@@ -1,10 +1,18 @@
 package seng202.team6.service;
 
+import java.util.NavigableMap;
+import java.util.TreeMap;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
+import seng202.team6.model.WineCursor;
 
 /**
  * Simple class used to manage pagination.
+ * <p>
+ * Alongside page numbers, the page service keeps the cursor of every page which has been visited
+ * so pages can be read with keyset pagination. A page's cursor is the place just after the last
+ * wine on the page before it, so the first page always has the cursor {@link WineCursor#FIRST}.
+ * </p>
  */
 public class PageService {
 
@@ -24,6 +32,11 @@ public class PageService {
 
   private final IntegerProperty maxPages = new SimpleIntegerProperty();
 
+  /**
+   * Known page cursors keyed by page number.
+   */
+  private final NavigableMap<Integer, WineCursor> pageCursors = new TreeMap<>();
+
   /**
    * Constructor.
    *
@@ -35,6 +48,7 @@ public class PageService {
 
     // Ensures that pages are "infinite" if not set
     this.maxPages.set(Integer.MAX_VALUE);
+    resetCursors();
   }
 
   /**
@@ -140,6 +154,8 @@ public class PageService {
   public void setTotalItems(int totalItems) {
     this.totalItems.set(totalItems);
     this.updateMaxPages();
+    // The items being paged through have changed so the known cursors are no longer valid
+    resetCursors();
   }
 
   /**
@@ -177,4 +193,48 @@ public class PageService {
   public IntegerProperty maxPagesProperty() {
     return maxPages;
   }
+
+  /**
+   * Gets the cursor of a page.
+   *
+   * @param pageNumber the page number
+   * @return the place after the last wine before the page, or null if the cursor is not known yet
+   */
+  public WineCursor getCursor(int pageNumber) {
+    return pageCursors.get(pageNumber);
+  }
+
+  /**
+   * Records the cursor of a page. This should be called with the cursor after the last wine on a
+   * page once it has been read, so that the next page can be read without skipping any wines.
+   *
+   * @param pageNumber the page number
+   * @param cursor     the place after the last wine before the page
+   */
+  public void setCursor(int pageNumber, WineCursor cursor) {
+    if (pageNumber > 1) {
+      pageCursors.put(pageNumber, cursor);
+    }
+  }
+
+  /**
+   * Gets the nearest page at or before the given page which has a known cursor. Jumping to a page
+   * without a cursor only has to skip the items between this page and the target page.
+   *
+   * @param pageNumber the page number
+   * @return the nearest page number with a known cursor
+   */
+  public int getNearestCursorPage(int pageNumber) {
+    Integer nearest = pageCursors.floorKey(pageNumber);
+    return nearest == null ? 1 : nearest;
+  }
+
+  /**
+   * Forgets all known cursors except the cursor of the first page. This must be called whenever
+   * the items being paged through change, such as when filters are applied.
+   */
+  public void resetCursors() {
+    pageCursors.clear();
+    pageCursors.put(1, WineCursor.FIRST);
+  }
 }
@@ -0,0 +1,224 @@
+package seng202.team6.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import seng202.team6.enums.WinePropertyName;
+import seng202.team6.model.Wine;
+import seng202.team6.model.WineImportReport.RowError;
+
+/**
+ * Parses CSV rows into wines on a pool of worker threads while handing the wines back in the order
+ * of the rows they came from.
+ * <p>
+ * Rows are read on the calling thread in blocks which are parsed in parallel. Only a bounded
+ * number of blocks are in flight at once, so memory stays constant however many rows there are,
+ * and the caller, usually the single database writer, consumes the wines as an ordinary iterator.
+ * Rows which cannot be parsed are counted and the errors of the first of them are kept for the
+ * import report.
+ * </p>
+ */
+class ParallelWineParser implements Iterator<Wine>, AutoCloseable {
+
+  /**
+   * The number of rows parsed together by a worker.
+   */
+  static final int BLOCK_SIZE = 512;
+
+  /**
+   * The maximum number of row errors kept for the report.
+   */
+  static final int MAX_ERRORS = 100;
+
+  private final WineImportService importService;
+  private final Iterator<String[]> rows;
+  private final Map<WinePropertyName, Integer> valid;
+  private final WineImportProgress progress;
+  private final ExecutorService workers;
+  private final int maxPendingBlocks;
+  private final Deque<Future<ParsedBlock>> pendingBlocks = new ArrayDeque<>();
+  private final List<RowError> errors = new ArrayList<>();
+  private Iterator<Wine> currentBlock = Collections.emptyIterator();
+  private int rowsRead;
+  private int failed;
+
+  /**
+   * Constructs a new ParallelWineParser.
+   *
+   * @param importService the import service used to parse each row
+   * @param rows          the rows to parse, excluding the header row
+   * @param valid         the column index of each selected wine property
+   * @param progress      the progress to report parsed and rejected rows to
+   */
+  ParallelWineParser(WineImportService importService, Iterator<String[]> rows,
+      Map<WinePropertyName, Integer> valid, WineImportProgress progress) {
+    this.importService = importService;
+    this.rows = rows;
+    this.valid = valid;
+    this.progress = progress;
+    // leave a core free for the thread reading the file and writing to the database
+    int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    this.maxPendingBlocks = threads * 2;
+    AtomicInteger count = new AtomicInteger();
+    this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "wine-parser-" + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Checks whether there is another parsed wine, waiting for the next block to be parsed if needed.
+   *
+   * @return true if there is another wine
+   */
+  @Override
+  public boolean hasNext() {
+    while (!currentBlock.hasNext()) {
+      submitBlocks();
+      Future<ParsedBlock> next = pendingBlocks.poll();
+      if (next == null) {
+        return false;
+      }
+      ParsedBlock block = awaitBlock(next);
+      failed += block.errors().size();
+      progress.addRowsParsed(block.wines().size());
+      progress.addRowsRejected(block.errors().size());
+      for (RowError error : block.errors()) {
+        if (errors.size() < MAX_ERRORS) {
+          errors.add(error);
+        }
+      }
+      currentBlock = block.wines().iterator();
+    }
+    return true;
+  }
+
+  /**
+   * Gets the next parsed wine, in the order of the rows.
+   *
+   * @return the next wine
+   * @throws NoSuchElementException if there are no more wines
+   */
+  @Override
+  public Wine next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return currentBlock.next();
+  }
+
+  /**
+   * Reads blocks of rows and submits them to the workers until enough blocks are in flight, there
+   * are no more rows or the import has been cancelled.
+   */
+  private void submitBlocks() {
+    while (pendingBlocks.size() < maxPendingBlocks && !progress.isCancelled()
+        && rows.hasNext()) {
+      // the header is row 1, so the first wine row is row 2
+      int firstRowNumber = rowsRead + 2;
+      List<String[]> block = new ArrayList<>(BLOCK_SIZE);
+      while (block.size() < BLOCK_SIZE && rows.hasNext()) {
+        block.add(rows.next());
+      }
+      rowsRead += block.size();
+      pendingBlocks.add(workers.submit(() -> parseBlock(block, firstRowNumber)));
+    }
+  }
+
+  /**
+   * Parses a block of rows, collecting the error of each row which cannot be parsed.
+   *
+   * @param block          the rows to parse
+   * @param firstRowNumber the row number of the first row in the block
+   * @return the parsed wines and the row errors
+   */
+  private ParsedBlock parseBlock(List<String[]> block, int firstRowNumber) {
+    List<Wine> wines = new ArrayList<>(block.size());
+    List<RowError> blockErrors = new ArrayList<>();
+    for (int i = 0; i < block.size(); i++) {
+      try {
+        wines.add(importService.parseWine(valid, block.get(i)));
+      } catch (Exception error) {
+        // a short row throws an index error rather than a validation exception
+        Throwable cause = error.getCause() != null ? error.getCause() : error;
+        blockErrors.add(new RowError(firstRowNumber + i, cause.toString()));
+      }
+    }
+    return new ParsedBlock(wines, blockErrors);
+  }
+
+  /**
+   * Waits for a block to finish parsing.
+   *
+   * @param future the future of the block
+   * @return the parsed block
+   * @throws CancellationException if the thread is interrupted while waiting
+   */
+  private ParsedBlock awaitBlock(Future<ParsedBlock> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException error) {
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Interrupted while parsing wines");
+    } catch (ExecutionException error) {
+      throw new IllegalStateException("Failed to parse wines", error.getCause());
+    }
+  }
+
+  /**
+   * Gets the number of rows read so far.
+   *
+   * @return the number of rows read
+   */
+  int getRowsRead() {
+    return rowsRead;
+  }
+
+  /**
+   * Gets the number of rows handed back so far which could not be parsed.
+   *
+   * @return the number of failed rows
+   */
+  int getFailed() {
+    return failed;
+  }
+
+  /**
+   * Gets the errors of the first rows which could not be parsed.
+   *
+   * @return at most {@link #MAX_ERRORS} row errors
+   */
+  List<RowError> getErrors() {
+    return errors;
+  }
+
+  /**
+   * Stops the workers, discarding any blocks still being parsed.
+   */
+  @Override
+  public void close() {
+    workers.shutdownNow();
+  }
+
+  /**
+   * The result of parsing a block of rows.
+   *
+   * @param wines  the wines parsed from the block, in row order
+   * @param errors the errors of the rows which could not be parsed
+   */
+  private record ParsedBlock(List<Wine> wines, List<RowError> errors) {
+
+  }
+}
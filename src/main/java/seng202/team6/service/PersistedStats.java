@@ -0,0 +1,42 @@
+package seng202.team6.service;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Stats which can be saved to and loaded from a snapshot in the database, stamped with the version
+ * of the catalog table the stats were built from.
+ */
+public interface PersistedStats {
+
+  /**
+   * Gets the version of the catalog table which the stats reflect.
+   *
+   * @return the catalog version, or -1 if the stats have not been built or loaded
+   */
+  long getCatalogVersion();
+
+  /**
+   * Sets the version of the catalog table which the stats reflect.
+   *
+   * @param catalogVersion the catalog version
+   */
+  void setCatalogVersion(long catalogVersion);
+
+  /**
+   * Writes the stats to an output.
+   *
+   * @param output the output to write to
+   * @throws IOException if the output could not be written
+   */
+  void writeTo(DataOutput output) throws IOException;
+
+  /**
+   * Replaces the stats with stats written by {@link #writeTo(DataOutput)}.
+   *
+   * @param input the input to read from
+   * @throws IOException if the input could not be read
+   */
+  void readFrom(DataInput input) throws IOException;
+}
@@ -1,5 +1,6 @@
 package seng202.team6.service;
 
+import java.util.concurrent.CompletableFuture;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import seng202.team6.managers.DatabaseManager;
@@ -54,22 +55,32 @@ public class TourPlanningService {
   }
 
   /**
-   * Adds a vineyard to the current vineyard tour and updates the database.
+   * Adds a vineyard to the current vineyard tour straight away and updates the database on the
+   * database writer thread.
    *
    * @param vineyard the Vineyard object to be added to the tour
+   * @return a future which completes once the database has been updated
    */
-  public void addVineyard(Vineyard vineyard) {
-    databaseManager.getVineyardTourDao().addVineyard(vineyardTour, vineyard);
+  public CompletableFuture<Void> addVineyard(Vineyard vineyard) {
     vineyards.add(vineyard);
+    return databaseManager.getExecutor().write(() -> {
+      databaseManager.getVineyardTourDao().addVineyard(vineyardTour, vineyard);
+      return null;
+    });
   }
 
   /**
-   * Removes a vineyard from the current vineyard tour and updates the database.
+   * Removes a vineyard from the current vineyard tour straight away and updates the database on
+   * the database writer thread.
    *
    * @param vineyard the Vineyard object to be removed from the tour
+   * @return a future which completes once the database has been updated
    */
-  public void removeVineyard(Vineyard vineyard) {
-    databaseManager.getVineyardTourDao().removeVineyard(vineyardTour, vineyard);
+  public CompletableFuture<Void> removeVineyard(Vineyard vineyard) {
     vineyards.remove(vineyard);
+    return databaseManager.getExecutor().write(() -> {
+      databaseManager.getVineyardTourDao().removeVineyard(vineyardTour, vineyard);
+      return null;
+    });
   }
 }
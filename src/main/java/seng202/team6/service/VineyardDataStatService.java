@@ -1,12 +1,19 @@
 package seng202.team6.service;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.HashSet;
 import java.util.Set;
 
 /**
  * Service class responsible for managing and providing unique vineyard data.
+ * <p>
+ * The unique values can be saved as a snapshot so they do not need to be rebuilt from the
+ * VINEYARD table until the table changes.
+ * </p>
  */
-public class VineyardDataStatService {
+public class VineyardDataStatService implements PersistedStats {
 
   /**
    * A set that holds the unique names of vineyards.
@@ -23,6 +30,20 @@ public class VineyardDataStatService {
    */
   private final Set<String> uniqueRegions = new HashSet<>();
 
+  /**
+   * The version of the VINEYARD table which the unique values reflect.
+   */
+  private long catalogVersion = -1;
+
+  /**
+   * Removes all unique values.
+   */
+  public void reset() {
+    uniqueNames.clear();
+    uniqueAddresses.clear();
+    uniqueRegions.clear();
+  }
+
   /**
    * Retrieves the set of unique vineyard names.
    *
@@ -49,4 +70,57 @@ public class VineyardDataStatService {
   public Set<String> getUniqueRegions() {
     return uniqueRegions;
   }
+
+  @Override
+  public long getCatalogVersion() {
+    return catalogVersion;
+  }
+
+  @Override
+  public void setCatalogVersion(long catalogVersion) {
+    this.catalogVersion = catalogVersion;
+  }
+
+  @Override
+  public void writeTo(DataOutput output) throws IOException {
+    writeSet(output, uniqueNames);
+    writeSet(output, uniqueAddresses);
+    writeSet(output, uniqueRegions);
+  }
+
+  @Override
+  public void readFrom(DataInput input) throws IOException {
+    readSet(input, uniqueNames);
+    readSet(input, uniqueAddresses);
+    readSet(input, uniqueRegions);
+  }
+
+  /**
+   * Writes a set of values to an output.
+   *
+   * @param output the output to write to
+   * @param values the values to write
+   * @throws IOException if the output could not be written
+   */
+  private static void writeSet(DataOutput output, Set<String> values) throws IOException {
+    output.writeInt(values.size());
+    for (String value : values) {
+      output.writeUTF(value);
+    }
+  }
+
+  /**
+   * Replaces a set of values with the values written by {@link #writeSet(DataOutput, Set)}.
+   *
+   * @param input  the input to read from
+   * @param values the set to read the values into
+   * @throws IOException if the input could not be read
+   */
+  private static void readSet(DataInput input, Set<String> values) throws IOException {
+    values.clear();
+    int size = input.readInt();
+    for (int i = 0; i < size; i++) {
+      values.add(input.readUTF());
+    }
+  }
 }
@@ -1,53 +1,65 @@
 package seng202.team6.service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import seng202.team6.dao.GeoLocationDao;
 import seng202.team6.dao.VineyardDao;
+import seng202.team6.managers.DatabaseExecutor;
 import seng202.team6.model.GeoLocation;
 import seng202.team6.model.Vineyard;
-import seng202.team6.util.GeolocationResolver;
+import seng202.team6.util.LocationResolver;
 import seng202.team6.util.ProcessCsv;
 import seng202.team6.util.Timer;
 
 /**
  * The VineyardDefaultsService class is responsible for loading default vineyard data from a CSV
- * file and adding it to the database. If enabled, it also resolves missing addresses using the
- * GeolocationResolver.
+ * file and adding it to the database. If given a location resolver, it also resolves missing
+ * addresses with it. Everything is written on the writer thread of the database executor, as
+ * resolved addresses are cached on that thread at the same time.
  */
 public class VineyardDefaultsService {
 
+  /**
+   * The number of resolved addresses added to the database together while addresses are being
+   * resolved.
+   */
+  private static final int GEOLOCATION_BATCH_SIZE = 25;
+
   private final Logger log = LogManager.getLogger(getClass());
-  private final GeolocationResolver geolocationResolver;
+  private final LocationResolver locationResolver;
   private final GeoLocationDao geoLocationDao;
   private final VineyardDao vineyardDao;
-  private final boolean resolveMissingAddresses;
+  private final DatabaseExecutor executor;
 
   /**
    * Constructs a VineyardDefaultsService instance.
    *
-   * @param geoLocationDao          the data access object for geolocation information
-   * @param vineyardDao             the data access object for vineyard information
-   * @param resolveMissingAddresses a boolean flag to indicate whether missing addresses should be
-   *                                resolved using geolocation services
+   * @param geoLocationDao   the data access object for geolocation information
+   * @param vineyardDao      the data access object for vineyard information
+   * @param locationResolver the resolver of missing addresses, or null if missing addresses
+   *                         should not be resolved
+   * @param executor         the executor the defaults are written on
    */
   public VineyardDefaultsService(GeoLocationDao geoLocationDao, VineyardDao vineyardDao,
-      boolean resolveMissingAddresses) {
+      LocationResolver locationResolver, DatabaseExecutor executor) {
     this.geoLocationDao = geoLocationDao;
     this.vineyardDao = vineyardDao;
-    this.resolveMissingAddresses = resolveMissingAddresses;
-    this.geolocationResolver = resolveMissingAddresses ? new GeolocationResolver() : null;
+    this.locationResolver = locationResolver;
+    this.executor = executor;
   }
 
   /**
    * Initializes the vineyard data. If the vineyard table is empty, this method loads default
    * vineyard data from a CSV file. If address resolution is enabled, it resolves missing addresses
-   * by querying the geolocation API and updating the database.
+   * by querying the geolocation API and updating the database. This waits for the writes, so it
+   * must not be called on the writer thread.
    */
   public void init() {
     Timer timer = new Timer();
@@ -58,18 +70,59 @@ public class VineyardDefaultsService {
     }
 
     List<Vineyard> vineyards = loadDefaultVineyards();
-    if (resolveMissingAddresses) {
+    if (locationResolver != null) {
       Set<String> addresses = vineyards.stream().map(Vineyard::getAddress)
           .collect(Collectors.toSet());
       Set<String> addressesInDatabase = geoLocationDao.getExistingLocationNames(addresses);
       List<String> missingAddresses = findMissingAddresses(addresses, addressesInDatabase);
       if (!missingAddresses.isEmpty()) {
-        Map<String, GeoLocation> missingAddressesGeolocations = geolocationResolver.resolveAll(
-            missingAddresses);
-        geoLocationDao.addAll(missingAddressesGeolocations);
+        resolveMissingAddresses(missingAddresses);
+      }
+    }
+    executor.write(() -> {
+      vineyardDao.addAll(vineyards);
+      return null;
+    }).join();
+  }
+
+  /**
+   * Resolves addresses which are missing from the geolocation database, adding the geolocations to
+   * the database in batches as they arrive so they are kept even if resolving is cut short.
+   * Addresses which could not be found are left without a geolocation. Returns once every batch
+   * has been written.
+   *
+   * @param missingAddresses the addresses to resolve
+   */
+  private void resolveMissingAddresses(List<String> missingAddresses) {
+    List<CompletableFuture<Void>> writes = new ArrayList<>();
+    Map<String, GeoLocation> batch = new HashMap<>();
+    locationResolver.resolveAll(missingAddresses, (address, geoLocation) -> {
+      if (geoLocation == null) {
+        return;
       }
+      batch.put(address, geoLocation);
+      if (batch.size() >= GEOLOCATION_BATCH_SIZE) {
+        writes.add(addGeoLocations(Map.copyOf(batch)));
+        batch.clear();
+      }
+    });
+    if (!batch.isEmpty()) {
+      writes.add(addGeoLocations(Map.copyOf(batch)));
     }
-    vineyardDao.addAll(vineyards);
+    CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).join();
+  }
+
+  /**
+   * Adds a batch of resolved addresses to the geolocation database on the writer thread.
+   *
+   * @param geoLocations the geolocations of the addresses
+   * @return a future completed once the batch has been written
+   */
+  private CompletableFuture<Void> addGeoLocations(Map<String, GeoLocation> geoLocations) {
+    return executor.write(() -> {
+      geoLocationDao.addAll(geoLocations);
+      return null;
+    });
   }
 
   /**
@@ -1,6 +1,7 @@
 package seng202.team6.service;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import seng202.team6.managers.DatabaseManager;
@@ -26,11 +27,17 @@ public class VineyardService {
   }
 
   /**
-   * Initializes the service by retrieving vineyards from the database.
+   * Initializes the service by retrieving vineyards from the database. The unique values of the
+   * vineyards are rebuilt on a database reader thread if they are out of date.
+   *
+   * @return a future which completes once the unique values are up to date
    */
-  public void init() {
+  public CompletableFuture<Void> init() {
     applyFilters(null);
-    databaseManager.getVineyardsDao().updateUniques();
+    return databaseManager.getExecutor().read(() -> {
+      databaseManager.getVineyardsDao().updateUniques();
+      return null;
+    });
   }
 
   /**
@@ -44,23 +51,43 @@ public class VineyardService {
    * @param logoUrl the logoUrl of the vineyard
    * @param description the description of the vineyard
    * @param geoLocation the geoLocation of the vineyard
+   * @return a future which completes with the created vineyard, which must be added with
+   *         {@link #add(Vineyard)} on the JavaFX thread
+   */
+  public CompletableFuture<Vineyard> create(String name, String address, String region,
+      String website, String logoUrl, String description, GeoLocation geoLocation) {
+    return databaseManager.getExecutor().write(() -> {
+      Vineyard vineyard = databaseManager.getVineyardsDao()
+          .add(name, address, region, website, description, logoUrl, geoLocation);
+      databaseManager.getGeoLocationDao().addAll(Map.of(name, geoLocation));
+      return vineyard;
+    });
+  }
+
+  /**
+   * Adds a created vineyard to the loaded vineyards.
+   *
+   * @param vineyard the created vineyard, or null if it could not be created
    */
-  public void create(String name, String address, String region, String website, String logoUrl,
-      String description, GeoLocation geoLocation) {
-    Vineyard vineyard = databaseManager.getVineyardsDao()
-        .add(name, address, region, website, description, logoUrl, geoLocation);
-    databaseManager.getGeoLocationDao().addAll(Map.of(name, geoLocation));
-    vineyards.add(vineyard);
+  public void add(Vineyard vineyard) {
+    if (vineyard != null) {
+      vineyards.add(vineyard);
+    }
   }
 
   /**
-   * Deletes a vineyard.
+   * Deletes a vineyard. It is removed from the loaded vineyards straight away and deleted on the
+   * database writer thread.
    *
    * @param vineyard the vineyard to be deleted
+   * @return a future which completes once the vineyard has been deleted
    */
-  public void delete(Vineyard vineyard) {
-    databaseManager.getVineyardsDao().remove(vineyard);
+  public CompletableFuture<Void> delete(Vineyard vineyard) {
     vineyards.remove(vineyard);
+    return databaseManager.getExecutor().write(() -> {
+      databaseManager.getVineyardsDao().remove(vineyard);
+      return null;
+    });
   }
 
   /**
@@ -1,5 +1,6 @@
 package seng202.team6.service;
 
+import java.util.concurrent.CompletableFuture;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import seng202.team6.managers.AuthenticationManager;
@@ -55,27 +56,42 @@ public class VineyardToursService {
   }
 
   /**
-   * Creates a new vineyard tour for the authenticated user.
+   * Creates a new vineyard tour for the authenticated user on the database writer thread. The
+   * created tour must be added with {@link #addVineyardTour(VineyardTour)} on the JavaFX thread.
    *
    * @param name   the name of the vineyard tour
+   * @return a future which completes with the created tour, or null if it could not be created
    */
-  public VineyardTour createVineyardTour(String name) {
+  public CompletableFuture<VineyardTour> createVineyardTour(String name) {
     User user = authenticationManager.getAuthenticatedUser();
-    VineyardTour vineyardTour = databaseManager.getVineyardTourDao().create(user, name);
+    return databaseManager.getExecutor().write(() ->
+        databaseManager.getVineyardTourDao().create(user, name));
+  }
+
+  /**
+   * Adds a created vineyard tour to the tours of the authenticated user.
+   *
+   * @param vineyardTour the created tour, or null if it could not be created
+   */
+  public void addVineyardTour(VineyardTour vineyardTour) {
     if (vineyardTour != null) {
       vineyardTours.add(vineyardTour);
     }
-    return vineyardTour;
   }
 
   /**
-   * Removes a vineyard tour for the authenticated user.
+   * Removes a vineyard tour for the authenticated user. It is removed from the tours straight away
+   * and deleted on the database writer thread.
    *
    * @param vineyardTour the vineyard tour to be removed
+   * @return a future which completes once the tour has been deleted
    */
-  public void removeVineyardTour(VineyardTour vineyardTour) {
+  public CompletableFuture<Void> removeVineyardTour(VineyardTour vineyardTour) {
     vineyardTours.remove(vineyardTour);
-    databaseManager.getVineyardTourDao().remove(vineyardTour);
+    return databaseManager.getExecutor().write(() -> {
+      databaseManager.getVineyardTourDao().remove(vineyardTour);
+      return null;
+    });
   }
 
   /**
@@ -1,11 +1,21 @@
 package seng202.team6.service;
 
-import java.util.HashSet;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import seng202.team6.model.Wine;
+import seng202.team6.util.SortedMultiset;
 
 /**
  * Stores a range of unique values and stats.<br> Stores:
  * <ul>
+ *   <li>uniqueTitles</li>
  *   <li>uniqueCountries</li>
  *   <li>uniqueWineries</li>
  *   <li>uniqueColors</li>
@@ -18,24 +28,40 @@ import java.util.Set;
  *   <li>minPrice</li>
  *   <li>maxPrice</li>
  * </ul>
+ * <p>
+ * Every value is counted in a sorted multiset, so the stats are maintained incrementally as wines
+ * are added, removed and edited in O(log n) time each. A value stays unique until the last wine
+ * with it is removed or changed, and the minimums and maximums shrink when the wines holding them
+ * go.
+ * </p>
+ * <p>
+ * The counts can be saved as a snapshot so they do not need to be rebuilt from the WINE table on
+ * every launch. When they are rebuilt, the scan is counted into a separate instance while the
+ * edits made in the meantime are queued, and the two are swapped in together by
+ * {@link #finishRebuild(WineDataStatService, long)}, so no edit is lost or counted against a
+ * half-built scan.
+ * </p>
  */
-public class WineDataStatService {
+public class WineDataStatService implements PersistedStats {
 
   // Uniques
-  private final Set<String> uniqueTitles = new HashSet<>();
-  private final Set<String> uniqueCountries = new HashSet<>();
-  private final Set<String> uniqueWineries = new HashSet<>();
-  private final Set<String> uniqueColors = new HashSet<>();
-
-  // minimum and maximum values
-  private int minVintage;
-  private int maxVintage;
-  private int minScore;
-  private int maxScore;
-  private float minAbv;
-  private float maxAbv;
-  private float minPrice;
-  private float maxPrice;
+  private final SortedMultiset<String> titles = new SortedMultiset<>();
+  private final SortedMultiset<String> countries = new SortedMultiset<>();
+  private final SortedMultiset<String> wineries = new SortedMultiset<>();
+  private final SortedMultiset<String> colors = new SortedMultiset<>();
+
+  // Ranges
+  private final SortedMultiset<Integer> vintages = new SortedMultiset<>();
+  private final SortedMultiset<Integer> scores = new SortedMultiset<>();
+  private final SortedMultiset<Float> abvs = new SortedMultiset<>();
+  private final SortedMultiset<Float> prices = new SortedMultiset<>();
+
+  private long catalogVersion = -1;
+
+  /**
+   * The edits made since a rebuild began, or null if no rebuild is in progress.
+   */
+  private List<Consumer<WineDataStatService>> rebuildEdits;
 
   /**
    * Constructor.
@@ -46,98 +72,348 @@ public class WineDataStatService {
   /**
    * Resets all values.
    */
-  public void reset() {
-    this.uniqueTitles.clear();
-    this.uniqueCountries.clear();
-    this.uniqueWineries.clear();
-    this.uniqueColors.clear();
-    this.minVintage = Integer.MAX_VALUE;
-    this.maxVintage = 0;
-    this.minScore = 100;
-    this.maxScore = 0;
-    this.minAbv = 100;
-    this.maxAbv = 0;
-    this.minPrice = Float.MAX_VALUE;
-    this.maxPrice = 0;
+  public synchronized void reset() {
+    queueRebuildEdit(WineDataStatService::reset);
+    titles.clear();
+    countries.clear();
+    wineries.clear();
+    colors.clear();
+    vintages.clear();
+    scores.clear();
+    abvs.clear();
+    prices.clear();
   }
 
-  public Set<String> getUniqueTitles() {
-    return uniqueTitles;
+  /**
+   * Adds the values of a wine.
+   *
+   * @param wine the wine to add
+   */
+  public void add(Wine wine) {
+    add(wine.getTitle(), wine.getCountry(), wine.getWinery(), wine.getColor(), wine.getVintage(),
+        wine.getScorePercent(), wine.getAbv(), wine.getPrice());
   }
 
-  public Set<String> getUniqueCountries() {
-    return uniqueCountries;
+  /**
+   * Adds the values of a wine which has been read without creating a Wine.
+   *
+   * @param title   the title of the wine
+   * @param country the country of the wine
+   * @param winery  the winery of the wine
+   * @param color   the color of the wine
+   * @param vintage the vintage of the wine
+   * @param score   the score of the wine
+   * @param abv     the abv of the wine
+   * @param price   the price of the wine
+   */
+  public synchronized void add(String title, String country, String winery, String color,
+      int vintage, int score, float abv, float price) {
+    queueRebuildEdit(stats -> stats.add(title, country, winery, color, vintage, score, abv, price));
+    titles.add(title);
+    countries.add(country);
+    wineries.add(winery);
+    colors.add(color);
+    vintages.add(countedVintage(vintage));
+    scores.add(score);
+    abvs.add(abv);
+    prices.add(price);
   }
 
-  public Set<String> getUniqueWineries() {
-    return uniqueWineries;
+  /**
+   * Removes the values of a wine which were previously added.
+   *
+   * @param wine the wine to remove
+   */
+  public void remove(Wine wine) {
+    remove(wine.getTitle(), wine.getCountry(), wine.getWinery(), wine.getColor(),
+        wine.getVintage(), wine.getScorePercent(), wine.getAbv(), wine.getPrice());
   }
 
-  public Set<String> getUniqueColors() {
-    return uniqueColors;
+  /**
+   * Removes the values of a wine which were previously added, as read when the wine was removed.
+   *
+   * @param title   the title of the wine
+   * @param country the country of the wine
+   * @param winery  the winery of the wine
+   * @param color   the color of the wine
+   * @param vintage the vintage of the wine
+   * @param score   the score of the wine
+   * @param abv     the abv of the wine
+   * @param price   the price of the wine
+   */
+  public synchronized void remove(String title, String country, String winery, String color,
+      int vintage, int score, float abv, float price) {
+    queueRebuildEdit(stats -> stats.remove(title, country, winery, color, vintage, score, abv,
+        price));
+    titles.remove(title);
+    countries.remove(country);
+    wineries.remove(winery);
+    colors.remove(color);
+    vintages.remove(countedVintage(vintage));
+    scores.remove(score);
+    abvs.remove(abv);
+    prices.remove(price);
   }
 
-  public int getMinVintage() {
-    return minVintage;
+  /**
+   * Adds the unique values and ranges of another set of stats to these, as if the wines counted by
+   * the other stats had been added one by one.
+   *
+   * @param other the stats to add
+   */
+  public synchronized void merge(WineDataStatService other) {
+    queueRebuildEdit(stats -> stats.merge(other));
+    synchronized (other) {
+      titles.addAll(other.titles);
+      countries.addAll(other.countries);
+      wineries.addAll(other.wineries);
+      colors.addAll(other.colors);
+      vintages.addAll(other.vintages);
+      scores.addAll(other.scores);
+      abvs.addAll(other.abvs);
+      prices.addAll(other.prices);
+    }
   }
 
-  public void setMinVintage(int minVintage) {
-    this.minVintage = minVintage;
+  /**
+   * Updates the stats after the title of a wine changed.
+   *
+   * @param before the previous title
+   * @param after  the new title
+   */
+  public synchronized void replaceTitle(String before, String after) {
+    queueRebuildEdit(stats -> stats.replaceTitle(before, after));
+    titles.replace(before, after);
   }
 
-  public int getMaxVintage() {
-    return maxVintage;
+  /**
+   * Updates the stats after the country of a wine changed.
+   *
+   * @param before the previous country
+   * @param after  the new country
+   */
+  public synchronized void replaceCountry(String before, String after) {
+    queueRebuildEdit(stats -> stats.replaceCountry(before, after));
+    countries.replace(before, after);
   }
 
-  public void setMaxVintage(int maxVintage) {
-    this.maxVintage = maxVintage;
+  /**
+   * Updates the stats after the winery of a wine changed.
+   *
+   * @param before the previous winery
+   * @param after  the new winery
+   */
+  public synchronized void replaceWinery(String before, String after) {
+    queueRebuildEdit(stats -> stats.replaceWinery(before, after));
+    wineries.replace(before, after);
+  }
+
+  /**
+   * Updates the stats after the color of a wine changed.
+   *
+   * @param before the previous color
+   * @param after  the new color
+   */
+  public synchronized void replaceColor(String before, String after) {
+    queueRebuildEdit(stats -> stats.replaceColor(before, after));
+    colors.replace(before, after);
+  }
+
+  /**
+   * Updates the stats after the vintage of a wine changed.
+   *
+   * @param before the previous vintage
+   * @param after  the new vintage
+   */
+  public synchronized void replaceVintage(int before, int after) {
+    queueRebuildEdit(stats -> stats.replaceVintage(before, after));
+    vintages.replace(countedVintage(before), countedVintage(after));
   }
 
-  public int getMinScore() {
-    return minScore;
+  /**
+   * Updates the stats after the score of a wine changed.
+   *
+   * @param before the previous score
+   * @param after  the new score
+   */
+  public synchronized void replaceScore(int before, int after) {
+    queueRebuildEdit(stats -> stats.replaceScore(before, after));
+    scores.replace(before, after);
   }
 
-  public void setMinScore(int minScore) {
-    this.minScore = minScore;
+  /**
+   * Updates the stats after the abv of a wine changed.
+   *
+   * @param before the previous abv
+   * @param after  the new abv
+   */
+  public synchronized void replaceAbv(float before, float after) {
+    queueRebuildEdit(stats -> stats.replaceAbv(before, after));
+    abvs.replace(before, after);
   }
 
-  public int getMaxScore() {
-    return maxScore;
+  /**
+   * Updates the stats after the price of a wine changed.
+   *
+   * @param before the previous price
+   * @param after  the new price
+   */
+  public synchronized void replacePrice(float before, float after) {
+    queueRebuildEdit(stats -> stats.replacePrice(before, after));
+    prices.replace(before, after);
   }
 
-  public void setMaxScore(int maxScore) {
-    this.maxScore = maxScore;
+  /**
+   * Starts queuing the edits made to these stats, so they can be applied again once stats rebuilt
+   * from the WINE table are swapped in. The rebuild must read the table as it was when this was
+   * called, which holds when it runs as the next task on the writer thread. Does nothing if a
+   * rebuild is already in progress.
+   */
+  public synchronized void beginRebuild() {
+    if (rebuildEdits == null) {
+      rebuildEdits = new ArrayList<>();
+    }
+  }
+
+  /**
+   * Replaces these stats with rebuilt stats in one step, then applies the edits queued since the
+   * rebuild began. Nothing can see or edit the stats while they are being replaced.
+   *
+   * @param rebuilt        the stats counted from the WINE table, which are not changed
+   * @param catalogVersion the version of the WINE table the rebuilt stats were counted from
+   */
+  public synchronized void finishRebuild(WineDataStatService rebuilt, long catalogVersion) {
+    List<Consumer<WineDataStatService>> edits = rebuildEdits;
+    rebuildEdits = null;
+    reset();
+    merge(rebuilt);
+    if (edits != null) {
+      edits.forEach(edit -> edit.accept(this));
+    }
+    this.catalogVersion = catalogVersion;
+  }
+
+  /**
+   * Stops queuing edits after a rebuild failed, leaving these stats as they are.
+   */
+  public synchronized void cancelRebuild() {
+    rebuildEdits = null;
+  }
+
+  /**
+   * Queues an edit to be applied again after a rebuild, if one is in progress. Must be called while
+   * holding the lock of these stats.
+   *
+   * @param edit the edit
+   */
+  private void queueRebuildEdit(Consumer<WineDataStatService> edit) {
+    if (rebuildEdits != null) {
+      rebuildEdits.add(edit);
+    }
+  }
+
+  /**
+   * Gets the vintage to count for a wine. In decanter, some vintages are NV which defaults to 0,
+   * and in the 130k dataset some values don't have a vintage which defaults to -1, so these are
+   * not counted in the range.
+   *
+   * @param vintage the vintage of the wine
+   * @return the vintage, or null if it should not be counted
+   */
+  private static Integer countedVintage(int vintage) {
+    return vintage > 0 ? vintage : null;
+  }
+
+  @Override
+  public synchronized long getCatalogVersion() {
+    return catalogVersion;
+  }
+
+  @Override
+  public synchronized void setCatalogVersion(long catalogVersion) {
+    this.catalogVersion = catalogVersion;
+  }
+
+  @Override
+  public synchronized void writeTo(DataOutput output) throws IOException {
+    titles.writeTo(output, DataOutput::writeUTF);
+    countries.writeTo(output, DataOutput::writeUTF);
+    wineries.writeTo(output, DataOutput::writeUTF);
+    colors.writeTo(output, DataOutput::writeUTF);
+    vintages.writeTo(output, DataOutput::writeInt);
+    scores.writeTo(output, DataOutput::writeInt);
+    abvs.writeTo(output, DataOutput::writeFloat);
+    prices.writeTo(output, DataOutput::writeFloat);
+  }
+
+  @Override
+  public synchronized void readFrom(DataInput input) throws IOException {
+    titles.readFrom(input, DataInput::readUTF);
+    countries.readFrom(input, DataInput::readUTF);
+    wineries.readFrom(input, DataInput::readUTF);
+    colors.readFrom(input, DataInput::readUTF);
+    vintages.readFrom(input, DataInput::readInt);
+    scores.readFrom(input, DataInput::readInt);
+    abvs.readFrom(input, DataInput::readFloat);
+    prices.readFrom(input, DataInput::readFloat);
+  }
+
+  public synchronized Set<String> getUniqueTitles() {
+    return copyElements(titles);
+  }
+
+  public synchronized Set<String> getUniqueCountries() {
+    return copyElements(countries);
+  }
+
+  public synchronized Set<String> getUniqueWineries() {
+    return copyElements(wineries);
+  }
+
+  public synchronized Set<String> getUniqueColors() {
+    return copyElements(colors);
+  }
+
+  /**
+   * Copies the distinct values of a multiset, so the caller can iterate them on another thread,
+   * such as the FX thread, while the stats keep changing on the writer thread.
+   *
+   * @param multiset the multiset to copy the values of
+   * @return an unmodifiable set of the values in ascending order
+   */
+  private static Set<String> copyElements(SortedMultiset<String> multiset) {
+    return Collections.unmodifiableSortedSet(new TreeSet<>(multiset.elementSet()));
   }
 
-  public float getMinAbv() {
-    return minAbv;
+  public synchronized int getMinVintage() {
+    return vintages.isEmpty() ? Integer.MAX_VALUE : vintages.first();
   }
 
-  public void setMinAbv(float minAbv) {
-    this.minAbv = minAbv;
+  public synchronized int getMaxVintage() {
+    return vintages.isEmpty() ? 0 : vintages.last();
   }
 
-  public float getMaxAbv() {
-    return maxAbv;
+  public synchronized int getMinScore() {
+    return scores.isEmpty() ? 100 : Math.min(100, scores.first());
   }
 
-  public void setMaxAbv(float maxAbv) {
-    this.maxAbv = maxAbv;
+  public synchronized int getMaxScore() {
+    return scores.isEmpty() ? 0 : Math.max(0, scores.last());
   }
 
-  public float getMinPrice() {
-    return minPrice;
+  public synchronized float getMinAbv() {
+    return abvs.isEmpty() ? 100 : Math.min(100, abvs.first());
   }
 
-  public void setMinPrice(float minPrice) {
-    this.minPrice = minPrice;
+  public synchronized float getMaxAbv() {
+    return abvs.isEmpty() ? 0 : Math.max(0, abvs.last());
   }
 
-  public float getMaxPrice() {
-    return maxPrice;
+  public synchronized float getMinPrice() {
+    return prices.isEmpty() ? Float.MAX_VALUE : prices.first();
   }
 
-  public void setMaxPrice(float maxPrice) {
-    this.maxPrice = maxPrice;
+  public synchronized float getMaxPrice() {
+    return prices.isEmpty() ? 0 : Math.max(0, prices.last());
   }
 }
@@ -0,0 +1,128 @@
+package seng202.team6.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import seng202.team6.util.Timer;
+
+/**
+ * Tracks the progress of a wine import and lets it be cancelled.
+ * <p>
+ * The import updates the progress from the database writer and parser threads while the GUI reads
+ * consistent {@link Snapshot}s of it from the JavaFX thread, so every field is safe to access from
+ * any thread. Cancelling only requests the cancellation, the import stops and rolls back at the end
+ * of the batch it is inserting.
+ * </p>
+ */
+public class WineImportProgress {
+
+  private final Timer timer = new Timer();
+  private final long totalBytes;
+  private final AtomicInteger rowsParsed = new AtomicInteger();
+  private final AtomicInteger rowsInserted = new AtomicInteger();
+  private final AtomicInteger rowsRejected = new AtomicInteger();
+  private volatile LongSupplier bytesRead = () -> 0;
+  private volatile boolean cancelled;
+
+  /**
+   * Constructs a new WineImportProgress.
+   *
+   * @param totalBytes the size of the file being imported in bytes, or 0 if unknown
+   */
+  public WineImportProgress(long totalBytes) {
+    this.totalBytes = totalBytes;
+  }
+
+  /**
+   * Sets where the number of bytes read from the file comes from.
+   *
+   * @param bytesRead supplies the number of bytes read so far
+   */
+  public void setBytesRead(LongSupplier bytesRead) {
+    this.bytesRead = bytesRead;
+  }
+
+  /**
+   * Records rows which were parsed into wines.
+   *
+   * @param rows the number of rows parsed
+   */
+  public void addRowsParsed(int rows) {
+    rowsParsed.addAndGet(rows);
+  }
+
+  /**
+   * Records wines which were inserted into the database.
+   *
+   * @param rows the number of wines inserted
+   */
+  public void addRowsInserted(int rows) {
+    rowsInserted.addAndGet(rows);
+  }
+
+  /**
+   * Records rows which could not be parsed into wines.
+   *
+   * @param rows the number of rows rejected
+   */
+  public void addRowsRejected(int rows) {
+    rowsRejected.addAndGet(rows);
+  }
+
+  /**
+   * Requests the import to be cancelled.
+   */
+  public void cancel() {
+    cancelled = true;
+  }
+
+  /**
+   * Checks whether the import has been requested to be cancelled.
+   *
+   * @return true if the import has been cancelled
+   */
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Takes a snapshot of the current progress.
+   *
+   * @return the current progress
+   */
+  public Snapshot snapshot() {
+    long elapsedMilliseconds = Math.max(1, timer.currentOffsetMilliseconds());
+    long bytes = bytesRead.getAsLong();
+    int parsed = rowsParsed.get();
+    int rejected = rowsRejected.get();
+    double rowsPerSecond = (parsed + rejected) * 1000.0 / elapsedMilliseconds;
+    // estimate the time left from the share of the file read so far
+    long etaSeconds = bytes > 0 && totalBytes > 0
+        ? Math.max(0, elapsedMilliseconds * (totalBytes - bytes) / bytes / 1000) : -1;
+    return new Snapshot(bytes, totalBytes, parsed, rowsInserted.get(), rejected, rowsPerSecond,
+        etaSeconds);
+  }
+
+  /**
+   * The progress of an import at a point in time.
+   *
+   * @param bytesRead     the number of bytes read from the file
+   * @param totalBytes    the size of the file in bytes, or 0 if unknown
+   * @param rowsParsed    the number of rows parsed into wines
+   * @param rowsInserted  the number of wines inserted into the database
+   * @param rowsRejected  the number of rows which could not be parsed
+   * @param rowsPerSecond the number of rows parsed or rejected per second
+   * @param etaSeconds    the estimated number of seconds left, or -1 if unknown
+   */
+  public record Snapshot(long bytesRead, long totalBytes, int rowsParsed, int rowsInserted,
+                         int rowsRejected, double rowsPerSecond, long etaSeconds) {
+
+    /**
+     * Gets the share of the file read so far.
+     *
+     * @return the fraction of the file read between 0 and 1, or -1 if the size is unknown
+     */
+    public double fractionRead() {
+      return totalBytes > 0 ? Math.min(1.0, (double) bytesRead / totalBytes) : -1;
+    }
+  }
+}
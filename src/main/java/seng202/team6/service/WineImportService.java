@@ -1,17 +1,35 @@
 package seng202.team6.service;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import seng202.team6.dao.WineDao;
 import seng202.team6.enums.WinePropertyName;
-
+import seng202.team6.managers.DatabaseManager;
+import seng202.team6.model.Wine;
+import seng202.team6.model.WineImportReport;
+import seng202.team6.util.CsvRowIterator;
+import seng202.team6.util.ProcessCsv;
+import seng202.team6.util.Timer;
+import seng202.team6.util.WineValidator;
+import seng202.team6.util.exceptions.ValidationException;
 
 /**
  * The Wine import service class provides methods to the wine importing functionality.
  */
 public class WineImportService {
 
+  private final Logger log = LogManager.getLogger(getClass());
+
   /**
    * The creator for the hashmap of valid wine properties.
    *
@@ -59,5 +77,96 @@ public class WineImportService {
     return duplicatedProperties;
   }
 
+  /**
+   * Parses a row of a CSV file into a wine.
+   *
+   * @param valid the column index of each selected wine property
+   * @param row   the row to parse
+   * @return the parsed wine
+   * @throws ValidationException if the row is not a valid wine
+   */
+  public Wine parseWine(Map<WinePropertyName, Integer> valid, String[] row)
+      throws ValidationException {
+    return WineValidator.parseWine(
+        extractPropertyFromRowOrDefault(valid, row, WinePropertyName.TITLE),
+        extractPropertyFromRowOrDefault(valid, row, WinePropertyName.VARIETY),
+        extractPropertyFromRowOrDefault(valid, row, WinePropertyName.COUNTRY),
+        extractPropertyFromRowOrDefault(valid, row, WinePropertyName.REGION),
+        extractPropertyFromRowOrDefault(valid, row, WinePropertyName.WINERY),
+        extractPropertyFromRowOrDefault(valid, row, WinePropertyName.COLOUR),
+        extractPropertyFromRowOrDefault(valid, row, WinePropertyName.VINTAGE),
+        extractPropertyFromRowOrDefault(valid, row, WinePropertyName.DESCRIPTION),
+        extractPropertyFromRowOrDefault(valid, row, WinePropertyName.SCORE),
+        extractPropertyFromRowOrDefault(valid, row, WinePropertyName.ABV),
+        extractPropertyFromRowOrDefault(valid, row, WinePropertyName.PRICE),
+        null
+    );
+  }
 
+  /**
+   * Streams the wines in a CSV file into the database, see
+   * {@link #importWines(File, Map, DatabaseManager, boolean, WineImportProgress)}.
+   *
+   * @param file            the CSV file to import
+   * @param valid           the column index of each selected wine property
+   * @param databaseManager the database manager to insert the wines with
+   * @param replace         whether to remove all existing wines before importing
+   * @return a report of the rows imported and the rows which could not be parsed
+   * @throws IOException  if the file could not be opened
+   * @throws SQLException if the wines could not be inserted
+   */
+  public WineImportReport importWines(File file, Map<WinePropertyName, Integer> valid,
+      DatabaseManager databaseManager, boolean replace) throws IOException, SQLException {
+    return importWines(file, valid, databaseManager, replace,
+        new WineImportProgress(file.length()));
+  }
+
+  /**
+   * Streams the wines in a CSV file into the database. Rows are read and inserted in batches as
+   * the file is read while being parsed in parallel, so the memory used stays the same however
+   * large the file is. The first row of the file is treated as the header and skipped. The database
+   * is kept in bulk load mode for the duration of the import.
+   * <p>
+   * If the import fails or is cancelled through the progress, the wines in the database are left
+   * unchanged, see {@link WineDao#importAll}. This includes a row which cannot be read part way
+   * through the file, so a replacing import never leaves only the wines before it.
+   * </p>
+   *
+   * @param file            the CSV file to import
+   * @param valid           the column index of each selected wine property
+   * @param databaseManager the database manager to insert the wines with
+   * @param replace         whether to remove all existing wines before importing
+   * @param progress        the progress to report to and check for cancellation
+   * @return a report of the rows imported and the rows which could not be parsed
+   * @throws IOException           if the file could not be opened or a row could not be read
+   * @throws SQLException          if the wines could not be inserted
+   * @throws CancellationException if the import was cancelled
+   */
+  public WineImportReport importWines(File file, Map<WinePropertyName, Integer> valid,
+      DatabaseManager databaseManager, boolean replace, WineImportProgress progress)
+      throws IOException, SQLException {
+    Timer timer = new Timer();
+    WineDao wineDao = databaseManager.getWineDao();
+    try (CsvRowIterator rows = ProcessCsv.openCsvRows(file);
+        DatabaseManager.BulkLoad bulkLoad = databaseManager.beginBulkLoad()) {
+      // a read error fails the import inside its transaction, which rolls it back
+      rows.setFailOnError(true);
+      progress.setBytesRead(rows::getBytesRead);
+      // skip the header row
+      if (rows.hasNext()) {
+        rows.next();
+      }
+      try (ParallelWineParser wines = new ParallelWineParser(this, rows, valid, progress)) {
+        int imported = wineDao.importAll(wines, replace, progress);
+        WineImportReport report = new WineImportReport(wines.getRowsRead(), imported,
+            wines.getFailed(), List.copyOf(wines.getErrors()), timer.currentOffsetMilliseconds());
+        log.info("Successfully imported {} out of {} wines with {} failed rows in {}ms "
+                + "({} rows/s)", report.imported(), report.rowsRead(), report.failed(),
+            report.elapsedMilliseconds(), Math.round(report.rowsPerSecond()));
+        return report;
+      }
+    } catch (UncheckedIOException error) {
+      throw error.getCause();
+    }
+  }
 }
@@ -1,6 +1,7 @@
 package seng202.team6.service;
 
 import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import seng202.team6.managers.AuthenticationManager;
@@ -50,24 +51,42 @@ public class WineListService {
   }
 
   /**
-   * Creates a wine list.
+   * Creates a wine list on the database writer thread. The created list must be added with
+   * {@link #addWineList(WineList)} on the JavaFX thread.
    *
    * @param user user
    * @param name name
+   * @return a future which completes with the created list
    */
-  public void createWineList(User user, String name) throws SQLException {
-    WineList wineList = databaseManager.getWineListDao().create(user, name);
-    wineLists.add(wineList);
+  public CompletableFuture<WineList> createWineList(User user, String name) {
+    return databaseManager.getExecutor().write(() ->
+        databaseManager.getWineListDao().create(user, name));
   }
 
   /**
-   * Deletes a wine list.
+   * Adds a created wine list to the lists of the user.
+   *
+   * @param wineList the created list, or null if it could not be created
+   */
+  public void addWineList(WineList wineList) {
+    if (wineList != null) {
+      wineLists.add(wineList);
+    }
+  }
+
+  /**
+   * Deletes a wine list. It is removed from the lists straight away and deleted on the database
+   * writer thread.
    *
    * @param wineList list of wines
+   * @return a future which completes once the list has been deleted
    */
-  public void deleteWineList(WineList wineList) throws SQLException {
+  public CompletableFuture<Void> deleteWineList(WineList wineList) {
     wineLists.remove(wineList);
-    databaseManager.getWineListDao().delete(wineList);
+    return databaseManager.getExecutor().write(() -> {
+      databaseManager.getWineListDao().delete(wineList);
+      return null;
+    });
   }
 
   /**
@@ -2,12 +2,15 @@ package seng202.team6.service;
 
 import java.sql.Date;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import javafx.beans.binding.Bindings;
 import javafx.beans.binding.StringBinding;
 import javafx.beans.property.Property;
 import javafx.beans.property.SimpleObjectProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import seng202.team6.dao.WineDao.ReviewAggregate;
 import seng202.team6.managers.AuthenticationManager;
 import seng202.team6.managers.DatabaseManager;
 import seng202.team6.model.User;
@@ -68,41 +71,63 @@ public class WineReviewsService {
   }
 
   /**
-   * Adds or update a user review.
+   * Adds or update a user review. The review is written on the database writer thread, and the
+   * returned update must be applied with {@link #applyUpdate(ReviewUpdate)} on the JavaFX thread.
    *
    * @param rating      rating
    * @param description description
+   * @return a future of the update to apply once the review has been written
    */
-  public void addOrUpdateUserReview(double rating, String description) throws SQLException {
+  public CompletableFuture<ReviewUpdate> addOrUpdateUserReview(double rating,
+      String description) {
     User user = authenticationManager.getAuthenticatedUser();
     if (hasUserReviewed()) {
       WineReview usersReview = getUsersReview();
       usersReview.setRating(rating);
       usersReview.setDescription(description);
-      calculateAverageReview();
-      return;
+      return databaseManager.getExecutor().write(() ->
+          new ReviewUpdate(null, readReviewAggregates()));
     }
     Date currentDate = new Date(System.currentTimeMillis());
-    WineReview wineReview = databaseManager.getWineReviewDao()
-        .add(user, wine, rating, description, currentDate);
-    if (wineReview != null) {
-      wineReviews.add(wineReview);
-      usersReview.setValue(wineReview);
-      calculateAverageReview();
-    }
+    return databaseManager.getExecutor().write(() -> {
+      WineReview wineReview = databaseManager.getWineReviewDao()
+          .add(user, wine, rating, description, currentDate);
+      return new ReviewUpdate(wineReview, readReviewAggregates());
+    });
   }
 
   /**
-   * Deletes users review.
+   * Deletes users review. It is removed from the reviews straight away and deleted on the database
+   * writer thread, and the returned update must be applied with
+   * {@link #applyUpdate(ReviewUpdate)} on the JavaFX thread.
+   *
+   * @return a future of the update to apply once the review has been deleted
    */
-  public void deleteUsersReview() throws SQLException {
+  public CompletableFuture<ReviewUpdate> deleteUsersReview() {
     WineReview wineReview = getUsersReview();
-    if (wineReview != null) {
+    if (wineReview == null) {
+      return CompletableFuture.completedFuture(new ReviewUpdate(null, List.of()));
+    }
+    usersReview.setValue(null);
+    wineReviews.remove(wineReview);
+    return databaseManager.getExecutor().write(() -> {
       databaseManager.getWineReviewDao().delete(wineReview);
-      usersReview.setValue(null);
-      wineReviews.remove(wineReview);
-      calculateAverageReview();
+      return new ReviewUpdate(null, readReviewAggregates());
+    });
+  }
+
+  /**
+   * Applies a written change to the reviews, adding the users new review and reloading the
+   * average rating and review count of the wine. This must run on the JavaFX thread.
+   *
+   * @param update the update returned once the change was written
+   */
+  public void applyUpdate(ReviewUpdate update) {
+    if (update.addedReview() != null) {
+      wineReviews.add(update.addedReview());
+      usersReview.setValue(update.addedReview());
     }
+    update.aggregates().forEach(ReviewAggregate::apply);
   }
 
   /**
@@ -187,12 +212,22 @@ public class WineReviewsService {
   }
 
   /**
-   * Updates the average rating.
+   * Reads the average rating and review count of the wine, which are maintained by the database
+   * as its reviews change.
+   *
+   * @return the aggregates of the wine
    */
-  private void calculateAverageReview() {
-    double sum = wineReviews.stream()
-        .mapToDouble(WineReview::getRating)
-        .sum();
-    wine.setAverageRating(sum / getWineReviews().size());
+  private List<ReviewAggregate> readReviewAggregates() throws SQLException {
+    return databaseManager.getWineDao().getReviewAggregates(List.of(wine.getKey()));
+  }
+
+  /**
+   * A change to the reviews which has been written to the database.
+   *
+   * @param addedReview the users review if it was added, otherwise null
+   * @param aggregates  the average rating and review count of the wine after the change
+   */
+  public record ReviewUpdate(WineReview addedReview, List<ReviewAggregate> aggregates) {
+
   }
 }
@@ -0,0 +1,176 @@
+package seng202.team6.util;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import seng202.team6.dao.GeocodeCacheDao;
+import seng202.team6.dao.GeocodeCacheDao.CachedLocation;
+import seng202.team6.managers.DatabaseExecutor;
+import seng202.team6.model.GeoLocation;
+
+/**
+ * A location resolver which consults the geocode cache before another resolver, such as the
+ * {@link GeolocationResolver} which calls the ORS API.
+ * <p>
+ * Only the locations without a current cache entry are passed on, and only once for each
+ * normalised address. Locations which were found and locations which do not exist are both cached,
+ * but lookups which failed are not, so they are retried next time. If the cache cannot be read or
+ * written, every location is passed on as if nothing was cached.
+ * </p>
+ * <p>
+ * Lookups finish on other threads, so their results are written to the cache on the database
+ * writer thread like every other write.
+ * </p>
+ */
+public class CachingLocationResolver implements LocationResolver {
+
+  /**
+   * The number of looked up locations written to the cache together while many locations are
+   * being resolved.
+   */
+  private static final int CACHE_BATCH_SIZE = 25;
+
+  private final Logger log = LogManager.getLogger(getClass());
+  private final LocationResolver resolver;
+  private final GeocodeCacheDao geocodeCacheDao;
+  private final DatabaseExecutor executor;
+
+  /**
+   * Constructs a resolver which caches the results of another resolver.
+   *
+   * @param resolver        the resolver of the locations which are not cached
+   * @param geocodeCacheDao the data access object of the geocode cache
+   * @param executor        the executor whose writer thread writes the cache
+   */
+  public CachingLocationResolver(LocationResolver resolver, GeocodeCacheDao geocodeCacheDao,
+      DatabaseExecutor executor) {
+    this.resolver = resolver;
+    this.geocodeCacheDao = geocodeCacheDao;
+    this.executor = executor;
+  }
+
+  /**
+   * Resolves a single location from the cache, or from the other resolver if it is not cached.
+   *
+   * @param locationName the name of the location
+   * @return a future of the geolocation of the location, or of null if the location does not
+   *     exist, which completes exceptionally if the location could not be looked up
+   */
+  @Override
+  public CompletableFuture<GeoLocation> resolveLocation(String locationName) {
+    CachedLocation cached = getCached(List.of(locationName)).get(locationName);
+    if (cached != null) {
+      return CompletableFuture.completedFuture(cached.location());
+    }
+    return resolver.resolveLocation(locationName).thenCompose(location ->
+        cache(Collections.singletonMap(locationName, location)).thenApply(written -> location));
+  }
+
+  /**
+   * Resolves many locations from the cache, passing the locations which are not cached to the
+   * other resolver. Cached locations are passed on first, then each looked up location is passed
+   * on as it arrives and cached in batches. Returns once the looked up locations have been cached.
+   *
+   * @param locations the names of the locations
+   * @param consumer  the consumer of each location which was looked up and its geolocation, or
+   *                  null if the location does not exist. Locations which could not be looked up
+   *                  are not passed on
+   */
+  @Override
+  public void resolveAll(List<String> locations, BiConsumer<String, GeoLocation> consumer) {
+    Map<String, CachedLocation> cached = getCached(locations);
+    cached.forEach((location, entry) -> consumer.accept(location, entry.location()));
+
+    // look up each normalised address once, then share the result between its spellings
+    Map<String, List<String>> missing = new LinkedHashMap<>();
+    for (String location : locations) {
+      if (!cached.containsKey(location)) {
+        missing.computeIfAbsent(GeocodeCacheDao.normalizeAddress(location),
+            key -> new ArrayList<>()).add(location);
+      }
+    }
+    if (missing.isEmpty()) {
+      return;
+    }
+
+    List<String> lookups = missing.values().stream().map(List::getFirst).toList();
+    log.info("Resolving {} of {} locations which are not in the geocode cache", lookups.size(),
+        locations.size());
+    List<CompletableFuture<Void>> writes = new ArrayList<>();
+    Map<String, GeoLocation> batch = new HashMap<>();
+    resolver.resolveAll(lookups, (location, geoLocation) -> {
+      batch.put(location, geoLocation);
+      if (batch.size() >= CACHE_BATCH_SIZE) {
+        writes.add(cache(new HashMap<>(batch)));
+        batch.clear();
+      }
+      for (String spelling : missing.get(GeocodeCacheDao.normalizeAddress(location))) {
+        consumer.accept(spelling, geoLocation);
+      }
+    });
+    if (!batch.isEmpty()) {
+      writes.add(cache(batch));
+    }
+    CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).join();
+  }
+
+  /**
+   * Reads the current cache entries of locations, treating a cache which cannot be read as empty.
+   *
+   * @param locations the names of the locations
+   * @return a map of each cached location to its entry
+   */
+  private Map<String, CachedLocation> getCached(List<String> locations) {
+    try {
+      return geocodeCacheDao.getAll(locations);
+    } catch (SQLException error) {
+      log.warn("Failed to read the geocode cache", error);
+      return Map.of();
+    }
+  }
+
+  /**
+   * Caches the results of looking up locations on the writer thread. A failure to write the cache
+   * is logged but does not fail the lookup.
+   *
+   * @param locations a map of locations to their geolocations, or to null if they do not exist
+   * @return a future which completes once the cache has been written or has failed to be
+   */
+  private CompletableFuture<Void> cache(Map<String, GeoLocation> locations) {
+    if (executor.isWriterThread()) {
+      putAll(locations);
+      return CompletableFuture.completedFuture(null);
+    }
+    try {
+      return executor.write(() -> {
+        putAll(locations);
+        return null;
+      });
+    } catch (RejectedExecutionException error) {
+      log.warn("Skipped writing the geocode cache as the database is shutting down");
+      return CompletableFuture.completedFuture(null);
+    }
+  }
+
+  /**
+   * Writes the results of looking up locations to the cache, logging a failure.
+   *
+   * @param locations a map of locations to their geolocations, or to null if they do not exist
+   */
+  private void putAll(Map<String, GeoLocation> locations) {
+    try {
+      geocodeCacheDao.putAll(locations);
+    } catch (SQLException error) {
+      log.warn("Failed to write the geocode cache", error);
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package seng202.team6.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream which counts the bytes read through it, so the progress through a file can be
+ * reported while it is being read. The count may be read from any thread.
+ */
+public class CountingInputStream extends FilterInputStream {
+
+  private volatile long count;
+
+  /**
+   * Constructs a new CountingInputStream.
+   *
+   * @param input the input stream to count the bytes of
+   */
+  public CountingInputStream(InputStream input) {
+    super(input);
+  }
+
+  /**
+   * Reads the next byte, counting it if one was read.
+   *
+   * @return the next byte, or -1 at the end of the stream
+   * @throws IOException if an I/O error occurs
+   */
+  @Override
+  public int read() throws IOException {
+    int read = super.read();
+    if (read != -1) {
+      count++;
+    }
+    return read;
+  }
+
+  /**
+   * Reads bytes into an array, counting the bytes read.
+   *
+   * @param buffer the buffer to read into
+   * @param offset the offset in the buffer to start at
+   * @param length the maximum number of bytes to read
+   * @return the number of bytes read, or -1 at the end of the stream
+   * @throws IOException if an I/O error occurs
+   */
+  @Override
+  public int read(byte[] buffer, int offset, int length) throws IOException {
+    int read = super.read(buffer, offset, length);
+    if (read != -1) {
+      count += read;
+    }
+    return read;
+  }
+
+  /**
+   * Skips bytes, counting them as read.
+   *
+   * @param length the number of bytes to skip
+   * @return the number of bytes skipped
+   * @throws IOException if an I/O error occurs
+   */
+  @Override
+  public long skip(long length) throws IOException {
+    long skipped = super.skip(length);
+    count += skipped;
+    return skipped;
+  }
+
+  /**
+   * Gets the number of bytes read so far.
+   *
+   * @return the number of bytes read
+   */
+  public long getCount() {
+    return count;
+  }
+}
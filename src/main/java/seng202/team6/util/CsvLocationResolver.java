@@ -0,0 +1,87 @@
+package seng202.team6.util;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import seng202.team6.dao.GeocodeCacheDao;
+import seng202.team6.model.GeoLocation;
+
+/**
+ * A location resolver which looks locations up in a CSV file of place names instead of calling a
+ * geocoding service, so locations can be resolved in tests and without network access.
+ * <p>
+ * The file has a header row followed by rows of a name, latitude and longitude, like the default
+ * <code>nz_geolocations.csv</code>. A location is matched to a place by its whole name first, and
+ * otherwise by each comma separated part of it from the last, ignoring postcodes, so an address
+ * resolves to the town or suburb it is in. Names are compared as normalised addresses.
+ * </p>
+ */
+public class CsvLocationResolver implements LocationResolver {
+
+  private final Map<String, GeoLocation> places = new HashMap<>();
+
+  /**
+   * Constructs a resolver of the default New Zealand geolocations.
+   */
+  public CsvLocationResolver() {
+    this(CsvLocationResolver.class.getResourceAsStream("/data/nz_geolocations.csv"));
+  }
+
+  /**
+   * Constructs a resolver of the places in a CSV file.
+   *
+   * @param input the input stream of the CSV file
+   */
+  public CsvLocationResolver(InputStream input) {
+    List<String[]> rows = ProcessCsv.getCsvRows(input);
+    for (int i = 1; i < rows.size(); i++) {
+      String[] row = rows.get(i);
+      places.putIfAbsent(GeocodeCacheDao.normalizeAddress(row[0]),
+          new GeoLocation(Double.parseDouble(row[1]), Double.parseDouble(row[2])));
+    }
+  }
+
+  /**
+   * Resolves a single location from the places in the file.
+   *
+   * @param locationName the name of the location
+   * @return a completed future of the geolocation of the location, or of null if no place matches
+   */
+  @Override
+  public CompletableFuture<GeoLocation> resolveLocation(String locationName) {
+    return CompletableFuture.completedFuture(find(locationName));
+  }
+
+  /**
+   * Resolves many locations from the places in the file.
+   *
+   * @param locations the names of the locations
+   * @param consumer  the consumer of every location and its geolocation, or null if no place
+   *                  matches
+   */
+  @Override
+  public void resolveAll(List<String> locations, BiConsumer<String, GeoLocation> consumer) {
+    for (String location : locations) {
+      consumer.accept(location, find(location));
+    }
+  }
+
+  /**
+   * Finds the place matching a location.
+   *
+   * @param locationName the name of the location
+   * @return the geolocation of the place, or null if no place matches
+   */
+  private GeoLocation find(String locationName) {
+    String key = GeocodeCacheDao.normalizeAddress(locationName);
+    GeoLocation location = places.get(key);
+    String[] parts = key.split(", ");
+    for (int i = parts.length - 1; location == null && i >= 0; i--) {
+      location = places.get(parts[i].replaceAll("[\\d ]+$", ""));
+    }
+    return location;
+  }
+}
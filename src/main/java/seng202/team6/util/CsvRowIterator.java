@@ -0,0 +1,136 @@
+package seng202.team6.util;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.LongSupplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Iterates over the rows of a CSV file one at a time without reading the whole file into memory.
+ * <p>
+ * If a row cannot be read the error is logged and the iteration ends, matching the behaviour of
+ * {@link ProcessCsv#getCsvRows(java.io.File)} which returns the rows read before the error. Callers
+ * which must not act on part of a file, such as an import, should call
+ * {@link #setFailOnError(boolean)} so the error is thrown instead. The iterator must be closed to
+ * release the underlying file.
+ * </p>
+ */
+public class CsvRowIterator implements Iterator<String[]>, Closeable {
+
+  private static final Logger log = LogManager.getLogger(CsvRowIterator.class);
+
+  private final CSVReader csvReader;
+  private final LongSupplier bytesRead;
+  private String[] nextRow;
+  private boolean finished;
+  private boolean failOnError;
+  private IOException error;
+
+  /**
+   * Constructs a new CsvRowIterator reading from the given reader.
+   *
+   * @param reader the reader to read CSV rows from
+   */
+  public CsvRowIterator(Reader reader) {
+    this(reader, () -> 0);
+  }
+
+  /**
+   * Constructs a new CsvRowIterator reading from the given reader which reports how many bytes of
+   * the underlying file have been read.
+   *
+   * @param reader    the reader to read CSV rows from
+   * @param bytesRead supplies the number of bytes read from the underlying file
+   */
+  public CsvRowIterator(Reader reader, LongSupplier bytesRead) {
+    this.csvReader = new CSVReader(reader);
+    this.bytesRead = bytesRead;
+  }
+
+  /**
+   * Sets whether a row which cannot be read fails the iteration rather than ending it.
+   *
+   * @param failOnError true to throw the error from {@link #hasNext()}
+   */
+  public void setFailOnError(boolean failOnError) {
+    this.failOnError = failOnError;
+  }
+
+  /**
+   * Checks whether there is another row, reading it from the file if needed.
+   *
+   * @return true if there is another row
+   * @throws UncheckedIOException if a row could not be read and the iterator fails on errors
+   */
+  @Override
+  public boolean hasNext() {
+    if (nextRow == null && !finished) {
+      try {
+        nextRow = csvReader.readNext();
+      } catch (IOException readError) {
+        log.error("Failed to read row {} from CSV file", csvReader.getLinesRead(), readError);
+        error = readError;
+      } catch (CsvValidationException readError) {
+        log.error("Failed to read row {} from CSV file", csvReader.getLinesRead(), readError);
+        error = new IOException("Failed to read row " + csvReader.getLinesRead(), readError);
+      }
+      finished = nextRow == null;
+    }
+    if (error != null && failOnError) {
+      throw new UncheckedIOException(error);
+    }
+    return nextRow != null;
+  }
+
+  /**
+   * Gets the error which ended the iteration early.
+   *
+   * @return the error, or null if every row read so far was read successfully
+   */
+  public IOException getError() {
+    return error;
+  }
+
+  /**
+   * Gets the next row.
+   *
+   * @return the next row
+   * @throws NoSuchElementException if there are no more rows
+   */
+  @Override
+  public String[] next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    String[] row = nextRow;
+    nextRow = null;
+    return row;
+  }
+
+  /**
+   * Gets the number of bytes read from the underlying file so far. This includes bytes buffered
+   * ahead of the current row. It may be called from any thread.
+   *
+   * @return the number of bytes read, or 0 if the iterator does not read from a file
+   */
+  public long getBytesRead() {
+    return bytesRead.getAsLong();
+  }
+
+  /**
+   * Closes the underlying reader.
+   *
+   * @throws IOException if the reader could not be closed
+   */
+  @Override
+  public void close() throws IOException {
+    csvReader.close();
+  }
+}
@@ -1,15 +1,24 @@
 package seng202.team6.util;
 
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
-import java.util.HashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 
 /**
  * Database objects are required to be unique in memory to assure consistency.
  * <p>
- * This class implements a simple weak cache to resolve that problem. Objects are stored with weak
- * references to prevent memory leaks.
+ * This class implements a weak identity map to resolve that problem. Objects are stored with weak
+ * references to prevent memory leaks. The map is split into shards by key, each with its own lock
+ * and its own open addressing table of primitive long keys, so DAOs may be read from several
+ * threads at once without contending on one lock or boxing keys.
+ * </p>
+ * <p>
+ * References are registered with a reference queue, and entries whose objects have been garbage
+ * collected are removed as the queue is drained on each write. Cleanup therefore costs time in
+ * proportion to the number of collected objects rather than a sweep of the whole map.
  * </p>
  *
  * @param <T> Object type
@@ -17,20 +26,46 @@ import java.util.HashMap;
 public class DatabaseObjectUniquer<T> {
 
   /**
-   * Object map.
+   * Number of shards, which must be a power of two.
+   */
+  private static final int SHARD_COUNT = 16;
+
+  /**
+   * Shards of the map, chosen by the high bits of the hashed key.
    */
-  private final HashMap<Long, WeakReference<T>> objects = new HashMap<>();
+  private final Shard<T>[] shards;
 
   /**
-   * Timer for garbage collection.
+   * Queue of references whose objects have been garbage collected.
    */
-  private int garbageCollectionTimer = 0;
+  private final ReferenceQueue<T> clearedReferences = new ReferenceQueue<>();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * Constructs a new empty DatabaseObjectUniquer.
+   */
+  @SuppressWarnings("unchecked")
+  public DatabaseObjectUniquer() {
+    shards = new Shard[SHARD_COUNT];
+    for (int i = 0; i < SHARD_COUNT; i++) {
+      shards[i] = new Shard<>();
+    }
+  }
 
   /**
-   * Tries to remove outdated references.
+   * Removes the entries of every object which has been garbage collected and queued so far.
    */
   public void tryGarbageCollect() {
-    objects.values().removeIf(object -> object.get() == null);
+    Reference<? extends T> reference;
+    while ((reference = clearedReferences.poll()) != null) {
+      KeyedReference<?> cleared = (KeyedReference<?>) reference;
+      if (shardOf(cleared.key).remove(cleared.key, cleared)) {
+        evictions.increment();
+      }
+    }
   }
 
   /**
@@ -40,15 +75,18 @@ public class DatabaseObjectUniquer<T> {
    * @return stored object or null
    */
   public T tryGetObject(long id) {
-    WeakReference<T> ref = objects.get(id);
-    if (ref == null) {
-      return null;
+    Shard<T> shard = shardOf(id);
+    KeyedReference<T> reference = shard.get(id);
+    T strongRef = reference == null ? null : reference.get();
+    if (strongRef != null) {
+      hits.increment();
+      return strongRef;
     }
-    T strongRef = ref.get();
-    if (strongRef == null) {
-      objects.remove(id);
+    misses.increment();
+    if (reference != null && shard.remove(id, reference)) {
+      evictions.increment();
     }
-    return strongRef;
+    return null;
   }
 
   /**
@@ -56,17 +94,35 @@ public class DatabaseObjectUniquer<T> {
    *
    * @param id     id
    * @param object object
+   * @throws IllegalStateException if a live object is already stored for the id
    */
   public void addObject(long id, T object) {
-    if (garbageCollectionTimer++ == 4096) {
-      tryGarbageCollect();
-      garbageCollectionTimer = 0;
-    }
-    if (objects.containsKey(id)) {
+    if (addObjectIfAbsent(id, object) != object) {
       throw new IllegalStateException(
           "Duplicate keys are not allowed and attempting indicates a leak");
     }
-    objects.put(id, new WeakReference<>(object));
+  }
+
+  /**
+   * Adds an object to the cache unless a live object is already stored for the id. Use this when
+   * the object may have been created concurrently by another thread after a cache miss.
+   *
+   * @param id     id
+   * @param object object
+   * @return the object stored for the id, which is the given object if there was none
+   */
+  public T addObjectIfAbsent(long id, T object) {
+    tryGarbageCollect();
+    Shard<T> shard = shardOf(id);
+    synchronized (shard) {
+      KeyedReference<T> existing = shard.get(id);
+      T strongRef = existing == null ? null : existing.get();
+      if (strongRef != null) {
+        return strongRef;
+      }
+      shard.put(id, new KeyedReference<>(id, object, clearedReferences));
+      return object;
+    }
   }
 
   /**
@@ -75,14 +131,16 @@ public class DatabaseObjectUniquer<T> {
    * @param id id
    */
   public void removeObject(long id) {
-    objects.remove(id);
+    shardOf(id).remove(id, null);
   }
 
   /**
    * Removes all objects from the cache.
    */
   public void removeAll() {
-    objects.clear();
+    for (Shard<T> shard : shards) {
+      shard.clear();
+    }
   }
 
   /**
@@ -91,15 +149,268 @@ public class DatabaseObjectUniquer<T> {
    * @return number of objects in map
    */
   public int size() {
-    return objects.size();
+    int size = 0;
+    for (Shard<T> shard : shards) {
+      size += shard.size();
+    }
+    return size;
   }
 
   /**
    * Clears all objects in cache.
    */
   public void clear() {
-    objects.clear();
+    removeAll();
+  }
+
+  /**
+   * Gets the number of lookups which found or missed an object, and the number of entries removed
+   * because their object was garbage collected.
+   *
+   * @return the statistics of this cache
+   */
+  public Statistics getStatistics() {
+    return new Statistics(hits.sum(), misses.sum(), evictions.sum(), size());
+  }
+
+  /**
+   * Finds the shard which stores a key.
+   *
+   * @param id id
+   * @return the shard of the key
+   */
+  private Shard<T> shardOf(long id) {
+    return shards[(int) (hash(id) >>> 60) & (SHARD_COUNT - 1)];
+  }
+
+  /**
+   * Spreads the bits of a key so that sequential IDs are distributed over shards and slots.
+   *
+   * @param id id
+   * @return the hash of the key
+   */
+  private static long hash(long id) {
+    long hash = id * 0x9E3779B97F4A7C15L;
+    return hash ^ (hash >>> 29);
+  }
+
+  /**
+   * Lookups and evictions of a cache.
+   *
+   * @param hits      the number of lookups which found a live object
+   * @param misses    the number of lookups which found no object
+   * @param evictions the number of entries removed because their object was garbage collected
+   * @param size      the number of entries, including any whose object has been collected
+   */
+  public record Statistics(long hits, long misses, long evictions, int size) {
+
+    /**
+     * Gets the share of lookups which found a live object.
+     *
+     * @return the hit rate between 0 and 1, or 0 if there were no lookups
+     */
+    public double hitRate() {
+      long total = hits + misses;
+      return total == 0 ? 0 : (double) hits / total;
+    }
   }
 
+  /**
+   * Weak reference which remembers its key so it can be removed once it has been queued.
+   *
+   * @param <T> Object type
+   */
+  private static class KeyedReference<T> extends WeakReference<T> {
+
+    private final long key;
+
+    /**
+     * Constructs a new KeyedReference.
+     *
+     * @param key    the key of the object
+     * @param object the object
+     * @param queue  the queue to register the reference with
+     */
+    KeyedReference(long key, T object, ReferenceQueue<T> queue) {
+      super(object, queue);
+      this.key = key;
+    }
+  }
+
+  /**
+   * Open addressing hash table from primitive long keys to references, using linear probing. All
+   * methods lock the shard.
+   *
+   * @param <T> Object type
+   */
+  private static class Shard<T> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private long[] keys;
+    private KeyedReference<T>[] references;
+    private int size;
+
+    /**
+     * Constructs a new empty shard.
+     */
+    Shard() {
+      allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Gets the reference stored for a key.
+     *
+     * @param key the key
+     * @return the reference, or null if there is none
+     */
+    synchronized KeyedReference<T> get(long key) {
+      int slot = find(key);
+      return slot == -1 ? null : references[slot];
+    }
+
+    /**
+     * Stores a reference for a key, replacing any reference already stored.
+     *
+     * @param key       the key
+     * @param reference the reference
+     */
+    synchronized void put(long key, KeyedReference<T> reference) {
+      int slot = find(key);
+      if (slot != -1) {
+        references[slot] = reference;
+        return;
+      }
+      if ((size + 1) * 4 > references.length * 3) {
+        resize(references.length * 2);
+      }
+      insert(key, reference);
+      size++;
+    }
+
+    /**
+     * Removes the reference stored for a key.
+     *
+     * @param key       the key
+     * @param reference the reference to remove, or null to remove any reference
+     * @return true if a reference was removed
+     */
+    synchronized boolean remove(long key, KeyedReference<?> reference) {
+      int slot = find(key);
+      if (slot == -1 || (reference != null && references[slot] != reference)) {
+        return false;
+      }
+      removeAt(slot);
+      return true;
+    }
+
+    /**
+     * Gets the number of stored references.
+     *
+     * @return the number of references
+     */
+    synchronized int size() {
+      return size;
+    }
+
+    /**
+     * Removes every reference.
+     */
+    synchronized void clear() {
+      allocate(INITIAL_CAPACITY);
+      size = 0;
+    }
+
+    /**
+     * Finds the slot of a key.
+     *
+     * @param key the key
+     * @return the slot, or -1 if the key is not stored
+     */
+    private int find(long key) {
+      int mask = references.length - 1;
+      for (int slot = idealSlot(key, mask); references[slot] != null; slot = (slot + 1) & mask) {
+        if (keys[slot] == key) {
+          return slot;
+        }
+      }
+      return -1;
+    }
 
+    /**
+     * Inserts a key which is not stored into the first free slot of its probe sequence.
+     *
+     * @param key       the key
+     * @param reference the reference
+     */
+    private void insert(long key, KeyedReference<T> reference) {
+      int mask = references.length - 1;
+      int slot = idealSlot(key, mask);
+      while (references[slot] != null) {
+        slot = (slot + 1) & mask;
+      }
+      keys[slot] = key;
+      references[slot] = reference;
+    }
+
+    /**
+     * Removes the reference in a slot, shifting later entries of the same probe sequence back so
+     * that lookups do not need tombstones.
+     *
+     * @param slot the slot to empty
+     */
+    private void removeAt(int slot) {
+      int mask = references.length - 1;
+      int gap = slot;
+      for (int next = (slot + 1) & mask; references[next] != null; next = (next + 1) & mask) {
+        int ideal = idealSlot(keys[next], mask);
+        // the entry can fill the gap if the gap lies between its ideal slot and its slot
+        if (((next - ideal) & mask) >= ((next - gap) & mask)) {
+          keys[gap] = keys[next];
+          references[gap] = references[next];
+          gap = next;
+        }
+      }
+      references[gap] = null;
+      size--;
+    }
+
+    /**
+     * Moves every entry into a table of a new capacity.
+     *
+     * @param capacity the new capacity, which must be a power of two
+     */
+    private void resize(int capacity) {
+      long[] oldKeys = keys;
+      KeyedReference<T>[] oldReferences = references;
+      allocate(capacity);
+      for (int slot = 0; slot < oldReferences.length; slot++) {
+        if (oldReferences[slot] != null) {
+          insert(oldKeys[slot], oldReferences[slot]);
+        }
+      }
+    }
+
+    /**
+     * Allocates an empty table.
+     *
+     * @param capacity the capacity, which must be a power of two
+     */
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+      keys = new long[capacity];
+      references = new KeyedReference[capacity];
+    }
+
+    /**
+     * Gets the first slot of the probe sequence of a key.
+     *
+     * @param key  the key
+     * @param mask the capacity of the table minus one
+     * @return the slot
+     */
+    private static int idealSlot(long key, int mask) {
+      return (int) hash(key) & mask;
+    }
+  }
 }
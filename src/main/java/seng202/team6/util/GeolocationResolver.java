@@ -11,12 +11,18 @@ import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.function.BiConsumer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.json.simple.JSONArray;
@@ -30,9 +36,28 @@ import seng202.team6.model.GeoLocation;
  * locations, as well as finding driving routes between geographical points. It interacts with the
  * OpenRouteService (ORS) API to perform geocoding and routing requests.
  */
-public class GeolocationResolver {
+public class GeolocationResolver implements LocationResolver {
 
   private static final int MAX_REQUESTS_PER_MINUTE = 100; // ORS has a cap of 100 requests per min
+  private static final int REQUEST_BURST = 10;
+  private static final int MAX_CONCURRENT_REQUESTS = 8;
+  private static final int MAX_ATTEMPTS = 4;
+  private static final long INITIAL_BACKOFF_MILLISECONDS = 1000;
+  private static final long MAX_BACKOFF_MILLISECONDS = 60_000;
+
+  /**
+   * The limit of the API key, which is shared by every resolver. The burst is taken out of the
+   * steady rate, so a full burst followed by a minute of refills stays within the ORS cap.
+   */
+  private static final RateLimiter RATE_LIMITER = new RateLimiter(
+      (MAX_REQUESTS_PER_MINUTE - REQUEST_BURST) / 60.0, REQUEST_BURST);
+
+  /**
+   * Runs each lookup on its own virtual thread, which can wait on the rate limiter and the
+   * response without holding up a platform thread.
+   */
+  private static final ExecutorService LOOKUP_EXECUTOR =
+      Executors.newVirtualThreadPerTaskExecutor();
   private static final String API_KEY;
   private static final String GEOLOCATION_API_URL;
   private static final String ROUTING_API_URL;
@@ -76,97 +101,146 @@ public class GeolocationResolver {
   }
 
   /**
-   * Resolves the geographical coordinates of a list of location names. This method splits the
-   * locations into batches of requests, ensuring compliance with the rate limits of the ORS API. It
-   * performs these requests asynchronously.
+   * Resolves the geographical coordinates of a list of location names, passing each result on as
+   * soon as it arrives. Each location is looked up on its own virtual thread, with at most
+   * {@link #MAX_CONCURRENT_REQUESTS} requests in flight and requests spaced out by the shared rate
+   * limiter, so the lookups take as long as the rate limit requires rather than a minute for each
+   * batch of requests. If the calling thread is interrupted, the unfinished lookups are cancelled.
    *
    * @param locations a list of location names to be geocoded.
-   * @return a map of location names to their respective GeoLocation objects.
+   * @param consumer  the consumer of each location name and its GeoLocation object, or null for
+   *                  locations which ORS could not find. Locations whose request failed are not
+   *                  passed on.
    */
-  public Map<String, GeoLocation> resolveAll(List<String> locations) {
-    Map<String, CompletableFuture<GeoLocation>> futuresMap = new ConcurrentHashMap<>();
-
-    int totalRequests = locations.size();
-    List<CompletableFuture<Void>> allBatches = new ArrayList<>();
-
-    for (int i = 0; i < totalRequests; i += MAX_REQUESTS_PER_MINUTE) {
-      List<String> batch = locations.subList(i,
-          Math.min(i + MAX_REQUESTS_PER_MINUTE, totalRequests));
-
-      batch.forEach(location -> {
-        CompletableFuture<GeoLocation> future = resolveLocation(location);
-        futuresMap.put(location, future);
-      });
-
-      // collect all futures in this batch
-      CompletableFuture<Void> batchFuture = CompletableFuture.allOf(
-          batch.stream().map(futuresMap::get).toArray(CompletableFuture[]::new)
-      );
-      allBatches.add(batchFuture);
-
-      // throttle by waiting for 60 seconds between batches
-      // not really any way around this
-      if (i + MAX_REQUESTS_PER_MINUTE < totalRequests) {
-        batchFuture.thenRun(() -> {
+  @Override
+  public void resolveAll(List<String> locations, BiConsumer<String, GeoLocation> consumer) {
+    Timer timer = new Timer();
+    Semaphore inFlight = new Semaphore(MAX_CONCURRENT_REQUESTS);
+    BlockingQueue<LookupResult> results = new LinkedBlockingQueue<>();
+    List<Future<?>> lookups = new ArrayList<>(locations.size());
+    for (String location : locations) {
+      lookups.add(LOOKUP_EXECUTOR.submit(() -> {
+        try {
+          inFlight.acquire();
           try {
-            TimeUnit.SECONDS.sleep(60); // wait for 60 seconds
-          } catch (InterruptedException e) {
-            throw new RuntimeException(e);
+            results.add(new LookupResult(location, lookUp(location), null));
+          } finally {
+            inFlight.release();
           }
-        }).join();
-      }
+        } catch (Exception error) {
+          results.add(new LookupResult(location, null, error));
+        }
+      }));
     }
 
-    // wait for all batches to complete
-    CompletableFuture<Void> allFutures = CompletableFuture.allOf(
-        allBatches.toArray(new CompletableFuture[0])
-    );
-    allFutures.join();
-
-    // Collect results into a Map<String, GeoLocation>
-    return futuresMap.entrySet().stream()
-        .collect(Collectors.toMap(
-            Map.Entry::getKey,
-            entry -> entry.getValue().join(),
-            (e1, e2) -> e1,  // handle key collisions if any
-            ConcurrentHashMap::new
-        ));
+    // results are passed on from this thread so the consumer does not have to be thread safe
+    int failed = 0;
+    try {
+      for (int i = 0; i < locations.size(); i++) {
+        LookupResult result = results.take();
+        if (result.error() != null) {
+          failed++;
+          log.warn("Leaving out location '{}' as its request failed", result.location(),
+              result.error());
+        } else {
+          consumer.accept(result.location(), result.geoLocation());
+        }
+      }
+    } catch (InterruptedException error) {
+      // stop the lookups which are still waiting so they do not use up the rate limit
+      lookups.forEach(lookup -> lookup.cancel(true));
+      Thread.currentThread().interrupt();
+      log.warn("Cancelled location requests as the thread was interrupted");
+      return;
+    }
+    log.info("Successfully resolved {} out of {} locations in {}ms", locations.size() - failed,
+        locations.size(), timer.currentOffsetMilliseconds());
   }
 
   /**
-   * Resolves the geographical coordinates of a single location asynchronously. The method sends an
-   * HTTP request to the ORS geocoding API and parses the response to extract the coordinates.
+   * Resolves the geographical coordinates of a single location asynchronously. The request is
+   * sent from a virtual thread once the shared rate limiter allows it.
    *
    * @param locationName the name of the location to be geocoded.
-   * @return a CompletableFuture containing the GeoLocation object for the resolved location.
+   * @return a CompletableFuture containing the GeoLocation object for the resolved location, or
+   *     null if ORS could not find it. The future fails if ORS did not answer successfully.
    */
+  @Override
   public CompletableFuture<GeoLocation> resolveLocation(String locationName) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return lookUp(locationName);
+      } catch (IOException | InterruptedException error) {
+        log.error("Encountered an error sending location resolver request", error);
+        throw new CompletionException(error); // Propagate the error
+      }
+    }, LOOKUP_EXECUTOR);
+  }
+
+  /**
+   * Sends a geocoding request for a location, waiting for the rate limiter first. Requests which
+   * are rate limited or hit a server error are retried with exponential backoff, or after the
+   * delay ORS asks for.
+   *
+   * @param locationName the name of the location to be geocoded.
+   * @return the GeoLocation object for the location, or null if ORS could not find it.
+   * @throws IOException          if the request failed or ORS did not answer successfully.
+   * @throws InterruptedException if the thread was interrupted while waiting.
+   */
+  private GeoLocation lookUp(String locationName) throws IOException, InterruptedException {
     Timer timer = new Timer();
     String encodedLocationName = URLEncoder.encode(locationName, StandardCharsets.UTF_8);
-    String url = GEOLOCATION_API_URL + "&text=" + encodedLocationName;
-    try {
-      HttpRequest request = HttpRequest.newBuilder()
-          .uri(new URI(url))
-          .header("User-Agent", "Java 21 Http Client")
-          .header("content-type", "application/json")
-          .GET()
-          .build();
+    HttpRequest request = HttpRequest.newBuilder()
+        .uri(URI.create(GEOLOCATION_API_URL + "&text=" + encodedLocationName))
+        .header("User-Agent", "Java 21 Http Client")
+        .header("content-type", "application/json")
+        .GET()
+        .build();
 
-      return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
-          .thenApply(response -> {
-            log.info("Status code for location '{}': {}", locationName, response.statusCode());
-            return response.body();
-          })
-          .thenApply(response -> parseResponse(locationName, response, timer))
-          .exceptionally(error -> {
-            log.error("Encountered an error sending location resolver request", error);
-            throw new CompletionException(error); // Propagate the error
-          });
-    } catch (URISyntaxException e) {
-      throw new RuntimeException(e);
+    for (int attempt = 1; ; attempt++) {
+      RATE_LIMITER.acquire();
+      HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+      int statusCode = response.statusCode();
+      log.info("Status code for location '{}': {}", locationName, statusCode);
+      if (statusCode == 200) {
+        return parseResponse(locationName, response.body(), timer);
+      }
+      // an error such as a rate limit says nothing about whether the location exists
+      boolean retryable = statusCode == 429 || statusCode >= 500;
+      if (!retryable || attempt == MAX_ATTEMPTS) {
+        throw new IOException("ORS responded with status code " + statusCode);
+      }
+      long delay = retryDelayMilliseconds(response, attempt);
+      log.warn("Retrying location '{}' in {}ms after status code {}", locationName, delay,
+          statusCode);
+      Thread.sleep(delay);
     }
   }
 
+  /**
+   * Works out how long to wait before retrying a request. The Retry-After header is used if ORS
+   * sent one, and otherwise the delay doubles with each attempt with some random jitter so that
+   * requests which failed together are not retried together.
+   *
+   * @param response the response of the failed attempt.
+   * @param attempt  the number of the failed attempt, starting from 1.
+   * @return the delay in milliseconds.
+   */
+  private static long retryDelayMilliseconds(HttpResponse<String> response, int attempt) {
+    Optional<String> retryAfter = response.headers().firstValue("Retry-After");
+    if (retryAfter.isPresent()) {
+      try {
+        return Math.min(MAX_BACKOFF_MILLISECONDS,
+            TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.get().strip())));
+      } catch (NumberFormatException e) {
+        // an HTTP date rather than a number of seconds, so fall back to backing off
+      }
+    }
+    long backoff = Math.min(MAX_BACKOFF_MILLISECONDS,
+        INITIAL_BACKOFF_MILLISECONDS << (attempt - 1));
+    return backoff + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+  }
+
   /**
    * Parses the geocoding response from the ORS API and extracts the geographical coordinates.
    *
@@ -174,9 +248,11 @@ public class GeolocationResolver {
    * @param responseBody the response body from the ORS API.
    * @param timer        a timer object to measure the time taken for the request.
    * @return a GeoLocation object containing the latitude and longitude of the location, or null if
-   *        the location could not be resolved.
+   *        ORS could not find the location.
+   * @throws IOException if the response could not be parsed.
    */
-  private GeoLocation parseResponse(String locationName, String responseBody, Timer timer) {
+  private GeoLocation parseResponse(String locationName, String responseBody, Timer timer)
+      throws IOException {
     JSONParser jsonParser = new JSONParser();
     try {
       JSONObject jsonObject = (JSONObject) jsonParser.parse(responseBody);
@@ -196,6 +272,8 @@ public class GeolocationResolver {
           timer.currentOffsetMilliseconds());
     } catch (Exception e) {
       log.error("Failed to resolve location with search string '{}'", locationName, e);
+      // an unreadable response says nothing about whether the location exists
+      throw new IOException("Failed to parse the response for location " + locationName, e);
     }
     return null;
   }
@@ -264,4 +342,14 @@ public class GeolocationResolver {
     }
   }
 
+  /**
+   * The outcome of looking up a location.
+   *
+   * @param location    the name of the location
+   * @param geoLocation the geolocation of the location, or null if ORS could not find it
+   * @param error       the error which failed the lookup, or null if it succeeded
+   */
+  private record LookupResult(String location, GeoLocation geoLocation, Exception error) {
+
+  }
 }
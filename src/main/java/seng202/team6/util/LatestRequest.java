@@ -0,0 +1,41 @@
+package seng202.team6.util;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Keeps track of the latest asynchronous request of a kind, such as loading a page of wines.
+ * <p>
+ * When a new request replaces the previous one, the previous request is cancelled. A cancelled
+ * request which has not started yet is never run, and the result of one which has already started
+ * is discarded, so a slow stale query can never overwrite the results of a newer one.
+ * </p>
+ *
+ * @param <T> the type of the result of the request
+ */
+public class LatestRequest<T> {
+
+  private CompletableFuture<T> current;
+
+  /**
+   * Replaces the current request with a new one, cancelling the current request if it has not
+   * completed yet.
+   *
+   * @param request the new request
+   * @return the new request
+   */
+  public synchronized CompletableFuture<T> replace(CompletableFuture<T> request) {
+    cancel();
+    current = request;
+    return request;
+  }
+
+  /**
+   * Cancels the current request if it has not completed yet.
+   */
+  public synchronized void cancel() {
+    if (current != null) {
+      current.cancel(false);
+      current = null;
+    }
+  }
+}
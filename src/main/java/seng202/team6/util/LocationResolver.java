@@ -0,0 +1,52 @@
+package seng202.team6.util;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import seng202.team6.model.GeoLocation;
+
+/**
+ * Resolves the geographical coordinates of location names, such as vineyard addresses.
+ * <p>
+ * A location which was looked up but does not exist resolves to null, while a lookup which could
+ * not be made, such as one that failed to reach a geocoding service, fails instead. Callers can
+ * then remember locations which do not exist without remembering transient failures.
+ * </p>
+ */
+public interface LocationResolver {
+
+  /**
+   * Resolves the geographical coordinates of a single location asynchronously.
+   *
+   * @param locationName the name of the location
+   * @return a future of the geolocation of the location, or of null if the location does not
+   *     exist, which completes exceptionally if the location could not be looked up
+   */
+  CompletableFuture<GeoLocation> resolveLocation(String locationName);
+
+  /**
+   * Resolves the geographical coordinates of many locations, passing each result on as soon as it
+   * arrives. Results are passed on the calling thread, which returns once every lookup is done.
+   *
+   * @param locations the names of the locations
+   * @param consumer  the consumer of each location which was looked up and its geolocation, or
+   *                  null if the location does not exist. Locations which could not be looked up
+   *                  are not passed on
+   */
+  void resolveAll(List<String> locations, BiConsumer<String, GeoLocation> consumer);
+
+  /**
+   * Resolves the geographical coordinates of many locations, waiting for every lookup.
+   *
+   * @param locations the names of the locations
+   * @return a map of every location which was looked up to its geolocation, or to null if the
+   *     location does not exist. Locations which could not be looked up are left out
+   */
+  default Map<String, GeoLocation> resolveAll(List<String> locations) {
+    Map<String, GeoLocation> resolved = new HashMap<>();
+    resolveAll(locations, resolved::put);
+    return resolved;
+  }
+}
@@ -4,9 +4,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.ibm.icu.text.CharsetDetector;
 import com.ibm.icu.text.CharsetMatch;
-import com.opencsv.CSVReader;
-import com.opencsv.exceptions.CsvValidationException;
-import java.io.ByteArrayInputStream;
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -24,6 +22,30 @@ public class ProcessCsv {
 
   private static final Logger log = LogManager.getLogger(ProcessCsv.class);
 
+  /**
+   * Opens a CSV file for reading one row at a time.
+   * <p>
+   * The file encoding is detected from a leading sample of the file only, so the memory used does
+   * not grow with the size of the file. If the encoding detection fails, the file will be read as
+   * UTF-8.
+   * </p>
+   *
+   * @param file the CSV file to read
+   * @return an iterator over the rows of the file, which must be closed once finished with
+   * @throws IOException if the file could not be opened
+   */
+  public static CsvRowIterator openCsvRows(File file) throws IOException {
+    CountingInputStream counter = new CountingInputStream(Files.newInputStream(file.toPath()));
+    InputStream input = new BufferedInputStream(counter);
+    try {
+      String detectedCharset = detectFileEncoding(input);
+      return new CsvRowIterator(new InputStreamReader(input, detectedCharset), counter::getCount);
+    } catch (IOException error) {
+      input.close();
+      throw error;
+    }
+  }
+
   /**
    * Gets a CSV file as a list of rows.
    * <p>
@@ -35,26 +57,24 @@ public class ProcessCsv {
    * @return a list of rows from the CSV input stream, or an empty list if the reading fails
    */
   public static List<String[]> getCsvRows(File file) {
-    List<String[]> rows = new ArrayList<>();
-    byte[] fileBytes;
-
-    // read the all the bytes from the file. this can be used to detect encoding and read the csv
-    // file without having to read the file twice
-    try {
-      fileBytes = Files.readAllBytes(file.toPath());
-
-      String detectedCharset = detectFileEncoding(fileBytes);
-    } catch (IOException e) {
-      log.error("Failed to read the file: {}", file.getAbsolutePath(), e);
-      return rows;
-    }
+    return getCsvRows(file, Integer.MAX_VALUE);
+  }
 
-    // detect encoding using ICU4J then try read the CSV rows using it
-    String detectedCharset = detectFileEncoding(fileBytes);
-    try (InputStreamReader inputStreamReader = new InputStreamReader(
-        new ByteArrayInputStream(fileBytes), detectedCharset)) {
-      readCsvRows(inputStreamReader, rows);
-    } catch (IOException | CsvValidationException error) {
+  /**
+   * Gets the first rows of a CSV file, stopping once the given number of rows has been read so
+   * previewing a large file does not read all of it.
+   *
+   * @param file    the CSV file to read
+   * @param maxRows the maximum number of rows to read, including the header row
+   * @return a list of at most maxRows rows, or an empty list if the reading fails
+   */
+  public static List<String[]> getCsvRows(File file, int maxRows) {
+    List<String[]> rows = new ArrayList<>();
+    try (CsvRowIterator iterator = openCsvRows(file)) {
+      while (rows.size() < maxRows && iterator.hasNext()) {
+        rows.add(iterator.next());
+      }
+    } catch (IOException error) {
       log.error("Failed to read rows from CSV file: {}", file.getAbsolutePath(), error);
     }
     return rows;
@@ -68,40 +88,25 @@ public class ProcessCsv {
    */
   public static List<String[]> getCsvRows(InputStream input) {
     List<String[]> rows = new ArrayList<>();
-    try (InputStreamReader inputStreamReader = new InputStreamReader(input, UTF_8)) {
-      readCsvRows(inputStreamReader, rows);
-    } catch (IOException | CsvValidationException error) {
+    try (CsvRowIterator iterator = new CsvRowIterator(new InputStreamReader(input, UTF_8))) {
+      iterator.forEachRemaining(rows::add);
+    } catch (IOException error) {
       log.error("Failed to read rows from resource", error);
     }
     return rows;
   }
 
   /**
-   * Reads the CSV rows from an input stream reader and adds them to the provided list.
-   *
-   * @param inputStreamReader the input stream reader to read from
-   * @param rows              the list to add the read rows to
-   * @throws IOException            if an I/O error occurs while reading
-   * @throws CsvValidationException if a CSV validation error occurs
-   */
-  private static void readCsvRows(InputStreamReader inputStreamReader, List<String[]> rows)
-      throws IOException, CsvValidationException {
-    CSVReader csvReader = new CSVReader(inputStreamReader);
-    String[] nextLine;
-    while ((nextLine = csvReader.readNext()) != null) {
-      rows.add(nextLine);
-    }
-  }
-
-  /**
-   * Detects the file encoding of the provided byte array using ICU4J's character detector.
+   * Detects the encoding of an input stream using ICU4J's character detector. Only a leading
+   * sample of the stream is inspected, after which the stream is reset to its start.
    *
-   * @param fileBytes the byte array of the file
+   * @param input the input stream, which must support mark and reset
    * @return the name of the detected charset, or UTF-8 is detection fails
+   * @throws IOException if the sample could not be read
    */
-  private static String detectFileEncoding(byte[] fileBytes) {
+  private static String detectFileEncoding(InputStream input) throws IOException {
     CharsetDetector charsetDetector = new CharsetDetector();
-    charsetDetector.setText(fileBytes);
+    charsetDetector.setText(input);
     CharsetMatch match = charsetDetector.detect();
     return match != null ? match.getName() : UTF_8.name();
   }
@@ -0,0 +1,99 @@
+package seng202.team6.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * A token bucket which limits how often an action, such as a request to a web API, is taken.
+ * <p>
+ * The bucket refills at a steady rate up to its burst size, and every action takes a token. When
+ * the bucket is empty the next token is reserved ahead of time and the caller waits for it, so
+ * waiting callers are served in order at exactly the refill rate. Callers wait without holding
+ * the lock of the limiter, so many threads, such as virtual threads, can share one limiter.
+ * </p>
+ */
+public class RateLimiter {
+
+  private final double nanosPerPermit;
+  private final int burst;
+  private final LongSupplier nanoClock;
+  private double tokens;
+  private long lastRefillNanos;
+
+  /**
+   * Constructs a full rate limiter.
+   *
+   * @param permitsPerSecond the steady number of actions allowed each second
+   * @param burst            the number of actions which may be taken at once after a quiet period
+   */
+  public RateLimiter(double permitsPerSecond, int burst) {
+    this(permitsPerSecond, burst, System::nanoTime);
+  }
+
+  /**
+   * Constructs a full rate limiter which reads the time from a clock.
+   *
+   * @param permitsPerSecond the steady number of actions allowed each second
+   * @param burst            the number of actions which may be taken at once after a quiet period
+   * @param nanoClock        the clock, which counts nanoseconds like {@link System#nanoTime()}
+   */
+  public RateLimiter(double permitsPerSecond, int burst, LongSupplier nanoClock) {
+    if (permitsPerSecond <= 0 || burst < 1) {
+      throw new IllegalArgumentException("The rate and burst of a rate limiter must be positive");
+    }
+    this.nanosPerPermit = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+    this.burst = burst;
+    this.nanoClock = nanoClock;
+    this.tokens = burst;
+    this.lastRefillNanos = nanoClock.getAsLong();
+  }
+
+  /**
+   * Takes a token, waiting until one is available.
+   *
+   * @throws InterruptedException if the thread is interrupted while waiting, in which case the
+   *                              token is still used up
+   */
+  public void acquire() throws InterruptedException {
+    long waitNanos = reserve();
+    if (waitNanos > 0) {
+      TimeUnit.NANOSECONDS.sleep(waitNanos);
+    }
+  }
+
+  /**
+   * Takes a token if one is available now, without waiting.
+   *
+   * @return true if a token was taken, false if the bucket is empty
+   */
+  public synchronized boolean tryAcquire() {
+    refill();
+    if (tokens < 1) {
+      return false;
+    }
+    tokens--;
+    return true;
+  }
+
+  /**
+   * Reserves the next token, which may not be available yet.
+   *
+   * @return the number of nanoseconds until the reserved token is available, or 0 if it is
+   *     available now
+   */
+  public synchronized long reserve() {
+    refill();
+    tokens--;
+    // a negative balance is the tokens already reserved by waiting callers
+    return tokens >= 0 ? 0 : (long) Math.ceil(-tokens * nanosPerPermit);
+  }
+
+  /**
+   * Adds the tokens which have accumulated since the last refill, up to the burst size.
+   */
+  private void refill() {
+    long now = nanoClock.getAsLong();
+    tokens = Math.min(burst, tokens + (now - lastRefillNanos) / nanosPerPermit);
+    lastRefillNanos = now;
+  }
+}
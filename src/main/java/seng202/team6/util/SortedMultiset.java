@@ -0,0 +1,222 @@
+package seng202.team6.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A sorted set which counts how many times each value has been added, so a value only leaves the
+ * set once every occurrence of it has been removed.
+ * <p>
+ * Values are kept in a red-black tree, so adding and removing a value and finding the smallest and
+ * largest values all take O(log n) time in the number of distinct values. Null values are ignored.
+ * </p>
+ *
+ * @param <T> the type of the values
+ */
+public class SortedMultiset<T extends Comparable<? super T>> {
+
+  private final NavigableMap<T, Integer> counts = new TreeMap<>();
+  private final Set<T> elementSet = Collections.unmodifiableSet(counts.keySet());
+
+  /**
+   * Adds an occurrence of a value.
+   *
+   * @param value the value to add
+   * @return true if the value was not in the set before
+   */
+  public boolean add(T value) {
+    return add(value, 1);
+  }
+
+  /**
+   * Adds a number of occurrences of a value.
+   *
+   * @param value the value to add
+   * @param count the number of occurrences to add
+   * @return true if the value was not in the set before
+   */
+  public boolean add(T value, int count) {
+    if (value == null || count <= 0) {
+      return false;
+    }
+    return counts.merge(value, count, Integer::sum) == count;
+  }
+
+  /**
+   * Removes an occurrence of a value.
+   *
+   * @param value the value to remove
+   * @return true if the last occurrence of the value was removed
+   */
+  public boolean remove(T value) {
+    if (value == null) {
+      return false;
+    }
+    Integer count = counts.get(value);
+    if (count == null) {
+      return false;
+    }
+    if (count == 1) {
+      counts.remove(value);
+      return true;
+    }
+    counts.put(value, count - 1);
+    return false;
+  }
+
+  /**
+   * Replaces an occurrence of one value with another, as when the value of an attribute changes.
+   *
+   * @param before the value to remove an occurrence of
+   * @param after  the value to add an occurrence of
+   */
+  public void replace(T before, T after) {
+    remove(before);
+    add(after);
+  }
+
+  /**
+   * Adds every occurrence of every value in another multiset.
+   *
+   * @param other the multiset to add
+   */
+  public void addAll(SortedMultiset<T> other) {
+    other.counts.forEach(this::add);
+  }
+
+  /**
+   * Gets the number of occurrences of a value.
+   *
+   * @param value the value
+   * @return the number of occurrences, 0 if the value is not in the set
+   */
+  public int count(T value) {
+    return value == null ? 0 : counts.getOrDefault(value, 0);
+  }
+
+  /**
+   * Gets the smallest value.
+   *
+   * @return the smallest value, or null if the set is empty
+   */
+  public T first() {
+    return counts.isEmpty() ? null : counts.firstKey();
+  }
+
+  /**
+   * Gets the largest value.
+   *
+   * @return the largest value, or null if the set is empty
+   */
+  public T last() {
+    return counts.isEmpty() ? null : counts.lastKey();
+  }
+
+  /**
+   * Checks whether the set has no values.
+   *
+   * @return true if the set is empty
+   */
+  public boolean isEmpty() {
+    return counts.isEmpty();
+  }
+
+  /**
+   * Gets a read-only view of the distinct values in ascending order, which reflects later changes.
+   *
+   * @return the distinct values
+   */
+  public Set<T> elementSet() {
+    return elementSet;
+  }
+
+  /**
+   * Gets a read-only view of the number of occurrences of each value in ascending order of value.
+   *
+   * @return the count of each distinct value
+   */
+  public Map<T, Integer> counts() {
+    return Collections.unmodifiableMap(counts);
+  }
+
+  /**
+   * Removes every value.
+   */
+  public void clear() {
+    counts.clear();
+  }
+
+  /**
+   * Writes the distinct values and their counts to an output.
+   *
+   * @param output the output to write to
+   * @param writer writes a single value
+   * @throws IOException if the output could not be written
+   */
+  public void writeTo(DataOutput output, ValueWriter<T> writer) throws IOException {
+    output.writeInt(counts.size());
+    for (Map.Entry<T, Integer> entry : counts.entrySet()) {
+      writer.write(output, entry.getKey());
+      output.writeInt(entry.getValue());
+    }
+  }
+
+  /**
+   * Replaces the values of this multiset with values written by
+   * {@link #writeTo(DataOutput, ValueWriter)}.
+   *
+   * @param input  the input to read from
+   * @param reader reads a single value
+   * @throws IOException if the input could not be read
+   */
+  public void readFrom(DataInput input, ValueReader<T> reader) throws IOException {
+    counts.clear();
+    int size = input.readInt();
+    for (int i = 0; i < size; i++) {
+      T value = reader.read(input);
+      add(value, input.readInt());
+    }
+  }
+
+  /**
+   * Writes a single value of a multiset.
+   *
+   * @param <T> the type of the values
+   */
+  @FunctionalInterface
+  public interface ValueWriter<T> {
+
+    /**
+     * Writes a value.
+     *
+     * @param output the output to write to
+     * @param value  the value
+     * @throws IOException if the output could not be written
+     */
+    void write(DataOutput output, T value) throws IOException;
+  }
+
+  /**
+   * Reads a single value of a multiset.
+   *
+   * @param <T> the type of the values
+   */
+  @FunctionalInterface
+  public interface ValueReader<T> {
+
+    /**
+     * Reads a value.
+     *
+     * @param input the input to read from
+     * @return the value
+     * @throws IOException if the input could not be read
+     */
+    T read(DataInput input) throws IOException;
+  }
+}
@@ -0,0 +1,331 @@
+package seng202.team6.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An immutable index of strings which finds the entries containing some text, ignoring case, for
+ * auto-complete suggestions.
+ * <p>
+ * Every entry is lowercased once when the index is built and the entries are sorted, so the entries
+ * starting with the text form a single range which is found by binary search, like a prefix trie
+ * but without a node per character. For the entries containing the text elsewhere, every
+ * three-character sequence (trigram) of each entry is indexed, and only the entries which contain
+ * every trigram of the text are checked instead of every entry. Text too short to have a trigram
+ * is only searched for until enough suggestions are found.
+ * </p>
+ * <p>
+ * Building an index of 100k entries takes a noticeable amount of time, so it should be built off
+ * the JavaFX thread. An index is immutable, so it can then be handed to the JavaFX thread safely.
+ * </p>
+ */
+public final class SuggestionIndex {
+
+  private static final int GRAM_LENGTH = 3;
+  private static final int[] NO_MATCHES = new int[0];
+
+  private final String[] entries;
+  private final String[] lowered;
+  private final Map<Long, int[]> trigrams;
+
+  /**
+   * Constructs an index of the given entries.
+   *
+   * @param entries the entries
+   */
+  private SuggestionIndex(Collection<String> entries) {
+    String[][] pairs = entries.stream()
+        .map(entry -> new String[]{entry.toLowerCase(Locale.ROOT), entry})
+        .sorted(Comparator.<String[], String>comparing(pair -> pair[0])
+            .thenComparing(pair -> pair[1]))
+        .toArray(String[][]::new);
+    this.entries = new String[pairs.length];
+    this.lowered = new String[pairs.length];
+    for (int i = 0; i < pairs.length; i++) {
+      this.lowered[i] = pairs[i][0];
+      this.entries[i] = pairs[i][1];
+    }
+    this.trigrams = indexTrigrams(lowered);
+  }
+
+  /**
+   * Builds an index of the given entries. Null entries are ignored.
+   *
+   * @param entries the entries
+   * @return the index
+   */
+  public static SuggestionIndex of(Collection<String> entries) {
+    List<String> nonNull = new ArrayList<>(entries.size());
+    for (String entry : entries) {
+      if (entry != null) {
+        nonNull.add(entry);
+      }
+    }
+    return new SuggestionIndex(nonNull);
+  }
+
+  /**
+   * Gets the number of entries in the index.
+   *
+   * @return the number of entries
+   */
+  public int size() {
+    return entries.length;
+  }
+
+  /**
+   * Finds the entries containing some text, ignoring case. Entries starting with the text come
+   * first, and the entries are otherwise in alphabetical order.
+   *
+   * @param text  the text to search for
+   * @param limit the maximum number of entries to return
+   * @return the first entries containing the text
+   */
+  public List<String> search(String text, int limit) {
+    return newSearch().search(text, limit);
+  }
+
+  /**
+   * Starts a search which is refined as the user types. While the text of each search extends the
+   * text of the previous one, only the entries which matched the previous search are checked.
+   *
+   * @return the search
+   */
+  public Search newSearch() {
+    return new Search();
+  }
+
+  /**
+   * Finds the first entry which is not before some text, which is where the entries starting with
+   * the text begin.
+   *
+   * @param lowerText the lowercased text
+   * @return the index of the first entry not before the text
+   */
+  private int prefixStart(String lowerText) {
+    int found = Arrays.binarySearch(lowered, lowerText);
+    if (found < 0) {
+      return -found - 1;
+    }
+    // equal lowercased entries are adjacent, so step back to the first of them
+    while (found > 0 && lowered[found - 1].equals(lowerText)) {
+      found--;
+    }
+    return found;
+  }
+
+  /**
+   * Indexes the entries containing each trigram.
+   *
+   * @param lowered the lowercased entries
+   * @return the ascending indexes of the entries containing each trigram
+   */
+  private static Map<Long, int[]> indexTrigrams(String[] lowered) {
+    Map<Long, IntList> postings = new HashMap<>();
+    for (int i = 0; i < lowered.length; i++) {
+      String entry = lowered[i];
+      for (int start = 0; start + GRAM_LENGTH <= entry.length(); start++) {
+        IntList list = postings.computeIfAbsent(trigram(entry, start), key -> new IntList());
+        // entries are indexed in order, so a repeated trigram is always the last one added
+        if (list.size == 0 || list.values[list.size - 1] != i) {
+          list.add(i);
+        }
+      }
+    }
+    Map<Long, int[]> trigrams = new HashMap<>(postings.size() * 4 / 3 + 1);
+    postings.forEach((key, list) -> trigrams.put(key, list.toArray()));
+    return trigrams;
+  }
+
+  /**
+   * Packs the three characters of a trigram into a key.
+   *
+   * @param text  the text
+   * @param start the index of the first character of the trigram
+   * @return the key of the trigram
+   */
+  private static long trigram(String text, int start) {
+    return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16)
+        | text.charAt(start + 2);
+  }
+
+  /**
+   * Finds the entries which could contain some text, which are the entries containing every
+   * trigram of the text.
+   *
+   * @param text the lowercased text, which must be at least three characters long
+   * @return the ascending indexes of the candidate entries
+   */
+  private int[] candidates(String text) {
+    List<int[]> lists = new ArrayList<>();
+    for (int start = 0; start + GRAM_LENGTH <= text.length(); start++) {
+      int[] list = trigrams.get(trigram(text, start));
+      if (list == null) {
+        return NO_MATCHES;
+      }
+      lists.add(list);
+    }
+    lists.sort(Comparator.comparingInt(list -> list.length));
+    int[] result = lists.get(0);
+    for (int i = 1; i < lists.size() && result.length > 0; i++) {
+      result = intersect(result, lists.get(i));
+    }
+    return result;
+  }
+
+  /**
+   * Intersects two ascending lists of indexes of any length.
+   *
+   * @param first  one list
+   * @param second the other list
+   * @return the indexes in both lists, in ascending order
+   */
+  private static int[] intersectEither(int[] first, int[] second) {
+    return first.length <= second.length ? intersect(first, second) : intersect(second, first);
+  }
+
+  /**
+   * Intersects two ascending lists of indexes, searching the longer list for each index of the
+   * shorter one.
+   *
+   * @param small the shorter list
+   * @param large the longer list
+   * @return the indexes in both lists, in ascending order
+   */
+  private static int[] intersect(int[] small, int[] large) {
+    int[] result = new int[small.length];
+    int size = 0;
+    int from = 0;
+    for (int value : small) {
+      int found = Arrays.binarySearch(large, from, large.length, value);
+      if (found >= 0) {
+        result[size++] = value;
+        from = found + 1;
+      } else {
+        from = -found - 1;
+      }
+    }
+    return Arrays.copyOf(result, size);
+  }
+
+  /**
+   * A search of an index which is refined as the user types.
+   * <p>
+   * A search keeps the entries which matched its last text of at least three characters, so it is
+   * not thread safe. Text extending that text is only checked against the entries which both
+   * matched it and contain every trigram of the new text.
+   * </p>
+   */
+  public final class Search {
+
+    private String lastText;
+    private int[] lastMatches;
+
+    /**
+     * Constructs a search with no previous text.
+     */
+    private Search() {
+    }
+
+    /**
+     * Finds the entries containing some text, ignoring case. Entries starting with the text come
+     * first, and the entries are otherwise in alphabetical order.
+     *
+     * @param text  the text to search for
+     * @param limit the maximum number of entries to return
+     * @return the first entries containing the text
+     */
+    public List<String> search(String text, int limit) {
+      String lowerText = text.toLowerCase(Locale.ROOT);
+      List<String> suggestions = new ArrayList<>();
+      for (int i = prefixStart(lowerText); i < lowered.length && suggestions.size() < limit
+          && lowered[i].startsWith(lowerText); i++) {
+        suggestions.add(entries[i]);
+      }
+
+      if (lowerText.length() < GRAM_LENGTH) {
+        // without a trigram every entry is a candidate, so only scan until the limit is reached
+        for (int i = 0; i < lowered.length && suggestions.size() < limit; i++) {
+          if (!lowered[i].startsWith(lowerText) && lowered[i].contains(lowerText)) {
+            suggestions.add(entries[i]);
+          }
+        }
+        lastText = null;
+        lastMatches = null;
+        return suggestions;
+      }
+
+      int[] candidates = candidates(lowerText);
+      if (lastText != null && lowerText.startsWith(lastText)) {
+        candidates = intersectEither(candidates, lastMatches);
+      }
+      int[] matches = filter(lowerText, candidates);
+      lastText = lowerText;
+      lastMatches = matches;
+
+      for (int match : matches) {
+        if (suggestions.size() >= limit) {
+          break;
+        }
+        if (!lowered[match].startsWith(lowerText)) {
+          suggestions.add(entries[match]);
+        }
+      }
+      return suggestions;
+    }
+
+    /**
+     * Finds every candidate entry which contains some text.
+     *
+     * @param lowerText  the lowercased text
+     * @param candidates the ascending indexes of the candidates
+     * @return the ascending indexes of the entries containing the text
+     */
+    private int[] filter(String lowerText, int[] candidates) {
+      int[] matches = new int[candidates.length];
+      int size = 0;
+      for (int candidate : candidates) {
+        if (lowered[candidate].contains(lowerText)) {
+          matches[size++] = candidate;
+        }
+      }
+      return Arrays.copyOf(matches, size);
+    }
+  }
+
+  /**
+   * A growable list of ints, which avoids boxing every index while the trigrams are indexed.
+   */
+  private static final class IntList {
+
+    private int[] values = new int[4];
+    private int size;
+
+    /**
+     * Adds a value to the end of the list.
+     *
+     * @param value the value
+     */
+    void add(int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    /**
+     * Copies the values into an array of their exact size.
+     *
+     * @return the values
+     */
+    int[] toArray() {
+      return Arrays.copyOf(values, size);
+    }
+  }
+}
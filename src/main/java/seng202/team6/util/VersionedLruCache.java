@@ -0,0 +1,125 @@
+package seng202.team6.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of query results which evicts the least recently used entry once it is full.
+ * <p>
+ * Every entry is stamped with the version of the data it was computed from, such as the version of
+ * a catalog table, and a lookup at any other version misses and drops the entry. Nothing has to be
+ * invalidated when the data changes, as bumping the version makes every older entry stale at once.
+ * </p>
+ * <p>
+ * Keys must not change after they are put in the cache. The cache is thread safe.
+ * </p>
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the cached values
+ */
+public class VersionedLruCache<K, V> {
+
+  private final Map<K, Entry<V>> entries;
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  /**
+   * Constructs an empty cache.
+   *
+   * @param capacity the maximum number of entries
+   */
+  public VersionedLruCache(int capacity) {
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+        if (size() > capacity) {
+          evictions++;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Gets the value cached for a key at a version.
+   *
+   * @param key     the key
+   * @param version the current version of the data
+   * @return the cached value, or null if there is no value for the key at the version
+   */
+  public synchronized V get(K key, long version) {
+    Entry<V> entry = entries.get(key);
+    if (entry == null) {
+      misses++;
+      return null;
+    }
+    if (entry.version() != version) {
+      entries.remove(key);
+      misses++;
+      return null;
+    }
+    hits++;
+    return entry.value();
+  }
+
+  /**
+   * Caches the value for a key, replacing any previous value.
+   *
+   * @param key     the key, which must not change afterwards
+   * @param version the version of the data the value was computed from
+   * @param value   the value
+   */
+  public synchronized void put(K key, long version, V value) {
+    entries.put(key, new Entry<>(version, value));
+  }
+
+  /**
+   * Removes every entry.
+   */
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  /**
+   * Gets the hits, misses and evictions of the cache so far.
+   *
+   * @return the statistics of the cache
+   */
+  public synchronized Statistics getStatistics() {
+    return new Statistics(hits, misses, evictions, entries.size());
+  }
+
+  /**
+   * Lookups and evictions of a cache.
+   *
+   * @param hits      the number of lookups which found a current value
+   * @param misses    the number of lookups which found no value or an outdated one
+   * @param evictions the number of entries removed to make room for newer ones
+   * @param size      the number of entries
+   */
+  public record Statistics(long hits, long misses, long evictions, int size) {
+
+    /**
+     * Gets the share of lookups which found a current value.
+     *
+     * @return the hit rate between 0 and 1, or 0 if there were no lookups
+     */
+    public double hitRate() {
+      long total = hits + misses;
+      return total == 0 ? 0 : (double) hits / total;
+    }
+  }
+
+  /**
+   * A cached value and the version it was computed from.
+   *
+   * @param version the version of the data
+   * @param value   the value
+   * @param <V>     the type of the value
+   */
+  private record Entry<V>(long version, V value) {
+
+  }
+}
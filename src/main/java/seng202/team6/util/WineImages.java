@@ -39,7 +39,16 @@ public class WineImages {
    * @return the Image corresponding to the wine's colour, or the default image if no match is found
    */
   public static Image getImage(Wine wine) {
-    String color = wine.getColor();
+    return getImage(wine.getColor());
+  }
+
+  /**
+   * Retrieves the appropriate image for a wine colour.
+   *
+   * @param color the colour of the wine, which may be null
+   * @return the Image corresponding to the colour, or the default image if no match is found
+   */
+  public static Image getImage(String color) {
     if (color != null && !color.isEmpty()) {
       return WINE_IMAGES.getOrDefault(color.toLowerCase(), DEFAULT_WINE_IMAGE);
     }
@@ -213,6 +213,51 @@ public class AggregatedDaoTest {
     }
   }
 
+  /**
+   * Tests paging through wine reviews with keyset pagination, using the ID of the last review on
+   * each page as the cursor of the next.
+   *
+   * @throws SQLException if there is an error retrieving data from the database.
+   */
+  @Test
+  void testGetWineReviewsAndWinesAfter() throws SQLException {
+    WineReviewDao reviewDao = databaseManager.getWineReviewDao();
+    reviewDao.add(testUser, testWine, 5, "First", new Date(1728366112972L));
+    reviewDao.add(testUser, testWine, 4, "Second", new Date(1728366112972L));
+    reviewDao.add(testUser, testWine, 3, "Third", new Date(1728366112972L));
+
+    ObservableList<Pair<WineReview, Wine>> firstPage =
+        aggregatedDao.getWineReviewsAndWinesAfter(0, 2, null);
+    long cursor = firstPage.getLast().getFirst().getId();
+    ObservableList<Pair<WineReview, Wine>> secondPage =
+        aggregatedDao.getWineReviewsAndWinesAfter(cursor, 2, null);
+
+    assertEquals(2, firstPage.size());
+    assertEquals("First", firstPage.getFirst().getFirst().getDescription());
+    assertEquals(1, secondPage.size());
+    assertEquals("Third", secondPage.getFirst().getFirst().getDescription());
+  }
+
+  /**
+   * Tests that a review and its wine read from the same row keep their own descriptions.
+   *
+   * @throws SQLException if there is an error retrieving data from the database.
+   */
+  @Test
+  void testGetWineReviewsAndWinesKeepsBothDescriptions() throws SQLException {
+    WineReviewDao reviewDao = databaseManager.getWineReviewDao();
+    reviewDao.add(testUser, testWine, 4, "Review description", new Date(1728366112972L));
+
+    Pair<WineReview, Wine> pair = aggregatedDao.getWineReviewsAndWinesAfter(0, 1, null)
+        .getFirst();
+
+    assertEquals("Review description", pair.getFirst().getDescription());
+    assertEquals(testUser.getUsername(), pair.getFirst().getUsername());
+    assertEquals(testWine.getKey(), pair.getFirst().getWineId());
+    assertEquals("na", pair.getSecond().getDescription());
+    assertEquals(testWine, pair.getSecond());
+  }
+
   /**
    * Tests the retrieval of wines from a specific vineyard.
    * Ensures that the wines associated with the given vineyard are returned correctly.
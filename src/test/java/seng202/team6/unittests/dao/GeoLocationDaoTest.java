@@ -115,4 +115,26 @@ public class GeoLocationDaoTest {
 
   }
 
-}
\ No newline at end of file
+  /**
+   * Tests that wines added before their region had a geolocation are resolved to the geolocation
+   * once it is added, ignoring the case of the region.
+   *
+   * @throws SQLException if there is an error adding or retrieving data from the database.
+   */
+  @Test
+  void testAddAllResolvesExistingWineGeoLocations() throws SQLException {
+    WineDao wineDao = databaseManager.getWineDao();
+    wineDao.addAll(List.of(new Wine(-1, "wine", "variety", "nz", "location1", "winery", "red",
+        2011, "description", 99, 25f, 10f, null, 0.0)));
+
+    Map<String, GeoLocation> geoLocations = new HashMap<>();
+    geoLocations.put("Location1", new GeoLocation(-45.0312, 168.6626));
+    geoLocationDao.addAll(geoLocations);
+
+    GeoLocation geoLocation = wineDao.getAll().getFirst().getGeoLocation();
+    assertNotNull(geoLocation);
+    assertEquals(-45.0312, geoLocation.getLatitude());
+    assertEquals(168.6626, geoLocation.getLongitude());
+  }
+
+}
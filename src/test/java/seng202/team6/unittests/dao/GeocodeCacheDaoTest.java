@@ -0,0 +1,142 @@
+package seng202.team6.unittests.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import seng202.team6.dao.GeocodeCacheDao;
+import seng202.team6.dao.GeocodeCacheDao.CachedLocation;
+import seng202.team6.model.GeoLocation;
+
+/**
+ * Unit tests for the GeocodeCacheDao class, which caches the results of geocoding addresses.
+ */
+public class GeocodeCacheDaoTest {
+
+  private static final Instant START = Instant.parse("2024-01-01T00:00:00Z");
+
+  private Connection connection;
+  private GeocodeCacheDao geocodeCacheDao;
+
+  /**
+   * Creates the GEOCODE_CACHE table in an in-memory database before each test.
+   *
+   * @throws SQLException if an error occurs during database setup.
+   */
+  @BeforeEach
+  void setup() throws SQLException {
+    connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+    geocodeCacheDao = cacheAt(START);
+    try (Statement statement = connection.createStatement()) {
+      for (String sql : geocodeCacheDao.getInitialiseStatements()) {
+        statement.execute(sql);
+      }
+    }
+  }
+
+  /**
+   * Closes the database after each test.
+   *
+   * @throws SQLException if an error occurs while closing the database.
+   */
+  @AfterEach
+  void teardown() throws SQLException {
+    connection.close();
+  }
+
+  /**
+   * Tests that addresses which were found and addresses which were not are both cached, and that
+   * addresses which were never cached are missing.
+   */
+  @Test
+  void testCachesResolvedAndUnresolvedAddresses() throws SQLException {
+    Map<String, GeoLocation> locations = new HashMap<>();
+    locations.put("Blenheim", new GeoLocation(-41.5, 173.9));
+    locations.put("Nowhere", null);
+    geocodeCacheDao.putAll(locations);
+
+    Map<String, CachedLocation> cached = geocodeCacheDao.getAll(
+        List.of("Blenheim", "Nowhere", "Elsewhere"));
+    assertEquals(2, cached.size());
+    assertTrue(cached.get("Blenheim").isResolved());
+    assertEquals(-41.5, cached.get("Blenheim").location().getLatitude());
+    assertFalse(cached.get("Nowhere").isResolved());
+  }
+
+  /**
+   * Tests that addresses differing only in case and spacing share a cache entry.
+   */
+  @Test
+  void testAddressesAreNormalised() throws SQLException {
+    geocodeCacheDao.putAll(Map.of("210 Cairnmuir Road, Bannockburn", new GeoLocation(-45, 169)));
+
+    Map<String, CachedLocation> cached = geocodeCacheDao.getAll(
+        List.of("  210 CAIRNMUIR road ,Bannockburn", "210  cairnmuir road,  bannockburn"));
+    assertEquals(2, cached.size());
+  }
+
+  /**
+   * Tests that entries expire after their time to live, which is shorter for addresses which were
+   * not found.
+   */
+  @Test
+  void testEntriesExpire() throws SQLException {
+    Map<String, GeoLocation> locations = new HashMap<>();
+    locations.put("Blenheim", new GeoLocation(-41.5, 173.9));
+    locations.put("Nowhere", null);
+    geocodeCacheDao.putAll(locations);
+
+    GeocodeCacheDao later = cacheAt(START.plus(GeocodeCacheDao.UNRESOLVED_TTL).plusSeconds(1));
+    assertEquals(List.of("Blenheim"),
+        List.copyOf(later.getAll(List.of("Blenheim", "Nowhere")).keySet()));
+    assertEquals(1, later.removeExpired());
+
+    GeocodeCacheDao muchLater = cacheAt(
+        START.plus(GeocodeCacheDao.RESOLVED_TTL).plus(Duration.ofDays(1)));
+    assertTrue(muchLater.getAll(List.of("Blenheim")).isEmpty());
+    assertEquals(1, muchLater.removeExpired());
+  }
+
+  /**
+   * Tests that writing to the cache leaves expired entries to be removed when the database is
+   * opened, while reads still ignore them.
+   */
+  @Test
+  void testWritingLeavesExpiredEntriesToBeRemoved() throws SQLException {
+    Map<String, GeoLocation> locations = new HashMap<>();
+    locations.put("Nowhere", null);
+    geocodeCacheDao.putAll(locations);
+
+    GeocodeCacheDao later = cacheAt(START.plus(GeocodeCacheDao.UNRESOLVED_TTL).plusSeconds(1));
+    later.putAll(Map.of("Blenheim", new GeoLocation(-41.5, 173.9)));
+    assertEquals(List.of("Blenheim"),
+        List.copyOf(later.getAll(List.of("Blenheim", "Nowhere")).keySet()));
+    assertEquals(1, later.removeExpired());
+    assertEquals(0, later.removeExpired());
+  }
+
+  /**
+   * Creates a cache on the test database whose clock is stopped at an instant.
+   *
+   * @param instant the instant of the clock
+   * @return the cache
+   */
+  private GeocodeCacheDao cacheAt(Instant instant) {
+    return new GeocodeCacheDao(connection, GeocodeCacheDao.RESOLVED_TTL,
+        GeocodeCacheDao.UNRESOLVED_TTL, Clock.fixed(instant, ZoneOffset.UTC));
+  }
+}
@@ -0,0 +1,106 @@
+package seng202.team6.unittests.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import seng202.team6.dao.Migration;
+import seng202.team6.dao.SchemaVersionDao;
+import seng202.team6.managers.DatabaseManager;
+
+/**
+ * Unit tests for the SchemaVersionDao class, which applies versioned schema migrations and records
+ * which migrations have been applied.
+ */
+public class SchemaVersionDaoTest {
+
+  private DatabaseManager databaseManager;
+  private SchemaVersionDao schemaVersionDao;
+
+  /**
+   * Sets up the database manager and SchemaVersionDao before each test.
+   *
+   * @throws SQLException if an error occurs during database setup.
+   */
+  @BeforeEach
+  void setup() throws SQLException {
+    databaseManager = new DatabaseManager();
+    schemaVersionDao = databaseManager.getSchemaVersionDao();
+  }
+
+  /**
+   * Tears down the database after each test.
+   */
+  @AfterEach
+  void teardown() {
+    databaseManager.teardown();
+  }
+
+  /**
+   * Tests that a new database has every migration contributed by the DAOs applied.
+   */
+  @Test
+  void testNewDatabaseIsMigrated() throws SQLException {
+    assertEquals(11, schemaVersionDao.getCurrentVersion());
+    assertEquals(11, schemaVersionDao.getAppliedVersions().size());
+  }
+
+  /**
+   * Tests that running the DAO initialisation again does not reapply any migrations.
+   */
+  @Test
+  void testInitIsIdempotent() throws SQLException {
+    databaseManager.init();
+    assertEquals(11, schemaVersionDao.getAppliedVersions().size());
+  }
+
+  /**
+   * Tests that a new migration is applied once and then skipped.
+   */
+  @Test
+  void testMigrationAppliedOnce() throws SQLException {
+    List<Migration> migrations = List.of(Migration.of(100, "Create test table",
+        "CREATE TABLE TEST_TABLE (ID INTEGER PRIMARY KEY)"));
+
+    assertEquals(1, schemaVersionDao.migrate(migrations));
+    assertEquals(0, schemaVersionDao.migrate(migrations));
+    assertEquals(100, schemaVersionDao.getCurrentVersion());
+  }
+
+  /**
+   * Tests that a failing migration is rolled back and not recorded as applied.
+   */
+  @Test
+  void testFailedMigrationIsRolledBack() throws SQLException {
+    List<Migration> migrations = List.of(Migration.of(100, "Broken migration",
+        "CREATE TABLE TEST_TABLE (ID INTEGER PRIMARY KEY)",
+        "NOT VALID SQL"));
+
+    assertThrows(SQLException.class, () -> schemaVersionDao.migrate(migrations));
+    assertFalse(schemaVersionDao.getAppliedVersions().contains(100));
+
+    // the table from the first statement must have been rolled back
+    List<Migration> retry = List.of(Migration.of(100, "Create test table",
+        "CREATE TABLE TEST_TABLE (ID INTEGER PRIMARY KEY)"));
+    assertEquals(1, schemaVersionDao.migrate(retry));
+    assertTrue(schemaVersionDao.getAppliedVersions().contains(100));
+  }
+
+  /**
+   * Tests that migrations sharing a version are rejected.
+   */
+  @Test
+  void testDuplicateVersionsRejected() {
+    List<Migration> migrations = List.of(
+        Migration.of(100, "First", "CREATE TABLE FIRST (ID INTEGER PRIMARY KEY)"),
+        Migration.of(100, "Second", "CREATE TABLE SECOND (ID INTEGER PRIMARY KEY)"));
+
+    assertThrows(IllegalStateException.class, () -> schemaVersionDao.migrate(migrations));
+  }
+}
@@ -0,0 +1,182 @@
+package seng202.team6.unittests.dao;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import seng202.team6.dao.StatSnapshotDao;
+import seng202.team6.dao.WineDao;
+import seng202.team6.managers.DatabaseManager;
+import seng202.team6.model.Vineyard;
+import seng202.team6.model.Wine;
+import seng202.team6.service.VineyardDataStatService;
+import seng202.team6.service.WineDataStatService;
+import seng202.team6.service.WineImportProgress;
+
+/**
+ * Unit tests for the StatSnapshotDao class, which versions the catalog tables and stores snapshots
+ * of the stats derived from them.
+ */
+public class StatSnapshotDaoTest {
+
+  private DatabaseManager databaseManager;
+  private StatSnapshotDao statSnapshotDao;
+  private WineDao wineDao;
+
+  /**
+   * Sets up the database manager and DAOs before each test.
+   *
+   * @throws SQLException if an error occurs during database setup.
+   */
+  @BeforeEach
+  void setup() throws SQLException {
+    databaseManager = new DatabaseManager();
+    statSnapshotDao = databaseManager.getStatSnapshotDao();
+    wineDao = databaseManager.getWineDao();
+  }
+
+  /**
+   * Tears down the database after each test.
+   */
+  @AfterEach
+  void teardown() {
+    databaseManager.teardown();
+  }
+
+  /**
+   * Tests that inserting, updating and deleting wines each change the version of the WINE
+   * catalog.
+   */
+  @Test
+  void testCatalogVersionChangesWithWines() throws SQLException {
+    long initial = statSnapshotDao.getCatalogVersion(StatSnapshotDao.WINE_CATALOG);
+    Wine wine = createWine("wine", 2010, 10f);
+    long inserted = statSnapshotDao.getCatalogVersion(StatSnapshotDao.WINE_CATALOG);
+    assertTrue(inserted > initial);
+
+    Wine storedWine = wineDao.get(wine.getKey());
+    storedWine.setPrice(20f);
+    databaseManager.getWriteBehindBuffer().flush();
+    long updated = statSnapshotDao.getCatalogVersion(StatSnapshotDao.WINE_CATALOG);
+    assertTrue(updated > inserted);
+
+    wineDao.removeAll();
+    assertTrue(statSnapshotDao.getCatalogVersion(StatSnapshotDao.WINE_CATALOG) > updated);
+  }
+
+  /**
+   * Tests that bulk changes increment the catalog versions once rather than once per row, and that
+   * single row changes still increment them afterwards.
+   */
+  @Test
+  void testBulkChangesIncrementCatalogVersionOnce() throws SQLException {
+    List<Wine> wines = List.of(
+        new Wine(-1, "a", "variety", "nz", "region", "winery", "red", 2010, "na", 90, 12f, 10f,
+            null, 0.0),
+        new Wine(-1, "b", "variety", "nz", "region", "winery", "red", 2011, "na", 90, 12f, 10f,
+            null, 0.0));
+    long initial = statSnapshotDao.getCatalogVersion(StatSnapshotDao.WINE_CATALOG);
+    wineDao.importAll(wines.iterator(), false, new WineImportProgress(0));
+    assertEquals(initial + 1, statSnapshotDao.getCatalogVersion(StatSnapshotDao.WINE_CATALOG));
+    wineDao.importAll(wines.iterator(), true, new WineImportProgress(0));
+    assertEquals(initial + 2, statSnapshotDao.getCatalogVersion(StatSnapshotDao.WINE_CATALOG));
+
+    Wine storedWine = wineDao.getAll().getFirst();
+    storedWine.setPrice(20f);
+    databaseManager.getWriteBehindBuffer().flush();
+    assertEquals(initial + 3, statSnapshotDao.getCatalogVersion(StatSnapshotDao.WINE_CATALOG));
+
+    wineDao.removeAll();
+    assertEquals(initial + 4, statSnapshotDao.getCatalogVersion(StatSnapshotDao.WINE_CATALOG));
+
+    long vineyards = statSnapshotDao.getCatalogVersion(StatSnapshotDao.VINEYARD_CATALOG);
+    databaseManager.getVineyardsDao().addAll(List.of(
+        new Vineyard(-1, "one", "address", "region", "website", "description", "logo", null),
+        new Vineyard(-1, "two", "address", "region", "website", "description", "logo", null)));
+    assertEquals(vineyards + 1,
+        statSnapshotDao.getCatalogVersion(StatSnapshotDao.VINEYARD_CATALOG));
+  }
+
+  /**
+   * Tests that a saved snapshot of the wine stats loads the same stats.
+   */
+  @Test
+  void testWineSnapshotRoundTrip() throws SQLException {
+    createWine("first", 2010, 10f);
+    createWine("second", 2015, 30f);
+    wineDao.updateUniques();
+    WineDataStatService stats = wineDao.getWineDataStatService();
+    statSnapshotDao.saveSnapshot(StatSnapshotDao.WINE_CATALOG, stats);
+
+    WineDataStatService loaded = new WineDataStatService();
+    assertTrue(statSnapshotDao.loadSnapshot(StatSnapshotDao.WINE_CATALOG, loaded));
+    assertEquals(stats.getCatalogVersion(), loaded.getCatalogVersion());
+    assertEquals(Set.of("first", "second"), loaded.getUniqueTitles());
+    assertEquals(stats.getUniqueCountries(), loaded.getUniqueCountries());
+    assertEquals(2010, loaded.getMinVintage());
+    assertEquals(2015, loaded.getMaxVintage());
+    assertEquals(10f, loaded.getMinPrice());
+    assertEquals(30f, loaded.getMaxPrice());
+
+    // the loaded stats can still be maintained incrementally, as the counts were saved
+    loaded.remove(new Wine(-1, "first", "variety", "nz", "region", "winery", "red", 2010, "na",
+        90, 12f, 10f, null, 0.0));
+    assertEquals(Set.of("second"), loaded.getUniqueTitles());
+    assertEquals(30f, loaded.getMinPrice());
+  }
+
+  /**
+   * Tests that a snapshot is not loaded once its catalog has changed.
+   */
+  @Test
+  void testOutdatedSnapshotIsNotLoaded() throws SQLException {
+    createWine("first", 2010, 10f);
+    wineDao.updateUniques();
+    statSnapshotDao.saveSnapshot(StatSnapshotDao.WINE_CATALOG, wineDao.getWineDataStatService());
+    createWine("second", 2015, 30f);
+
+    WineDataStatService loaded = new WineDataStatService();
+    assertFalse(statSnapshotDao.loadSnapshot(StatSnapshotDao.WINE_CATALOG, loaded));
+    assertTrue(loaded.getUniqueTitles().isEmpty());
+    assertEquals(-1, loaded.getCatalogVersion());
+  }
+
+  /**
+   * Tests that a saved snapshot of the vineyard stats loads the same unique values.
+   */
+  @Test
+  void testVineyardSnapshotRoundTrip() throws SQLException {
+    VineyardDataStatService stats = databaseManager.getVineyardDataStatService();
+    stats.getUniqueNames().add("Vineyard");
+    stats.getUniqueRegions().add("Region");
+    stats.setCatalogVersion(
+        statSnapshotDao.getCatalogVersion(StatSnapshotDao.VINEYARD_CATALOG));
+    statSnapshotDao.saveSnapshot(StatSnapshotDao.VINEYARD_CATALOG, stats);
+
+    VineyardDataStatService loaded = new VineyardDataStatService();
+    assertTrue(statSnapshotDao.loadSnapshot(StatSnapshotDao.VINEYARD_CATALOG, loaded));
+    assertEquals(stats.getUniqueNames(), loaded.getUniqueNames());
+    assertEquals(stats.getUniqueRegions(), loaded.getUniqueRegions());
+  }
+
+  /**
+   * Adds a wine to the database.
+   *
+   * @param title   the title of the wine
+   * @param vintage the vintage of the wine
+   * @param price   the price of the wine
+   * @return the added wine
+   */
+  private Wine createWine(String title, int vintage, float price) throws SQLException {
+    Wine wine = new Wine(-1, title, "variety", "nz", "region", "winery", "red", vintage, "na", 90,
+        12f, price, null, 0.0);
+    wineDao.addAll(List.of(wine));
+    return wine;
+  }
+}
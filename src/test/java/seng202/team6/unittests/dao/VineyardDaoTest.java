@@ -92,7 +92,7 @@ public class VineyardDaoTest {
   @Test
   void testInit() throws SQLException {
     VineyardService vineyardService = new VineyardService(databaseManager);
-    assertDoesNotThrow(vineyardService::init);
+    assertDoesNotThrow(() -> vineyardService.init().join());
   }
 
   /**
@@ -3,23 +3,36 @@ package seng202.team6.unittests.dao;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.sql.Date;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 import javafx.collections.ObservableList;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import seng202.team6.dao.WineDao;
+import seng202.team6.dao.WineReviewDao;
+import seng202.team6.enums.WineSortColumn;
 import seng202.team6.managers.DatabaseManager;
 import seng202.team6.model.GeoLocation;
+import seng202.team6.model.User;
 import seng202.team6.model.Wine;
+import seng202.team6.model.WineCursor;
 import seng202.team6.model.WineFilters;
+import seng202.team6.model.WineSort;
+import seng202.team6.model.WineSummary;
 import seng202.team6.service.WineDataStatService;
+import seng202.team6.service.WineImportProgress;
 
 /**
  * Unit tests for the WineDao class, which manages the storage, retrieval, and modification of wines in the database.
@@ -107,6 +120,59 @@ public class WineDaoTest {
     assertEquals(wines.size(), wineDao.getAll().size());
   }
 
+  /**
+   * Tests that the wines swapped in by a replace keep the keys they were given while staged.
+   */
+  @Test
+  void testReplaceAllSetsKeysOfNewWines() throws SQLException {
+    addWines(10);
+    List<Wine> wines = createUnsavedWines(3);
+
+    wineDao.replaceAll(wines);
+    for (Wine wine : wines) {
+      assertEquals(wine.getPrice(), wineDao.get(wine.getKey()).getPrice());
+    }
+  }
+
+  /**
+   * Tests that a replace which fails while loading leaves the existing wines in place.
+   */
+  @Test
+  void testFailedReplaceImportKeepsExistingWines() throws SQLException {
+    addWines(5);
+    Iterator<Wine> wines = createUnsavedWines(WineDao.BATCH_SIZE * 2).stream()
+        .peek(wine -> {
+          if (wine.getPrice() == WineDao.BATCH_SIZE + 1) {
+            throw new IllegalStateException("Failed to parse wine");
+          }
+        })
+        .iterator();
+
+    assertThrows(IllegalStateException.class,
+        () -> wineDao.importAll(wines, true, new WineImportProgress(0)));
+    assertEquals(5, wineDao.getCount());
+    assertEquals(5, wineDao.getAll().size());
+    assertEquals(4, wineDao.getWineDataStatService().getMaxPrice());
+  }
+
+  /**
+   * Tests that the ranges after a replace only cover the wines swapped in, and after an append
+   * cover both the existing and the appended wines.
+   */
+  @Test
+  void testImportAllUpdatesRangesFromImportedWines() throws SQLException {
+    addWines(10);
+    wineDao.replaceAll(createUnsavedWines(3));
+    assertEquals(2, wineDao.getWineDataStatService().getMaxPrice());
+    assertEquals(0, wineDao.getWineDataStatService().getMinPrice());
+
+    List<Wine> expensiveWines = createUnsavedWines(1);
+    expensiveWines.getFirst().setPrice(500);
+    wineDao.importAll(expensiveWines.iterator(), false, new WineImportProgress(0));
+    assertEquals(500, wineDao.getWineDataStatService().getMaxPrice());
+    assertEquals(0, wineDao.getWineDataStatService().getMinPrice());
+  }
+
 
   /**
    * Tests retrieving the wine count with filters applied (e.g., by vintage), ensuring the count matches the filter criteria.
@@ -127,6 +193,101 @@ public class WineDaoTest {
 
   }
 
+  /**
+   * Tests that a filtered count is cached until the wines change, and that changing the filters
+   * after counting does not change the cached count.
+   */
+  @Test
+  void testFilteredCountFollowsChanges() throws SQLException {
+    addWines(10);
+    WineFilters testFilters = new WineFilters();
+    testFilters.setMinPrice(5);
+    assertEquals(5, wineDao.getCount(testFilters));
+
+    testFilters.setMinPrice(8);
+    assertEquals(2, wineDao.getCount(testFilters));
+    testFilters.setMinPrice(5);
+    assertEquals(5, wineDao.getCount(testFilters));
+
+    addWines(10);
+    assertEquals(10, wineDao.getCount(testFilters));
+  }
+
+  /**
+   * Tests filtering by a minimum average rating, which is maintained as the wines are reviewed.
+   */
+  @Test
+  void testMinRatingFilterFollowsReviews() throws SQLException {
+    addWines(3);
+    User user = new User("username", "password", "role", "salt");
+    databaseManager.getUserDao().add(user);
+    List<Wine> wines = wineDao.getAll();
+    WineReviewDao wineReviewDao = databaseManager.getWineReviewDao();
+    Date date = new Date(System.currentTimeMillis());
+    wineReviewDao.add(user, wines.get(0), 5, "great", date);
+    wineReviewDao.add(user, wines.get(1), 2, "poor", date);
+    WineFilters testFilters = new WineFilters();
+    testFilters.setMinRating(4);
+
+    assertEquals(3, wineDao.getCount(new WineFilters()));
+    assertEquals(1, wineDao.getCount(testFilters));
+    assertEquals(List.of(wines.get(0).getKey()), wineDao.getSummariesAfter(0, 10, testFilters)
+        .stream()
+        .map(WineSummary::key)
+        .toList());
+
+    wineReviewDao.add(user, wines.get(2), 4, "good", date);
+    assertEquals(2, wineDao.getCount(testFilters));
+  }
+
+  /**
+   * Tests reading a filtered page together with the number of wines matching the filters.
+   */
+  @Test
+  void testGetSummaryPageAfterCountsMatchingWines() throws SQLException {
+    addWines(25);
+    WineFilters testFilters = new WineFilters();
+    testFilters.setMinPrice(5);
+
+    WineDao.SummaryPage first = wineDao.getSummaryPageAfter(0, 10, testFilters);
+    assertEquals(20, first.total());
+    assertEquals(10, first.summaries().size());
+    assertEquals(5f, first.summaries().getFirst().price());
+
+    WineDao.SummaryPage last = wineDao.getSummaryPageAfter(
+        first.summaries().getLast().key() + 10, 10, testFilters);
+    assertEquals(20, last.total());
+    assertEquals(List.of(), wineDao.getSummaryPageAfter(1000, 10, testFilters).summaries());
+    assertEquals(20, wineDao.getSummaryPageAfter(1000, 10, new WineFilters(testFilters)).total());
+
+    testFilters.setMinPrice(100);
+    WineDao.SummaryPage empty = wineDao.getSummaryPageAfter(0, 10, testFilters);
+    assertEquals(0, empty.total());
+    assertTrue(empty.summaries().isEmpty());
+  }
+
+  /**
+   * Tests that a page read again is served from the page cache until a wine changes, and that
+   * cached pages still show changes which have not been written yet.
+   */
+  @Test
+  void testSummaryPagesAreCachedUntilWinesChange() throws SQLException {
+    addWines(5);
+    WineFilters testFilters = new WineFilters();
+    wineDao.getSummariesAfter(0, 10, testFilters);
+    long hits = wineDao.getPageCacheStatistics().hits();
+    wineDao.getSummariesAfter(0, 10, new WineFilters());
+    assertEquals(hits + 1, wineDao.getPageCacheStatistics().hits());
+
+    addWines(1);
+    assertEquals(6, wineDao.getSummariesAfter(0, 10, testFilters).size());
+    assertEquals(hits + 1, wineDao.getPageCacheStatistics().hits());
+
+    Wine wine = wineDao.get(1);
+    wine.setTitle("Pending");
+    assertEquals("Pending", wineDao.getSummariesAfter(0, 10, testFilters).getFirst().title());
+  }
+
   /**
    * Tests retrieving wines within a specified range and applying filters (e.g., by vintage).
    * Verifies that the wines returned match the filter criteria.
@@ -149,6 +310,87 @@ public class WineDaoTest {
 
   }
 
+  /**
+   * Tests that a range past the first page with filters only contains wines matching the filters.
+   */
+  @Test
+  void testGetAllInRangeSecondPageWithFilters() throws SQLException {
+    addWines(10);
+    WineFilters testFilters = new WineFilters();
+    testFilters.setMinPrice(5);
+    testFilters.setMaxPrice(100);
+
+    ObservableList<Wine> result = wineDao.getAllInRange(2, 4, testFilters);
+
+    assertEquals(2, result.size());
+    assertEquals(7f, result.get(0).getPrice());
+    assertEquals(8f, result.get(1).getPrice());
+  }
+
+  /**
+   * Tests reading consecutive pages with keyset pagination by passing the last ID of each page as
+   * the cursor of the next.
+   */
+  @Test
+  void testGetAllAfterPagesThroughWines() throws SQLException {
+    addWines(25);
+    List<Wine> seen = new ArrayList<>();
+    long cursor = 0;
+    ObservableList<Wine> page;
+    while (!(page = wineDao.getAllAfter(cursor, 10, null)).isEmpty()) {
+      seen.addAll(page);
+      cursor = page.getLast().getKey();
+    }
+
+    assertEquals(25, seen.size());
+    assertEquals(wineDao.getAll(), seen);
+  }
+
+  /**
+   * Tests that paging through wine summaries reads the same wines, in the same order, as the full
+   * wines.
+   */
+  @Test
+  void testGetSummariesAfterPagesThroughWines() throws SQLException {
+    addWines(25);
+    List<WineSummary> seen = new ArrayList<>();
+    long cursor = 0;
+    List<WineSummary> page;
+    while (!(page = wineDao.getSummariesAfter(cursor, 10, null)).isEmpty()) {
+      seen.addAll(page);
+      cursor = page.getLast().key();
+    }
+
+    assertEquals(wineDao.getAll().stream().map(WineSummary::of).toList(), seen);
+  }
+
+  /**
+   * Tests that the summary of a wine which has been changed shows the change before it is written.
+   */
+  @Test
+  void testGetSummariesAfterShowsPendingChanges() throws SQLException {
+    Wine wine = createWine("Initial", "blue", "nz", "christchurch",
+        "bob's wine", "red", 2011, "na", 99, 25f, 10f);
+    wine.setTitle("Changed");
+
+    assertEquals("Changed", wineDao.getSummariesAfter(0, 10, null).getFirst().title());
+  }
+
+  /**
+   * Tests seeking a cursor a number of wines after another cursor.
+   */
+  @Test
+  void testSeekCursor() throws SQLException {
+    addWines(25);
+    ObservableList<Wine> wines = wineDao.getAll();
+
+    assertEquals(0L, wineDao.seekCursor(0, 0, null));
+    assertEquals(wines.get(9).getKey(), wineDao.seekCursor(0, 10, null));
+    assertEquals(wines.get(19).getKey(),
+        wineDao.seekCursor(wines.get(9).getKey(), 10, null));
+    assertNull(wineDao.seekCursor(0, 26, null));
+  }
+
   /**
    * Tests updating the title of a wine in the database.
    * Verifies that the title change is correctly persisted.
@@ -349,6 +591,38 @@ public class WineDaoTest {
 
   }
 
+  /**
+   * Tests that editing a wine updates the stats without rescanning the table, including shrinking
+   * a maximum when the wine which held it changes.
+   */
+  @Test
+  public void testEditingWineUpdatesStats() throws SQLException {
+    WineDataStatService wineDataStatService = wineDao.getWineDataStatService();
+    createWine("cheap", "variety", "Namibia", "region",
+        "winery", "red", 2011, "description", 70, 13.2f, 5);
+    Wine expensive = createWine("expensive", "variety", "Namibia", "region",
+        "winery", "red", 2002, "description", 30, 13.5f, 100);
+    assertEquals(100, wineDataStatService.getMaxPrice());
+
+    expensive.setPrice(20);
+    expensive.setCountry("Chile");
+    assertEquals(20, wineDataStatService.getMaxPrice());
+    assertEquals(Set.of("Namibia", "Chile"), wineDataStatService.getUniqueCountries());
+  }
+
+  /**
+   * Tests that removing all wines clears the stats.
+   */
+  @Test
+  public void testRemoveAllClearsStats() throws SQLException {
+    addWines(5);
+    assertEquals(4, wineDao.getWineDataStatService().getMaxPrice());
+
+    wineDao.removeAll();
+    assertTrue(wineDao.getWineDataStatService().getUniqueTitles().isEmpty());
+    assertEquals(0, wineDao.getWineDataStatService().getMaxPrice());
+  }
+
   /**
    * Test to check if the unique updater works as expected for the minimum vintage field
    */
@@ -627,6 +901,17 @@ public class WineDaoTest {
     assertNull(result);
   }
 
+  /**
+   * Tests that a wine's geolocation is resolved from its region when it is added, ignoring case.
+   */
+  @Test
+  void testGeoLocationResolvedFromRegion() throws SQLException {
+    Wine wine = createWine("wine", "variety", "nz", "aUcKlAnD",
+        "winery", "red", 2011, "description", 99, 25f, 10f);
+    assertNotNull(wine.getGeoLocation());
+    assertEquals(-36.8485, wine.getGeoLocation().getLatitude());
+  }
+
 
   /**
    * Helper method to create a new Wine object with the given properties and add it to the database.
@@ -662,6 +947,243 @@ public class WineDaoTest {
     return wineDao.get(wine.getKey());
   }
 
+  /**
+   * Tests importing wines from an iterator across more than one batch.
+   */
+  @Test
+  void testImportAllFromIterator() throws SQLException {
+    List<Wine> wines = createUnsavedWines(WineDao.BATCH_SIZE + 1);
+    WineImportProgress progress = new WineImportProgress(0);
+    assertEquals(WineDao.BATCH_SIZE + 1, wineDao.importAll(wines.iterator(), false, progress));
+    assertEquals(WineDao.BATCH_SIZE + 1, wineDao.getCount());
+    assertEquals(WineDao.BATCH_SIZE + 1, progress.snapshot().rowsInserted());
+    assertTrue(wines.stream().allMatch(wine -> wine.getKey() != -1));
+  }
+
+  /**
+   * Tests that a cancelled replace import is rolled back and leaves the existing wines in place.
+   */
+  @Test
+  void testCancelledReplaceImportKeepsExistingWines() throws SQLException {
+    addWines(5);
+    WineImportProgress progress = new WineImportProgress(0);
+    Iterator<Wine> wines = createUnsavedWines(WineDao.BATCH_SIZE * 2).stream()
+        .peek(wine -> {
+          if (progress.snapshot().rowsInserted() > 0) {
+            progress.cancel();
+          }
+        })
+        .iterator();
+
+    assertThrows(CancellationException.class, () -> wineDao.importAll(wines, true, progress));
+    assertEquals(5, wineDao.getCount());
+  }
+
+  /**
+   * Tests searching by several keyword prefixes, with wines matching in the title ranked above
+   * wines matching in the description.
+   */
+  @Test
+  void testSearchRanksTitleMatchesFirst() throws SQLException {
+    Wine described = createWine("Merlot", "merlot", "nz", "otago", "winery", "red", 2011,
+        "smells like a pinot noir", 99, 25f, 10f);
+    Wine titled = createWine("Pinot Noir", "pinot", "nz", "otago", "winery", "red", 2011,
+        "na", 99, 25f, 10f);
+    createWine("Shiraz", "shiraz", "nz", "otago", "winery", "red", 2011, "na", 99, 25f, 10f);
+
+    List<WineSummary> results = wineDao.search("PIN no", 10);
+    assertEquals(List.of(titled.getKey(), described.getKey()),
+        results.stream().map(WineSummary::key).toList());
+    assertTrue(wineDao.search("!!", 10).isEmpty());
+  }
+
+  /**
+   * Tests that the search index follows edits to wines and removed wines.
+   */
+  @Test
+  void testSearchFollowsEditsAndRemovals() throws SQLException {
+    Wine wine = createWine("Pinot Noir", "pinot", "nz", "otago", "winery", "red", 2011,
+        "na", 99, 25f, 10f);
+    wine.setTitle("Syrah");
+    databaseManager.getWriteBehindBuffer().flush();
+
+    assertTrue(wineDao.search("pinot noir", 10).isEmpty());
+    assertEquals(1, wineDao.search("syrah", 10).size());
+    wineDao.removeAll();
+    assertTrue(wineDao.search("syrah", 10).isEmpty());
+  }
+
+  /**
+   * Tests that the title filter matches keywords in any searched column, in both pages and
+   * counts.
+   */
+  @Test
+  void testTitleFilterMatchesKeywords() throws SQLException {
+    createWine("Merlot", "merlot", "nz", "otago", "winery", "red", 2011,
+        "a crème brûlée finish", 99, 25f, 10f);
+    createWine("Shiraz", "shiraz", "nz", "otago", "winery", "red", 2011, "na", 99, 25f, 10f);
+    WineFilters testFilters = new WineFilters();
+    testFilters.setTitle("creme brulee");
+
+    ObservableList<Wine> result = wineDao.getAllInRange(0, 100, testFilters);
+
+    assertEquals(1, result.size());
+    assertEquals("Merlot", result.getFirst().getTitle());
+    assertEquals(1, wineDao.getCount(testFilters));
+  }
+
+  /**
+   * Tests that replacing the wines with an import rebuilds the search index.
+   */
+  @Test
+  void testReplaceImportRebuildsSearchIndex() throws SQLException {
+    createWine("Pinot Noir", "pinot", "nz", "otago", "winery", "red", 2011, "na", 99, 25f, 10f);
+    List<Wine> wines = List.of(new Wine(-1, "Syrah", "syrah", "nz", "otago", "winery", "red",
+        2011, "na", 99, 25f, 10f, null, 0.0));
+
+    wineDao.importAll(wines.iterator(), true, new WineImportProgress(0));
+
+    assertTrue(wineDao.search("pinot", 10).isEmpty());
+    assertEquals(1, wineDao.search("syrah", 10).size());
+  }
+
+  /**
+   * Tests that wines retrieved by ID are the requested wines ordered by ID, ignoring duplicate and
+   * missing IDs.
+   */
+  @Test
+  void testGetAllByIds() throws SQLException {
+    Wine first = createWine("first", "variety", "nz", "otago", "winery", "red", 2011, "na", 99,
+        25f, 10f);
+    createWine("second", "variety", "nz", "otago", "winery", "red", 2011, "na", 99, 25f, 10f);
+    Wine third = createWine("third", "variety", "nz", "otago", "winery", "red", 2011, "na", 99,
+        25f, 10f);
+
+    List<Wine> wines = wineDao.getAll(List.of(third.getKey(), first.getKey(), first.getKey(),
+        third.getKey() + 100));
+
+    assertEquals(List.of(first, third), wines);
+    assertTrue(wineDao.getAll(List.of()).isEmpty());
+  }
+
+  /**
+   * Tests that retrieving more wines by ID than fit in one query returns every wine.
+   */
+  @Test
+  void testGetAllByIdsAcrossBatches() throws SQLException {
+    addWines(1200);
+    List<Long> ids = wineDao.getAll().stream()
+        .map(Wine::getKey)
+        .toList();
+
+    assertEquals(wineDao.getAll(), wineDao.getAll(ids));
+  }
+
+  /**
+   * Tests that paging through wines sorted by a column with repeated values reads every wine once,
+   * ordered by the column and then by ID, in both directions.
+   */
+  @Test
+  void testSortedPagesBreakTiesById() throws SQLException {
+    addWinesWithVintages(25);
+    for (boolean ascending : List.of(true, false)) {
+      WineSort sort = new WineSort(WineSortColumn.VINTAGE, ascending);
+      Comparator<WineSummary> order = Comparator.comparingInt(WineSummary::vintage)
+          .thenComparingLong(WineSummary::key);
+      List<WineSummary> expected = wineDao.getAll().stream()
+          .map(WineSummary::of)
+          .sorted(ascending ? order : order.reversed())
+          .toList();
+
+      List<WineSummary> seen = new ArrayList<>();
+      WineCursor cursor = WineCursor.FIRST;
+      WineDao.CursorPage page;
+      while (!(page = wineDao.getSummariesAfter(cursor, 7, null, sort)).summaries().isEmpty()) {
+        seen.addAll(page.summaries());
+        cursor = page.next();
+      }
+
+      assertEquals(expected, seen);
+      assertEquals(expected.stream().map(WineSummary::key).toList(),
+          wineDao.getAllAfter(WineCursor.FIRST, 25, null, sort).stream()
+              .map(Wine::getKey)
+              .toList());
+    }
+  }
+
+  /**
+   * Tests seeking a cursor and reading a filtered page with its total in a sorted order.
+   */
+  @Test
+  void testSortedSeekAndSummaryPage() throws SQLException {
+    addWinesWithVintages(25);
+    WineSort sort = new WineSort(WineSortColumn.VINTAGE, false);
+    WineFilters testFilters = new WineFilters();
+    testFilters.setMinPrice(5);
+    List<Long> expected = wineDao.getAllAfter(WineCursor.FIRST, 25, testFilters, sort).stream()
+        .map(Wine::getKey)
+        .toList();
+    assertEquals(20, expected.size());
+
+    WineCursor cursor = wineDao.seekCursor(WineCursor.FIRST, 10, testFilters, sort);
+    assertEquals(expected.get(9), cursor.id());
+    WineDao.SummaryPage page = wineDao.getSummaryPageAfter(cursor, 5, testFilters, sort);
+    assertEquals(20, page.total());
+    assertEquals(expected.subList(10, 15),
+        page.summaries().stream().map(WineSummary::key).toList());
+    assertEquals(expected.get(14), page.next().id());
+    assertNull(wineDao.seekCursor(WineCursor.FIRST, 21, testFilters, sort));
+  }
+
+  /**
+   * Tests that the pages after a cursor neither skip nor repeat the wines after it when the sorted
+   * value of the cursor wine changes after the cursor was read.
+   */
+  @Test
+  void testCursorKeepsPlaceWhenCursorWineChanges() throws SQLException {
+    addWinesWithVintages(25);
+    WineSort sort = new WineSort(WineSortColumn.VINTAGE, true);
+    List<Long> expected = wineDao.getAllAfter(WineCursor.FIRST, 25, null, sort).stream()
+        .map(Wine::getKey)
+        .toList();
+    WineDao.CursorPage first = wineDao.getSummariesAfter(WineCursor.FIRST, 7, null, sort);
+    long cursorWine = first.summaries().getLast().key();
+    wineDao.getAll().stream()
+        .filter(wine -> wine.getKey() == cursorWine)
+        .findFirst()
+        .orElseThrow()
+        .setVintage(2010);
+    databaseManager.getWriteBehindBuffer().flush();
+
+    List<Long> rest = new ArrayList<>();
+    WineCursor cursor = first.next();
+    WineDao.CursorPage page;
+    while (!(page = wineDao.getSummariesAfter(cursor, 7, null, sort)).summaries().isEmpty()) {
+      page.summaries().forEach(summary -> rest.add(summary.key()));
+      cursor = page.next();
+    }
+
+    // the edited wine now sorts last, so it is the only wine read again
+    List<Long> expectedRest = new ArrayList<>(expected.subList(7, 25));
+    expectedRest.add(cursorWine);
+    assertEquals(expectedRest, rest);
+  }
+
+  /**
+   * Helper method to create wines which have not been added to the database.
+   *
+   * @param num the number of wines to create.
+   * @return the wines.
+   */
+  private List<Wine> createUnsavedWines(int num) {
+    List<Wine> wines = new ArrayList<>();
+    for (int i = 0; i < num; i++) {
+      wines.add(new Wine(-1, "wine", "blue", "nz", "christchurch", "bob's wine", "red", 2011,
+          "na", 99, 25f, (float) i, null, 0.0));
+    }
+    return wines;
+  }
+
   /**
    * Helper method to add a specified number of wines to the database for testing purposes.
    *
@@ -677,4 +1199,19 @@ public class WineDaoTest {
     wineDao.addAll(wines);
   }
 
+  /**
+   * Helper method to add wines whose vintages repeat every four wines and whose prices are their
+   * position.
+   *
+   * @param num the number of wines to add.
+   */
+  private void addWinesWithVintages(int num) throws SQLException {
+    List<Wine> wines = new ArrayList<>();
+    for (int i = 0; i < num; i++) {
+      wines.add(new Wine(-1, "wine", "blue", "nz", "christchurch", "bob's wine", "red",
+          2000 + i % 4, "na", 99, 25f, (float) i, null, 0.0));
+    }
+    wineDao.addAll(wines);
+  }
+
 }
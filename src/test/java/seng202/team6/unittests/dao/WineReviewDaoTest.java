@@ -1,15 +1,18 @@
 package seng202.team6.unittests.dao;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.sql.Date;
 import java.sql.SQLException;
+import java.util.List;
 import javafx.collections.ObservableList;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import seng202.team6.dao.UserDao;
 import seng202.team6.dao.WineDao;
+import seng202.team6.dao.WineDao.ReviewAggregate;
 import seng202.team6.dao.WineReviewDao;
 import seng202.team6.managers.DatabaseManager;
 import seng202.team6.model.GeoLocation;
@@ -220,6 +223,58 @@ public class WineReviewDaoTest {
 
   }
 
+  /**
+   * Tests that the average rating and review count of a wine follow its reviews as they are added,
+   * edited and deleted.
+   */
+  @Test
+  void testReviewAggregatesFollowReviews() throws SQLException {
+    Wine storedWine = wineDao.get(wine.getKey());
+    User otherUser = new User("other", "password", "role", "salt");
+    userDao.add(otherUser);
+
+    WineReview review = createWineReview(4, storedWine, "first");
+    wineReviewDao.add(otherUser, storedWine, 2, "second", new Date(System.currentTimeMillis()));
+    wineDao.getReviewAggregates(List.of(storedWine.getKey())).forEach(ReviewAggregate::apply);
+    assertEquals(3, storedWine.getAverageRating(), 0.001);
+    assertEquals(2, storedWine.getReviewCount());
+
+    review.setRating(5);
+    wineDao.getReviewAggregates(List.of(storedWine.getKey())).forEach(ReviewAggregate::apply);
+    assertEquals(3.5, storedWine.getAverageRating(), 0.001);
+    assertEquals(2, storedWine.getReviewCount());
+
+    wineReviewDao.delete(review);
+    wineDao.getReviewAggregates(List.of(storedWine.getKey())).forEach(ReviewAggregate::apply);
+    assertEquals(2, storedWine.getAverageRating(), 0.001);
+    assertEquals(1, storedWine.getReviewCount());
+
+    wineReviewDao.deleteAllFromUser(otherUser);
+    wineDao.getReviewAggregates(List.of(storedWine.getKey())).forEach(ReviewAggregate::apply);
+    assertEquals(0, storedWine.getAverageRating(), 0.001);
+    assertEquals(0, storedWine.getReviewCount());
+  }
+
+  /**
+   * Tests that the rating histogram counts the reviews giving each number of stars, rounding
+   * ratings to the nearest star.
+   */
+  @Test
+  void testRatingHistogram() throws SQLException {
+    WineReview review = createWineReview(4, wine, "first");
+    createWineReview(4.4, wine, "second");
+    createWineReview(1.5, wine, "third");
+
+    assertArrayEquals(new int[]{0, 0, 1, 0, 2, 0}, wineReviewDao.getRatingHistogram(wine));
+
+    review.setRating(5);
+    databaseManager.getWriteBehindBuffer().flush();
+    assertArrayEquals(new int[]{0, 0, 1, 0, 1, 1}, wineReviewDao.getRatingHistogram(wine));
+
+    wineReviewDao.deleteAllFromUser(user);
+    assertArrayEquals(new int[6], wineReviewDao.getRatingHistogram(wine));
+  }
+
   /**
    * Helper method to create and add a wine review to the database.
    *
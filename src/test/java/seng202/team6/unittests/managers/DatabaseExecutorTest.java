@@ -0,0 +1,121 @@
+package seng202.team6.unittests.managers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import seng202.team6.managers.DatabaseExecutor;
+import seng202.team6.util.LatestRequest;
+
+/**
+ * Unit tests for the DatabaseExecutor class, which runs data access work off the FX thread.
+ */
+public class DatabaseExecutorTest {
+
+  private DatabaseExecutor executor;
+
+  /**
+   * Creates a new executor before each test.
+   */
+  @BeforeEach
+  void setup() {
+    executor = new DatabaseExecutor();
+  }
+
+  /**
+   * Shuts the executor down after each test.
+   */
+  @AfterEach
+  void teardown() {
+    executor.shutdown();
+  }
+
+  /**
+   * Tests that a read completes with the result of its task.
+   */
+  @Test
+  void testReadReturnsResult() throws Exception {
+    assertEquals(42, executor.read(() -> 42).get(5, TimeUnit.SECONDS));
+  }
+
+  /**
+   * Tests that writes are run one at a time in the order they were submitted.
+   */
+  @Test
+  void testWritesRunInOrder() throws Exception {
+    List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+    List<CompletableFuture<Void>> writes = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      int value = i;
+      writes.add(executor.write(() -> {
+        order.add(value);
+        return null;
+      }));
+    }
+    CompletableFuture.allOf(writes.toArray(new CompletableFuture[0])).get(5, TimeUnit.SECONDS);
+
+    for (int i = 0; i < 50; i++) {
+      assertEquals(i, order.get(i));
+    }
+  }
+
+  /**
+   * Tests that a failing task completes its future exceptionally with the original exception.
+   */
+  @Test
+  void testFailureIsPropagated() {
+    CompletableFuture<Object> future = executor.read(() -> {
+      throw new SQLException("failed");
+    });
+
+    ExecutionException exception = assertThrows(ExecutionException.class,
+        () -> future.get(5, TimeUnit.SECONDS));
+    assertInstanceOf(SQLException.class, exception.getCause());
+  }
+
+  /**
+   * Tests that replacing a request which has not started yet cancels it so it never runs.
+   */
+  @Test
+  void testReplacedRequestIsNotRun() throws Exception {
+    CountDownLatch blocker = new CountDownLatch(1);
+    executor.read(() -> blocker.await(5, TimeUnit.SECONDS));
+
+    AtomicBoolean staleRan = new AtomicBoolean(false);
+    LatestRequest<String> latest = new LatestRequest<>();
+    CompletableFuture<String> stale = latest.replace(executor.read(() -> {
+      staleRan.set(true);
+      return "stale";
+    }));
+    CompletableFuture<String> fresh = latest.replace(executor.read(() -> "fresh"));
+    blocker.countDown();
+
+    assertEquals("fresh", fresh.get(5, TimeUnit.SECONDS));
+    assertTrue(stale.isCancelled());
+    assertFalse(staleRan.get());
+  }
+
+  /**
+   * Tests that only tasks run by the writer thread are on the writer thread.
+   */
+  @Test
+  void testIsWriterThread() throws Exception {
+    assertFalse(executor.isWriterThread());
+    assertTrue(executor.write(executor::isWriterThread).get(5, TimeUnit.SECONDS));
+    assertFalse(executor.read(executor::isWriterThread).get(5, TimeUnit.SECONDS));
+  }
+}
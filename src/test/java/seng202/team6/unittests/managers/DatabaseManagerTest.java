@@ -1,10 +1,14 @@
 package seng202.team6.unittests.managers;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 import java.sql.SQLException;
+import java.util.List;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import seng202.team6.managers.DatabaseManager;
+import seng202.team6.model.Wine;
 
 /**
  * Test class for the DatabaseManager. This class contains unit tests to verify the
@@ -40,4 +44,16 @@ public class DatabaseManagerTest {
   void testTableCreation() {
 
   }
+
+  /**
+   * Test to verify that wines can be loaded in bulk load mode and read after leaving it
+   */
+  @Test
+  void testBulkLoadMode() throws SQLException {
+    try (DatabaseManager.BulkLoad bulkLoad = databaseManager.beginBulkLoad()) {
+      databaseManager.getWineDao().replaceAll(List.of(new Wine(-1, "wine", "blue", "nz",
+          "christchurch", "bob's wine", "red", 2011, "na", 99, 25f, 10f, null, 0.0)));
+    }
+    assertEquals(1, databaseManager.getWineDao().getCount());
+  }
 }
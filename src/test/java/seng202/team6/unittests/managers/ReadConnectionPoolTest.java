@@ -0,0 +1,135 @@
+package seng202.team6.unittests.managers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sqlite.SQLiteConfig;
+import seng202.team6.managers.ReadConnectionPool;
+
+/**
+ * Unit tests for the ReadConnectionPool class, which lends read-only connections to DAO reads.
+ */
+public class ReadConnectionPoolTest {
+
+  @TempDir
+  Path directory;
+
+  private Connection writer;
+  private ReadConnectionPool pool;
+
+  /**
+   * Opens a writer connection to a database file in write-ahead log mode and a pool of one
+   * read-only connection to it before each test.
+   */
+  @BeforeEach
+  void setup() throws SQLException {
+    String url = "jdbc:sqlite:" + directory.resolve("test.db");
+    writer = DriverManager.getConnection(url);
+    try (Statement statement = writer.createStatement()) {
+      statement.execute("PRAGMA journal_mode = WAL");
+      statement.execute("CREATE TABLE ITEM (ID INTEGER PRIMARY KEY)");
+      statement.execute("INSERT INTO ITEM VALUES (1)");
+    }
+    SQLiteConfig config = new SQLiteConfig();
+    config.setReadOnly(true);
+    pool = new ReadConnectionPool(List.of(DriverManager.getConnection(url, config.toProperties())),
+        writer);
+  }
+
+  /**
+   * Closes the pool and the writer connection after each test.
+   */
+  @AfterEach
+  void teardown() throws SQLException {
+    pool.close();
+    writer.close();
+  }
+
+  /**
+   * Counts the rows in the ITEM table through a connection.
+   *
+   * @param connection the connection to read through
+   * @return the number of rows
+   */
+  private int countItems(Connection connection) throws SQLException {
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM ITEM")) {
+      return resultSet.getInt(1);
+    }
+  }
+
+  /**
+   * Tests that a read is not blocked by a write in progress and sees the last committed data.
+   */
+  @Test
+  void testReadDuringWriteSeesCommittedData() throws SQLException {
+    writer.setAutoCommit(false);
+    try (Statement statement = writer.createStatement()) {
+      statement.execute("INSERT INTO ITEM VALUES (2)");
+    }
+    try (Connection reader = pool.borrow()) {
+      assertEquals(1, countItems(reader));
+    }
+    writer.commit();
+    writer.setAutoCommit(true);
+    try (Connection reader = pool.borrow()) {
+      assertEquals(2, countItems(reader));
+    }
+  }
+
+  /**
+   * Tests that the borrowed connections cannot write.
+   */
+  @Test
+  void testBorrowedConnectionIsReadOnly() throws SQLException {
+    try (Connection reader = pool.borrow(); Statement statement = reader.createStatement()) {
+      assertThrows(SQLException.class, () -> statement.execute("INSERT INTO ITEM VALUES (3)"));
+    }
+  }
+
+  /**
+   * Tests that a thread borrowing while it holds a connection is lent the same connection, and
+   * that the connection is only returned once every borrow is closed.
+   */
+  @Test
+  void testNestedBorrowReusesConnection() throws SQLException {
+    Connection outer = pool.borrow();
+    try (Connection inner = pool.borrow()) {
+      assertEquals(1, countItems(inner));
+    }
+    assertFalse(outer.isClosed());
+    assertEquals(1, countItems(outer));
+    outer.close();
+    assertTrue(outer.isClosed());
+    try (Connection reader = pool.borrow()) {
+      assertEquals(1, countItems(reader));
+    }
+  }
+
+  /**
+   * Tests that a pool without connections lends the fallback connection and does not close it.
+   */
+  @Test
+  void testSharingPoolLendsFallbackConnection() throws SQLException {
+    ReadConnectionPool sharing = ReadConnectionPool.sharing(writer);
+    try (Connection reader = sharing.borrow()) {
+      assertEquals(1, countItems(reader));
+    }
+    sharing.close();
+    assertFalse(writer.isClosed());
+    assertEquals(0, sharing.size());
+  }
+}
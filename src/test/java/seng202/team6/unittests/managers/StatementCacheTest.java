@@ -0,0 +1,178 @@
+package seng202.team6.unittests.managers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import seng202.team6.managers.DatabaseManager;
+import seng202.team6.managers.StatementCache;
+import seng202.team6.model.Wine;
+
+/**
+ * Unit tests for the StatementCache class, which reuses prepared statements by their SQL.
+ */
+public class StatementCacheTest {
+
+  private static final String SELECT_SQL = "SELECT ID FROM ITEM WHERE ID = ?";
+
+  private StatementCache statementCache;
+  private Connection connection;
+
+  /**
+   * Creates a cache of at most two statements over an in-memory database before each test.
+   */
+  @BeforeEach
+  void setup() throws SQLException {
+    statementCache = new StatementCache(DriverManager.getConnection("jdbc:sqlite::memory:"), 2);
+    connection = statementCache.getConnection();
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("CREATE TABLE ITEM (ID INTEGER PRIMARY KEY)");
+      statement.execute("INSERT INTO ITEM VALUES (1), (2)");
+    }
+  }
+
+  /**
+   * Closes the connection and its cached statements after each test.
+   */
+  @AfterEach
+  void teardown() throws SQLException {
+    connection.close();
+  }
+
+  /**
+   * Gets the statistics of a statement.
+   *
+   * @param sql the SQL of the statement
+   * @return the statistics of the statement
+   */
+  private StatementCache.Statistics getStatistics(String sql) {
+    return statementCache.getStatistics().stream()
+        .filter(statistics -> statistics.sql().equals(sql))
+        .findFirst()
+        .orElseThrow();
+  }
+
+  /**
+   * Tests that preparing the same SQL again reuses the statement with its parameters cleared.
+   */
+  @Test
+  void testStatementIsReused() throws SQLException {
+    for (long id = 1; id <= 2; id++) {
+      try (PreparedStatement statement = connection.prepareStatement(SELECT_SQL)) {
+        statement.setLong(1, id);
+        try (ResultSet resultSet = statement.executeQuery()) {
+          assertTrue(resultSet.next());
+          assertEquals(id, resultSet.getLong(1));
+        }
+      }
+    }
+    StatementCache.Statistics statistics = getStatistics(SELECT_SQL);
+    assertEquals(1, statistics.hits());
+    assertEquals(1, statistics.misses());
+    assertEquals(0.5, statistics.hitRate());
+  }
+
+  /**
+   * Tests that a statement which is checked out is not handed out again until it is closed.
+   */
+  @Test
+  void testCheckedOutStatementIsNotShared() throws SQLException {
+    try (PreparedStatement first = connection.prepareStatement(SELECT_SQL);
+        PreparedStatement second = connection.prepareStatement(SELECT_SQL)) {
+      first.setLong(1, 1);
+      second.setLong(1, 2);
+      try (ResultSet firstResult = first.executeQuery();
+          ResultSet secondResult = second.executeQuery()) {
+        assertEquals(1, firstResult.getLong(1));
+        assertEquals(2, secondResult.getLong(1));
+      }
+    }
+    assertEquals(2, getStatistics(SELECT_SQL).misses());
+  }
+
+  /**
+   * Tests that a result set left open is closed when its statement is returned, so the statement
+   * can be reused.
+   */
+  @Test
+  void testOpenResultSetIsClosedOnReturn() throws SQLException {
+    ResultSet resultSet;
+    try (PreparedStatement statement = connection.prepareStatement(SELECT_SQL)) {
+      statement.setLong(1, 1);
+      resultSet = statement.executeQuery();
+    }
+    assertTrue(resultSet.isClosed());
+    try (PreparedStatement statement = connection.prepareStatement(SELECT_SQL)) {
+      statement.setLong(1, 2);
+      try (ResultSet reused = statement.executeQuery()) {
+        assertEquals(2, reused.getLong(1));
+      }
+    }
+  }
+
+  /**
+   * Tests that the least recently used statements are evicted once the cache is full.
+   */
+  @Test
+  void testLeastRecentlyUsedStatementIsEvicted() throws SQLException {
+    List<String> queries = List.of("SELECT 1", "SELECT 2", "SELECT 3", "SELECT 1");
+    for (String sql : queries) {
+      try (PreparedStatement statement = connection.prepareStatement(sql)) {
+        statement.executeQuery().close();
+      }
+    }
+    assertEquals(0, getStatistics("SELECT 1").hits());
+    assertEquals(2, getStatistics("SELECT 1").misses());
+  }
+
+  /**
+   * Tests that the DAOs of a database manager prepare their statements through the cache.
+   */
+  @Test
+  void testDatabaseManagerReusesDaoStatements() throws SQLException {
+    DatabaseManager databaseManager = new DatabaseManager();
+    try {
+      Wine wine = new Wine(-1, "wine", "blue", "nz", "christchurch", "bob's wine", "red", 2011,
+          "na", 99, 25f, 10f, null, 0.0);
+      databaseManager.getWineDao().add(wine);
+      databaseManager.getWineDao().get(wine.getKey());
+      databaseManager.getWineDao().get(wine.getKey());
+      assertFalse(databaseManager.getStatementStatistics().stream()
+          .filter(statistics -> statistics.sql().contains("WHERE ID = ?"))
+          .filter(statistics -> statistics.hits() > 0)
+          .toList()
+          .isEmpty());
+    } finally {
+      databaseManager.teardown();
+    }
+  }
+
+  /**
+   * Tests that DAO methods which read and write through the writer connection, rather than the
+   * read pool, also prepare their statements through the cache.
+   */
+  @Test
+  void testWriterConnectionStatementsAreCached() throws SQLException {
+    DatabaseManager databaseManager = new DatabaseManager();
+    try {
+      databaseManager.getUserDao().get("admin");
+      databaseManager.getUserDao().get("admin");
+      assertTrue(databaseManager.getStatementStatistics().stream()
+          .filter(statistics -> statistics.sql().equals("SELECT * FROM USER WHERE USERNAME = ?"))
+          .mapToLong(StatementCache.Statistics::hits)
+          .sum() > 0);
+    } finally {
+      databaseManager.teardown();
+    }
+  }
+}
@@ -0,0 +1,153 @@
+package seng202.team6.unittests.managers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import seng202.team6.managers.DatabaseExecutor;
+import seng202.team6.managers.WriteBehindBuffer;
+
+/**
+ * Unit tests for the WriteBehindBuffer class, which coalesces changes to rows before writing them.
+ */
+public class WriteBehindBufferTest {
+
+  private Connection connection;
+  private DatabaseExecutor executor;
+  private WriteBehindBuffer writeBehind;
+
+  /**
+   * Creates a table with one row and a buffer which waits 50ms before flushing before each test.
+   */
+  @BeforeEach
+  void setup() throws SQLException {
+    connection = DriverManager.getConnection("jdbc:sqlite::memory:");
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("CREATE TABLE ITEM (ID INTEGER PRIMARY KEY, NAME TEXT, PRICE REAL)");
+      statement.execute("INSERT INTO ITEM VALUES (1, 'item', 1.0)");
+    }
+    executor = new DatabaseExecutor();
+    writeBehind = new WriteBehindBuffer(connection, executor, 50);
+  }
+
+  /**
+   * Shuts the executor down and closes the connection after each test.
+   */
+  @AfterEach
+  void teardown() throws SQLException {
+    executor.shutdown();
+    connection.close();
+  }
+
+  /**
+   * Reads the name and price of the row.
+   *
+   * @return the name and price separated by a colon
+   */
+  private String readItem() throws SQLException {
+    try (Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT NAME, PRICE FROM ITEM")) {
+      return resultSet.getString("NAME") + ":" + resultSet.getDouble("PRICE");
+    }
+  }
+
+  /**
+   * Tests that changes to the same row are coalesced and only written when flushed.
+   */
+  @Test
+  void testChangesToRowAreCoalesced() throws SQLException {
+    writeBehind.update("ITEM", "ID", 1L, "NAME", "first");
+    writeBehind.update("ITEM", "ID", 1L, "PRICE", 2.5);
+    writeBehind.update("ITEM", "ID", 1L, "NAME", "second");
+    assertEquals(1, writeBehind.getPendingCount());
+    assertEquals("item:1.0", readItem());
+
+    writeBehind.flush();
+    assertEquals(0, writeBehind.getPendingCount());
+    assertEquals("second:2.5", readItem());
+  }
+
+  /**
+   * Tests that changes are flushed on the writer thread after the delay.
+   */
+  @Test
+  void testChangesAreFlushedAfterDelay() throws Exception {
+    writeBehind.update("ITEM", "ID", 1L, "NAME", "delayed");
+    // a write submitted after the delay is queued behind the scheduled flush
+    Thread.sleep(100);
+    executor.write(() -> null).get(5, TimeUnit.SECONDS);
+    assertEquals(0, writeBehind.getPendingCount());
+    assertEquals("delayed:1.0", readItem());
+  }
+
+  /**
+   * Tests that changes to a row which no longer exists are dropped without failing the flush.
+   */
+  @Test
+  void testChangesToMissingRowAreDropped() throws SQLException {
+    writeBehind.update("ITEM", "ID", 2L, "NAME", "missing");
+    writeBehind.update("ITEM", "ID", 1L, "NAME", "present");
+    writeBehind.flush();
+    assertEquals("present:1.0", readItem());
+  }
+
+  /**
+   * Tests that the changes waiting to be written can be read back without flushing them.
+   */
+  @Test
+  void testPendingChangesCanBeRead() {
+    writeBehind.update("ITEM", "ID", 1L, "NAME", "pending");
+    assertEquals(Map.of("NAME", "pending"), writeBehind.getPending("ITEM", "ID", 1L));
+    assertEquals(Map.of(), writeBehind.getPending("ITEM", "ID", 2L));
+
+    writeBehind.flush();
+    assertEquals(Map.of(), writeBehind.getPending("ITEM", "ID", 1L));
+  }
+
+  /**
+   * Tests that a flush submitted to the writer thread waits for a transaction open on it instead
+   * of joining it, so the changes survive the transaction being rolled back.
+   */
+  @Test
+  void testFlushWaitsForOpenWriteTransaction() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<Void> importing = executor.write(() -> {
+      connection.setAutoCommit(false);
+      try (Statement statement = connection.createStatement()) {
+        statement.executeUpdate("UPDATE ITEM SET PRICE = 9.0");
+        started.countDown();
+        release.await();
+        connection.rollback();
+      } finally {
+        connection.setAutoCommit(true);
+      }
+      return null;
+    });
+    started.await();
+
+    writeBehind.update("ITEM", "ID", 1L, "NAME", "kept");
+    CompletableFuture<Void> flushed = executor.write(() -> {
+      writeBehind.flush();
+      return null;
+    });
+    Thread.sleep(100);
+    assertFalse(flushed.isDone());
+
+    release.countDown();
+    importing.get(5, TimeUnit.SECONDS);
+    flushed.get(5, TimeUnit.SECONDS);
+    assertEquals("kept:1.0", readItem());
+  }
+}
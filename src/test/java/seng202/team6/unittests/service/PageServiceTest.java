@@ -4,6 +4,7 @@ import javafx.beans.property.IntegerProperty;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import seng202.team6.model.WineCursor;
 import seng202.team6.service.PageService;
 
 public class PageServiceTest {
@@ -77,4 +78,28 @@ public class PageServiceTest {
     Assertions.assertNotNull(pageService.totalItemsProperty());
   }
 
+  @Test
+  public void firstPageCursorTest() {
+    Assertions.assertEquals(WineCursor.FIRST, pageService.getCursor(1));
+    Assertions.assertNull(pageService.getCursor(2));
+  }
+
+  @Test
+  public void nearestCursorPageTest() {
+    pageService.setCursor(2, new WineCursor(2001, 100));
+    pageService.setCursor(5, new WineCursor(2004, 400));
+    Assertions.assertEquals(new WineCursor(2004, 400), pageService.getCursor(5));
+    Assertions.assertEquals(1, pageService.getNearestCursorPage(1));
+    Assertions.assertEquals(2, pageService.getNearestCursorPage(4));
+    Assertions.assertEquals(5, pageService.getNearestCursorPage(9));
+  }
+
+  @Test
+  public void totalItemsResetsCursorsTest() {
+    pageService.setCursor(2, WineCursor.ofId(100));
+    pageService.setTotalItems(1000);
+    Assertions.assertNull(pageService.getCursor(2));
+    Assertions.assertEquals(WineCursor.FIRST, pageService.getCursor(1));
+  }
+
 }
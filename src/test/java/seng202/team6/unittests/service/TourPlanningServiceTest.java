@@ -9,10 +9,12 @@ import static org.mockito.Mockito.when;
 import java.util.Arrays;
 import java.util.List;
 import javafx.collections.ObservableList;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import seng202.team6.dao.VineyardDao;
 import seng202.team6.dao.VineyardTourDao;
+import seng202.team6.managers.DatabaseExecutor;
 import seng202.team6.managers.DatabaseManager;
 import seng202.team6.model.GeoLocation;
 import seng202.team6.model.Vineyard;
@@ -25,6 +27,7 @@ public class TourPlanningServiceTest {
   private VineyardDao vineyardDao;
   private VineyardTourDao vineyardTourDao;
   private TourPlanningService tourPlanningService;
+  private DatabaseExecutor executor;
 
   @BeforeEach
   public void setUp() {
@@ -37,11 +40,18 @@ public class TourPlanningServiceTest {
     // Set up the mocked database
     when(databaseManager.getVineyardsDao()).thenReturn(vineyardDao);
     when(databaseManager.getVineyardTourDao()).thenReturn(vineyardTourDao);
+    executor = new DatabaseExecutor();
+    when(databaseManager.getExecutor()).thenReturn(executor);
 
     // Create tour planning service
     tourPlanningService = new TourPlanningService(databaseManager, vineyardTour);
   }
 
+  @AfterEach
+  void tearDown() {
+    executor.shutdown();
+  }
+
   @Test
   void testInitLoadsVineyards() {
     // Set up testing data
@@ -79,7 +89,7 @@ public class TourPlanningServiceTest {
         "logo url", geoLocation);
 
     // Add vineyard
-    tourPlanningService.addVineyard(vineyard);
+    tourPlanningService.addVineyard(vineyard).join();
 
     // Ensure everything worked
     ObservableList<Vineyard> loadedVineyards = tourPlanningService.getVineyards();
@@ -97,10 +107,10 @@ public class TourPlanningServiceTest {
     Vineyard vineyard = new Vineyard(1, "vineyard1", "10 address road",
         "region name", "awesome website", "sick description",
         "logo url", geoLocation);
-    tourPlanningService.addVineyard(vineyard);
+    tourPlanningService.addVineyard(vineyard).join();
 
     // Remove vineyard
-    tourPlanningService.removeVineyard(vineyard);
+    tourPlanningService.removeVineyard(vineyard).join();
 
     // Ensure everything worked correctly
     ObservableList<Vineyard> loadedVineyards = tourPlanningService.getVineyards();
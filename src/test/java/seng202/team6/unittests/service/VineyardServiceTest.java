@@ -8,9 +8,11 @@ import static org.mockito.Mockito.when;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import seng202.team6.dao.VineyardDao;
+import seng202.team6.managers.DatabaseExecutor;
 import seng202.team6.managers.DatabaseManager;
 import seng202.team6.model.GeoLocation;
 import seng202.team6.model.Vineyard;
@@ -22,6 +24,7 @@ public class VineyardServiceTest {
   private VineyardService vineyardService;
   private VineyardDao vineyardDao;
   private DatabaseManager databaseManager;
+  private DatabaseExecutor executor;
 
   @BeforeEach
   void setUp() {
@@ -29,6 +32,13 @@ public class VineyardServiceTest {
     databaseManager = mock(DatabaseManager.class);
     vineyardService = new VineyardService(databaseManager);
     vineyardDao = mock(VineyardDao.class);
+    executor = new DatabaseExecutor();
+    when(databaseManager.getExecutor()).thenReturn(executor);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdown();
   }
 
   @Test
@@ -50,7 +60,7 @@ public class VineyardServiceTest {
         .thenReturn(testVineyards);
 
     // Call init
-    vineyardService.init();
+    vineyardService.init().join();
 
     // Check list populated correctly
     assertEquals(2, vineyardService.get().size());
@@ -10,10 +10,12 @@ import static org.mockito.Mockito.when;
 
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import seng202.team6.dao.VineyardTourDao;
 import seng202.team6.managers.AuthenticationManager;
+import seng202.team6.managers.DatabaseExecutor;
 import seng202.team6.managers.DatabaseManager;
 import seng202.team6.model.GeoLocation;
 import seng202.team6.model.User;
@@ -27,6 +29,7 @@ public class VineyardToursServiceTest {
   private AuthenticationManager authenticationManager;
   private DatabaseManager databaseManager;
   private VineyardTourDao vineyardTourDao;
+  private DatabaseExecutor executor;
 
   @BeforeEach
   void setUp() {
@@ -37,7 +40,14 @@ public class VineyardToursServiceTest {
     vineyardToursService = new VineyardToursService(authenticationManager, databaseManager);
 
     // Mock functionality
+    executor = new DatabaseExecutor();
     when(databaseManager.getVineyardTourDao()).thenReturn(vineyardTourDao);
+    when(databaseManager.getExecutor()).thenReturn(executor);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdown();
   }
 
   @Test
@@ -98,7 +108,8 @@ public class VineyardToursServiceTest {
     when(vineyardTourDao.create(testUser, tourName)).thenReturn(testTour);
 
     // Call create vineyard tour
-    VineyardTour createdTour = vineyardToursService.createVineyardTour(tourName);
+    VineyardTour createdTour = vineyardToursService.createVineyardTour(tourName).join();
+    vineyardToursService.addVineyardTour(createdTour);
 
     // Check correct behaviour
     assertNotNull(createdTour);
@@ -117,7 +128,7 @@ public class VineyardToursServiceTest {
     vineyardToursService.getVineyardTours().add(testTour);
 
     // Call remove tour
-    vineyardToursService.removeVineyardTour(testTour);
+    vineyardToursService.removeVineyardTour(testTour).join();
 
     // Assert tour gone
     assertEquals(0, vineyardToursService.getVineyardTours().size());
@@ -1,10 +1,15 @@
 package seng202.team6.unittests.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.List;
+import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import seng202.team6.model.Wine;
 import seng202.team6.service.WineDataStatService;
 
 public class WineDataStatServiceTest {
@@ -26,16 +31,8 @@ public class WineDataStatServiceTest {
 
   @Test
   void testReset() {
-    wineDataStatService.getUniqueTitles().add("Title1");
-    wineDataStatService.getUniqueCountries().add("Country1");
-    wineDataStatService.setMinVintage(1990);
-    wineDataStatService.setMaxVintage(2020);
-    wineDataStatService.setMinScore(85);
-    wineDataStatService.setMaxScore(95);
-    wineDataStatService.setMinAbv(12.0f);
-    wineDataStatService.setMaxAbv(15.5f);
-    wineDataStatService.setMinPrice(10.0f);
-    wineDataStatService.setMaxPrice(50.0f);
+    wineDataStatService.add("Title1", "Country1", "Winery1", "red", 1990, 85, 12.0f, 10.0f);
+    wineDataStatService.add("Title2", "Country2", "Winery2", "red", 2020, 95, 15.5f, 50.0f);
 
     // Reset
     wineDataStatService.reset();
@@ -56,4 +53,96 @@ public class WineDataStatServiceTest {
     assertEquals(0, wineDataStatService.getMaxPrice());
   }
 
+  @Test
+  void testRangesShrinkWhenWinesAreRemoved() {
+    Wine cheap = createWine("Cheap", 2001, 80, 11.0f, 10.0f);
+    Wine expensive = createWine("Expensive", 2015, 95, 14.0f, 90.0f);
+    wineDataStatService.add(cheap);
+    wineDataStatService.add(expensive);
+    assertEquals(2001, wineDataStatService.getMinVintage());
+    assertEquals(90.0f, wineDataStatService.getMaxPrice());
+
+    wineDataStatService.remove(expensive);
+    assertEquals(2001, wineDataStatService.getMaxVintage());
+    assertEquals(80, wineDataStatService.getMaxScore());
+    assertEquals(11.0f, wineDataStatService.getMaxAbv());
+    assertEquals(10.0f, wineDataStatService.getMaxPrice());
+    assertEquals(Set.of("Cheap"), wineDataStatService.getUniqueTitles());
+  }
+
+  @Test
+  void testUniqueValueRemainsUntilLastWineIsRemoved() {
+    Wine first = createWine("Same", 2001, 80, 11.0f, 10.0f);
+    Wine second = createWine("Same", 2002, 85, 12.0f, 20.0f);
+    wineDataStatService.add(first);
+    wineDataStatService.add(second);
+
+    wineDataStatService.remove(first);
+    assertTrue(wineDataStatService.getUniqueTitles().contains("Same"));
+    wineDataStatService.remove(second);
+    assertFalse(wineDataStatService.getUniqueTitles().contains("Same"));
+  }
+
+  @Test
+  void testUniqueValuesAreSnapshots() {
+    wineDataStatService.add(createWine("Wine", 2001, 80, 11.0f, 10.0f));
+    Set<String> titles = wineDataStatService.getUniqueTitles();
+    wineDataStatService.add(createWine("Another", 2002, 85, 12.0f, 20.0f));
+
+    assertEquals(Set.of("Wine"), titles);
+    assertThrows(UnsupportedOperationException.class, () -> titles.add("Changed"));
+    assertEquals(List.of("Another", "Wine"), List.copyOf(wineDataStatService.getUniqueTitles()));
+  }
+
+  @Test
+  void testReplacingValuesUpdatesRanges() {
+    wineDataStatService.add(createWine("Wine", 2001, 80, 11.0f, 10.0f));
+    wineDataStatService.add(createWine("Wine", 2005, 90, 13.0f, 50.0f));
+
+    wineDataStatService.replacePrice(50.0f, 30.0f);
+    wineDataStatService.replaceVintage(2001, 0);
+    wineDataStatService.replaceTitle("Wine", "Renamed");
+    assertEquals(30.0f, wineDataStatService.getMaxPrice());
+    assertEquals(2005, wineDataStatService.getMinVintage());
+    assertEquals(Set.of("Wine", "Renamed"), wineDataStatService.getUniqueTitles());
+  }
+
+  @Test
+  void testVintagesWithoutAYearAreNotCounted() {
+    wineDataStatService.add(createWine("Wine", -1, 80, 11.0f, 10.0f));
+    wineDataStatService.add(createWine("Wine", 0, 80, 11.0f, 10.0f));
+    assertEquals(Integer.MAX_VALUE, wineDataStatService.getMinVintage());
+    assertEquals(0, wineDataStatService.getMaxVintage());
+  }
+
+  @Test
+  void testRebuildKeepsEditsMadeDuringIt() {
+    wineDataStatService.add(createWine("Stale", 2001, 80, 11.0f, 10.0f));
+    wineDataStatService.beginRebuild();
+    // the edits reach the stats being rebuilt before the scan has been swapped in
+    wineDataStatService.replaceTitle("Wine", "Renamed");
+    wineDataStatService.replacePrice(50.0f, 30.0f);
+
+    WineDataStatService scanned = new WineDataStatService();
+    scanned.add(createWine("Wine", 2001, 80, 11.0f, 10.0f));
+    scanned.add(createWine("Wine", 2005, 90, 13.0f, 50.0f));
+    wineDataStatService.finishRebuild(scanned, 7);
+
+    assertEquals(Set.of("Wine", "Renamed"), wineDataStatService.getUniqueTitles());
+    assertEquals(30.0f, wineDataStatService.getMaxPrice());
+    assertEquals(7, wineDataStatService.getCatalogVersion());
+    assertEquals(Set.of("Wine"), scanned.getUniqueTitles());
+
+    // edits after the rebuild are no longer queued
+    wineDataStatService.replaceTitle("Renamed", "Again");
+    wineDataStatService.beginRebuild();
+    wineDataStatService.finishRebuild(scanned, 8);
+    assertEquals(Set.of("Wine"), wineDataStatService.getUniqueTitles());
+  }
+
+  private Wine createWine(String title, int vintage, int score, float abv, float price) {
+    return new Wine(-1, title, "variety", "nz", "region", "winery", "red", vintage, "na", score,
+        abv, price, null, 0.0);
+  }
+
 }
@@ -2,12 +2,26 @@ package seng202.team6.unittests.service;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import seng202.team6.dao.WineDao;
 import seng202.team6.enums.WinePropertyName;
+import seng202.team6.managers.DatabaseManager;
+import seng202.team6.model.Wine;
+import seng202.team6.model.WineImportReport;
+import seng202.team6.service.WineImportProgress;
 import seng202.team6.service.WineImportService;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -77,4 +91,161 @@ class WineImportServiceTest {
     assertEquals(1, duplicates.size());
     assertTrue(duplicates.contains(WinePropertyName.TITLE));
   }
+
+  @Test
+  void testImportWinesStreamsValidRows(@TempDir Path directory)
+      throws IOException, SQLException {
+    List<String> lines = new ArrayList<>();
+    lines.add("title,price");
+    for (int i = 0; i < WineDao.BATCH_SIZE + 10; i++) {
+      lines.add("wine " + i + "," + i);
+    }
+    lines.add("bad wine,not a price");
+    File file = directory.resolve("wines.csv").toFile();
+    Files.write(file.toPath(), lines);
+
+    Map<WinePropertyName, Integer> valid = new HashMap<>();
+    valid.put(WinePropertyName.TITLE, 0);
+    valid.put(WinePropertyName.PRICE, 1);
+
+    DatabaseManager databaseManager = new DatabaseManager();
+    try {
+      WineDao wineDao = databaseManager.getWineDao();
+      WineImportReport report = wineImportService.importWines(file, valid, databaseManager, false);
+
+      assertEquals(WineDao.BATCH_SIZE + 11, report.rowsRead());
+      assertEquals(WineDao.BATCH_SIZE + 10, report.imported());
+      assertEquals(1, report.failed());
+      assertEquals(WineDao.BATCH_SIZE + 12, report.errors().getFirst().rowNumber());
+      assertEquals(WineDao.BATCH_SIZE + 10, wineDao.getCount());
+      assertEquals(WineDao.BATCH_SIZE + 9,
+          wineDao.getWineDataStatService().getMaxPrice());
+    } finally {
+      databaseManager.teardown();
+    }
+  }
+
+  @Test
+  void testImportWinesReplacesExistingWines(@TempDir Path directory)
+      throws IOException, SQLException {
+    File file = directory.resolve("wines.csv").toFile();
+    Files.write(file.toPath(), List.of("title", "first", "second"));
+    Map<WinePropertyName, Integer> valid = new HashMap<>();
+    valid.put(WinePropertyName.TITLE, 0);
+
+    DatabaseManager databaseManager = new DatabaseManager();
+    try {
+      WineDao wineDao = databaseManager.getWineDao();
+      wineImportService.importWines(file, valid, databaseManager, false);
+      wineImportService.importWines(file, valid, databaseManager, true);
+
+      assertEquals(2, wineDao.getCount());
+    } finally {
+      databaseManager.teardown();
+    }
+  }
+
+  @Test
+  void testImportWinesKeepsRowOrderAndCollectsShortRows(@TempDir Path directory)
+      throws IOException, SQLException {
+    List<String> lines = new ArrayList<>();
+    lines.add("title,price");
+    for (int i = 0; i < 2000; i++) {
+      lines.add(i % 100 == 0 ? "short row" : "wine " + i + "," + i);
+    }
+    File file = directory.resolve("wines.csv").toFile();
+    Files.write(file.toPath(), lines);
+    Map<WinePropertyName, Integer> valid = new HashMap<>();
+    valid.put(WinePropertyName.TITLE, 0);
+    valid.put(WinePropertyName.PRICE, 1);
+
+    DatabaseManager databaseManager = new DatabaseManager();
+    try {
+      WineDao wineDao = databaseManager.getWineDao();
+      WineImportReport report = wineImportService.importWines(file, valid, databaseManager, false);
+
+      assertEquals(1980, report.imported());
+      assertEquals(20, report.failed());
+      assertEquals(2, report.errors().getFirst().rowNumber());
+      List<Wine> wines = wineDao.getAll();
+      for (int i = 1; i < wines.size(); i++) {
+        assertTrue(wines.get(i - 1).getPrice() < wines.get(i).getPrice());
+      }
+    } finally {
+      databaseManager.teardown();
+    }
+  }
+
+  @Test
+  void testImportWinesReportsProgress(@TempDir Path directory) throws IOException, SQLException {
+    File file = directory.resolve("wines.csv").toFile();
+    Files.write(file.toPath(), List.of("title,price", "first,10", "second,oops"));
+    Map<WinePropertyName, Integer> valid = new HashMap<>();
+    valid.put(WinePropertyName.TITLE, 0);
+    valid.put(WinePropertyName.PRICE, 1);
+
+    DatabaseManager databaseManager = new DatabaseManager();
+    try {
+      WineImportProgress progress = new WineImportProgress(file.length());
+      wineImportService.importWines(file, valid, databaseManager, false, progress);
+
+      WineImportProgress.Snapshot snapshot = progress.snapshot();
+      assertEquals(file.length(), snapshot.bytesRead());
+      assertEquals(1.0, snapshot.fractionRead());
+      assertEquals(1, snapshot.rowsParsed());
+      assertEquals(1, snapshot.rowsInserted());
+      assertEquals(1, snapshot.rowsRejected());
+    } finally {
+      databaseManager.teardown();
+    }
+  }
+
+  @Test
+  void testCancelledImportLeavesWinesUnchanged(@TempDir Path directory)
+      throws IOException, SQLException {
+    File file = directory.resolve("wines.csv").toFile();
+    Files.write(file.toPath(), List.of("title", "first", "second"));
+    Map<WinePropertyName, Integer> valid = new HashMap<>();
+    valid.put(WinePropertyName.TITLE, 0);
+
+    DatabaseManager databaseManager = new DatabaseManager();
+    try {
+      WineDao wineDao = databaseManager.getWineDao();
+      wineImportService.importWines(file, valid, databaseManager, false);
+      WineImportProgress progress = new WineImportProgress(file.length());
+      progress.cancel();
+
+      assertThrows(CancellationException.class,
+          () -> wineImportService.importWines(file, valid, databaseManager, true, progress));
+      assertEquals(2, wineDao.getCount());
+    } finally {
+      databaseManager.teardown();
+    }
+  }
+
+  @Test
+  void testUnreadableRowFailsReplacingImport(@TempDir Path directory)
+      throws IOException, SQLException {
+    File file = directory.resolve("wines.csv").toFile();
+    Files.write(file.toPath(), List.of("title", "first", "second"));
+    File truncated = directory.resolve("truncated.csv").toFile();
+    // the quoted field is never closed, so the last row cannot be read
+    Files.write(truncated.toPath(), List.of("title", "third", "\"fourth"));
+    Map<WinePropertyName, Integer> valid = new HashMap<>();
+    valid.put(WinePropertyName.TITLE, 0);
+
+    DatabaseManager databaseManager = new DatabaseManager();
+    try {
+      WineDao wineDao = databaseManager.getWineDao();
+      wineImportService.importWines(file, valid, databaseManager, false);
+
+      assertThrows(IOException.class,
+          () -> wineImportService.importWines(truncated, valid, databaseManager, true));
+      assertEquals(2, wineDao.getCount());
+      assertEquals(Set.of("first", "second"), Set.copyOf(
+          wineDao.getAll().stream().map(Wine::getTitle).toList()));
+    } finally {
+      databaseManager.teardown();
+    }
+  }
 }
@@ -82,7 +82,7 @@ public class WineListServiceTest {
   @Test
   public void createWineListValid() throws SQLException {
     User user = databaseManager.getUserDao().get("admin");
-    wineListService.createWineList(user, "New List");
+    wineListService.createWineList(user, "New List").join();
     boolean inList = databaseManager.getWineListDao()
         .getAll(user).stream().anyMatch(wineList -> wineList.name().equals("New List"));
     assertTrue(inList);
@@ -94,7 +94,7 @@ public class WineListServiceTest {
   @Test
   public void createWineListInvalid() throws SQLException {
     User user = databaseManager.getUserDao().get("admin");
-    wineListService.createWineList(user, "New List");
+    wineListService.createWineList(user, "New List").join();
     boolean inList = databaseManager.getWineListDao()
         .getAll(user).stream().anyMatch(wineList -> wineList.name().equals("Not Exists"));
     assertFalse(inList);
@@ -126,9 +126,9 @@ public class WineListServiceTest {
   @Test
   public void deleteWineListValid() throws SQLException {
     User user = databaseManager.getUserDao().get("admin");
-    wineListService.createWineList(user, "New List");
+    wineListService.createWineList(user, "New List").join();
     WineList wineList = databaseManager.getWineListDao().getAll(user).getLast();
-    wineListService.deleteWineList(wineList);
+    wineListService.deleteWineList(wineList).join();
     boolean inList = databaseManager.getWineListDao()
         .getAll(user).stream().anyMatch(list -> list.name().equals("New List"));
     assertFalse(inList);
@@ -140,9 +140,9 @@ public class WineListServiceTest {
   @Test
   public void deleteWineListInValid() throws SQLException {
     User user = databaseManager.getUserDao().get("admin");
-    wineListService.createWineList(user, "New List");
+    wineListService.createWineList(user, "New List").join();
     WineList wineList = new WineList(-1, "Not Valid");
-    wineListService.deleteWineList(wineList);
+    wineListService.deleteWineList(wineList).join();
     boolean inList = databaseManager.getWineListDao()
         .getAll(user).stream().anyMatch(list -> list.name().equals("New List"));
     assertTrue(inList);
@@ -0,0 +1,143 @@
+package seng202.team6.unittests.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import seng202.team6.managers.DatabaseManager;
+import seng202.team6.model.GeoLocation;
+import seng202.team6.util.CachingLocationResolver;
+import seng202.team6.util.CsvLocationResolver;
+import seng202.team6.util.LocationResolver;
+
+/**
+ * Tests the caching location resolver, using the offline CSV resolver in place of ORS
+ */
+class CachingLocationResolverTest {
+
+  DatabaseManager databaseManager;
+  CountingResolver counting;
+  CachingLocationResolver resolver;
+
+  /**
+   * Sets up a caching resolver in front of the CSV resolver
+   */
+  @BeforeEach
+  void setup() throws SQLException {
+    databaseManager = new DatabaseManager();
+    counting = new CountingResolver(new CsvLocationResolver());
+    resolver = new CachingLocationResolver(counting, databaseManager.getGeocodeCacheDao(),
+        databaseManager.getExecutor());
+  }
+
+  /**
+   * Tears down the database
+   */
+  @AfterEach
+  void teardown() {
+    databaseManager.teardown();
+  }
+
+  /**
+   * Tests the CSV resolver matches addresses by their town and ignores postcodes
+   */
+  @Test
+  void csvResolverMatchesTown() {
+    CsvLocationResolver csv = new CsvLocationResolver();
+    assertNotNull(csv.resolveLocation("blenheim").join());
+    assertEquals(csv.resolveLocation("Blenheim").join().getLatitude(),
+        csv.resolveLocation("1 Main Road, Blenheim 7201").join().getLatitude());
+    assertNull(csv.resolveLocation("Atlantis").join());
+  }
+
+  /**
+   * Tests found and missing locations are both cached, so only new locations are looked up again
+   */
+  @Test
+  void onlyUncachedLocationsAreLookedUp() {
+    Map<String, GeoLocation> first = resolver.resolveAll(List.of("Blenheim", "Atlantis"));
+    assertNotNull(first.get("Blenheim"));
+    assertTrue(first.containsKey("Atlantis"));
+    assertNull(first.get("Atlantis"));
+    assertEquals(List.of("Blenheim", "Atlantis"), counting.lookups);
+
+    counting.lookups.clear();
+    Map<String, GeoLocation> second = resolver.resolveAll(
+        List.of("blenheim", "Atlantis", "Queenstown"));
+    assertEquals(List.of("Queenstown"), counting.lookups);
+    assertEquals(first.get("Blenheim").getLatitude(), second.get("blenheim").getLatitude());
+    assertTrue(second.containsKey("Atlantis"));
+    assertNotNull(second.get("Queenstown"));
+
+    counting.lookups.clear();
+    assertNotNull(resolver.resolveLocation("QUEENSTOWN").join());
+    assertTrue(counting.lookups.isEmpty());
+  }
+
+  /**
+   * Tests spellings of the same address are looked up once and share the result
+   */
+  @Test
+  void spellingsAreLookedUpOnce() {
+    Map<String, GeoLocation> resolved = resolver.resolveAll(List.of("Blenheim", " BLENHEIM "));
+    assertEquals(1, counting.lookups.size());
+    assertNotNull(resolved.get(" BLENHEIM "));
+  }
+
+  /**
+   * Tests failed lookups are not cached, so they are retried
+   */
+  @Test
+  void failuresAreRetried() {
+    counting.failing = true;
+    assertTrue(resolver.resolveAll(List.of("Blenheim")).isEmpty());
+
+    counting.failing = false;
+    counting.lookups.clear();
+    assertNotNull(resolver.resolveAll(List.of("Blenheim")).get("Blenheim"));
+    assertEquals(List.of("Blenheim"), counting.lookups);
+  }
+
+  /**
+   * A resolver which records the locations it is asked to look up and can fail every lookup
+   */
+  private static class CountingResolver implements LocationResolver {
+
+    final LocationResolver resolver;
+    final List<String> lookups = new ArrayList<>();
+    boolean failing;
+
+    CountingResolver(LocationResolver resolver) {
+      this.resolver = resolver;
+    }
+
+    @Override
+    public CompletableFuture<GeoLocation> resolveLocation(String locationName) {
+      lookups.add(locationName);
+      if (failing) {
+        return CompletableFuture.failedFuture(new IllegalStateException("offline"));
+      }
+      return resolver.resolveLocation(locationName);
+    }
+
+    @Override
+    public void resolveAll(List<String> locations, BiConsumer<String, GeoLocation> consumer) {
+      for (String location : locations) {
+        lookups.add(location);
+        if (!failing) {
+          consumer.accept(location, resolver.resolveLocation(location).join());
+        }
+      }
+    }
+  }
+}
@@ -2,7 +2,16 @@ package seng202.team6.unittests.util;
 
 import static java.lang.Thread.sleep;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import seng202.team6.util.DatabaseObjectUniquer;
@@ -32,6 +41,17 @@ class DatabaseObjectUniquerTest {
     assertEquals(ref, objects.tryGetObject(1));
   }
 
+  /**
+   * Tests that adding an object when one is already stored returns the stored object
+   */
+  @Test
+  void addObjectIfAbsent() {
+    TestClass ref2 = new TestClass();
+    assertEquals(ref, objects.addObjectIfAbsent(1, ref2));
+    assertEquals(ref2, objects.addObjectIfAbsent(2, ref2));
+    assertEquals(ref2, objects.tryGetObject(2));
+  }
+
   /**
    * Tests adding an object
    */
@@ -53,7 +73,8 @@ class DatabaseObjectUniquerTest {
     for (int i = 0; i < 1000; i++) {
       TestClass ref2 = new TestClass();
       objects.addObject(2 + i, ref2);
-      assertEquals(2 + i, objects.size());
+      // collected objects are removed as they are queued, so the map may already be smaller
+      assertTrue(objects.size() <= 2 + i);
     }
 
     for (int i = 0; i < 1000; i++) {
@@ -68,6 +89,80 @@ class DatabaseObjectUniquerTest {
 
   }
 
+  /**
+   * Tests that adding a second live object for an id fails
+   */
+  @Test
+  void addDuplicateObject() {
+    assertThrows(IllegalStateException.class, () -> objects.addObject(1, new TestClass()));
+  }
+
+  /**
+   * Tests removing objects, including ids which collide with many others
+   */
+  @Test
+  void removeObject() {
+    List<TestClass> added = new ArrayList<>();
+    for (long id = 2; id < 500; id++) {
+      TestClass object = new TestClass();
+      added.add(object);
+      objects.addObject(id * 1024, object);
+    }
+    objects.removeObject(1);
+    for (long id = 2; id < 500; id += 2) {
+      objects.removeObject(id * 1024);
+    }
+    assertNull(objects.tryGetObject(1));
+    for (long id = 3; id < 500; id += 2) {
+      assertSame(added.get((int) id - 2), objects.tryGetObject(id * 1024));
+    }
+    assertEquals(249, objects.size());
+  }
+
+  /**
+   * Tests that hits and misses are counted
+   */
+  @Test
+  void statistics() {
+    objects.tryGetObject(1);
+    objects.tryGetObject(2);
+    DatabaseObjectUniquer.Statistics statistics = objects.getStatistics();
+    assertEquals(1, statistics.hits());
+    assertEquals(1, statistics.misses());
+    assertEquals(0.5, statistics.hitRate());
+  }
+
+  /**
+   * Tests that threads adding the same ids concurrently all receive the same object for each id
+   *
+   * @throws Exception if a thread fails
+   */
+  @Test
+  void concurrentAddObjectIfAbsent() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<List<TestClass>>> results = new ArrayList<>();
+      for (int thread = 0; thread < 4; thread++) {
+        results.add(executor.submit(() -> {
+          List<TestClass> stored = new ArrayList<>();
+          for (long id = 2; id < 10000; id++) {
+            stored.add(objects.addObjectIfAbsent(id, new TestClass()));
+          }
+          return stored;
+        }));
+      }
+      List<TestClass> first = results.getFirst().get();
+      for (Future<List<TestClass>> result : results) {
+        List<TestClass> stored = result.get();
+        for (int i = 0; i < stored.size(); i++) {
+          assertSame(first.get(i), stored.get(i));
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   static class TestClass {
 
   }
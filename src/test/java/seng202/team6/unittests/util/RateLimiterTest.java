@@ -0,0 +1,88 @@
+package seng202.team6.unittests.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import seng202.team6.util.RateLimiter;
+
+/**
+ * Tests the token bucket rate limiter with a clock which only moves when told to
+ */
+class RateLimiterTest {
+
+  static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  AtomicLong clock;
+  RateLimiter limiter;
+
+  /**
+   * Sets up a limiter of 10 tokens a second with a burst of 3
+   */
+  @BeforeEach
+  void setup() {
+    clock = new AtomicLong();
+    limiter = new RateLimiter(10, 3, clock::get);
+  }
+
+  /**
+   * Tests a full bucket allows a burst, then reserves tokens at the refill rate
+   */
+  @Test
+  void burstThenSteadyRate() {
+    assertEquals(0, limiter.reserve());
+    assertEquals(0, limiter.reserve());
+    assertEquals(0, limiter.reserve());
+    assertEquals(SECOND / 10, limiter.reserve());
+    assertEquals(2 * SECOND / 10, limiter.reserve());
+  }
+
+  /**
+   * Tests tokens refill over time but never beyond the burst size
+   */
+  @Test
+  void refillIsCapped() {
+    for (int i = 0; i < 3; i++) {
+      assertTrue(limiter.tryAcquire());
+    }
+    assertFalse(limiter.tryAcquire());
+
+    clock.addAndGet(SECOND / 10);
+    assertTrue(limiter.tryAcquire());
+    assertFalse(limiter.tryAcquire());
+
+    clock.addAndGet(10 * SECOND);
+    for (int i = 0; i < 3; i++) {
+      assertTrue(limiter.tryAcquire());
+    }
+    assertFalse(limiter.tryAcquire());
+  }
+
+  /**
+   * Tests tokens reserved by waiting callers are not handed out again
+   */
+  @Test
+  void reservedTokensAreNotAvailable() {
+    for (int i = 0; i < 5; i++) {
+      limiter.reserve();
+    }
+    clock.addAndGet(2 * SECOND / 10);
+    assertFalse(limiter.tryAcquire());
+    clock.addAndGet(SECOND / 10);
+    assertTrue(limiter.tryAcquire());
+  }
+
+  /**
+   * Tests a limiter must allow at least one action
+   */
+  @Test
+  void invalidLimits() {
+    assertThrows(IllegalArgumentException.class, () -> new RateLimiter(0, 1));
+    assertThrows(IllegalArgumentException.class, () -> new RateLimiter(1, 0));
+  }
+}
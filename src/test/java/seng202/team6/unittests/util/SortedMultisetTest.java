@@ -0,0 +1,92 @@
+package seng202.team6.unittests.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import seng202.team6.util.SortedMultiset;
+
+/**
+ * Tests the sorted multiset
+ */
+class SortedMultisetTest {
+
+  SortedMultiset<Integer> values;
+
+  /**
+   * Adds 5 twice and 1 and 9 once
+   */
+  @BeforeEach
+  void setup() {
+    values = new SortedMultiset<>();
+    values.add(5);
+    values.add(9);
+    values.add(5);
+    values.add(1);
+  }
+
+  /**
+   * Tests the distinct values are kept in order with their counts
+   */
+  @Test
+  void elementSet() {
+    assertEquals(List.of(1, 5, 9), List.copyOf(values.elementSet()));
+    assertEquals(2, values.count(5));
+    assertEquals(0, values.count(7));
+  }
+
+  /**
+   * Tests a value is only removed with its last occurrence
+   */
+  @Test
+  void remove() {
+    assertFalse(values.remove(5));
+    assertTrue(values.elementSet().contains(5));
+    assertTrue(values.remove(5));
+    assertFalse(values.elementSet().contains(5));
+    assertFalse(values.remove(5));
+  }
+
+  /**
+   * Tests the smallest and largest values follow removals
+   */
+  @Test
+  void firstAndLast() {
+    assertEquals(1, values.first());
+    assertEquals(9, values.last());
+    values.remove(1);
+    values.replace(9, 3);
+    assertEquals(5, values.first());
+    assertEquals(5, values.last());
+    values.clear();
+    assertNull(values.first());
+    assertNull(values.last());
+  }
+
+  /**
+   * Tests adding another multiset adds its counts
+   */
+  @Test
+  void addAll() {
+    SortedMultiset<Integer> other = new SortedMultiset<>();
+    other.add(5);
+    other.add(2);
+    values.addAll(other);
+    assertEquals(3, values.count(5));
+    assertEquals(1, values.count(2));
+  }
+
+  /**
+   * Tests null values are ignored
+   */
+  @Test
+  void nullsAreIgnored() {
+    assertFalse(values.add(null));
+    assertFalse(values.remove(null));
+    assertEquals(3, values.elementSet().size());
+  }
+}
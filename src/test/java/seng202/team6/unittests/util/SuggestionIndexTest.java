@@ -0,0 +1,111 @@
+package seng202.team6.unittests.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import seng202.team6.util.SuggestionIndex;
+
+/**
+ * Tests the suggestion index
+ */
+class SuggestionIndexTest {
+
+  SuggestionIndex index;
+
+  /**
+   * Indexes a few wine titles
+   */
+  @BeforeEach
+  void setup() {
+    index = SuggestionIndex.of(List.of("Pinot Noir", "Merlot", "Noir Blanc", "Shiraz",
+        "Central Otago Pinot", "pinotage"));
+  }
+
+  /**
+   * Tests entries starting with the text come before entries containing it elsewhere
+   */
+  @Test
+  void prefixMatchesFirst() {
+    assertEquals(List.of("Pinot Noir", "pinotage", "Central Otago Pinot"),
+        index.search("pinot", 10));
+    assertEquals(List.of("Noir Blanc", "Pinot Noir"), index.search("NOIR", 10));
+  }
+
+  /**
+   * Tests short text without a trigram still finds substrings
+   */
+  @Test
+  void shortText() {
+    assertEquals(List.of("Central Otago Pinot", "Shiraz"), index.search("ra", 10));
+  }
+
+  /**
+   * Tests text containing every trigram of an entry but not the text itself is not matched
+   */
+  @Test
+  void trigramsAreVerified() {
+    SuggestionIndex overlapping = SuggestionIndex.of(List.of("abcd bcde"));
+    assertTrue(overlapping.search("abcde", 10).isEmpty());
+    assertEquals(List.of("abcd bcde"), overlapping.search("bcd", 10));
+  }
+
+  /**
+   * Tests the number of suggestions is limited
+   */
+  @Test
+  void limit() {
+    assertEquals(List.of("Pinot Noir"), index.search("pinot", 1));
+    assertEquals(List.of("Noir Blanc", "Central Otago Pinot"), index.search("n", 2));
+  }
+
+  /**
+   * Tests a search refined as the user types matches a fresh search, including after deleting
+   * characters
+   */
+  @Test
+  void incrementalSearch() {
+    SuggestionIndex.Search search = index.newSearch();
+    for (String text : List.of("p", "pi", "pin", "pino", "pinot", "pinot ", "pino", "ot", "ota")) {
+      assertEquals(index.search(text, 10), search.search(text, 10), text);
+    }
+  }
+
+  /**
+   * Tests an index of many entries matches a scan of every entry
+   */
+  @Test
+  void manyEntries() {
+    List<String> entries = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      entries.add("Wine " + i);
+    }
+    SuggestionIndex large = SuggestionIndex.of(entries);
+    assertEquals(5000, large.size());
+    long expected = entries.stream().filter(entry -> entry.contains("123")).count();
+    assertEquals(expected, large.search("123", 5000).size());
+    assertEquals(List.of("Wine 1234"), large.search("e 1234", 10));
+  }
+
+  /**
+   * Tests a search refined over many entries matches a fresh search at every length, both for
+   * short text served from the prefix range and for text narrowed by its trigrams
+   */
+  @Test
+  void incrementalSearchOfManyEntries() {
+    List<String> entries = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      entries.add("Wine " + i);
+    }
+    SuggestionIndex large = SuggestionIndex.of(entries);
+    SuggestionIndex.Search search = large.newSearch();
+    for (String text : List.of("w", "wi", "win", "wine", "wine ", "wine 4", "wine 49", "1", "12",
+        "123", "1234")) {
+      assertEquals(large.search(text, 20), search.search(text, 20), text);
+    }
+    assertEquals(List.of("Wine 0", "Wine 1"), search.search("w", 2));
+  }
+}
@@ -0,0 +1,69 @@
+package seng202.team6.unittests.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import seng202.team6.util.VersionedLruCache;
+
+/**
+ * Tests the versioned LRU cache
+ */
+class VersionedLruCacheTest {
+
+  VersionedLruCache<String, Integer> cache;
+
+  /**
+   * Creates a cache of two entries
+   */
+  @BeforeEach
+  void setup() {
+    cache = new VersionedLruCache<>(2);
+  }
+
+  /**
+   * Tests a value is only found at the version it was cached at
+   */
+  @Test
+  void version() {
+    cache.put("a", 1, 10);
+    assertEquals(10, cache.get("a", 1));
+    assertNull(cache.get("a", 2));
+    // the outdated entry is dropped rather than kept for the old version
+    assertNull(cache.get("a", 1));
+  }
+
+  /**
+   * Tests the least recently used entry is evicted
+   */
+  @Test
+  void leastRecentlyUsedEvicted() {
+    cache.put("a", 1, 10);
+    cache.put("b", 1, 20);
+    cache.get("a", 1);
+    cache.put("c", 1, 30);
+    assertEquals(10, cache.get("a", 1));
+    assertNull(cache.get("b", 1));
+    assertEquals(30, cache.get("c", 1));
+  }
+
+  /**
+   * Tests hits, misses and evictions are counted
+   */
+  @Test
+  void statistics() {
+    cache.put("a", 1, 10);
+    cache.get("a", 1);
+    cache.get("a", 1);
+    cache.get("b", 1);
+    cache.put("b", 1, 20);
+    cache.put("c", 1, 30);
+    VersionedLruCache.Statistics statistics = cache.getStatistics();
+    assertEquals(2, statistics.hits());
+    assertEquals(1, statistics.misses());
+    assertEquals(1, statistics.evictions());
+    assertEquals(2, statistics.size());
+    assertEquals(2.0 / 3, statistics.hitRate(), 1e-9);
+  }
+}